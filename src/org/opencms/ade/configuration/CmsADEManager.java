@@ -81,6 +81,7 @@ import org.opencms.xml.content.CmsXmlContentFactory;
 import org.opencms.xml.content.CmsXmlContentProperty;
 import org.opencms.xml.content.CmsXmlContentPropertyHelper;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -166,6 +167,9 @@ public class CmsADEManager {
     /** Node name for the nav level type value. */
     public static final String N_TYPE = "Type";
 
+    /** ADE parameter which enables the snapshot files of the detail name caches if set to 'true'. */
+    public static final String PARAM_DETAIL_NAME_SNAPSHOT = "detailnames.snapshot";
+
     /** The path to the sitemap editor JSP. */
     public static final String PATH_SITEMAP_EDITOR_JSP = "/system/workplace/commons/sitemap.jsp";
 
@@ -630,6 +634,19 @@ public class CmsADEManager {
         return m_moduleConfigType;
     }
 
+    /**
+     * Returns an object identifying the current state of the Online ADE configuration.<p>
+     *
+     * A different object is returned whenever the Online configuration changes, so the returned objects
+     * can be compared by identity to detect configuration changes.<p>
+     *
+     * @return an object identifying the current state of the Online ADE configuration
+     */
+    public Object getOnlineConfigurationState() {
+
+        return getCacheState(true);
+    }
+
     /**
      * Gets ADE parameters.<p>
      *
@@ -914,8 +931,8 @@ public class CmsADEManager {
                 m_offlineFormatterCache.reload();
                 m_onlineFormatterCache.reload();
 
-                m_offlineDetailIdCache = new CmsDetailNameCache(m_offlineCms);
-                m_onlineDetailIdCache = new CmsDetailNameCache(m_onlineCms);
+                m_offlineDetailIdCache = new CmsDetailNameCache(m_offlineCms, getDetailNameSnapshotFile("offline"));
+                m_onlineDetailIdCache = new CmsDetailNameCache(m_onlineCms, getDetailNameSnapshotFile("online"));
                 m_offlineDetailIdCache.initialize();
                 m_onlineDetailIdCache.initialize();
 
@@ -1123,7 +1140,12 @@ public class CmsADEManager {
      */
     public void shutdown() {
 
-        // do nothing
+        if (m_offlineDetailIdCache != null) {
+            m_offlineDetailIdCache.shutdown();
+        }
+        if (m_onlineDetailIdCache != null) {
+            m_onlineDetailIdCache.shutdown();
+        }
     }
 
     /**
@@ -1305,6 +1327,22 @@ public class CmsADEManager {
         return state.lookupConfiguration(rootPath);
     }
 
+    /**
+     * Returns the snapshot file for a detail name cache, if snapshots are enabled.<p>
+     *
+     * @param name the name of the cache
+     *
+     * @return the snapshot file, or <code>null</code> if snapshots are disabled
+     */
+    private File getDetailNameSnapshotFile(String name) {
+
+        if (!Boolean.parseBoolean(m_parameters.get(PARAM_DETAIL_NAME_SNAPSHOT))) {
+            return null;
+        }
+        String path = "detailnames" + File.separatorChar + name + ".dat";
+        return new File(OpenCms.getSystemInfo().getAbsoluteRfsPathRelativeToWebInf(path));
+    }
+
     /**
      * Returns true if the project set in the CmsObject is the Online project.<p>
      *
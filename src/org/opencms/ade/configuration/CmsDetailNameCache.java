@@ -36,23 +36,41 @@ import org.opencms.file.types.CmsResourceTypeXmlContainerPage;
 import org.opencms.file.types.CmsResourceTypeXmlContent;
 import org.opencms.file.types.I_CmsResourceType;
 import org.opencms.loader.CmsLoaderException;
+import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
 import org.opencms.main.OpenCms;
-import org.opencms.util.CmsManyToOneMap;
 import org.opencms.util.CmsUUID;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import org.apache.commons.logging.Log;
 
-import com.google.common.collect.Sets;
-
 /**
  * A cache which stores structure ids for URL names.<p>
+ *
+ * The cache is updated incrementally for the structure ids of changed resources, so the cost of an update
+ * only depends on the number of changed resources. Optionally, the URL names are written to a snapshot file,
+ * which is used on the next startup instead of reading all URL names from the database first. Since the snapshot
+ * may be outdated, the URL names are reloaded in the background right after startup, and until this has finished,
+ * lookups are confirmed with the database.<p>
  */
 public class CmsDetailNameCache implements I_CmsGlobalConfigurationCache {
 
@@ -62,14 +80,26 @@ public class CmsDetailNameCache implements I_CmsGlobalConfigurationCache {
     /** The logger for this class. */
     private static final Log LOG = CmsLog.getLog(CmsDetailNameCache.class);
 
+    /** The version of the snapshot file format. */
+    private static final int SNAPSHOT_VERSION = 1;
+
     /** The CMS context used by this cache. */
     private CmsObject m_cms;
 
     /** The internal map from URL names to structure ids. */
-    private CmsManyToOneMap<String, CmsUUID> m_detailIdCache = new CmsManyToOneMap<String, CmsUUID>();
+    private volatile Map<String, CmsUUID> m_detailIdCache = new ConcurrentHashMap<String, CmsUUID>();
+
+    /** The snapshot file, or <code>null</code> if no snapshot should be used. */
+    private File m_snapshotFile;
+
+    /** Flag indicating that the cache contents have been read from the snapshot and not been reloaded yet. */
+    private volatile boolean m_snapshotUnconfirmed;
 
     /** The set of structure ids for which the URL names have to be updated. */
-    private Set<CmsUUID> m_updateSet = Sets.newHashSet();
+    private Set<CmsUUID> m_updateSet = Collections.newSetFromMap(new ConcurrentHashMap<CmsUUID, Boolean>());
+
+    /** The URL names by structure id, only accessed while holding the lock of this cache. */
+    private Map<CmsUUID, Set<String>> m_urlNames = new HashMap<CmsUUID, Set<String>>();
 
     /**
      * Creates a new instance.<p>
@@ -78,7 +108,19 @@ public class CmsDetailNameCache implements I_CmsGlobalConfigurationCache {
      */
     public CmsDetailNameCache(CmsObject cms) {
 
+        this(cms, null);
+    }
+
+    /**
+     * Creates a new instance which uses a snapshot file for faster startup.<p>
+     *
+     * @param cms the CMS context to use
+     * @param snapshotFile the snapshot file, or <code>null</code> if no snapshot should be used
+     */
+    public CmsDetailNameCache(CmsObject cms, File snapshotFile) {
+
         m_cms = cms;
+        m_snapshotFile = snapshotFile;
     }
 
     /**
@@ -98,22 +140,40 @@ public class CmsDetailNameCache implements I_CmsGlobalConfigurationCache {
      */
     public CmsUUID getDetailId(String name) {
 
+        if (m_snapshotUnconfirmed && !CmsUUID.isValidUUID(name)) {
+            // the snapshot may be outdated until the URL names have been reloaded, so ask the database
+            try {
+                return readIdForUrlName(name);
+            } catch (CmsException e) {
+                LOG.warn(e.getLocalizedMessage(), e);
+            }
+        }
         return m_detailIdCache.get(name);
     }
 
     /**
      * Initializes the cache by scheduling the update actions and loading the initial cache contents.<p>
+     *
+     * If a snapshot file is available, the cache contents are read from the snapshot, and the
+     * URL names are reloaded from the database in the background right away.<p>
      */
     public void initialize() {
 
-        OpenCms.getExecutor().scheduleWithFixedDelay(new Runnable() {
+        Runnable update = new Runnable() {
 
             public void run() {
 
                 checkForUpdates();
             }
-        }, DELAY_MILLIS, DELAY_MILLIS, TimeUnit.MILLISECONDS);
-        reload();
+        };
+        OpenCms.getExecutor().scheduleWithFixedDelay(update, DELAY_MILLIS, DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        if ((m_snapshotFile != null) && readSnapshot()) {
+            // the snapshot may be outdated, so reload the URL names in the background
+            markForUpdate(CmsUUID.getNullUUID());
+            OpenCms.getExecutor().execute(update);
+        } else {
+            reload();
+        }
     }
 
     /**
@@ -133,6 +193,18 @@ public class CmsDetailNameCache implements I_CmsGlobalConfigurationCache {
 
     }
 
+    /**
+     * Writes the snapshot file, if a snapshot should be used.<p>
+     *
+     * This is called when OpenCms is shut down.<p>
+     */
+    public synchronized void shutdown() {
+
+        if (m_snapshotFile != null) {
+            writeSnapshot();
+        }
+    }
+
     /**
      * @see org.opencms.ade.configuration.I_CmsGlobalConfigurationCache#update(org.opencms.db.CmsPublishedResource)
      */
@@ -157,23 +229,21 @@ public class CmsDetailNameCache implements I_CmsGlobalConfigurationCache {
     synchronized void checkForUpdates() {
 
         if (!m_updateSet.isEmpty()) {
-            Set<CmsUUID> copiedIds = Sets.newHashSet(m_updateSet);
-            m_updateSet.clear();
+            Set<CmsUUID> copiedIds = new HashSet<CmsUUID>();
+            Iterator<CmsUUID> itIds = m_updateSet.iterator();
+            while (itIds.hasNext()) {
+                copiedIds.add(itIds.next());
+                itIds.remove();
+            }
 
             if (copiedIds.contains(CmsUUID.getNullUUID())) {
                 LOG.info("Updating detail name cache: reloading...");
                 reload();
             } else {
                 LOG.info("Updating detail name cache. Number of changed files: " + copiedIds.size());
-                CmsManyToOneMap<String, CmsUUID> cacheCopy = new CmsManyToOneMap<String, CmsUUID>(m_detailIdCache);
                 for (CmsUUID id : copiedIds) {
-                    Set<String> urlNames = getUrlNames(id);
-                    cacheCopy.removeValue(id);
-                    for (String urlName : urlNames) {
-                        cacheCopy.put(urlName, id);
-                    }
+                    updateUrlNames(id, getUrlNames(id));
                 }
-                m_detailIdCache = cacheCopy;
             }
         }
     }
@@ -207,7 +277,7 @@ public class CmsDetailNameCache implements I_CmsGlobalConfigurationCache {
      * @param id the structure id of a resource
      * @return the URL names for the resource
      */
-    private Set<String> getUrlNames(CmsUUID id) {
+    Set<String> getUrlNames(CmsUUID id) {
 
         try {
             return new HashSet<String>(m_cms.readUrlNamesForAllLocales(id));
@@ -222,26 +292,202 @@ public class CmsDetailNameCache implements I_CmsGlobalConfigurationCache {
      *
      * @param id the structure id to update
      */
-    private synchronized void markForUpdate(CmsUUID id) {
+    void markForUpdate(CmsUUID id) {
 
         m_updateSet.add(id);
     }
 
+    /**
+     * Reads all URL name mappings from the database.<p>
+     *
+     * @return all URL name mappings
+     *
+     * @throws CmsException if something goes wrong
+     */
+    List<CmsUrlNameMappingEntry> readAllUrlNameMappings() throws CmsException {
+
+        return m_cms.readUrlNameMappings(CmsUrlNameMappingFilter.ALL);
+    }
+
+    /**
+     * Reads the structure id for a URL name from the database.<p>
+     *
+     * @param name the URL name
+     *
+     * @return the structure id, or <code>null</code> if the URL name is not mapped
+     *
+     * @throws CmsException if something goes wrong
+     */
+    CmsUUID readIdForUrlName(String name) throws CmsException {
+
+        return m_cms.readIdForUrlName(name);
+    }
+
+    /**
+     * Reads the cache contents from the snapshot file.<p>
+     *
+     * @return <code>true</code> if the snapshot file could be read
+     */
+    synchronized boolean readSnapshot() {
+
+        if (!m_snapshotFile.isFile()) {
+            return false;
+        }
+        Map<String, CmsUUID> newDetailIds = new ConcurrentHashMap<String, CmsUUID>();
+        Map<CmsUUID, Set<String>> newUrlNames = new HashMap<CmsUUID, Set<String>>();
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(
+                new BufferedInputStream(new GZIPInputStream(new FileInputStream(m_snapshotFile))));
+            if (in.readInt() != SNAPSHOT_VERSION) {
+                return false;
+            }
+            int idCount = in.readInt();
+            byte[] idBytes = new byte[16];
+            for (int i = 0; i < idCount; i++) {
+                in.readFully(idBytes);
+                CmsUUID id = new CmsUUID(idBytes);
+                int nameCount = in.readInt();
+                Set<String> names = new HashSet<String>();
+                for (int j = 0; j < nameCount; j++) {
+                    String name = in.readUTF();
+                    names.add(name);
+                    newDetailIds.put(name, id);
+                }
+                newUrlNames.put(id, names);
+            }
+            LOG.info(
+                "Initializing detail name cache with " + newDetailIds.size() + " entries from " + m_snapshotFile);
+            m_urlNames = newUrlNames;
+            m_detailIdCache = newDetailIds;
+            m_snapshotUnconfirmed = true;
+            return true;
+        } catch (IOException e) {
+            LOG.warn(e.getLocalizedMessage(), e);
+            return false;
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+        }
+    }
+
     /**
      * Loads the complete URL name data into the cache.<p>
      */
-    private void reload() {
+    private synchronized void reload() {
 
-        CmsManyToOneMap<String, CmsUUID> newMap = new CmsManyToOneMap<String, CmsUUID>();
+        Map<String, CmsUUID> newDetailIds = new ConcurrentHashMap<String, CmsUUID>();
+        Map<CmsUUID, Set<String>> newUrlNames = new HashMap<CmsUUID, Set<String>>();
         try {
-            List<CmsUrlNameMappingEntry> mappings = m_cms.readUrlNameMappings(CmsUrlNameMappingFilter.ALL);
+            List<CmsUrlNameMappingEntry> mappings = readAllUrlNameMappings();
             LOG.info("Initializing detail name cache with " + mappings.size() + " entries");
             for (CmsUrlNameMappingEntry entry : mappings) {
-                newMap.put(entry.getName(), entry.getStructureId());
+                CmsUUID oldId = newDetailIds.put(entry.getName(), entry.getStructureId());
+                if ((oldId != null) && !oldId.equals(entry.getStructureId())) {
+                    newUrlNames.get(oldId).remove(entry.getName());
+                }
+                Set<String> names = newUrlNames.get(entry.getStructureId());
+                if (names == null) {
+                    names = new HashSet<String>();
+                    newUrlNames.put(entry.getStructureId(), names);
+                }
+                names.add(entry.getName());
             }
-            m_detailIdCache = newMap;
+            m_urlNames = newUrlNames;
+            m_detailIdCache = newDetailIds;
+            m_snapshotUnconfirmed = false;
         } catch (Exception e) {
             LOG.error(e.getLocalizedMessage(), e);
+            if (m_snapshotUnconfirmed) {
+                // try again with the next update
+                markForUpdate(CmsUUID.getNullUUID());
+            }
+            return;
+        }
+        if (m_snapshotFile != null) {
+            writeSnapshot();
+        }
+    }
+
+    /**
+     * Replaces the URL names of a single structure id.<p>
+     *
+     * The new URL names are added before the old ones are removed, so that URL names which did not change
+     * can always be found.<p>
+     *
+     * @param id the structure id
+     * @param urlNames the new URL names of the structure id
+     */
+    private void updateUrlNames(CmsUUID id, Set<String> urlNames) {
+
+        Set<String> oldUrlNames = m_urlNames.remove(id);
+        for (String name : urlNames) {
+            CmsUUID oldId = m_detailIdCache.put(name, id);
+            if ((oldId != null) && !oldId.equals(id)) {
+                // the URL name was used by another resource before
+                Set<String> otherNames = m_urlNames.get(oldId);
+                if (otherNames != null) {
+                    otherNames.remove(name);
+                    if (otherNames.isEmpty()) {
+                        m_urlNames.remove(oldId);
+                    }
+                }
+            }
+        }
+        if (oldUrlNames != null) {
+            for (String name : oldUrlNames) {
+                if (!urlNames.contains(name)) {
+                    m_detailIdCache.remove(name, id);
+                }
+            }
+        }
+        if (!urlNames.isEmpty()) {
+            m_urlNames.put(id, urlNames);
+        }
+    }
+
+    /**
+     * Writes the cache contents to the snapshot file.<p>
+     */
+    private void writeSnapshot() {
+
+        File tempFile = new File(m_snapshotFile.getPath() + ".tmp");
+        DataOutputStream out = null;
+        try {
+            m_snapshotFile.getParentFile().mkdirs();
+            out = new DataOutputStream(
+                new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(tempFile))));
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeInt(m_urlNames.size());
+            for (Map.Entry<CmsUUID, Set<String>> entry : m_urlNames.entrySet()) {
+                out.write(entry.getKey().toByteArray());
+                out.writeInt(entry.getValue().size());
+                for (String name : entry.getValue()) {
+                    out.writeUTF(name);
+                }
+            }
+            out.close();
+            out = null;
+            // replace the old snapshot only with a complete new one
+            if (!tempFile.renameTo(m_snapshotFile)) {
+                m_snapshotFile.delete();
+                tempFile.renameTo(m_snapshotFile);
+            }
+        } catch (IOException e) {
+            LOG.warn(e.getLocalizedMessage(), e);
+        } finally {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
         }
     }
 }
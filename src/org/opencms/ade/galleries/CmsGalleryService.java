@@ -1019,8 +1019,14 @@ public class CmsGalleryService extends CmsGwtService implements I_CmsGalleryServ
                 List<CmsResource> resources = cms.getSubFolders(
                     resource.getRootPath(),
                     CmsResourceFilter.ONLY_VISIBLE_NO_DELETED);
+                Map<CmsUUID, List<CmsProperty>> properties = cms.readPropertyObjects(
+                    resources,
+                    Collections.singleton(CmsPropertyDefinition.PROPERTY_TITLE),
+                    false);
                 for (CmsResource res : resources) {
-                    String title = cms.readPropertyObject(res, CmsPropertyDefinition.PROPERTY_TITLE, false).getValue();
+                    String title = CmsProperty.get(
+                        CmsPropertyDefinition.PROPERTY_TITLE,
+                        properties.get(res.getStructureId())).getValue();
                     result.add(
                         internalCreateVfsEntryBean(
                             getCmsObject(),
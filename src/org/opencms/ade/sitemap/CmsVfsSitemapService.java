@@ -434,7 +434,8 @@ public class CmsVfsSitemapService extends CmsGwtService implements I_CmsSitemapS
                 Collections.singletonList(new CmsProperty(CmsPropertyDefinition.PROPERTY_TITLE, title, null)));
             folderEntry = readGalleryFolderEntry(
                 galleryFolder,
-                OpenCms.getResourceManager().getResourceType(galleryFolder).getTypeName());
+                OpenCms.getResourceManager().getResourceType(galleryFolder).getTypeName(),
+                Collections.<CmsUUID, List<CmsProperty>> emptyMap());
             tryUnlock(galleryFolder);
         } catch (CmsException e) {
             error(e);
@@ -703,8 +704,15 @@ public class CmsVfsSitemapService extends CmsGwtService implements I_CmsSitemapS
             result.setDefaultFileId(defaultFile != null ? defaultFile.getStructureId() : null);
             result.setId(id);
             result.setFolder(resource.isFolder());
-            List<CmsProperty> props = cms.readPropertyObjects(resource, false);
-            List<CmsProperty> defaultFileProps = cms.readPropertyObjects(defaultFile, false);
+            List<CmsResource> propertyResources = Lists.newArrayList(resource);
+            if (defaultFile != null) {
+                propertyResources.add(defaultFile);
+            }
+            Map<CmsUUID, List<CmsProperty>> propertyLists = cms.readPropertyObjects(propertyResources, null, false);
+            List<CmsProperty> props = propertyLists.get(resource.getStructureId());
+            List<CmsProperty> defaultFileProps = defaultFile != null
+            ? propertyLists.get(defaultFile.getStructureId())
+            : Collections.<CmsProperty> emptyList();
             Map<String, CmsClientProperty> clientProps = createClientProperties(props, true);
             Map<String, CmsClientProperty> clientDefaultFileProps = createClientProperties(defaultFileProps, true);
 
@@ -2148,13 +2156,16 @@ public class CmsVfsSitemapService extends CmsGwtService implements I_CmsSitemapS
     private List<CmsClientSitemapEntry> getChildren(String root, int levels, String targetPath) {
 
         List<CmsClientSitemapEntry> children = new ArrayList<CmsClientSitemapEntry>();
-        int i = 0;
-        for (CmsJspNavElement navElement : getNavBuilder().getNavigationForFolder(
+        List<CmsJspNavElement> navElements = getNavBuilder().getNavigationForFolder(
             root,
             Visibility.all,
-            CmsResourceFilter.ONLY_VISIBLE_NO_DELETED)) {
+            CmsResourceFilter.ONLY_VISIBLE_NO_DELETED);
+        Map<CmsUUID, CmsResource> defaultFiles = readDefaultFiles(navElements);
+        Map<CmsUUID, List<CmsProperty>> properties = readEntryProperties(navElements, defaultFiles);
+        int i = 0;
+        for (CmsJspNavElement navElement : navElements) {
             try {
-                CmsClientSitemapEntry child = toClientEntry(navElement, false);
+                CmsClientSitemapEntry child = toClientEntry(navElement, false, defaultFiles, properties);
                 if (child != null) {
                     child.setPosition(i);
                     children.add(child);
@@ -2176,6 +2187,30 @@ public class CmsVfsSitemapService extends CmsGwtService implements I_CmsSitemapS
         return children;
     }
 
+    /**
+     * Gets the properties of a resource as a map of client properties, using the given bulk read result if possible.<p>
+     *
+     * @param cms the CMS context to use
+     * @param res the resource whose properties to read
+     * @param properties the property lists read in bulk, with the structure ids of the resources as keys
+     *
+     * @return the client properties as a map
+     *
+     * @throws CmsException if something goes wrong
+     */
+    private Map<String, CmsClientProperty> getClientProperties(
+        CmsObject cms,
+        CmsResource res,
+        Map<CmsUUID, List<CmsProperty>> properties)
+    throws CmsException {
+
+        List<CmsProperty> props = properties.get(res.getStructureId());
+        if (props == null) {
+            return getClientProperties(cms, res, false);
+        }
+        return createClientProperties(props, false);
+    }
+
     /**
      * Returns the clipboard data from the current user.<p>
      *
@@ -2203,31 +2238,43 @@ public class CmsVfsSitemapService extends CmsGwtService implements I_CmsSitemapS
         if (obj instanceof String) {
             try {
                 JSONArray array = new JSONArray((String)obj);
+                Map<CmsUUID, CmsResource> deleted = new LinkedHashMap<CmsUUID, CmsResource>();
                 for (int i = 0; i < array.length(); i++) {
                     try {
                         CmsUUID delId = new CmsUUID(array.getString(i));
                         CmsResource res = cms.readResource(delId, CmsResourceFilter.ALL);
                         if (res.getState().isDeleted()) {
                             // make sure resource is still deleted
-                            CmsClientSitemapEntry delEntry = new CmsClientSitemapEntry();
-                            delEntry.setSitePath(cms.getSitePath(res));
-                            delEntry.setOwnProperties(getClientProperties(cms, res, false));
-                            delEntry.setName(res.getName());
-                            delEntry.setVfsPath(cms.getSitePath(res));
-                            delEntry.setResourceTypeName(
-                                OpenCms.getResourceManager().getResourceType(res).getTypeName());
-                            delEntry.setEntryType(
-                                res.isFolder()
-                                ? EntryType.folder
-                                : isRedirectType(res.getTypeId()) ? EntryType.redirect : EntryType.leaf);
-                            delEntry.setId(delId);
-                            result.put(delId, delEntry);
+                            deleted.put(delId, res);
                         }
                     } catch (Throwable e) {
                         // should never happen, catches wrong or no longer existing values
                         LOG.warn(e.getLocalizedMessage());
                     }
                 }
+                Map<CmsUUID, List<CmsProperty>> properties = readPropertyObjects(
+                    new ArrayList<CmsResource>(deleted.values()));
+                for (Map.Entry<CmsUUID, CmsResource> entry : deleted.entrySet()) {
+                    try {
+                        CmsUUID delId = entry.getKey();
+                        CmsResource res = entry.getValue();
+                        CmsClientSitemapEntry delEntry = new CmsClientSitemapEntry();
+                        delEntry.setSitePath(cms.getSitePath(res));
+                        delEntry.setOwnProperties(getClientProperties(cms, res, properties));
+                        delEntry.setName(res.getName());
+                        delEntry.setVfsPath(cms.getSitePath(res));
+                        delEntry.setResourceTypeName(OpenCms.getResourceManager().getResourceType(res).getTypeName());
+                        delEntry.setEntryType(
+                            res.isFolder()
+                            ? EntryType.folder
+                            : isRedirectType(res.getTypeId()) ? EntryType.redirect : EntryType.leaf);
+                        delEntry.setId(delId);
+                        result.put(delId, delEntry);
+                    } catch (Throwable e) {
+                        // should never happen, catches wrong or no longer existing values
+                        LOG.warn(e.getLocalizedMessage());
+                    }
+                }
             } catch (Throwable e) {
                 // should never happen, catches json parsing
                 LOG.warn(e.getLocalizedMessage());
@@ -2281,11 +2328,16 @@ public class CmsVfsSitemapService extends CmsGwtService implements I_CmsSitemapS
         List<CmsResource> galleryFolders = getCmsObject().readResources(
             entryPointUri,
             CmsResourceFilter.ONLY_VISIBLE_NO_DELETED.addRequireType(galleryType.getTypeId()));
+        List<CmsResource> ownFolders = new ArrayList<CmsResource>();
         for (CmsResource folder : galleryFolders) {
+            if (!isInSubsite(subSitePaths, folder.getRootPath())) {
+                ownFolders.add(folder);
+            }
+        }
+        Map<CmsUUID, List<CmsProperty>> properties = readPropertyObjects(ownFolders);
+        for (CmsResource folder : ownFolders) {
             try {
-                if (!isInSubsite(subSitePaths, folder.getRootPath())) {
-                    galleries.add(readGalleryFolderEntry(folder, galleryType.getTypeName()));
-                }
+                galleries.add(readGalleryFolderEntry(folder, galleryType.getTypeName(), properties));
             } catch (CmsException ex) {
                 log(ex.getLocalizedMessage(), ex);
             }
@@ -2331,6 +2383,7 @@ public class CmsVfsSitemapService extends CmsGwtService implements I_CmsSitemapS
         if (obj instanceof String) {
             try {
                 JSONArray array = new JSONArray((String)obj);
+                Map<CmsUUID, CmsJspNavElement> navEntries = new LinkedHashMap<CmsUUID, CmsJspNavElement>();
                 for (int i = 0; i < array.length(); i++) {
                     try {
                         CmsUUID modId = new CmsUUID(array.getString(i));
@@ -2340,14 +2393,29 @@ public class CmsVfsSitemapService extends CmsGwtService implements I_CmsSitemapS
                             sitePath,
                             CmsResourceFilter.ONLY_VISIBLE_NO_DELETED);
                         if (navEntry.isInNavigation()) {
-                            CmsClientSitemapEntry modEntry = toClientEntry(navEntry, false);
-                            result.put(modId, modEntry);
+                            navEntries.put(modId, navEntry);
                         }
                     } catch (Throwable e) {
                         // should never happen, catches wrong or no longer existing values
                         LOG.warn(e.getLocalizedMessage());
                     }
                 }
+                List<CmsJspNavElement> navElements = new ArrayList<CmsJspNavElement>(navEntries.values());
+                Map<CmsUUID, CmsResource> defaultFiles = readDefaultFiles(navElements);
+                Map<CmsUUID, List<CmsProperty>> properties = readEntryProperties(navElements, defaultFiles);
+                for (Map.Entry<CmsUUID, CmsJspNavElement> entry : navEntries.entrySet()) {
+                    try {
+                        CmsClientSitemapEntry modEntry = toClientEntry(
+                            entry.getValue(),
+                            false,
+                            defaultFiles,
+                            properties);
+                        result.put(entry.getKey(), modEntry);
+                    } catch (Throwable e) {
+                        // should never happen, catches wrong or no longer existing values
+                        LOG.warn(e.getLocalizedMessage());
+                    }
+                }
             } catch (Throwable e) {
                 // should never happen, catches json parsing
                 LOG.warn(e.getLocalizedMessage());
@@ -2843,27 +2911,108 @@ public class CmsVfsSitemapService extends CmsGwtService implements I_CmsSitemapS
         }
     }
 
+    /**
+     * Reads the default files of the folder entries among the given navigation elements.<p>
+     *
+     * The result contains the structure ids of the folders as keys, with <code>null</code> values for folders
+     * without a default file. Folders whose default file can not be read are left out, so that the error
+     * is reported when the entry itself is converted.<p>
+     *
+     * @param navElements the navigation elements
+     *
+     * @return the default files, with the structure ids of the folders as keys
+     */
+    private Map<CmsUUID, CmsResource> readDefaultFiles(List<CmsJspNavElement> navElements) {
+
+        CmsObject cms = getCmsObject();
+        Map<CmsUUID, CmsResource> result = new HashMap<CmsUUID, CmsResource>();
+        for (CmsJspNavElement navElement : navElements) {
+            CmsResource resource = navElement.getResource();
+            if (resource.isFolder() && !navElement.isNavigationLevel()) {
+                try {
+                    result.put(
+                        resource.getStructureId(),
+                        cms.readDefaultFile(resource, CmsResourceFilter.ONLY_VISIBLE_NO_DELETED));
+                } catch (CmsException e) {
+                    LOG.debug(e.getLocalizedMessage(), e);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reads the properties of the given navigation elements and their default files in bulk.<p>
+     *
+     * @param navElements the navigation elements
+     * @param defaultFiles the default files, as returned by {@link #readDefaultFiles(List)}
+     *
+     * @return the property lists, with the structure ids of the resources as keys
+     */
+    private Map<CmsUUID, List<CmsProperty>> readEntryProperties(
+        List<CmsJspNavElement> navElements,
+        Map<CmsUUID, CmsResource> defaultFiles) {
+
+        List<CmsResource> resources = new ArrayList<CmsResource>();
+        for (CmsJspNavElement navElement : navElements) {
+            resources.add(navElement.getResource());
+        }
+        for (CmsResource defaultFile : defaultFiles.values()) {
+            if (defaultFile != null) {
+                resources.add(defaultFile);
+            }
+        }
+        return readPropertyObjects(resources);
+    }
+
     /**
      * Reads the gallery folder properties.<p>
      *
      * @param folder the folder resource
      * @param typeName the  resource type name
+     * @param properties the property lists read in bulk, with the structure ids of the resources as keys
      *
      * @return the folder entry data
      *
      * @throws CmsException if the folder properties can not be read
      */
-    private CmsGalleryFolderEntry readGalleryFolderEntry(CmsResource folder, String typeName) throws CmsException {
+    private CmsGalleryFolderEntry readGalleryFolderEntry(
+        CmsResource folder,
+        String typeName,
+        Map<CmsUUID, List<CmsProperty>> properties)
+    throws CmsException {
 
         CmsObject cms = getCmsObject();
         CmsGalleryFolderEntry folderEntry = new CmsGalleryFolderEntry();
         folderEntry.setResourceType(typeName);
         folderEntry.setSitePath(cms.getSitePath(folder));
         folderEntry.setStructureId(folder.getStructureId());
-        folderEntry.setOwnProperties(getClientProperties(cms, folder, false));
+        folderEntry.setOwnProperties(getClientProperties(cms, folder, properties));
         return folderEntry;
     }
 
+    /**
+     * Reads the properties of the given resources in bulk.<p>
+     *
+     * If the bulk read fails, an empty map is returned, so that the properties are read per resource instead.<p>
+     *
+     * @param resources the resources to read the properties for
+     *
+     * @return the property lists, with the structure ids of the resources as keys
+     */
+    private Map<CmsUUID, List<CmsProperty>> readPropertyObjects(List<CmsResource> resources) {
+
+        if (resources.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        try {
+            return getCmsObject().readPropertyObjects(resources, null, false);
+        } catch (CmsException e) {
+            LOG.warn(e.getLocalizedMessage(), e);
+            return Collections.emptyMap();
+        }
+    }
+
     /**
      * Helper method for removing all locales except one from a container page.<p>
      *
@@ -3019,6 +3168,31 @@ public class CmsVfsSitemapService extends CmsGwtService implements I_CmsSitemapS
      */
     private CmsClientSitemapEntry toClientEntry(CmsJspNavElement navElement, boolean isRoot) throws CmsException {
 
+        List<CmsJspNavElement> navElements = Collections.singletonList(navElement);
+        Map<CmsUUID, CmsResource> defaultFiles = readDefaultFiles(navElements);
+        return toClientEntry(navElement, isRoot, defaultFiles, readEntryProperties(navElements, defaultFiles));
+    }
+
+    /**
+     * Converts a jsp navigation element into a client sitemap entry, using the default files and properties
+     * which have already been read in bulk.<p>
+     *
+     * @param navElement the jsp navigation element
+     * @param isRoot true if the entry is a root entry
+     * @param defaultFiles the default files, as returned by {@link #readDefaultFiles(List)}
+     * @param properties the property lists read in bulk, with the structure ids of the resources as keys
+     *
+     * @return the client sitemap entry
+     *
+     * @throws CmsException if something goes wrong
+     */
+    private CmsClientSitemapEntry toClientEntry(
+        CmsJspNavElement navElement,
+        boolean isRoot,
+        Map<CmsUUID, CmsResource> defaultFiles,
+        Map<CmsUUID, List<CmsProperty>> properties)
+    throws CmsException {
+
         CmsResource entryPage = null;
         CmsObject cms = getCmsObject();
         CmsClientSitemapEntry clientEntry = new CmsClientSitemapEntry();
@@ -3028,14 +3202,18 @@ public class CmsVfsSitemapService extends CmsGwtService implements I_CmsSitemapS
         clientEntry.setResourceState(ownResource.getState());
         CmsResource defaultFileResource = null;
         if (ownResource.isFolder() && !navElement.isNavigationLevel()) {
-            defaultFileResource = cms.readDefaultFile(ownResource, CmsResourceFilter.ONLY_VISIBLE_NO_DELETED);
+            if (defaultFiles.containsKey(ownResource.getStructureId())) {
+                defaultFileResource = defaultFiles.get(ownResource.getStructureId());
+            } else {
+                defaultFileResource = cms.readDefaultFile(ownResource, CmsResourceFilter.ONLY_VISIBLE_NO_DELETED);
+            }
         }
 
-        Map<String, CmsClientProperty> ownProps = getClientProperties(cms, ownResource, false);
+        Map<String, CmsClientProperty> ownProps = getClientProperties(cms, ownResource, properties);
 
         Map<String, CmsClientProperty> defaultFileProps = null;
         if (defaultFileResource != null) {
-            defaultFileProps = getClientProperties(cms, defaultFileResource, false);
+            defaultFileProps = getClientProperties(cms, defaultFileResource, properties);
             clientEntry.setDefaultFileId(defaultFileResource.getStructureId());
             clientEntry.setDefaultFileType(
                 OpenCms.getResourceManager().getResourceType(defaultFileResource.getTypeId()).getTypeName());
@@ -3184,14 +3362,19 @@ public class CmsVfsSitemapService extends CmsGwtService implements I_CmsSitemapS
         List<CmsPropertyModification> propertyModifications)
     throws CmsException {
 
-        Map<String, CmsProperty> ownProps = getPropertiesByName(cms.readPropertyObjects(ownRes, false));
+        List<CmsResource> propertyResources = Lists.newArrayList(ownRes);
+        if (defaultFileRes != null) {
+            propertyResources.add(defaultFileRes);
+        }
+        Map<CmsUUID, List<CmsProperty>> propertyLists = cms.readPropertyObjects(propertyResources, null, false);
+        Map<String, CmsProperty> ownProps = getPropertiesByName(propertyLists.get(ownRes.getStructureId()));
         // determine if the title property should be changed in case of a 'NavText' change
         boolean changeOwnTitle = shouldChangeTitle(ownProps);
 
         boolean changeDefaultFileTitle = false;
         Map<String, CmsProperty> defaultFileProps = Maps.newHashMap();
         if (defaultFileRes != null) {
-            defaultFileProps = getPropertiesByName(cms.readPropertyObjects(defaultFileRes, false));
+            defaultFileProps = getPropertiesByName(propertyLists.get(defaultFileRes.getStructureId()));
             // determine if the title property of the default file should be changed
             changeDefaultFileTitle = shouldChangeDefaultFileTitle(
                 defaultFileProps,
@@ -0,0 +1,266 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cache;
+
+import org.opencms.util.CmsRequestUtil;
+import org.opencms.util.CmsStringUtil;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+import javax.servlet.ServletResponseWrapper;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Sends files from the RFS disk caches to the client without reading them into memory.<p>
+ *
+ * The file content is delivered with the servlet container's "sendfile" support if available,
+ * otherwise it is transferred from a {@link FileChannel} to the response output stream.
+ * Conditional requests with an entity tag and single byte range requests are supported.<p>
+ *
+ * Callers must not use this for responses that have to buffer the content, e.g. responses
+ * of included resources or static export responses.<p>
+ *
+ * @since 10.5.0
+ */
+public final class CmsDiskCacheFileSender {
+
+    /** Request attribute for the end offset (exclusive) of a file to send with the container's sendfile support. */
+    public static final String ATTR_SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    /** Request attribute for the file name to send with the container's sendfile support. */
+    public static final String ATTR_SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+
+    /** Request attribute for the start offset of a file to send with the container's sendfile support. */
+    public static final String ATTR_SENDFILE_START = "org.apache.tomcat.sendfile.start";
+
+    /** Request attribute set by the servlet container if sendfile is supported. */
+    public static final String ATTR_SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+
+    /** The only supported range unit. */
+    private static final String RANGE_UNIT_BYTES = "bytes";
+
+    /**
+     * Hides the public constructor.<p>
+     */
+    private CmsDiskCacheFileSender() {
+
+        // noop
+    }
+
+    /**
+     * Returns the entity tag for the given cached file.<p>
+     *
+     * The disk cache file names contain hash codes of the resource state and the parameters,
+     * so the name and the length identify the content, independent of the file modification date
+     * which is changed by the cache to track the file usage.<p>
+     *
+     * @param file the cached file
+     *
+     * @return the entity tag, including the quotes
+     */
+    public static String getETag(File file) {
+
+        return "\"" + Integer.toHexString(file.getPath().hashCode()) + "-" + Long.toHexString(file.length()) + "\"";
+    }
+
+    /**
+     * Checks if the given entity tag matches the value of an "If-None-Match" header.<p>
+     *
+     * @param header the header value, may be <code>null</code>
+     * @param etag the entity tag of the current content
+     *
+     * @return <code>true</code> if the client already has the current content
+     */
+    public static boolean matchesETag(String header, String etag) {
+
+        if (header == null) {
+            return false;
+        }
+        for (String tag : CmsStringUtil.splitAsList(header, ',', true)) {
+            if (tag.startsWith("W/")) {
+                // weak comparison is used for If-None-Match
+                tag = tag.substring(2);
+            }
+            if ("*".equals(tag) || etag.equals(tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Parses the value of a "Range" header for a content of the given length.<p>
+     *
+     * Only a single range is supported, requests for multiple ranges are answered with the full content.<p>
+     *
+     * @param header the header value, may be <code>null</code>
+     * @param length the length of the content
+     *
+     * @return the first and the last byte position of the range, an empty array if the range is not satisfiable,
+     *      or <code>null</code> if the full content should be sent
+     */
+    public static long[] parseRange(String header, long length) {
+
+        if (header == null) {
+            return null;
+        }
+        header = header.trim();
+        if (!header.startsWith(RANGE_UNIT_BYTES + "=")) {
+            // unknown range unit
+            return null;
+        }
+        String spec = header.substring(RANGE_UNIT_BYTES.length() + 1).trim();
+        if (spec.indexOf(',') >= 0) {
+            // multiple ranges, send the full content
+            return null;
+        }
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        String first = spec.substring(0, dash).trim();
+        String last = spec.substring(dash + 1).trim();
+        long start;
+        long end;
+        try {
+            if (first.length() == 0) {
+                // suffix range, the last n bytes
+                if (last.length() == 0) {
+                    return null;
+                }
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0) {
+                    return new long[0];
+                }
+                start = Math.max(0, length - suffix);
+                end = length - 1;
+            } else {
+                start = Long.parseLong(first);
+                end = last.length() == 0 ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+            }
+        } catch (NumberFormatException e) {
+            // invalid range header, ignore it
+            return null;
+        }
+        if ((start < 0) || (start > end)) {
+            // this includes a start position behind the end of the content
+            return new long[0];
+        }
+        return new long[] {start, end};
+    }
+
+    /**
+     * Sends the given cached file to the client.<p>
+     *
+     * The content type and the caching headers must already be set on the response.
+     * This sets the status, the "ETag", "Accept-Ranges", "Content-Length" and "Content-Range" headers,
+     * and writes the content unless this is a "HEAD" request.<p>
+     *
+     * @param req the current request
+     * @param res the current response
+     * @param file the cached file to send
+     *
+     * @throws IOException in case of errors reading the file or writing the response
+     */
+    public static void send(HttpServletRequest req, HttpServletResponse res, File file) throws IOException {
+
+        long length = file.length();
+        String etag = getETag(file);
+        res.setHeader(CmsRequestUtil.HEADER_ETAG, etag);
+        res.setHeader(CmsRequestUtil.HEADER_ACCEPT_RANGES, RANGE_UNIT_BYTES);
+        if (matchesETag(req.getHeader(CmsRequestUtil.HEADER_IF_NONE_MATCH), etag)) {
+            res.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long[] range = null;
+        String ifRange = req.getHeader(CmsRequestUtil.HEADER_IF_RANGE);
+        if ((ifRange == null) || etag.equals(ifRange.trim())) {
+            // a date in "If-Range" is never considered as matching, since the file dates are not stable
+            range = parseRange(req.getHeader(CmsRequestUtil.HEADER_RANGE), length);
+        }
+        long start = 0;
+        long count = length;
+        if (range == null) {
+            res.setStatus(HttpServletResponse.SC_OK);
+        } else if (range.length == 0) {
+            res.setHeader(CmsRequestUtil.HEADER_CONTENT_RANGE, RANGE_UNIT_BYTES + " */" + length);
+            res.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            res.setContentLength(0);
+            return;
+        } else {
+            start = range[0];
+            count = (range[1] - range[0]) + 1;
+            res.setHeader(
+                CmsRequestUtil.HEADER_CONTENT_RANGE,
+                RANGE_UNIT_BYTES + " " + range[0] + "-" + range[1] + "/" + length);
+            res.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        }
+        if (count <= Integer.MAX_VALUE) {
+            res.setContentLength((int)count);
+        } else {
+            res.setHeader(CmsRequestUtil.HEADER_CONTENT_LENGTH, String.valueOf(count));
+        }
+        if ("HEAD".equalsIgnoreCase(req.getMethod()) || (count == 0)) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(req.getAttribute(ATTR_SENDFILE_SUPPORT)) && !(res instanceof ServletResponseWrapper)) {
+            // let the container send the file directly from the file system
+            req.setAttribute(ATTR_SENDFILE_FILENAME, file.getCanonicalPath());
+            req.setAttribute(ATTR_SENDFILE_START, Long.valueOf(start));
+            req.setAttribute(ATTR_SENDFILE_END, Long.valueOf(start + count));
+            return;
+        }
+        FileInputStream in = new FileInputStream(file);
+        try {
+            FileChannel channel = in.getChannel();
+            // the output channel must not be closed, since this would close the response stream
+            WritableByteChannel out = Channels.newChannel(res.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long transferred = channel.transferTo(position, remaining, out);
+                if (transferred <= 0) {
+                    // the file was truncated in the meantime
+                    break;
+                }
+                position += transferred;
+                remaining -= transferred;
+            }
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -25,20 +25,27 @@
  * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
  */
 
+
 package org.opencms.cache;
 
 import org.opencms.main.CmsLog;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
 import org.apache.commons.logging.Log;
 
 /**
  * Implements an LRU (last recently used) cache.<p>
  *
  * The idea of this cache is to separate the caching policy from the data structure
- * where the cached objects are stored. The advantage of doing so is, that the CmsFlexLruCache
- * can identify the last-recently-used object in O(1), whereas you would need at least
- * O(n) to traverse the data structure that stores the cached objects. Second, you can
- * easily use the CmsFlexLruCache to get an LRU cache, no matter what data structure is used to
+ * where the cached objects are stored. The advantage of doing so is, that you can
+ * easily use the CmsLruCache to get an LRU cache, no matter what data structure is used to
  * store your objects.
  * <p>
  * The cache policy is affected by the "costs" of the objects being cached. Valuable cache costs
@@ -46,7 +53,14 @@ import org.apache.commons.logging.Log;
  * <p>
  * To add/remove cached objects from the data structure that stores them, the objects have to
  * implement the methods defined in the interface I_CmsLruCacheObject to be notified when they
- * are added/removed from the CmsFlexLruCache.<p>
+ * are added/removed from the CmsLruCache.<p>
+ *
+ * The cache is thread safe without a global lock: the cached objects are kept in a concurrent map
+ * together with their last access time, so adding, touching and removing objects scales with the number
+ * of threads. Adding and removing an object, together with the cost update and the notification of the object,
+ * is done under one of several striped locks, so concurrent add and remove calls for the same object
+ * can not interleave. Once the costs of all cached objects exceed the maximum cache costs, a single thread
+ * evicts the (approximately) least recently used objects until the costs drop below the average cache costs.<p>
  *
  * @see org.opencms.cache.I_CmsLruCacheObject
  *
@@ -54,17 +68,52 @@ import org.apache.commons.logging.Log;
  */
 public class CmsLruCache extends java.lang.Object {
 
+    /**
+     * The bookkeeping data for a cached object.<p>
+     */
+    private static final class CacheNode {
+
+        /** The cache costs of the object at the time it was added. */
+        final int m_costs;
+
+        /** The time of the last access to the object. */
+        volatile long m_lastAccess;
+
+        /**
+         * Creates a new node.<p>
+         *
+         * @param costs the cache costs of the object
+         */
+        CacheNode(int costs) {
+
+            m_costs = costs;
+            m_lastAccess = System.nanoTime();
+        }
+    }
+
+    /** The minimum time in nanoseconds between two updates of the access time of an object. */
+    private static final long ACCESS_TIME_GRANULARITY = 1000000L;
+
+    /** The number of cached objects sampled to determine which objects are evicted. */
+    private static final int GC_SAMPLE_SIZE = 256;
+
+    /** The number of locks used for adding and removing objects. */
+    private static final int LOCK_STRIPES = 64;
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsLruCache.class);
 
     /** The average sum of costs the cached objects. */
     private long m_avgCacheCosts;
 
-    /** The head of the list of double linked LRU cache objects. */
-    private I_CmsLruCacheObject m_listHead;
+    /** The cached objects. */
+    private ConcurrentHashMap<I_CmsLruCacheObject, CacheNode> m_cachedObjects;
+
+    /** The lock held by the thread which evicts objects. */
+    private ReentrantLock m_gcLock = new ReentrantLock();
 
-    /** The tail of the list of double linked LRU cache objects. */
-    private I_CmsLruCacheObject m_listTail;
+    /** The locks for adding and removing objects, selected by the hash code of the object. */
+    private Object[] m_locks;
 
     /** The maximum sum of costs the cached objects might reach. */
     private long m_maxCacheCosts;
@@ -73,10 +122,7 @@ public class CmsLruCache extends java.lang.Object {
     private int m_maxObjectCosts;
 
     /** The costs of all cached objects. */
-    private int m_objectCosts;
-
-    /** The sum of all cached objects. */
-    private int m_objectCount;
+    private AtomicLong m_objectCosts = new AtomicLong();
 
     /**
      * The constructor with all options.<p>
@@ -90,6 +136,11 @@ public class CmsLruCache extends java.lang.Object {
         m_maxCacheCosts = theMaxCacheCosts;
         m_avgCacheCosts = theAvgCacheCosts;
         m_maxObjectCosts = theMaxObjectCosts;
+        m_cachedObjects = new ConcurrentHashMap<I_CmsLruCacheObject, CacheNode>(256, 0.75f, 64);
+        m_locks = new Object[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            m_locks[i] = new Object();
+        }
     }
 
     /**
@@ -101,7 +152,7 @@ public class CmsLruCache extends java.lang.Object {
      * @param theCacheObject the object being added to the cache
      * @return true if the object was added to the cache, false if the object was denied because its cache costs were higher than the allowed max. cache costs per object
      */
-    public synchronized boolean add(I_CmsLruCacheObject theCacheObject) {
+    public boolean add(I_CmsLruCacheObject theCacheObject) {
 
         if (theCacheObject == null) {
             // null can't be added or touched in the cache
@@ -109,26 +160,29 @@ public class CmsLruCache extends java.lang.Object {
         }
 
         // only objects with cache costs < the max. allowed object cache costs can be cached!
-        if ((m_maxObjectCosts != -1) && (theCacheObject.getLruCacheCosts() > m_maxObjectCosts)) {
-            if (LOG.isInfoEnabled()) {
-                LOG.info(
-                    Messages.get().getBundle().key(
-                        Messages.LOG_CACHE_COSTS_TOO_HIGH_2,
-                        new Integer(theCacheObject.getLruCacheCosts()),
-                        new Integer(m_maxObjectCosts)));
-            }
+        if (isTooExpensive(theCacheObject)) {
             return false;
         }
 
-        if (!isCached(theCacheObject)) {
-            // add the object to the list of all cached objects in the cache
-            addHead(theCacheObject);
-        } else {
-            touch(theCacheObject);
+        CacheNode existingNode = m_cachedObjects.get(theCacheObject);
+        if (existingNode == null) {
+            synchronized (getLock(theCacheObject)) {
+                existingNode = m_cachedObjects.get(theCacheObject);
+                if (existingNode == null) {
+                    // update cache stats. and notify the cached object before a remove call can see the object
+                    CacheNode node = new CacheNode(theCacheObject.getLruCacheCosts());
+                    theCacheObject.addToLruCache();
+                    m_objectCosts.addAndGet(node.m_costs);
+                    m_cachedObjects.put(theCacheObject, node);
+                }
+            }
+        }
+        if (existingNode != null) {
+            existingNode.m_lastAccess = System.nanoTime();
         }
 
-        // check if the cache has to trash the last-recently-used objects before adding a new object
-        if (m_objectCosts > m_maxCacheCosts) {
+        // check if the cache has to trash the last-recently-used objects
+        if (m_objectCosts.get() > m_maxCacheCosts) {
             gc();
         }
 
@@ -138,20 +192,11 @@ public class CmsLruCache extends java.lang.Object {
     /**
      * Removes all cached objects in this cache.<p>
      */
-    public synchronized void clear() {
+    public void clear() {
 
-        // remove all objects from the linked list from the tail to the head:
-        I_CmsLruCacheObject currentObject = m_listTail;
-        while (currentObject != null) {
-            currentObject = currentObject.getNextLruObject();
-            removeTail();
+        for (I_CmsLruCacheObject cachedObject : new ArrayList<I_CmsLruCacheObject>(m_cachedObjects.keySet())) {
+            remove(cachedObject);
         }
-
-        // reset the data structure
-        m_objectCosts = 0;
-        m_objectCount = 0;
-        m_listHead = null;
-        m_listTail = null;
     }
 
     /**
@@ -191,7 +236,7 @@ public class CmsLruCache extends java.lang.Object {
      */
     public int getObjectCosts() {
 
-        return m_objectCosts;
+        return (int)Math.min(m_objectCosts.get(), Integer.MAX_VALUE);
     }
 
     /**
@@ -201,45 +246,22 @@ public class CmsLruCache extends java.lang.Object {
      * @param theCacheObject the object being removed from the list of all cached objects
      * @return a reference to the object that was removed
      */
-    public synchronized I_CmsLruCacheObject remove(I_CmsLruCacheObject theCacheObject) {
+    public I_CmsLruCacheObject remove(I_CmsLruCacheObject theCacheObject) {
 
-        if (!isCached(theCacheObject)) {
-            // theCacheObject is null or not inside the cache
+        if ((theCacheObject == null) || !m_cachedObjects.containsKey(theCacheObject)) {
             return null;
         }
-
-        // set the list pointers correct
-        if (theCacheObject.getNextLruObject() == null) {
-            // remove the object from the head pos.
-            I_CmsLruCacheObject newHead = theCacheObject.getPreviousLruObject();
-
-            if (newHead != null) {
-                // if newHead is null, theCacheObject
-                // was the only object in the cache
-                newHead.setNextLruObject(null);
+        synchronized (getLock(theCacheObject)) {
+            CacheNode node = m_cachedObjects.remove(theCacheObject);
+            if (node == null) {
+                // theCacheObject is not inside the cache
+                return null;
             }
 
-            m_listHead = newHead;
-        } else if (theCacheObject.getPreviousLruObject() == null) {
-            // remove the object from the tail pos.
-            I_CmsLruCacheObject newTail = theCacheObject.getNextLruObject();
-
-            if (newTail != null) {
-                // if newTail is null, theCacheObject
-                // was the only object in the cache
-                newTail.setPreviousLruObject(null);
-            }
-
-            m_listTail = newTail;
-        } else {
-            // remove the object from within the list
-            theCacheObject.getPreviousLruObject().setNextLruObject(theCacheObject.getNextLruObject());
-            theCacheObject.getNextLruObject().setPreviousLruObject(theCacheObject.getPreviousLruObject());
+            // update cache stats. and notify the cached object
+            m_objectCosts.addAndGet(-node.m_costs);
+            theCacheObject.removeFromLruCache();
         }
-
-        // update cache stats. and notify the cached object
-        decreaseCache(theCacheObject);
-
         return theCacheObject;
     }
 
@@ -250,7 +272,7 @@ public class CmsLruCache extends java.lang.Object {
      */
     public int size() {
 
-        return m_objectCount;
+        return m_cachedObjects.size();
     }
 
     /**
@@ -265,8 +287,8 @@ public class CmsLruCache extends java.lang.Object {
         buf.append("max. costs: " + m_maxCacheCosts).append(", ");
         buf.append("avg. costs: " + m_avgCacheCosts).append(", ");
         buf.append("max. costs/object: " + m_maxObjectCosts).append(", ");
-        buf.append("costs: " + m_objectCosts).append(", ");
-        buf.append("count: " + m_objectCount);
+        buf.append("costs: " + m_objectCosts.get()).append(", ");
+        buf.append("count: " + size());
         return buf.toString();
     }
 
@@ -277,192 +299,112 @@ public class CmsLruCache extends java.lang.Object {
      * @param theCacheObject the object being touched
      * @return true if an object was found and touched
      */
-    public synchronized boolean touch(I_CmsLruCacheObject theCacheObject) {
+    public boolean touch(I_CmsLruCacheObject theCacheObject) {
 
-        if (!isCached(theCacheObject)) {
+        if (theCacheObject == null) {
+            return false;
+        }
+        CacheNode node = m_cachedObjects.get(theCacheObject);
+        if (node == null) {
             return false;
         }
 
         // only objects with cache costs < the max. allowed object cache costs can be cached!
-        if ((m_maxObjectCosts != -1) && (theCacheObject.getLruCacheCosts() > m_maxObjectCosts)) {
-            if (LOG.isInfoEnabled()) {
-                LOG.info(
-                    Messages.get().getBundle().key(
-                        Messages.LOG_CACHE_COSTS_TOO_HIGH_2,
-                        new Integer(theCacheObject.getLruCacheCosts()),
-                        new Integer(m_maxObjectCosts)));
-            }
+        if (isTooExpensive(theCacheObject)) {
             remove(theCacheObject);
             return false;
         }
 
-        // set the list pointers correct
-        I_CmsLruCacheObject nextObj = theCacheObject.getNextLruObject();
-        if (nextObj == null) {
-            // case 1: the object is already at the head pos.
-            return true;
+        long now = System.nanoTime();
+        // avoid writing the access time of frequently used objects from many threads all the time
+        if ((now - node.m_lastAccess) > ACCESS_TIME_GRANULARITY) {
+            node.m_lastAccess = now;
         }
-        I_CmsLruCacheObject prevObj = theCacheObject.getPreviousLruObject();
-        if (prevObj == null) {
-            // case 2: the object at the tail pos., remove it from the tail to put it to the front as the new head
-            I_CmsLruCacheObject newTail = nextObj;
-            newTail.setPreviousLruObject(null);
-            m_listTail = newTail;
-        } else {
-            // case 3: the object is somewhere within the list, remove it to put it the front as the new head
-            prevObj.setNextLruObject(nextObj);
-            nextObj.setPreviousLruObject(prevObj);
-        }
-
-        // set the touched object as the new head in the linked list:
-        I_CmsLruCacheObject oldHead = m_listHead;
-        if (oldHead != null) {
-            oldHead.setNextLruObject(theCacheObject);
-            theCacheObject.setNextLruObject(null);
-            theCacheObject.setPreviousLruObject(oldHead);
-        }
-        m_listHead = theCacheObject;
-
         return true;
     }
 
     /**
-     * Adds a cache object as the new haed to the list of all cached objects in this cache.<p>
-     *
-     * @param theCacheObject the object being added as the new head to the list of all cached objects
-     */
-    private void addHead(I_CmsLruCacheObject theCacheObject) {
-
-        // set the list pointers correct
-        if (m_objectCount > 0) {
-            // there is at least 1 object already in the list
-            I_CmsLruCacheObject oldHead = m_listHead;
-            oldHead.setNextLruObject(theCacheObject);
-            theCacheObject.setPreviousLruObject(oldHead);
-            m_listHead = theCacheObject;
-        } else {
-            // it is the first object to be added to the list
-            m_listTail = theCacheObject;
-            m_listHead = theCacheObject;
-            theCacheObject.setPreviousLruObject(null);
-        }
-        theCacheObject.setNextLruObject(null);
-
-        // update cache stats. and notify the cached object
-        increaseCache(theCacheObject);
-    }
-
-    /**
-     * Decrease this caches statistics
-     * and notify the cached object that it was removed from this cache.<p>
-     *
-     * @param theCacheObject the object being notified that it was removed from the cache
-     */
-    private void decreaseCache(I_CmsLruCacheObject theCacheObject) {
-
-        // notify the object that it was now removed from the cache
-        //theCacheObject.notify();
-        theCacheObject.removeFromLruCache();
-
-        // set the list pointers to null
-        theCacheObject.setNextLruObject(null);
-        theCacheObject.setPreviousLruObject(null);
-
-        // update the cache stats.
-        m_objectCosts -= theCacheObject.getLruCacheCosts();
-        m_objectCount--;
-    }
-
-    /**
-     * Removes the last recently used objects from the list of all cached objects as long
+     * Removes the least recently used objects from the cache as long
      * as the costs of all cached objects are higher than the allowed avg. costs of the cache.<p>
+     *
+     * Instead of sorting all cached objects, the access time threshold for eviction is estimated
+     * from a sample of the cached objects, and then all objects not accessed since then are removed
+     * in a single pass. Only one thread evicts objects at a time, other threads calling this method
+     * in the meantime return immediately.<p>
      */
     private void gc() {
 
-        I_CmsLruCacheObject currentObject = m_listTail;
-        while (currentObject != null) {
-            if (m_objectCosts < m_avgCacheCosts) {
-                break;
+        if (!m_gcLock.tryLock()) {
+            return;
+        }
+        try {
+            long costs = m_objectCosts.get();
+            while ((costs >= m_avgCacheCosts) && !m_cachedObjects.isEmpty()) {
+                // estimate the access time below which enough objects are evicted
+                long[] samples = new long[Math.min(GC_SAMPLE_SIZE, m_cachedObjects.size())];
+                int sampleCount = 0;
+                for (CacheNode node : m_cachedObjects.values()) {
+                    if (sampleCount == samples.length) {
+                        break;
+                    }
+                    samples[sampleCount++] = node.m_lastAccess;
+                }
+                Arrays.sort(samples, 0, sampleCount);
+                double fraction = (double)((costs - m_avgCacheCosts) + 1) / (double)Math.max(costs, 1);
+                int thresholdIndex = Math.min(sampleCount - 1, (int)Math.ceil(fraction * sampleCount));
+                long threshold = samples[Math.max(thresholdIndex, 0)];
+
+                Iterator<Map.Entry<I_CmsLruCacheObject, CacheNode>> entries = m_cachedObjects.entrySet().iterator();
+                while (entries.hasNext() && (m_objectCosts.get() >= m_avgCacheCosts)) {
+                    Map.Entry<I_CmsLruCacheObject, CacheNode> entry = entries.next();
+                    // compare the difference, as recommended for System.nanoTime() values
+                    if ((entry.getValue().m_lastAccess - threshold) <= 0) {
+                        remove(entry.getKey());
+                    }
+                }
+                long newCosts = m_objectCosts.get();
+                if (newCosts >= costs) {
+                    // no progress, which may only happen if other threads touched all sampled objects
+                    break;
+                }
+                costs = newCosts;
             }
-            currentObject = currentObject.getNextLruObject();
-            removeTail();
+        } finally {
+            m_gcLock.unlock();
         }
     }
 
     /**
-     * Increase this caches statistics
-     * and notify the cached object that it was added to this cache.<p>
+     * Returns the lock used for adding and removing the given object.<p>
      *
-     * @param theCacheObject the object being notified that it was added to the cache
+     * @param theCacheObject the cached object
+     *
+     * @return the lock for the object
      */
-    private void increaseCache(I_CmsLruCacheObject theCacheObject) {
-
-        // notify the object that it was now added to the cache
-        //theCacheObject.notify();
-        theCacheObject.addToLruCache();
+    private Object getLock(I_CmsLruCacheObject theCacheObject) {
 
-        // update the cache stats.
-        m_objectCosts += theCacheObject.getLruCacheCosts();
-        m_objectCount++;
+        return m_locks[(theCacheObject.hashCode() & Integer.MAX_VALUE) % LOCK_STRIPES];
     }
 
     /**
-     * Test if a given object resides inside the cache.<p>
+     * Checks if the cache costs of the given object exceed the max. allowed cache costs per object.<p>
+     *
+     * @param theCacheObject the object to check
      *
-     * @param theCacheObject the object to test
-     * @return true if the object is inside the cache, false otherwise
+     * @return true if the object is too expensive to be cached
      */
-    private boolean isCached(I_CmsLruCacheObject theCacheObject) {
+    private boolean isTooExpensive(I_CmsLruCacheObject theCacheObject) {
 
-        if ((theCacheObject == null) || (m_objectCount == 0)) {
-            // the cache is empty or the object is null (which is never cached)
-            return false;
-        }
-
-        I_CmsLruCacheObject nextObj = theCacheObject.getNextLruObject();
-        I_CmsLruCacheObject prevObj = theCacheObject.getPreviousLruObject();
-
-        if ((nextObj != null) || (prevObj != null)) {
-            // the object has either a predecessor or successor in the linked
-            // list of all cached objects, so it is inside the cache
-            return true;
-        }
-
-        // both nextObj and preObj are null
-        if ((m_objectCount == 1)
-            && (m_listHead != null)
-            && (m_listTail != null)
-            && m_listHead.equals(theCacheObject)
-            && m_listTail.equals(theCacheObject)) {
-            // the object is the one and only object in the cache
+        if ((m_maxObjectCosts != -1) && (theCacheObject.getLruCacheCosts() > m_maxObjectCosts)) {
+            if (LOG.isInfoEnabled()) {
+                LOG.info(
+                    Messages.get().getBundle().key(
+                        Messages.LOG_CACHE_COSTS_TOO_HIGH_2,
+                        new Integer(theCacheObject.getLruCacheCosts()),
+                        new Integer(m_maxObjectCosts)));
+            }
             return true;
         }
-
         return false;
     }
-
-    /**
-     * Removes the tailing object from the list of all cached objects.<p>
-     */
-    private synchronized void removeTail() {
-
-        I_CmsLruCacheObject oldTail = m_listTail;
-        if (oldTail != null) {
-            I_CmsLruCacheObject newTail = oldTail.getNextLruObject();
-
-            // set the list pointers correct
-            if (newTail != null) {
-                // there are still objects remaining in the list
-                newTail.setPreviousLruObject(null);
-                m_listTail = newTail;
-            } else {
-                // we removed the last object from the list
-                m_listTail = null;
-                m_listHead = null;
-            }
-
-            // update cache stats. and notify the cached object
-            decreaseCache(oldTail);
-        }
-    }
-}
\ No newline at end of file
+}
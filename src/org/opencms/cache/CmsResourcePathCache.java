@@ -0,0 +1,394 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cache;
+
+import org.opencms.file.CmsResource;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A concurrent trie which caches the resources of complete VFS paths.<p>
+ *
+ * The trie contains one node for each path segment, so resolving a path only requires one map lookup per segment
+ * and no cache key generation. The resources of the online and the offline projects are kept in separate tries,
+ * all offline projects share the same trie since they share the same offline resources.<p>
+ *
+ * If the number of cached resources exceeds the configured maximum size, single resources are evicted with the
+ * clock (second chance) algorithm: a resource which has been read since the eviction last passed it is kept for
+ * another round, so recently used paths stay cached. Reading a cached resource only sets a flag on its node.<p>
+ *
+ * @since 10.5.0
+ */
+public class CmsResourcePathCache {
+
+    /**
+     * A node of the trie.<p>
+     */
+    private static class Node {
+
+        /** The child nodes, by path segment name. */
+        final ConcurrentMap<String, Node> m_children = new ConcurrentHashMap<String, Node>(4, 0.75f, 2);
+
+        /** The path segment name of this node. */
+        final String m_name;
+
+        /** The parent node, <code>null</code> for the root node. */
+        final Node m_parent;
+
+        /** Flag indicating the node is in the eviction queue, guarded by the eviction queue. */
+        boolean m_queued;
+
+        /** Flag indicating the cached resource has been read since the eviction last passed this node. */
+        volatile boolean m_referenced;
+
+        /** The cached resource for the path of this node, may be <code>null</code>. */
+        volatile CmsResource m_resource;
+
+        /**
+         * Creates a new node.<p>
+         *
+         * @param parent the parent node, <code>null</code> for the root node
+         * @param name the path segment name of the node
+         */
+        Node(Node parent, String name) {
+
+            m_parent = parent;
+            m_name = name;
+        }
+
+        /**
+         * Returns the child node with the given name, creating it if required.<p>
+         *
+         * @param name the path segment name
+         *
+         * @return the child node
+         */
+        Node getOrCreateChild(String name) {
+
+            Node child = m_children.get(name);
+            if (child == null) {
+                child = new Node(this, name);
+                Node existing = m_children.putIfAbsent(name, child);
+                if (existing != null) {
+                    child = existing;
+                }
+            }
+            return child;
+        }
+    }
+
+    /** The eviction queue with the nodes of the cached resources, in the order of the clock. */
+    private final Deque<Node> m_clock = new ArrayDeque<Node>();
+
+    /** The maximum number of cached resources. */
+    private final int m_maxSize;
+
+    /** The root node of the offline trie. */
+    private volatile Node m_offlineRoot = new Node(null, "");
+
+    /** The root node of the online trie. */
+    private volatile Node m_onlineRoot = new Node(null, "");
+
+    /** The (approximate) number of cached resources. */
+    private final AtomicInteger m_size = new AtomicInteger();
+
+    /**
+     * Creates a new resource path cache.<p>
+     *
+     * @param maxSize the maximum number of cached resources
+     */
+    public CmsResourcePathCache(int maxSize) {
+
+        m_maxSize = maxSize;
+    }
+
+    /**
+     * Removes all cached resources.<p>
+     */
+    public void clear() {
+
+        synchronized (m_clock) {
+            m_onlineRoot = new Node(null, "");
+            m_offlineRoot = new Node(null, "");
+            m_clock.clear();
+            m_size.set(0);
+        }
+    }
+
+    /**
+     * Returns the cached resources for a path.<p>
+     *
+     * The first element of the result is the root folder, the following elements are the resources for the first
+     * <code>count - 1</code> given path segment names. Resources which are not cached are <code>null</code>
+     * in the result list. A folder is only returned for a position where a folder is required, which is every
+     * position except the last one if <code>lastIsFile</code> is <code>true</code>.<p>
+     *
+     * @param online <code>true</code> to look up the resources of the online project
+     * @param names the path segment names
+     * @param count the number of resources to return, including the root folder
+     * @param lastIsFile <code>true</code> if the last resource may also be a file
+     *
+     * @return the list of cached resources, containing <code>null</code> for the resources which are not cached
+     */
+    public List<CmsResource> get(boolean online, List<String> names, int count, boolean lastIsFile) {
+
+        List<CmsResource> result = new ArrayList<CmsResource>(count);
+        Node node = online ? m_onlineRoot : m_offlineRoot;
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                node = (node == null) ? null : node.m_children.get(names.get(i - 1));
+            }
+            CmsResource resource = (node == null) ? null : node.m_resource;
+            if ((resource != null) && !(lastIsFile && (i == (count - 1))) && !resource.isFolder()) {
+                // a file was cached for a path where a folder is required
+                resource = null;
+            }
+            if ((resource != null) && !node.m_referenced) {
+                node.m_referenced = true;
+            }
+            result.add(resource);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of cached resources.<p>
+     *
+     * @return the number of cached resources
+     */
+    public int size() {
+
+        return m_size.get();
+    }
+
+    /**
+     * Caches the resources for a path.<p>
+     *
+     * The first resource is the root folder, the following resources belong to the given path segment names.
+     * <code>null</code> elements in the resource list are skipped.<p>
+     *
+     * @param online <code>true</code> to cache the resources of the online project
+     * @param names the path segment names
+     * @param resources the resources to cache
+     */
+    public void put(boolean online, List<String> names, List<CmsResource> resources) {
+
+        Node node = online ? m_onlineRoot : m_offlineRoot;
+        List<Node> added = new ArrayList<Node>();
+        for (int i = 0; i < resources.size(); i++) {
+            if (i > 0) {
+                node = node.getOrCreateChild(names.get(i - 1));
+            }
+            CmsResource resource = resources.get(i);
+            if (resource != null) {
+                if (node.m_resource == null) {
+                    m_size.incrementAndGet();
+                    added.add(node);
+                } else {
+                    node.m_referenced = true;
+                }
+                node.m_resource = resource;
+            }
+        }
+        if (!added.isEmpty()) {
+            synchronized (m_clock) {
+                for (Node addedNode : added) {
+                    if (!addedNode.m_queued) {
+                        addedNode.m_queued = true;
+                        m_clock.addLast(addedNode);
+                    }
+                }
+                evict();
+            }
+        }
+    }
+
+    /**
+     * Removes the cached resources which may be affected by a change of the given resources.<p>
+     *
+     * @param paths the root paths of the resources to remove
+     * @param folderPaths the root paths of the folders to remove including all cached sub-resources
+     * @param ids the structure or resource ids of the resources to remove
+     */
+    public void remove(Set<String> paths, Set<String> folderPaths, Set<CmsUUID> ids) {
+
+        remove(m_onlineRoot, "/", paths, folderPaths, ids);
+        remove(m_offlineRoot, "/", paths, folderPaths, ids);
+    }
+
+    /**
+     * Returns all cached resources.<p>
+     *
+     * @return all cached resources
+     */
+    public List<CmsResource> values() {
+
+        List<CmsResource> result = new ArrayList<CmsResource>();
+        collect(m_onlineRoot, result);
+        collect(m_offlineRoot, result);
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Collects the resources cached in the given node and its descendants.<p>
+     *
+     * @param node the node to start with
+     * @param result the list to add the resources to
+     */
+    private void collect(Node node, List<CmsResource> result) {
+
+        CmsResource resource = node.m_resource;
+        if (resource != null) {
+            result.add(resource);
+        }
+        for (Node child : node.m_children.values()) {
+            collect(child, result);
+        }
+    }
+
+    /**
+     * Evicts cached resources until the maximum size is no longer exceeded.<p>
+     *
+     * Must be called while holding the lock on the eviction queue.<p>
+     */
+    private void evict() {
+
+        while ((m_size.get() > m_maxSize) && !m_clock.isEmpty()) {
+            Node node = m_clock.pollFirst();
+            if ((node.m_resource != null) && node.m_referenced) {
+                // the resource has been used recently, give it a second chance
+                node.m_referenced = false;
+                m_clock.addLast(node);
+            } else {
+                node.m_queued = false;
+                uncache(node);
+                prune(node);
+            }
+        }
+        if (m_clock.size() > (2 * Math.max(m_maxSize, m_size.get()))) {
+            // drop the nodes whose resources have been removed meanwhile
+            Iterator<Node> it = m_clock.iterator();
+            while (it.hasNext()) {
+                Node node = it.next();
+                if (node.m_resource == null) {
+                    node.m_queued = false;
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the given node and its ancestors from the trie as long as they are empty.<p>
+     *
+     * @param node the node to start with
+     */
+    private void prune(Node node) {
+
+        while ((node.m_parent != null) && (node.m_resource == null) && node.m_children.isEmpty()) {
+            node.m_parent.m_children.remove(node.m_name, node);
+            node = node.m_parent;
+        }
+    }
+
+    /**
+     * Removes the affected resources from the given node and its descendants.<p>
+     *
+     * @param node the node
+     * @param folderPath the root path of the node, with a trailing slash
+     * @param paths the root paths of the resources to remove
+     * @param folderPaths the root paths of the folders to remove including all cached sub-resources
+     * @param ids the structure or resource ids of the resources to remove
+     */
+    private void remove(Node node, String folderPath, Set<String> paths, Set<String> folderPaths, Set<CmsUUID> ids) {
+
+        if (folderPaths.contains(folderPath)) {
+            uncacheAll(node);
+            return;
+        }
+        CmsResource resource = node.m_resource;
+        if ((resource != null)
+            && (paths.contains(resource.getRootPath())
+                || ids.contains(resource.getStructureId())
+                || ids.contains(resource.getResourceId()))) {
+            uncache(node);
+        }
+        Iterator<Map.Entry<String, Node>> it = node.m_children.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Node> entry = it.next();
+            String childPath = folderPath + entry.getKey();
+            if (paths.contains(childPath)) {
+                // a file with this name has been changed
+                uncache(entry.getValue());
+            }
+            remove(entry.getValue(), childPath + "/", paths, folderPaths, ids);
+            if ((entry.getValue().m_resource == null) && entry.getValue().m_children.isEmpty()) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes the cached resource from the given node.<p>
+     *
+     * @param node the node
+     */
+    private void uncache(Node node) {
+
+        if (node.m_resource != null) {
+            node.m_resource = null;
+            m_size.decrementAndGet();
+        }
+    }
+
+    /**
+     * Removes the cached resources from the given node and all its descendants.<p>
+     *
+     * @param node the node
+     */
+    private void uncacheAll(Node node) {
+
+        uncache(node);
+        Iterator<Node> it = node.m_children.values().iterator();
+        while (it.hasNext()) {
+            uncacheAll(it.next());
+            it.remove();
+        }
+    }
+}
@@ -95,16 +95,10 @@ public class CmsVfsDiskCache {
      */
     public byte[] getCacheContent(String rfsName, long dateLastModified) {
 
-        dateLastModified = simplifyDateLastModified(dateLastModified);
         try {
-            File f = new File(rfsName);
-            if (f.exists()) {
-                if (f.lastModified() != dateLastModified) {
-                    // last modification time different, remove cached file in RFS
-                    f.delete();
-                } else {
-                    return CmsFileUtil.readFile(f);
-                }
+            File f = getCacheFile(rfsName, dateLastModified);
+            if (f != null) {
+                return CmsFileUtil.readFile(f);
             }
         } catch (IOException e) {
             // unable to read content
@@ -112,6 +106,33 @@ public class CmsVfsDiskCache {
         return null;
     }
 
+    /**
+     * Returns the requested file in the VFS disk cache, or <code>null</code> if the
+     * file is not found in the cache, or is found but outdated.<p>
+     *
+     * Use this instead of {@link #getCacheContent(String, long)} to deliver the cached file
+     * without reading it into memory, e.g. with {@link CmsDiskCacheFileSender}.<p>
+     *
+     * @param rfsName the file RFS name to look up in the cache
+     * @param dateLastModified the date of last modification for the cache
+     *
+     * @return the requested file in the VFS disk cache, or <code>null</code>
+     */
+    public File getCacheFile(String rfsName, long dateLastModified) {
+
+        dateLastModified = simplifyDateLastModified(dateLastModified);
+        File f = new File(rfsName);
+        if (f.exists()) {
+            if (f.lastModified() != dateLastModified) {
+                // last modification time different, remove cached file in RFS
+                f.delete();
+            } else {
+                return f;
+            }
+        }
+        return null;
+    }
+
     /**
      * Returns the RFS name to use for caching the given VFS resource with parameters in the disk cache.<p>
      *
@@ -28,10 +28,7 @@
 package org.opencms.cache;
 
 /**
- * Defines the methods which an object being cached by CmsFlexLruCache must implement.<p>
- *
- * CmsFlexLruCache is organized as a double linked list, that's why objects implementing this interface
- * need getters/setter for the next/previous nodes in the list of all cached objects.<p>
+ * Defines the methods which an object being cached by CmsLruCache must implement.<p>
  *
  * @see CmsLruCache
  *
@@ -39,34 +36,6 @@ package org.opencms.cache;
  */
 public interface I_CmsLruCacheObject {
 
-    /**
-     * Set the next object in the double linked list of all cached objects.<p>
-     *
-     * @param theNextObject the next object
-     */
-    void setNextLruObject(I_CmsLruCacheObject theNextObject);
-
-    /**
-     * Returns the next object in the double linked list of all cached objects.<p>
-     *
-     * @return the next object in the double linked list of all cached objects
-     */
-    I_CmsLruCacheObject getNextLruObject();
-
-    /**
-     * Set the previous object in the double linked list of all cached objects.<p>
-     *
-     * @param thePreviousObject the previous object
-     */
-    void setPreviousLruObject(I_CmsLruCacheObject thePreviousObject);
-
-    /**
-     * Returns the previous object in the double linked list of all cached objects.<p>
-     *
-     * @return the previous object in the double linked list of all cached objects
-     */
-    I_CmsLruCacheObject getPreviousLruObject();
-
     /**
      * Invoked after an object was added to the cache.<p>
      */
@@ -34,6 +34,7 @@ import static org.opencms.cmis.CmsCmisUtil.splitFilter;
 
 import org.opencms.configuration.CmsConfigurationException;
 import org.opencms.configuration.CmsParameterConfiguration;
+import org.opencms.db.CmsResourceOrder;
 import org.opencms.file.CmsFile;
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsProject;
@@ -54,6 +55,7 @@ import org.opencms.search.solr.CmsSolrIndex;
 import org.opencms.search.solr.CmsSolrQuery;
 import org.opencms.search.solr.CmsSolrResultList;
 import org.opencms.util.CmsFileUtil;
+import org.opencms.util.CmsPair;
 import org.opencms.util.CmsRequestUtil;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
@@ -571,7 +573,7 @@ public class CmsCmisRepository extends A_CmsCmisRepository {
     /**
      * @see org.opencms.cmis.I_CmsCmisRepository#getChildren(org.opencms.cmis.CmsCmisCallContext, java.lang.String, java.lang.String, java.lang.String, boolean, org.apache.chemistry.opencmis.commons.enums.IncludeRelationships, java.lang.String, boolean, java.math.BigInteger, java.math.BigInteger)
      */
-    public synchronized ObjectInFolderList getChildren(
+    public ObjectInFolderList getChildren(
         CmsCmisCallContext context,
         String folderId,
         String filter,
@@ -622,13 +624,21 @@ public class CmsCmisRepository extends A_CmsCmisRepository {
             // prepare result
             ObjectInFolderListImpl result = new ObjectInFolderListImpl();
             String folderSitePath = cms.getRequestContext().getSitePath(folder);
-            List<CmsResource> children = cms.getResourcesInFolder(folderSitePath, CmsResourceFilter.DEFAULT);
-            CmsObjectListLimiter<CmsResource> limiter = new CmsObjectListLimiter<CmsResource>(
-                children,
-                maxItems,
-                skipCount);
+            // read one child more than requested to find out if there are more items
+            CmsPair<CmsResourceOrder, Boolean> order = getChildOrder(orderBy);
+            List<CmsResource> children = cms.getResourcesInFolder(
+                folderSitePath,
+                CmsResourceFilter.DEFAULT,
+                order.getFirst(),
+                order.getSecond().booleanValue(),
+                skip,
+                max == Integer.MAX_VALUE ? max : max + 1);
+            boolean hasMore = children.size() > max;
+            if (hasMore) {
+                children = children.subList(0, max);
+            }
             List<ObjectInFolderData> resultObjects = new ArrayList<ObjectInFolderData>();
-            for (CmsResource child : limiter) {
+            for (CmsResource child : children) {
                 // build and add child object
                 ObjectInFolderDataImpl objectInFolder = new ObjectInFolderDataImpl();
                 objectInFolder.setObject(
@@ -647,8 +657,11 @@ public class CmsCmisRepository extends A_CmsCmisRepository {
                 resultObjects.add(objectInFolder);
             }
             result.setObjects(resultObjects);
-            result.setNumItems(BigInteger.valueOf(children.size()));
-            result.setHasMoreItems(Boolean.valueOf(limiter.hasMore()));
+            if (!hasMore) {
+                // the total number of children is only known after reading the last page
+                result.setNumItems(BigInteger.valueOf((long)skip + children.size()));
+            }
+            result.setHasMoreItems(Boolean.valueOf(hasMore));
             return result;
         } catch (CmsException e) {
             handleCmsException(e);
@@ -1659,6 +1672,32 @@ public class CmsCmisRepository extends A_CmsCmisRepository {
         }
     }
 
+    /**
+     * Gets the order for reading the children of a folder from a CMIS ordering clause.<p>
+     *
+     * Only the first ordering criterion is used. Children are ordered by name if no
+     * or an unsupported criterion is given.<p>
+     *
+     * @param orderBy the CMIS ordering clause, may be <code>null</code>
+     *
+     * @return the order, and <code>true</code> for ascending order
+     */
+    private CmsPair<CmsResourceOrder, Boolean> getChildOrder(String orderBy) {
+
+        CmsResourceOrder order = CmsResourceOrder.NAME;
+        boolean ascending = true;
+        if (CmsStringUtil.isNotEmptyOrWhitespaceOnly(orderBy)) {
+            String[] criterion = orderBy.split(",")[0].trim().split("\\s+");
+            if (PropertyIds.CREATION_DATE.equals(criterion[0])) {
+                order = CmsResourceOrder.DATE_CREATED;
+            } else if (PropertyIds.LAST_MODIFICATION_DATE.equals(criterion[0])) {
+                order = CmsResourceOrder.DATE_LAST_MODIFIED;
+            }
+            ascending = (criterion.length < 2) || !"DESC".equalsIgnoreCase(criterion[1]);
+        }
+        return CmsPair.create(order, Boolean.valueOf(ascending));
+    }
+
     /**
      * Gets the index to use for queries.<p>
      *
@@ -584,7 +584,7 @@ public class CmsCmisTypeManager {
      *
      * @return the list of OpenCms property names
      */
-    public List<String> getCmsPropertyNames() {
+    public synchronized List<String> getCmsPropertyNames() {
 
         refresh();
         List<String> result = new ArrayList<String>();
@@ -630,7 +630,7 @@ public class CmsCmisTypeManager {
      * @param typeId the type id
      * @return the type definition
      */
-    public TypeDefinition getType(String typeId) {
+    public synchronized TypeDefinition getType(String typeId) {
 
         refresh();
         TypeDefinitionContainer tc = m_types.get(typeId);
@@ -651,7 +651,7 @@ public class CmsCmisTypeManager {
      *
      * @return the children of the type
      */
-    public TypeDefinitionList getTypeChildren(
+    public synchronized TypeDefinitionList getTypeChildren(
 
         String typeId,
         boolean includePropertyDefinitions,
@@ -723,7 +723,7 @@ public class CmsCmisTypeManager {
      *
      * @return the matching type definition
      */
-    public TypeDefinition getTypeDefinition(String typeId) {
+    public synchronized TypeDefinition getTypeDefinition(String typeId) {
 
         refresh();
         TypeDefinitionContainer tc = m_types.get(typeId);
@@ -743,7 +743,7 @@ public class CmsCmisTypeManager {
      *
      * @return the descendants of the type
      */
-    public List<TypeDefinitionContainer> getTypeDescendants(
+    public synchronized List<TypeDefinitionContainer> getTypeDescendants(
 
         String typeId,
         BigInteger depth,
@@ -362,9 +362,18 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The node name for the context project name. */
     public static final String N_PROJECT = "project";
 
+    /** The node name for the selective cache invalidation threshold on publish. */
+    public static final String N_PUBLISH_FLUSHTHRESHOLD = "publish-flushthreshold";
+
+    /** The node name for the number of publish lanes. */
+    public static final String N_PUBLISH_LANES = "publish-lanes";
+
     /** The node name for the publish list remove mode. */
     public static final String N_PUBLISH_LIST_REMOVE_MODE = "publish-list-remove-mode";
 
+    /** The node name for the number of publish threads. */
+    public static final String N_PUBLISH_THREADS = "publish-threads";
+
     /** The node name for the "publishhistory" section. */
     public static final String N_PUBLISHMANAGER = "publishmanager";
 
@@ -455,6 +464,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The size of the memory monitor's cache for online container pages. */
     public static final String N_SIZE_CONTAINERPAGE_ONLINE = "size-containerpage-online";
 
+    /** The maximum weight of the XML content definition cache. */
+    public static final String N_SIZE_CONTENTDEFINITIONS = "size-contentdefinitions";
+
     /** The size of the memory monitor's cache for groups. */
     public static final String N_SIZE_GROUPS = "size-groups";
 
@@ -491,6 +503,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The size of the memory monitor's cache for users. */
     public static final String N_SIZE_USERS = "size-users";
 
+    /** The maximum size in bytes of the cache for XML schema and DTD files. */
+    public static final String N_SIZE_XMLENTITIES = "size-xmlentities";
+
     /** The subscriptionmanager node name. */
     public static final String N_SUBSCRIPTIONMANAGER = "subscriptionmanager";
 
@@ -596,6 +611,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The configured OpenCms event manager. */
     private CmsEventManager m_eventManager;
 
+    /** The configuration parameters of the event manager. */
+    private CmsParameterConfiguration m_eventManagerParameters = new CmsParameterConfiguration();
+
     /** Indicates if the version history is enabled. */
     private boolean m_historyEnabled;
 
@@ -707,6 +725,13 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
 
         try {
             m_eventManager = (CmsEventManager)Class.forName(clazz).newInstance();
+            if (m_eventManager instanceof I_CmsConfigurationParameterHandler) {
+                I_CmsConfigurationParameterHandler handler = (I_CmsConfigurationParameterHandler)m_eventManager;
+                for (Map.Entry<String, String> param : m_eventManagerParameters.entrySet()) {
+                    handler.addConfigurationParameter(param.getKey(), param.getValue());
+                }
+                handler.initConfiguration();
+            }
             if (CmsLog.INIT.isInfoEnabled()) {
                 CmsLog.INIT.info(
                     Messages.get().getBundle().key(Messages.INIT_EVENTMANAGER_CLASS_SUCCESS_1, m_eventManager));
@@ -717,6 +742,17 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         }
     }
 
+    /**
+     * Adds a configuration parameter for the event manager.<p>
+     *
+     * @param name the parameter name
+     * @param value the parameter value
+     */
+    public void addEventManagerParameter(String name, String value) {
+
+        m_eventManagerParameters.add(name, value);
+    }
+
     /**
      * Adds a new job description for the scheduler.<p>
      *
@@ -902,6 +938,15 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         // add event classes
         digester.addCallMethod("*/" + N_SYSTEM + "/" + N_EVENTS + "/" + N_EVENTMANAGER, "addEventManager", 1);
         digester.addCallParam("*/" + N_SYSTEM + "/" + N_EVENTS + "/" + N_EVENTMANAGER, 0, A_CLASS);
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_EVENTS + "/" + N_EVENTMANAGER + "/" + N_PARAM,
+            "addEventManagerParameter",
+            2);
+        digester.addCallParam(
+            "*/" + N_SYSTEM + "/" + N_EVENTS + "/" + N_EVENTMANAGER + "/" + N_PARAM,
+            0,
+            I_CmsXmlConfiguration.A_NAME);
+        digester.addCallParam("*/" + N_SYSTEM + "/" + N_EVENTS + "/" + N_EVENTMANAGER + "/" + N_PARAM, 1);
 
         // add resource init classes
         digester.addCallMethod(
@@ -1112,6 +1157,18 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
             "*/" + N_SYSTEM + "/" + N_RESULTCACHE + "/" + N_SIZE_CONTAINERPAGE_ONLINE,
             "setContainerPageOnlineSize",
             0);
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_RESULTCACHE + "/" + N_PUBLISH_FLUSHTHRESHOLD,
+            "setPublishFlushThreshold",
+            0);
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_RESULTCACHE + "/" + N_SIZE_CONTENTDEFINITIONS,
+            "setContentDefinitionsCacheWeight",
+            0);
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_RESULTCACHE + "/" + N_SIZE_XMLENTITIES,
+            "setXmlEntitiesCacheSize",
+            0);
         digester.addSetNext("*/" + N_SYSTEM + "/" + N_RESULTCACHE, "setCacheSettings");
 
         // set the notification time
@@ -1146,6 +1203,14 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
             "*/" + N_SYSTEM + "/" + N_PUBLISHMANAGER + "/" + N_QUEUESHUTDOWNTIME,
             "setPublishQueueShutdowntime",
             0);
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_PUBLISHMANAGER + "/" + N_PUBLISH_THREADS,
+            "setPublishThreads",
+            0);
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_PUBLISHMANAGER + "/" + N_PUBLISH_LANES,
+            "setPublishLanes",
+            0);
         digester.addSetNext("*/" + N_SYSTEM + "/" + N_PUBLISHMANAGER, "setPublishManager");
 
         // add rule for session storage provider
@@ -1322,6 +1387,13 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         Element eventsElement = systemElement.addElement(N_EVENTS);
         Element eventManagerElement = eventsElement.addElement(N_EVENTMANAGER);
         eventManagerElement.addAttribute(A_CLASS, m_eventManager.getClass().getName());
+        if (m_eventManager instanceof I_CmsConfigurationParameterHandler) {
+            CmsParameterConfiguration eventManagerParameters =
+                ((I_CmsConfigurationParameterHandler)m_eventManager).getConfiguration();
+            if (eventManagerParameters != null) {
+                eventManagerParameters.appendToXml(eventManagerElement);
+            }
+        }
 
         // version history
         Element historyElement = systemElement.addElement(N_VERSIONHISTORY);
@@ -1591,6 +1663,18 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         }
         cacheElement.addElement(N_SIZE_ACLS).setText(Integer.toString(m_cacheSettings.getAclCacheSize()));
         cacheElement.addElement(N_SIZE_PERMISSIONS).setText(Integer.toString(m_cacheSettings.getPermissionCacheSize()));
+        if (m_cacheSettings.getConfiguredPublishFlushThreshold() > -1) {
+            cacheElement.addElement(N_PUBLISH_FLUSHTHRESHOLD).setText(
+                Integer.toString(m_cacheSettings.getConfiguredPublishFlushThreshold()));
+        }
+        if (m_cacheSettings.getConfiguredContentDefinitionsCacheWeight() > -1) {
+            cacheElement.addElement(N_SIZE_CONTENTDEFINITIONS).setText(
+                Integer.toString(m_cacheSettings.getConfiguredContentDefinitionsCacheWeight()));
+        }
+        if (m_cacheSettings.getConfiguredXmlEntitiesCacheSize() > -1) {
+            cacheElement.addElement(N_SIZE_XMLENTITIES).setText(
+                Integer.toString(m_cacheSettings.getConfiguredXmlEntitiesCacheSize()));
+        }
 
         // content notification settings
         if ((m_notificationTime != null) || (m_notificationProject != null)) {
@@ -1618,6 +1702,14 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
                 String.valueOf(m_publishManager.isPublishQueuePersistanceEnabled()));
             pubHistElement.addElement(N_QUEUESHUTDOWNTIME).setText(
                 String.valueOf(m_publishManager.getPublishQueueShutdowntime()));
+            if (m_publishManager.getPublishThreads() > CmsPublishManager.DEFAULT_PUBLISH_THREADS) {
+                pubHistElement.addElement(N_PUBLISH_THREADS).setText(
+                    String.valueOf(m_publishManager.getPublishThreads()));
+            }
+            if (m_publishManager.getPublishLanes() > CmsPublishManager.DEFAULT_PUBLISH_LANES) {
+                pubHistElement.addElement(N_PUBLISH_LANES).setText(
+                    String.valueOf(m_publishManager.getPublishLanes()));
+            }
         }
 
         // session storage provider
@@ -0,0 +1,177 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of the aliases stored in the database, by site root and path and by structure id.<p>
+ *
+ * Lookups do not need any locking, while modifications are serialized. The index only mirrors the
+ * database, so every modification has to be done after the corresponding database operation.<p>
+ *
+ * @since 10.5.0
+ */
+public class CmsAliasIndex {
+
+    /** The aliases by site root and alias path. */
+    private Map<String, Map<String, CmsAlias>> m_aliasesBySite = new ConcurrentHashMap<String, Map<String, CmsAlias>>(
+        8);
+
+    /** The aliases by structure id. */
+    private Map<CmsUUID, List<CmsAlias>> m_aliasesByStructureId = new ConcurrentHashMap<CmsUUID, List<CmsAlias>>();
+
+    /**
+     * Creates a new index for the given aliases.<p>
+     *
+     * @param aliases the aliases to index
+     */
+    public CmsAliasIndex(Collection<CmsAlias> aliases) {
+
+        Map<CmsUUID, List<CmsAlias>> aliasesByStructureId = new ConcurrentHashMap<CmsUUID, List<CmsAlias>>();
+        for (CmsAlias alias : aliases) {
+            getSiteMap(alias.getSiteRoot(), true).put(alias.getAliasPath(), alias);
+            List<CmsAlias> aliasesForId = aliasesByStructureId.get(alias.getStructureId());
+            if (aliasesForId == null) {
+                aliasesForId = new ArrayList<CmsAlias>(2);
+                aliasesByStructureId.put(alias.getStructureId(), aliasesForId);
+            }
+            aliasesForId.add(alias);
+        }
+        for (Map.Entry<CmsUUID, List<CmsAlias>> entry : aliasesByStructureId.entrySet()) {
+            m_aliasesByStructureId.put(entry.getKey(), Collections.unmodifiableList(entry.getValue()));
+        }
+    }
+
+    /**
+     * Gets the alias for a path in a given site.<p>
+     *
+     * @param siteRoot the site root
+     * @param aliasPath the alias path
+     *
+     * @return the alias, or null if there is no alias for the path
+     */
+    public CmsAlias getAliasForPath(String siteRoot, String aliasPath) {
+
+        Map<String, CmsAlias> siteMap = getSiteMap(siteRoot, false);
+        return siteMap != null ? siteMap.get(aliasPath) : null;
+    }
+
+    /**
+     * Gets all aliases of a given site.<p>
+     *
+     * @param siteRoot the site root
+     *
+     * @return a new list containing the aliases of the site
+     */
+    public List<CmsAlias> getAliasesForSite(String siteRoot) {
+
+        Map<String, CmsAlias> siteMap = getSiteMap(siteRoot, false);
+        return siteMap != null ? new ArrayList<CmsAlias>(siteMap.values()) : new ArrayList<CmsAlias>();
+    }
+
+    /**
+     * Gets the aliases pointing to a given structure id.<p>
+     *
+     * @param structureId the structure id
+     *
+     * @return a new list containing the aliases for the structure id
+     */
+    public List<CmsAlias> getAliasesForStructureId(CmsUUID structureId) {
+
+        List<CmsAlias> aliases = m_aliasesByStructureId.get(structureId);
+        return aliases != null ? new ArrayList<CmsAlias>(aliases) : new ArrayList<CmsAlias>();
+    }
+
+    /**
+     * Gets the number of indexed aliases.<p>
+     *
+     * @return the number of indexed aliases
+     */
+    public int size() {
+
+        int result = 0;
+        for (List<CmsAlias> aliases : m_aliasesByStructureId.values()) {
+            result += aliases.size();
+        }
+        return result;
+    }
+
+    /**
+     * Replaces the indexed aliases for a structure id.<p>
+     *
+     * @param structureId the structure id
+     * @param aliases the aliases which now point to the structure id, as read from the database
+     */
+    public synchronized void updateAliases(CmsUUID structureId, List<CmsAlias> aliases) {
+
+        List<CmsAlias> oldAliases = m_aliasesByStructureId.get(structureId);
+        if (oldAliases != null) {
+            for (CmsAlias oldAlias : oldAliases) {
+                Map<String, CmsAlias> siteMap = getSiteMap(oldAlias.getSiteRoot(), false);
+                // the path may already have been taken over by an alias for a different structure id
+                if ((siteMap != null) && oldAlias.equals(siteMap.get(oldAlias.getAliasPath()))) {
+                    siteMap.remove(oldAlias.getAliasPath());
+                }
+            }
+        }
+        if (aliases.isEmpty()) {
+            m_aliasesByStructureId.remove(structureId);
+        } else {
+            for (CmsAlias alias : aliases) {
+                getSiteMap(alias.getSiteRoot(), true).put(alias.getAliasPath(), alias);
+            }
+            m_aliasesByStructureId.put(structureId, Collections.unmodifiableList(new ArrayList<CmsAlias>(aliases)));
+        }
+    }
+
+    /**
+     * Gets the path map for a site.<p>
+     *
+     * @param siteRoot the site root
+     * @param create if true, a missing path map is created
+     *
+     * @return the path map, or null if there is none and it should not be created
+     */
+    private Map<String, CmsAlias> getSiteMap(String siteRoot, boolean create) {
+
+        Map<String, CmsAlias> siteMap = m_aliasesBySite.get(siteRoot);
+        if ((siteMap == null) && create) {
+            siteMap = new ConcurrentHashMap<String, CmsAlias>();
+            m_aliasesBySite.put(siteRoot, siteMap);
+        }
+        return siteMap;
+    }
+}
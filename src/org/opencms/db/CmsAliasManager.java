@@ -34,8 +34,10 @@ import org.opencms.gwt.shared.alias.CmsAliasImportStatus;
 import org.opencms.gwt.shared.alias.CmsAliasMode;
 import org.opencms.i18n.CmsEncoder;
 import org.opencms.lock.CmsLock;
+import org.opencms.main.CmsEvent;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
+import org.opencms.main.I_CmsEventListener;
 import org.opencms.main.OpenCms;
 import org.opencms.security.CmsRole;
 import org.opencms.util.CmsStringUtil;
@@ -46,13 +48,17 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.logging.Log;
 
@@ -63,8 +69,18 @@ import au.com.bytecode.opencsv.CSVParser;
 
 /**
  * The alias manager provides access to the aliases stored in the database.<p>
+ *
+ * The rewrite alias matchers are cached per site root, and the cached matcher for a site is discarded
+ * whenever the rewrite aliases of the site are saved or imported, or when the caches are cleared.<p>
+ *
+ * After initialization, the aliases themselves are read from an in-memory index which is loaded once
+ * and then kept up to date by the write operations of this class, by resource deletion and by publishing.<p>
+ *
+ * The write operations fire an {@link I_CmsEventListener#EVENT_ALIASES_MODIFIED} event, which updates the alias index
+ * and the rewrite alias matchers. If the {@link org.opencms.main.CmsReplicatingEventManager} is used, the event is
+ * replicated, so that the alias manager of every node in a cluster updates its index.<p>
  */
-public class CmsAliasManager {
+public class CmsAliasManager implements I_CmsEventListener {
 
     /** The logger instance for this class. */
     private static final Log LOG = CmsLog.getLog(CmsAliasManager.class);
@@ -72,6 +88,19 @@ public class CmsAliasManager {
     /** The security manager for accessing the database. */
     protected CmsSecurityManager m_securityManager;
 
+    /** The admin CMS context used for maintaining the alias index. */
+    private CmsObject m_adminCms;
+
+    /** The alias index, or null if it has not been loaded yet. */
+    private volatile CmsAliasIndex m_aliasIndex;
+
+    /** The lock for loading and updating the alias index. */
+    private final Object m_aliasIndexLock = new Object();
+
+    /** The cached rewrite alias matchers, by site root. */
+    private Map<String, CmsRewriteAliasMatcher> m_rewriteAliasMatchers = new ConcurrentHashMap<String, CmsRewriteAliasMatcher>(
+        8);
+
     /**
      * Creates a new alias manager instance.<p>
      *
@@ -80,6 +109,106 @@ public class CmsAliasManager {
     public CmsAliasManager(CmsSecurityManager securityManager) {
 
         m_securityManager = securityManager;
+        OpenCms.addCmsEventListener(
+            this,
+            new int[] {
+                I_CmsEventListener.EVENT_ALIASES_MODIFIED,
+                I_CmsEventListener.EVENT_CLEAR_CACHES,
+                I_CmsEventListener.EVENT_PUBLISH_PROJECT,
+                I_CmsEventListener.EVENT_RESOURCE_DELETED});
+    }
+
+    /**
+     * Creates the event which signals that aliases have been modified.<p>
+     *
+     * @param siteRoot the site root whose rewrite aliases have been modified, or null
+     * @param structureIds the structure ids of the resources whose aliases have been modified
+     *
+     * @return the event
+     */
+    static CmsEvent createAliasesModifiedEvent(String siteRoot, Collection<CmsUUID> structureIds) {
+
+        Map<String, Object> data = new HashMap<String, Object>();
+        if (!structureIds.isEmpty()) {
+            data.put(I_CmsEventListener.KEY_STRUCTURE_IDS, CmsStringUtil.collectionAsString(structureIds, ","));
+        }
+        if (siteRoot != null) {
+            data.put(I_CmsEventListener.KEY_SITE_ROOT, siteRoot);
+        }
+        return new CmsEvent(I_CmsEventListener.EVENT_ALIASES_MODIFIED, data);
+    }
+
+    /**
+     * Returns the structure ids of the resources whose aliases have been modified.<p>
+     *
+     * @param event an {@link I_CmsEventListener#EVENT_ALIASES_MODIFIED} event
+     *
+     * @return the structure ids
+     */
+    static List<CmsUUID> getModifiedStructureIds(CmsEvent event) {
+
+        List<CmsUUID> result = new ArrayList<CmsUUID>();
+        String structureIds = (String)event.getData().get(I_CmsEventListener.KEY_STRUCTURE_IDS);
+        if (structureIds != null) {
+            for (String structureId : CmsStringUtil.splitAsList(structureIds, ',', true)) {
+                if (CmsUUID.isValidUUID(structureId)) {
+                    result.add(new CmsUUID(structureId));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @see org.opencms.main.I_CmsEventListener#cmsEvent(org.opencms.main.CmsEvent)
+     */
+    public void cmsEvent(CmsEvent event) {
+
+        switch (event.getType()) {
+            case I_CmsEventListener.EVENT_ALIASES_MODIFIED:
+                for (CmsUUID structureId : getModifiedStructureIds(event)) {
+                    updateAliasIndex(structureId);
+                }
+                String siteRoot = (String)event.getData().get(I_CmsEventListener.KEY_SITE_ROOT);
+                if (siteRoot != null) {
+                    removeRewriteAliasMatcher(siteRoot);
+                }
+                break;
+            case I_CmsEventListener.EVENT_CLEAR_CACHES:
+                synchronized (m_rewriteAliasMatchers) {
+                    m_rewriteAliasMatchers.clear();
+                }
+                synchronized (m_aliasIndexLock) {
+                    // reloaded on the next access
+                    m_aliasIndex = null;
+                }
+                break;
+            case I_CmsEventListener.EVENT_PUBLISH_PROJECT:
+                String publishIdStr = (String)event.getData().get(I_CmsEventListener.KEY_PUBLISHID);
+                if (publishIdStr != null) {
+                    removeAliasesOfPublishedDeletions(new CmsUUID(publishIdStr));
+                }
+                break;
+            case I_CmsEventListener.EVENT_RESOURCE_DELETED:
+                @SuppressWarnings("unchecked")
+                List<CmsResource> resources = (List<CmsResource>)event.getData().get(I_CmsEventListener.KEY_RESOURCES);
+                CmsAliasIndex index = m_aliasIndex;
+                if ((resources != null) && (index != null)) {
+                    List<CmsUUID> structureIds = new ArrayList<CmsUUID>();
+                    for (CmsResource resource : resources) {
+                        // aliases are only removed from the database if the resource was new
+                        if (!index.getAliasesForStructureId(resource.getStructureId()).isEmpty()) {
+                            structureIds.add(resource.getStructureId());
+                        }
+                    }
+                    if (!structureIds.isEmpty()) {
+                        OpenCms.fireCmsEvent(createAliasesModifiedEvent(null, structureIds));
+                    }
+                }
+                break;
+            default:
+                // ignore
+        }
     }
 
     /**
@@ -98,7 +227,13 @@ public class CmsAliasManager {
      */
     public List<CmsAlias> getAliasesForPath(CmsObject cms, String siteRoot, String aliasPath) throws CmsException {
 
-        CmsAlias alias = m_securityManager.readAliasByPath(cms.getRequestContext(), siteRoot, aliasPath);
+        CmsAliasIndex index = getAliasIndex();
+        CmsAlias alias;
+        if (index != null) {
+            alias = index.getAliasForPath(siteRoot, aliasPath);
+        } else {
+            alias = m_securityManager.readAliasByPath(cms.getRequestContext(), siteRoot, aliasPath);
+        }
         if (alias == null) {
             return Collections.emptyList();
         } else {
@@ -117,6 +252,10 @@ public class CmsAliasManager {
      */
     public List<CmsAlias> getAliasesForSite(CmsObject cms, String siteRoot) throws CmsException {
 
+        CmsAliasIndex index = getAliasIndex();
+        if (index != null) {
+            return index.getAliasesForSite(siteRoot);
+        }
         return m_securityManager.getAliasesForSite(cms.getRequestContext(), siteRoot);
     }
 
@@ -132,7 +271,13 @@ public class CmsAliasManager {
      */
     public List<CmsAlias> getAliasesForStructureId(CmsObject cms, CmsUUID structureId) throws CmsException {
 
-        List<CmsAlias> aliases = m_securityManager.readAliasesById(cms.getRequestContext(), structureId);
+        CmsAliasIndex index = getAliasIndex();
+        List<CmsAlias> aliases;
+        if (index != null) {
+            aliases = index.getAliasesForStructureId(structureId);
+        } else {
+            aliases = m_securityManager.readAliasesById(cms.getRequestContext(), structureId);
+        }
         Collections.sort(aliases, new Comparator<CmsAlias>() {
 
             public int compare(CmsAlias first, CmsAlias second) {
@@ -162,6 +307,9 @@ public class CmsAliasManager {
     /**
      * Gets the rewrite alias matcher for the given site.<p>
      *
+     * The matcher is read from the database and compiled only once, and then cached until
+     * the rewrite aliases of the site change.<p>
+     *
      * @param cms the CMS context to use
      * @param siteRoot the site root
      *
@@ -171,8 +319,26 @@ public class CmsAliasManager {
      */
     public CmsRewriteAliasMatcher getRewriteAliasMatcher(CmsObject cms, String siteRoot) throws CmsException {
 
-        List<CmsRewriteAlias> aliases = getRewriteAliases(cms, siteRoot);
-        return new CmsRewriteAliasMatcher(aliases);
+        CmsRewriteAliasMatcher matcher = m_rewriteAliasMatchers.get(siteRoot);
+        if (matcher == null) {
+            // build the matcher while holding the lock, so a concurrent invalidation can't be overwritten with stale data
+            synchronized (m_rewriteAliasMatchers) {
+                matcher = m_rewriteAliasMatchers.get(siteRoot);
+                if (matcher == null) {
+                    List<CmsRewriteAlias> aliases = getRewriteAliases(cms, siteRoot);
+                    matcher = new CmsRewriteAliasMatcher(aliases);
+                    m_rewriteAliasMatchers.put(siteRoot, matcher);
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug(
+                            Messages.get().getBundle().key(
+                                Messages.LOG_REWRITE_ALIASES_COMPILED_2,
+                                Integer.valueOf(matcher.getSize()),
+                                siteRoot));
+                    }
+                }
+            }
+        }
+        return matcher;
     }
 
     /**
@@ -194,6 +360,20 @@ public class CmsAliasManager {
 
     }
 
+    /**
+     * Initializes the alias manager by loading the alias index.<p>
+     *
+     * If the alias index can not be loaded, aliases are read from the database on every access
+     * until the next attempt to load the index succeeds.<p>
+     *
+     * @param adminCms a CMS context with admin permissions, used for maintaining the alias index
+     */
+    public void initialize(CmsObject adminCms) {
+
+        m_adminCms = adminCms;
+        getAliasIndex();
+    }
+
     /**
      * Imports alias CSV data.<p>
      *
@@ -215,15 +395,20 @@ public class CmsAliasManager {
         checkPermissionsForMassEdit(cms);
         BufferedReader reader = new BufferedReader(
             new InputStreamReader(new ByteArrayInputStream(aliasData), CmsEncoder.ENCODING_UTF_8));
-        String line = reader.readLine();
         List<CmsAliasImportResult> totalResult = new ArrayList<CmsAliasImportResult>();
-        CmsAliasImportResult result;
-        while (line != null) {
-            result = processAliasLine(cms, siteRoot, line, separator);
-            if (result != null) {
-                totalResult.add(result);
+        try {
+            String line = reader.readLine();
+            CmsAliasImportResult result;
+            while (line != null) {
+                result = processAliasLine(cms, siteRoot, line, separator);
+                if (result != null) {
+                    totalResult.add(result);
+                }
+                line = reader.readLine();
             }
-            line = reader.readLine();
+        } finally {
+            // the import may contain rewrite aliases
+            OpenCms.fireCmsEvent(createAliasesModifiedEvent(siteRoot, Collections.<CmsUUID> emptyList()));
         }
         return totalResult;
     }
@@ -241,6 +426,7 @@ public class CmsAliasManager {
     throws CmsException {
 
         m_securityManager.saveAliases(cms.getRequestContext(), cms.readResource(structureId), aliases);
+        OpenCms.fireCmsEvent(createAliasesModifiedEvent(null, Collections.singletonList(structureId)));
         touch(cms, cms.readResource(structureId));
     }
 
@@ -257,7 +443,11 @@ public class CmsAliasManager {
     throws CmsException {
 
         checkPermissionsForMassEdit(cms, siteRoot);
-        m_securityManager.saveRewriteAliases(cms.getRequestContext(), siteRoot, newAliases);
+        try {
+            m_securityManager.saveRewriteAliases(cms.getRequestContext(), siteRoot, newAliases);
+        } finally {
+            OpenCms.fireCmsEvent(createAliasesModifiedEvent(siteRoot, Collections.<CmsUUID> emptyList()));
+        }
     }
 
     /**
@@ -369,6 +559,8 @@ public class CmsAliasManager {
         if (maybeAlias.isEmpty()) {
             CmsAlias newAlias = new CmsAlias(resource.getStructureId(), siteRoot, aliasPath, mode);
             m_securityManager.addAlias(cms.getRequestContext(), newAlias);
+            OpenCms.fireCmsEvent(
+                createAliasesModifiedEvent(null, Collections.singletonList(resource.getStructureId())));
             touch(cms, resource);
             return new CmsAliasImportResult(
                 CmsAliasImportStatus.aliasNew,
@@ -385,6 +577,10 @@ public class CmsAliasManager {
             m_securityManager.deleteAliases(cms.getRequestContext(), deleteFilter);
             CmsAlias newAlias = new CmsAlias(resource.getStructureId(), siteRoot, aliasPath, mode);
             m_securityManager.addAlias(cms.getRequestContext(), newAlias);
+            OpenCms.fireCmsEvent(
+                createAliasesModifiedEvent(
+                    null,
+                    Arrays.asList(existingAlias.getStructureId(), resource.getStructureId())));
             touch(cms, resource);
             return new CmsAliasImportResult(
                 CmsAliasImportStatus.aliasChanged,
@@ -520,6 +716,39 @@ public class CmsAliasManager {
         }
     }
 
+    /**
+     * Gets the alias index, loading it if necessary.<p>
+     *
+     * @return the alias index, or null if the alias manager has not been initialized or the index could not be loaded
+     */
+    private CmsAliasIndex getAliasIndex() {
+
+        CmsAliasIndex index = m_aliasIndex;
+        if ((index == null) && (m_adminCms != null)) {
+            synchronized (m_aliasIndexLock) {
+                index = m_aliasIndex;
+                if (index == null) {
+                    try {
+                        List<CmsAlias> aliases = m_securityManager.readAliases(
+                            m_adminCms.getRequestContext(),
+                            new CmsAliasFilter(null, null, null));
+                        index = new CmsAliasIndex(aliases);
+                        m_aliasIndex = index;
+                        if (LOG.isDebugEnabled()) {
+                            LOG.debug(
+                                Messages.get().getBundle().key(
+                                    Messages.LOG_ALIAS_INDEX_LOADED_1,
+                                    Integer.valueOf(index.size())));
+                        }
+                    } catch (CmsException e) {
+                        LOG.error(e.getLocalizedMessage(), e);
+                    }
+                }
+            }
+        }
+        return index;
+    }
+
     /**
      * Message accessor.<p>
      *
@@ -615,6 +844,47 @@ public class CmsAliasManager {
 
     }
 
+    /**
+     * Removes the aliases of resources which have been deleted by a publish job from the alias index.<p>
+     *
+     * Publishing a deleted resource removes all of its aliases from the database.<p>
+     *
+     * @param publishHistoryId the publish history id of the publish job
+     */
+    private void removeAliasesOfPublishedDeletions(CmsUUID publishHistoryId) {
+
+        synchronized (m_aliasIndexLock) {
+            CmsAliasIndex index = m_aliasIndex;
+            if (index == null) {
+                return;
+            }
+            try {
+                List<CmsPublishedResource> publishedResources = m_adminCms.readPublishedResources(publishHistoryId);
+                for (CmsPublishedResource publishedResource : publishedResources) {
+                    if (publishedResource.getState().isDeleted()) {
+                        index.updateAliases(publishedResource.getStructureId(), Collections.<CmsAlias> emptyList());
+                    }
+                }
+            } catch (CmsException e) {
+                LOG.error(e.getLocalizedMessage(), e);
+                // we don't know which aliases have been removed, so reload the index on the next access
+                m_aliasIndex = null;
+            }
+        }
+    }
+
+    /**
+     * Removes the cached rewrite alias matcher for a site root.<p>
+     *
+     * @param siteRoot the site root
+     */
+    private void removeRewriteAliasMatcher(String siteRoot) {
+
+        synchronized (m_rewriteAliasMatchers) {
+            m_rewriteAliasMatchers.remove(siteRoot);
+        }
+    }
+
     /**
      * Tries to to touch a resource by setting its last modification date, but only if its state is 'unchanged'.<p>
      *
@@ -641,4 +911,27 @@ public class CmsAliasManager {
         }
     }
 
+    /**
+     * Re-reads the aliases for a structure id from the database and updates the alias index with them.<p>
+     *
+     * @param structureId the structure id
+     */
+    private void updateAliasIndex(CmsUUID structureId) {
+
+        synchronized (m_aliasIndexLock) {
+            CmsAliasIndex index = m_aliasIndex;
+            if (index == null) {
+                return;
+            }
+            try {
+                index.updateAliases(
+                    structureId,
+                    m_securityManager.readAliasesById(m_adminCms.getRequestContext(), structureId));
+            } catch (CmsException e) {
+                LOG.error(e.getLocalizedMessage(), e);
+                // the index may be out of date now, so reload it on the next access
+                m_aliasIndex = null;
+            }
+        }
+    }
 }
@@ -37,7 +37,7 @@ import org.opencms.security.CmsPermissionSet;
  *
  * @since 6.0.0
  */
-public class CmsCacheKey implements I_CmsCacheKey {
+public class CmsCacheKey implements I_CmsTypedCacheKey {
 
     /** Cache key for a list of sub-resources (files and folders) of a folder. */
     public static final String CACHE_KEY_SUBALL = "_all_";
@@ -108,4 +108,35 @@ public class CmsCacheKey implements I_CmsCacheKey {
         cacheBuffer.append(resource.getStructureId().toString());
         return cacheBuffer.toString();
     }
+
+    /**
+     * @see org.opencms.db.I_CmsTypedCacheKey#getPermissionCacheKey(org.opencms.db.CmsDbContext, org.opencms.file.CmsResource, org.opencms.security.CmsPermissionSet, boolean, boolean)
+     */
+    public CmsPermissionCacheKey getPermissionCacheKey(
+        CmsDbContext context,
+        CmsResource resource,
+        CmsPermissionSet requiredPermissions,
+        boolean requireVisible,
+        boolean checkLock) {
+
+        if (!context.getProjectId().isNullUUID()) {
+            return null;
+        }
+        int flags = 0;
+        if (checkLock) {
+            flags |= CmsPermissionCacheKey.FLAG_CHECK_LOCK;
+        }
+        if (requireVisible) {
+            flags |= CmsPermissionCacheKey.FLAG_REQUIRE_VISIBLE;
+        }
+        if (context.currentProject().isOnlineProject()) {
+            flags |= CmsPermissionCacheKey.FLAG_ONLINE;
+        }
+        return new CmsPermissionCacheKey(
+            context.currentUser().getId(),
+            resource.getStructureId(),
+            requiredPermissions.getAllowedPermissions(),
+            requiredPermissions.getDeniedPermissions(),
+            flags);
+    }
 }
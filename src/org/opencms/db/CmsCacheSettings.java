@@ -34,12 +34,24 @@ package org.opencms.db;
  */
 public class CmsCacheSettings {
 
+    /** The default maximum weight of the XML content definition cache. */
+    public static final int DEFAULT_CONTENT_DEFINITIONS_CACHE_WEIGHT = 65536;
+
+    /** The default maximum number of published resources for which the caches are cleared selectively. */
+    public static final int DEFAULT_PUBLISH_FLUSH_THRESHOLD = 1000;
+
+    /** The default maximum size in bytes of the cache for XML schema and DTD files read from the VFS. */
+    public static final int DEFAULT_XML_ENTITIES_CACHE_SIZE = 16 * 1024 * 1024;
+
     /** The size of the memory monitor's cache for ACLs. */
     private int m_aclCacheSize;
 
     /** The name of the class to generate cache keys. */
     private String m_cacheKeyGenerator;
 
+    /** The maximum weight of the XML content definition cache. */
+    private int m_contentDefinitionsCacheWeight = -1; // this configuration entry is optional
+
     /** The size of the memory monitor's cache for groups. */
     private int m_groupCacheSize;
 
@@ -61,6 +73,9 @@ public class CmsCacheSettings {
     /** The size of the memory monitor's cache for property lists. */
     private int m_propertyListsCacheSize = -1; // this configuration entry is optional
 
+    /** The maximum number of published resources for which the caches are cleared selectively. */
+    private int m_publishFlushThreshold = -1; // this configuration entry is optional
+
     /** The size of the memory monitor's cache for resources. */
     private int m_resourceCacheSize;
 
@@ -76,6 +91,9 @@ public class CmsCacheSettings {
     /** The size of the memory monitor's cache for user/group relations. */
     private int m_userGroupsCacheSize;
 
+    /** The maximum size in bytes of the cache for XML schema and DTD files. */
+    private int m_xmlEntitiesCacheSize = -1; // this configuration entry is optional
+
     /**
      * Default constructor.<p>
      */
@@ -104,6 +122,18 @@ public class CmsCacheSettings {
         return m_cacheKeyGenerator;
     }
 
+    /**
+     * Returns the maximum weight of the XML content definition cache.<p>
+     *
+     * Might be <code>-1</code> if configuration entry is missing.<p>
+     *
+     * @return the maximum weight of the XML content definition cache
+     */
+    public int getConfiguredContentDefinitionsCacheWeight() {
+
+        return m_contentDefinitionsCacheWeight;
+    }
+
     /**
      * Returns the size of the memory monitor's cache for organizational units.<p>
      *
@@ -152,6 +182,33 @@ public class CmsCacheSettings {
         return m_rolesCacheSize;
     }
 
+    /**
+     * Returns the maximum size in bytes of the cache for XML schema and DTD files.<p>
+     *
+     * Might be <code>-1</code> if configuration entry is missing.<p>
+     *
+     * @return the maximum size in bytes of the cache for XML schema and DTD files
+     */
+    public int getConfiguredXmlEntitiesCacheSize() {
+
+        return m_xmlEntitiesCacheSize;
+    }
+
+    /**
+     * Returns the maximum weight of the XML content definition cache.<p>
+     *
+     * The weight of a content definition is the number of its schema types plus one.<p>
+     *
+     * @return the maximum weight of the XML content definition cache
+     */
+    public int getContentDefinitionsCacheWeight() {
+
+        if (m_contentDefinitionsCacheWeight < 0) {
+            return DEFAULT_CONTENT_DEFINITIONS_CACHE_WEIGHT;
+        }
+        return m_contentDefinitionsCacheWeight;
+    }
+
     /**
      * Returns the size of the memory monitor's cache for groups.<p>
      *
@@ -175,6 +232,18 @@ public class CmsCacheSettings {
         return m_orgUnitCacheSize;
     }
 
+    /**
+     * Returns the maximum number of published resources for which the caches are cleared selectively.<p>
+     *
+     * Might be <code>-1</code> if configuration entry is missing.<p>
+     *
+     * @return the maximum number of published resources for which the caches are cleared selectively
+     */
+    public int getConfiguredPublishFlushThreshold() {
+
+        return m_publishFlushThreshold;
+    }
+
     /**
      * Returns the size of the memory monitor's cache for permission checks.<p>
      *
@@ -231,6 +300,22 @@ public class CmsCacheSettings {
         return m_propertyListsCacheSize;
     }
 
+    /**
+     * Returns the maximum number of published resources for which the caches are cleared selectively.<p>
+     *
+     * If a publish job contains more resources, all resource related caches are flushed completely.
+     * A value of <code>0</code> disables the selective cache invalidation.<p>
+     *
+     * @return the maximum number of published resources for which the caches are cleared selectively
+     */
+    public int getPublishFlushThreshold() {
+
+        if (m_publishFlushThreshold < 0) {
+            return DEFAULT_PUBLISH_FLUSH_THRESHOLD;
+        }
+        return m_publishFlushThreshold;
+    }
+
     /**
      * Returns the size of the memory monitor's cache for resources.<p>
      *
@@ -284,6 +369,19 @@ public class CmsCacheSettings {
         return m_userGroupsCacheSize;
     }
 
+    /**
+     * Returns the maximum size in bytes of the cache for XML schema and DTD files read from the VFS.<p>
+     *
+     * @return the maximum size in bytes of the cache for XML schema and DTD files
+     */
+    public int getXmlEntitiesCacheSize() {
+
+        if (m_xmlEntitiesCacheSize < 0) {
+            return DEFAULT_XML_ENTITIES_CACHE_SIZE;
+        }
+        return m_xmlEntitiesCacheSize;
+    }
+
     /**
      * Sets the size of the memory monitor's cache for ACLs.<p>
      *
@@ -304,6 +402,16 @@ public class CmsCacheSettings {
         m_cacheKeyGenerator = classname;
     }
 
+    /**
+     * Sets the maximum weight of the XML content definition cache.<p>
+     *
+     * @param weight the maximum weight of the XML content definition cache
+     */
+    public void setContentDefinitionsCacheWeight(String weight) {
+
+        m_contentDefinitionsCacheWeight = getIntValue(weight, -1);
+    }
+
     /**
      * Sets the size of the memory monitor's cache for groups.<p>
      *
@@ -374,6 +482,19 @@ public class CmsCacheSettings {
         m_propertyListsCacheSize = getIntValue(size, -1);
     }
 
+    /**
+     * Sets the maximum number of published resources for which the caches are cleared selectively.<p>
+     *
+     * @param threshold the maximum number of published resources for which the caches are cleared selectively
+     */
+    public void setPublishFlushThreshold(String threshold) {
+
+        // 0 is a valid value here, it disables the selective cache invalidation
+        m_publishFlushThreshold = ((threshold != null) && "0".equals(threshold.trim()))
+        ? 0
+        : getIntValue(threshold, -1);
+    }
+
     /**
      * Sets the size of the memory monitor's cache for resources.<p>
      *
@@ -424,6 +545,16 @@ public class CmsCacheSettings {
         m_userGroupsCacheSize = getIntValue(size, 256);
     }
 
+    /**
+     * Sets the maximum size in bytes of the cache for XML schema and DTD files.<p>
+     *
+     * @param size the maximum size in bytes of the cache for XML schema and DTD files
+     */
+    public void setXmlEntitiesCacheSize(String size) {
+
+        m_xmlEntitiesCacheSize = getIntValue(size, -1);
+    }
+
     /**
      * Turns a string into an int.<p>
      *
@@ -0,0 +1,354 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.configuration.CmsParameterConfiguration;
+import org.opencms.main.CmsException;
+import org.opencms.main.CmsLog;
+import org.opencms.main.CmsReplicatedEvent;
+import org.opencms.main.I_CmsEventTransport;
+import org.opencms.main.OpenCms;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Event transport that exchanges the replicated events through the shared OpenCms database.<p>
+ *
+ * Every node writes its events to the <code>CMS_REPLICATED_EVENTS</code> table and polls the table for the
+ * events written by the other nodes. Each event gets a sequence number when it is written, and each poll reads
+ * the events after the last sequence number seen, so the clocks of the nodes do not matter for the delivery.
+ * A sequence number is only written if the previous number already exists, which is enforced by the primary key,
+ * so the numbers become visible in ascending order.<p>
+ *
+ * On the first poll, the events written since the start of the node are read as well, because the caches of
+ * the node may already have been filled before. Events older than <code>retention</code> milliseconds are removed
+ * by the writing node. Events with data longer than {@link #MAX_DATA_LENGTH} characters are not written,
+ * since the data column can not store them on every supported database.<p>
+ *
+ * The following parameters of the event manager are used:
+ * <ul>
+ * <li><code>pool</code>: the database pool to use, default is the default pool</li>
+ * <li><code>sqlmanager</code>: the SQL manager class that provides the queries, default is the generic one</li>
+ * <li><code>lookback</code>: the time in milliseconds before the node start from which events are read on the
+ *     first poll, to tolerate clock differences between the nodes</li>
+ * <li><code>retention</code>: the time in milliseconds after which events are removed</li>
+ * </ul>
+ *
+ * @since 10.5.0
+ */
+public class CmsDbEventTransport implements I_CmsEventTransport {
+
+    /** The default lookback time in milliseconds. */
+    public static final int DEFAULT_LOOKBACK = 60000;
+
+    /** The default retention time in milliseconds. */
+    public static final int DEFAULT_RETENTION = 3600000;
+
+    /** The default SQL manager class. */
+    public static final String DEFAULT_SQLMANAGER = "org.opencms.db.generic.CmsSqlManager";
+
+    /** The maximum length of the encoded event data which can be stored in the database. */
+    public static final int MAX_DATA_LENGTH = 32000;
+
+    /** Parameter name for the lookback time. */
+    public static final String PARAM_LOOKBACK = "lookback";
+
+    /** Parameter name for the database pool. */
+    public static final String PARAM_POOL = "pool";
+
+    /** Parameter name for the retention time. */
+    public static final String PARAM_RETENTION = "retention";
+
+    /** Parameter name for the SQL manager class. */
+    public static final String PARAM_SQLMANAGER = "sqlmanager";
+
+    /** The number of attempts to write an event if the sequence number was taken by another node. */
+    private static final int INSERT_ATTEMPTS = 5;
+
+    /** The static log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsDbEventTransport.class);
+
+    /** The time the old events were deleted the last time. */
+    private long m_lastCleanup;
+
+    /** The sequence number of the last event written by this node. */
+    private long m_lastSentSequence;
+
+    /** The sequence number of the last event read, or -1 before the first poll. */
+    private long m_lastSequence = -1;
+
+    /** The lookback time in milliseconds. */
+    private int m_lookback;
+
+    /** The id of the local node. */
+    private String m_nodeId;
+
+    /** The database pool name. */
+    private String m_pool;
+
+    /** The SQL manager providing the queries. */
+    private org.opencms.db.generic.CmsSqlManager m_queries;
+
+    /** The retention time in milliseconds. */
+    private int m_retention;
+
+    /** The start time of the node. */
+    private long m_startTime;
+
+    /**
+     * @see org.opencms.main.I_CmsEventTransport#initialize(java.lang.String, org.opencms.configuration.CmsParameterConfiguration)
+     */
+    public void initialize(String nodeId, CmsParameterConfiguration configuration) throws CmsException {
+
+        m_startTime = System.currentTimeMillis();
+        m_nodeId = nodeId;
+        m_pool = configuration.getString(PARAM_POOL, null);
+        m_lookback = configuration.getInteger(PARAM_LOOKBACK, DEFAULT_LOOKBACK);
+        m_retention = configuration.getInteger(PARAM_RETENTION, DEFAULT_RETENTION);
+        String sqlManager = configuration.getString(PARAM_SQLMANAGER, DEFAULT_SQLMANAGER);
+        m_queries = org.opencms.db.generic.CmsSqlManager.getInstance(sqlManager);
+        if (m_queries == null) {
+            throw new CmsDbException(
+                org.opencms.db.generic.Messages.get().container(
+                    org.opencms.db.generic.Messages.LOG_SQL_MANAGER_INIT_FAILED_1,
+                    sqlManager));
+        }
+    }
+
+    /**
+     * @see org.opencms.main.I_CmsEventTransport#receive()
+     */
+    public List<CmsReplicatedEvent> receive() throws CmsException {
+
+        List<CmsReplicatedEvent> result = new ArrayList<CmsReplicatedEvent>();
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet res = null;
+        try {
+            conn = getConnection();
+            if (m_lastSequence < 0) {
+                // first poll: read the events written since the node was started, up to the current sequence number
+                long maxSequence = readMaxSequence(conn);
+                stmt = m_queries.getPreparedStatement(conn, "C_REPLICATED_EVENTS_READ_SINCE_DATE_2");
+                stmt.setLong(1, m_startTime - m_lookback);
+                stmt.setLong(2, maxSequence);
+                res = stmt.executeQuery();
+                readEvents(res, result);
+                m_lastSequence = maxSequence;
+            } else {
+                stmt = m_queries.getPreparedStatement(conn, "C_REPLICATED_EVENTS_READ_AFTER_SEQUENCE_1");
+                stmt.setLong(1, m_lastSequence);
+                res = stmt.executeQuery();
+                m_lastSequence = Math.max(m_lastSequence, readEvents(res, result));
+            }
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(
+                org.opencms.db.generic.Messages.get().container(
+                    org.opencms.db.generic.Messages.ERR_GENERIC_SQL_1,
+                    CmsDbSqlException.getErrorQuery(stmt)),
+                e);
+        } finally {
+            closeAll(conn, stmt, res);
+        }
+        return result;
+    }
+
+    /**
+     * @see org.opencms.main.I_CmsEventTransport#send(java.util.List)
+     */
+    public void send(List<CmsReplicatedEvent> events) throws CmsException {
+
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        try {
+            conn = getConnection();
+            stmt = m_queries.getPreparedStatement(conn, "C_REPLICATED_EVENTS_INSERT_6");
+            long sequence = readMaxSequence(conn);
+            for (CmsReplicatedEvent event : events) {
+                if (event.getData().length() > MAX_DATA_LENGTH) {
+                    // never write truncated data, the receiving nodes could not decode it
+                    LOG.error(
+                        Messages.get().getBundle().key(
+                            Messages.LOG_REPLICATED_EVENT_DATA_TOO_LONG_3,
+                            event.getId(),
+                            Integer.valueOf(event.getType()),
+                            Integer.valueOf(MAX_DATA_LENGTH)));
+                    continue;
+                }
+                int attempt = 1;
+                while (true) {
+                    sequence++;
+                    stmt.setLong(1, sequence);
+                    stmt.setString(2, event.getId());
+                    stmt.setString(3, event.getNodeId());
+                    stmt.setInt(4, event.getType());
+                    stmt.setLong(5, event.getDate());
+                    stmt.setString(6, event.getData());
+                    try {
+                        stmt.executeUpdate();
+                        break;
+                    } catch (SQLException e) {
+                        // most likely the sequence number was taken by another node in the meantime
+                        if (attempt >= INSERT_ATTEMPTS) {
+                            throw e;
+                        }
+                        attempt++;
+                        sequence = readMaxSequence(conn);
+                    }
+                }
+                m_lastSentSequence = sequence;
+            }
+            long now = System.currentTimeMillis();
+            if ((now - m_lastCleanup) > m_lookback) {
+                closeAll(null, stmt, null);
+                stmt = m_queries.getPreparedStatement(conn, "C_REPLICATED_EVENTS_DELETE_OLD_2");
+                stmt.setLong(1, now - m_retention);
+                // never delete the event with the highest sequence number, it is needed to continue the sequence
+                stmt.setLong(2, m_lastSentSequence);
+                stmt.executeUpdate();
+                m_lastCleanup = now;
+            }
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(
+                org.opencms.db.generic.Messages.get().container(
+                    org.opencms.db.generic.Messages.ERR_GENERIC_SQL_1,
+                    CmsDbSqlException.getErrorQuery(stmt)),
+                e);
+        } finally {
+            closeAll(conn, stmt, null);
+        }
+    }
+
+    /**
+     * @see org.opencms.main.I_CmsEventTransport#shutDown()
+     */
+    public void shutDown() {
+
+        // noop, the connections are returned to the pool after each use
+    }
+
+    /**
+     * Returns a connection of the configured database pool.<p>
+     *
+     * @return the connection
+     *
+     * @throws SQLException if something goes wrong
+     */
+    protected Connection getConnection() throws SQLException {
+
+        CmsSqlManager sqlManager = OpenCms.getSqlManager();
+        String pool = m_pool != null ? m_pool : sqlManager.getDefaultDbPoolName();
+        return sqlManager.getConnection(pool);
+    }
+
+    /**
+     * Closes the given JDBC resources, ignoring errors.<p>
+     *
+     * @param conn the connection, or <code>null</code>
+     * @param stmt the statement, or <code>null</code>
+     * @param res the result set, or <code>null</code>
+     */
+    private void closeAll(Connection conn, PreparedStatement stmt, ResultSet res) {
+
+        try {
+            if (res != null) {
+                res.close();
+            }
+        } catch (SQLException e) {
+            LOG.debug(e.getLocalizedMessage(), e);
+        }
+        try {
+            if (stmt != null) {
+                stmt.close();
+            }
+        } catch (SQLException e) {
+            LOG.debug(e.getLocalizedMessage(), e);
+        }
+        try {
+            if (conn != null) {
+                conn.close();
+            }
+        } catch (SQLException e) {
+            LOG.debug(e.getLocalizedMessage(), e);
+        }
+    }
+
+    /**
+     * Reads the events of the other nodes from the given result set.<p>
+     *
+     * @param res the result set
+     * @param result the list to add the events to
+     *
+     * @return the highest sequence number read, including the events of the local node
+     *
+     * @throws SQLException if something goes wrong
+     */
+    private long readEvents(ResultSet res, List<CmsReplicatedEvent> result) throws SQLException {
+
+        long maxSequence = -1;
+        while (res.next()) {
+            maxSequence = Math.max(maxSequence, res.getLong(1));
+            String nodeId = res.getString(3);
+            if (!m_nodeId.equals(nodeId)) {
+                result.add(
+                    new CmsReplicatedEvent(res.getString(2), nodeId, res.getInt(4), res.getLong(5), res.getString(6)));
+            }
+        }
+        return maxSequence;
+    }
+
+    /**
+     * Reads the highest sequence number written so far.<p>
+     *
+     * @param conn the connection to use
+     *
+     * @return the highest sequence number, or 0 if there are no events
+     *
+     * @throws SQLException if something goes wrong
+     */
+    private long readMaxSequence(Connection conn) throws SQLException {
+
+        PreparedStatement stmt = null;
+        ResultSet res = null;
+        try {
+            stmt = m_queries.getPreparedStatement(conn, "C_REPLICATED_EVENTS_READ_MAX_SEQUENCE");
+            res = stmt.executeQuery();
+            // MAX returns null for an empty table, which is read as 0
+            return res.next() ? res.getLong(1) : 0;
+        } finally {
+            closeAll(null, stmt, res);
+        }
+    }
+}
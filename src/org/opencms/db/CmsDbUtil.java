@@ -38,6 +38,9 @@ import java.util.List;
  */
 public final class CmsDbUtil {
 
+    /** The maximum number of parameters which are used in a single SQL IN clause. */
+    public static final int MAX_IN_CLAUSE_SIZE = 500;
+
     /**
      * Private constructor for static utility class.<p>
      */
@@ -47,6 +50,27 @@ public final class CmsDbUtil {
 
     }
 
+    /**
+     * Creates an SQL IN clause with the given number of parameter placeholders, e.g. <code>(?,?,?)</code>.<p>
+     *
+     * @param count the number of parameters
+     *
+     * @return the IN clause
+     */
+    public static String createInClause(int count) {
+
+        StringBuffer result = new StringBuffer(2 + (2 * count));
+        result.append('(');
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                result.append(',');
+            }
+            result.append('?');
+        }
+        result.append(')');
+        return result.toString();
+    }
+
     /**
      * Fills a given prepared statement with parameters from a list of objects.<p>
      *
@@ -115,6 +115,8 @@ import org.opencms.util.CmsUUID;
 import org.opencms.util.PrintfFormat;
 import org.opencms.workplace.threads.A_CmsProgressThread;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -123,6 +125,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Locale;
@@ -314,6 +317,12 @@ public final class CmsDriverManager implements I_CmsEventListener {
     /** Key to indicate update of structure state. */
     public static final int UPDATE_STRUCTURE_STATE = 2;
 
+    /** The maximum number of child resources read from the database at once when reading a page of children. */
+    private static final int CHILD_RESOURCES_CHUNK_SIZE_MAX = 1000;
+
+    /** The minimum number of child resources read from the database at once when reading a page of children. */
+    private static final int CHILD_RESOURCES_CHUNK_SIZE_MIN = 100;
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsDriverManager.class);
 
@@ -338,11 +347,14 @@ public final class CmsDriverManager implements I_CmsEventListener {
     /** The class used for cache key generation. */
     private I_CmsCacheKey m_keyGenerator;
 
+    /** The last publish tag handed out, to keep the tags of concurrently running publish jobs unique. */
+    private int m_lastPublishTag;
+
     /** The lock manager. */
     private CmsLockManager m_lockManager;
 
     /** The log entry cache. */
-    private List<CmsLogEntry> m_log = new ArrayList<CmsLogEntry>();
+    private List<CmsLogEntry> m_log = Collections.synchronizedList(new ArrayList<CmsLogEntry>());
 
     /** Local reference to the memory monitor to avoid multiple lookups through the OpenCms singleton. */
     private CmsMemoryMonitor m_monitor;
@@ -350,6 +362,9 @@ public final class CmsDriverManager implements I_CmsEventListener {
     /** The project driver. */
     private I_CmsProjectDriver m_projectDriver;
 
+    /** The maximum number of published resources for which the caches are cleared selectively. */
+    private int m_publishFlushThreshold;
+
     /** The the configuration read from the <code>opencms.properties</code> file. */
     private CmsParameterConfiguration m_propertyConfiguration;
 
@@ -993,8 +1008,11 @@ public final class CmsDriverManager implements I_CmsEventListener {
                 CmsUUID publishHistoryId = new CmsUUID((String)event.getData().get(I_CmsEventListener.KEY_PUBLISHID));
                 report = (I_CmsReport)event.getData().get(I_CmsEventListener.KEY_REPORT);
                 dbc = (CmsDbContext)event.getData().get(I_CmsEventListener.KEY_DBCONTEXT);
-                m_monitor.clearCache();
-                writeExportPoints(dbc, report, publishHistoryId);
+                clearCacheForPublishedResources(dbc, publishHistoryId);
+                if (!event.getData().containsKey(I_CmsEventListener.KEY_REPLICATED)) {
+                    // the export points have been written by the node which published the resources
+                    writeExportPoints(dbc, report, publishHistoryId);
+                }
                 break;
 
             case I_CmsEventListener.EVENT_CLEAR_CACHES:
@@ -4176,13 +4194,18 @@ public final class CmsDriverManager implements I_CmsEventListener {
     /**
      * Returns the next publish tag for the published historical resources.<p>
      *
+     * Since several publish jobs may run at the same time, the tag is never lower than
+     * the last tag handed out by this driver manager.<p>
+     *
      * @param dbc the current database context
      *
      * @return the next available publish tag
      */
-    public int getNextPublishTag(CmsDbContext dbc) {
+    public synchronized int getNextPublishTag(CmsDbContext dbc) {
 
-        return getHistoryDriver(dbc).readNextPublishTag(dbc);
+        int publishTag = Math.max(getHistoryDriver(dbc).readNextPublishTag(dbc), m_lastPublishTag + 1);
+        m_lastPublishTag = publishTag;
+        return publishTag;
     }
 
     /**
@@ -5154,6 +5177,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
 
         // initialize the key generator
         m_keyGenerator = (I_CmsCacheKey)Class.forName(settings.getCacheKeyGenerator()).newInstance();
+        m_publishFlushThreshold = settings.getPublishFlushThreshold();
 
         // initialize the HTML link validator
         m_htmlLinkValidator = new CmsRelationSystemValidator(this);
@@ -6044,6 +6068,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
     public void publishJob(CmsObject cms, CmsDbContext dbc, CmsPublishList publishList, I_CmsReport report)
     throws CmsException {
 
+        boolean published = false;
         try {
             // check state and lock
             List<CmsResource> allResources = new ArrayList<CmsResource>(publishList.getFolderList());
@@ -6085,9 +6110,6 @@ public final class CmsDriverManager implements I_CmsEventListener {
 
             CmsProject onlineProject = readProject(dbc, CmsProject.ONLINE_PROJECT_ID);
 
-            // clear the cache
-            m_monitor.clearCache();
-
             int publishTag = getNextPublishTag(dbc);
             getProjectDriver(dbc).publishProject(dbc, report, onlineProject, publishList, publishTag);
 
@@ -6115,9 +6137,15 @@ public final class CmsDriverManager implements I_CmsEventListener {
                 // if project was temporary set context to online project
                 cms.getRequestContext().setCurrentProject(onlineProject);
             }
+            published = true;
         } finally {
-            // clear the cache again
-            m_monitor.clearCache();
+            if (published) {
+                // only remove the cache entries affected by the published resources
+                clearCacheForPublishedResources(dbc, publishList.getPublishHistoryId());
+            } else {
+                // the resources may have been published partially
+                m_monitor.clearCache();
+            }
         }
     }
 
@@ -6352,6 +6380,23 @@ public final class CmsDriverManager implements I_CmsEventListener {
         }
     }
 
+    /**
+     * Reads the aliases matching a given filter.<p>
+     *
+     * @param dbc the current database context
+     * @param project the current project
+     * @param filter the alias filter; a filter without any conditions matches all aliases
+     *
+     * @return the list of aliases matching the filter
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public List<CmsAlias> readAliases(CmsDbContext dbc, CmsProject project, CmsAliasFilter filter)
+    throws CmsException {
+
+        return getVfsDriver(dbc).readAliases(dbc, project, filter);
+    }
+
     /**
      * Reads the aliases for a given site root.<p>
      *
@@ -6532,7 +6577,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         boolean checkPermissions)
     throws CmsException {
 
-        String cacheKey = null;
+        CmsResourceCacheKey cacheKey = null;
         List<CmsResource> resourceList = null;
         if (m_monitor.isEnabled(CmsMemoryMonitor.CacheType.RESOURCE_LIST)) { // check this here to skip the complex cache key generation
             String time = "";
@@ -6545,16 +6590,16 @@ public final class CmsDriverManager implements I_CmsEventListener {
                 }
             }
             // try to get the sub resources from the cache
-            cacheKey = getCacheKey(
-                new String[] {
-                    dbc.currentUser().getName(),
-                    getFolders
-                    ? (getFiles ? CmsCacheKey.CACHE_KEY_SUBALL : CmsCacheKey.CACHE_KEY_SUBFOLDERS)
-                    : CmsCacheKey.CACHE_KEY_SUBFILES,
-                    checkPermissions ? "+" + time : "-",
-                    filter.getCacheId(),
-                    resource.getRootPath()},
-                dbc);
+            cacheKey = getResourceListCacheKey(
+                CmsResourceCacheKey.TYPE_SUB_RESOURCES,
+                dbc,
+                resource.getRootPath(),
+                dbc.currentUser().getName(),
+                getFolders
+                ? (getFiles ? CmsCacheKey.CACHE_KEY_SUBALL : CmsCacheKey.CACHE_KEY_SUBFOLDERS)
+                : CmsCacheKey.CACHE_KEY_SUBFILES,
+                checkPermissions ? "+" + time : "-",
+                filter.getCacheId());
 
             resourceList = m_monitor.getCachedResourceList(cacheKey);
         }
@@ -6581,6 +6626,79 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return updateContextDates(dbc, resourceList, filter);
     }
 
+    /**
+     * Returns a page of the child resources of a resource, that is the resources
+     * contained in a folder.<p>
+     *
+     * The child resources are read from the database in chunks which are ordered and limited
+     * by the database, so only the children up to the end of the requested page are read.
+     * The filter and the permissions are applied to every chunk, and <code>skip</code> and
+     * <code>max</code> count only the child resources which pass them.<p>
+     *
+     * To find out if there are more child resources after the page, request one resource more
+     * than needed.<p>
+     *
+     * @param dbc the current database context
+     * @param resource the resource to return the child resources for
+     * @param filter the resource filter to use
+     * @param getFolders if true the child folders are included in the result
+     * @param getFiles if true the child files are included in the result
+     * @param order the order of the child resources
+     * @param ascending <code>true</code> for ascending, <code>false</code> for descending order
+     * @param skip the number of child resources to skip
+     * @param max the maximum number of child resources to return
+     *
+     * @return a list of at most <code>max</code> child resources
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public List<CmsResource> readChildResources(
+        CmsDbContext dbc,
+        CmsResource resource,
+        CmsResourceFilter filter,
+        boolean getFolders,
+        boolean getFiles,
+        CmsResourceOrder order,
+        boolean ascending,
+        int skip,
+        int max)
+    throws CmsException {
+
+        List<CmsResource> result = new ArrayList<CmsResource>();
+        // read as much as probably needed in the first chunk, but never too much at once
+        int chunkSize = (int)Math.max(CHILD_RESOURCES_CHUNK_SIZE_MIN, Math.min(
+            CHILD_RESOURCES_CHUNK_SIZE_MAX,
+            (long)Math.max(skip, 0) + Math.max(max, 0)));
+        int skipped = 0;
+        int offset = 0;
+        while (result.size() < max) {
+            List<CmsResource> chunk = getVfsDriver(dbc).readChildResources(
+                dbc,
+                dbc.currentProject(),
+                resource,
+                getFolders,
+                getFiles,
+                order,
+                ascending,
+                offset,
+                chunkSize);
+            offset += chunk.size();
+            List<CmsResource> visible = updateContextDates(dbc, filterPermissions(dbc, chunk, filter), filter);
+            for (CmsResource child : visible) {
+                if (skipped < skip) {
+                    skipped++;
+                } else if (result.size() < max) {
+                    result.add(child);
+                }
+            }
+            if (chunk.size() < chunkSize) {
+                // no more children available
+                break;
+            }
+        }
+        return result;
+    }
+
     /**
      * Returns the default file for the given folder.<p>
      *
@@ -6851,6 +6969,41 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return file;
     }
 
+    /**
+     * Reads the binary content of a file resource from the VFS as a stream.<p>
+     *
+     * The content of large files is not loaded into memory, which makes this the preferred way to read the
+     * content of large files. The caller must close the returned stream.<p>
+     *
+     * @param dbc the current database context
+     * @param resource the base file resource (without content)
+     *
+     * @return a stream to read the file content from
+     *
+     * @throws CmsException if operation was not successful
+     *
+     * @see #readFile(CmsDbContext, CmsResource)
+     */
+    public InputStream readFileContentStream(CmsDbContext dbc, CmsResource resource) throws CmsException {
+
+        if (resource.isFolder()) {
+            throw new CmsVfsResourceNotFoundException(
+                Messages.get().container(
+                    Messages.ERR_ACCESS_FOLDER_AS_FILE_1,
+                    dbc.removeSiteRoot(resource.getRootPath())));
+        }
+
+        if (resource instanceof I_CmsHistoryResource) {
+            // the history driver only supports reading the content as a whole
+            return new ByteArrayInputStream(
+                getHistoryDriver(dbc).readContent(
+                    dbc,
+                    resource.getResourceId(),
+                    ((I_CmsHistoryResource)resource).getPublishTag()));
+        }
+        return getVfsDriver(dbc).readContentStream(dbc, dbc.currentProject().getUuid(), resource.getResourceId());
+    }
+
     /**
      * Reads a folder from the VFS,
      * using the specified resource filter.<p>
@@ -7157,93 +7310,78 @@ public final class CmsDriverManager implements I_CmsEventListener {
 
         // the root folder is no token in the path but a resource which has to be added to the path
         int count = tokens.size() + 1;
-        // holds the CmsResource instances in the path
-        List<CmsResource> pathList = new ArrayList<CmsResource>(count);
 
         // true if the path doesn't end with a folder
-        boolean lastResourceIsFile = false;
+        boolean lastResourceIsFile = !path.endsWith("/") && (count > 1);
         // number of folders in the path
-        int folderCount = count;
-        if (!path.endsWith("/")) {
-            folderCount--;
-            lastResourceIsFile = true;
-        }
+        int folderCount = lastResourceIsFile ? count - 1 : count;
 
-        // read the root folder, because it's ID is required to read any sub-resources
-        String currentResourceName = "/";
-        StringBuffer currentPath = new StringBuffer(64);
-        currentPath.append('/');
-
-        String cp = currentPath.toString();
         CmsUUID projectId = getProjectIdForContext(dbc);
-
-        // key to cache the resources
-        String cacheKey = getCacheKey(null, false, projectId, cp);
-        // the current resource
-        CmsResource currentResource = m_monitor.getCachedResource(cacheKey);
-        if ((currentResource == null) || !dbc.getProjectId().isNullUUID()) {
-            currentResource = getVfsDriver(dbc).readFolder(dbc, projectId, cp);
-            if (dbc.getProjectId().isNullUUID()) {
-                m_monitor.cacheResource(cacheKey, currentResource);
+        boolean online = CmsProject.isOnlineProject(projectId);
+        boolean useCache = dbc.getProjectId().isNullUUID();
+
+        // holds the CmsResource instances in the path, the cache returns the complete path with a single lookup
+        List<CmsResource> pathList;
+        if (useCache) {
+            pathList = m_monitor.getCachedResourcePath(online, tokens, count, lastResourceIsFile);
+            if (lastResourceIsFile
+                && (pathList.get(count - 1) != null)
+                && pathList.get(count - 1).getState().isDeleted()
+                && !filter.includeDeleted()) {
+                pathList.set(count - 1, null);
             }
+        } else {
+            pathList = new ArrayList<CmsResource>(Collections.<CmsResource> nCopies(count, null));
         }
-
-        pathList.add(0, currentResource);
-
-        if (count == 1) {
-            // the root folder was requested- no further operations required
+        if (!pathList.contains(null)) {
             return pathList;
         }
 
-        Iterator<String> it = tokens.iterator();
-        currentResourceName = it.next();
-
-        // read the folder resources in the path /a/b/c/
-        int i = 0;
-        for (i = 1; i < folderCount; i++) {
-            currentPath.append(currentResourceName);
-            currentPath.append('/');
-            // read the folder
-            cp = currentPath.toString();
-            cacheKey = getCacheKey(null, false, projectId, cp);
-            currentResource = m_monitor.getCachedResource(cacheKey);
-            if ((currentResource == null) || !dbc.getProjectId().isNullUUID()) {
-                currentResource = getVfsDriver(dbc).readFolder(dbc, projectId, cp);
-                if (dbc.getProjectId().isNullUUID()) {
-                    m_monitor.cacheResource(cacheKey, currentResource);
+        // build the paths of the resources which are not cached
+        String[] paths = new String[count];
+        List<String> missingPaths = new ArrayList<String>(count);
+        StringBuffer currentPath = new StringBuffer(64);
+        currentPath.append('/');
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                currentPath.append(tokens.get(i - 1));
+                if (i < folderCount) {
+                    currentPath.append('/');
                 }
             }
-
-            pathList.add(i, currentResource);
-
-            if (i < (folderCount - 1)) {
-                currentResourceName = it.next();
+            paths[i] = currentPath.toString();
+            if (pathList.get(i) == null) {
+                missingPaths.add(paths[i]);
             }
         }
 
-        // read the (optional) last file resource in the path /x.html
-        if (lastResourceIsFile) {
-            if (it.hasNext()) {
-                // this will only be false if a resource in the
-                // top level root folder (e.g. "/index.html") was requested
-                currentResourceName = it.next();
+        // read all missing resources of the path with a single query
+        Map<String, CmsResource> loadedResources = new HashMap<String, CmsResource>();
+        if (missingPaths.size() > 1) {
+            for (CmsResource resource : getVfsDriver(dbc).readResourcesForPaths(dbc, projectId, missingPaths)) {
+                loadedResources.put(CmsFileUtil.removeTrailingSeparator(resource.getRootPath()), resource);
             }
-            currentPath.append(currentResourceName);
-
-            // read the file
-            cp = currentPath.toString();
-            cacheKey = getCacheKey(null, false, projectId, cp);
-            currentResource = m_monitor.getCachedResource(cacheKey);
-            if ((currentResource == null) || !dbc.getProjectId().isNullUUID()) {
-                currentResource = getVfsDriver(dbc).readResource(dbc, projectId, cp, filter.includeDeleted());
-                if (dbc.getProjectId().isNullUUID()) {
-                    m_monitor.cacheResource(cacheKey, currentResource);
+        }
+        for (int i = 0; i < count; i++) {
+            if (pathList.get(i) != null) {
+                continue;
+            }
+            CmsResource currentResource = loadedResources.get(CmsFileUtil.removeTrailingSeparator(paths[i]));
+            if (i < folderCount) {
+                if ((currentResource == null) || currentResource.isFile()) {
+                    // read the folder
+                    currentResource = getVfsDriver(dbc).readFolder(dbc, projectId, paths[i]);
                 }
+            } else if ((currentResource == null) || (currentResource.getState().isDeleted() && !filter.includeDeleted())) {
+                // read the (optional) last file resource in the path /x.html
+                currentResource = getVfsDriver(dbc).readResource(dbc, projectId, paths[i], filter.includeDeleted());
             }
-
-            pathList.add(i, currentResource);
+            pathList.set(i, currentResource);
         }
 
+        if (useCache) {
+            m_monitor.cacheResourcePath(online, tokens, pathList);
+        }
         return pathList;
     }
 
@@ -7470,7 +7608,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
 
         // check if we have the result already cached
         CmsUUID projectId = getProjectIdForContext(dbc);
-        String cacheKey = getCacheKey(CACHE_ALL_PROPERTIES, search, projectId, resource.getRootPath());
+        CmsResourceCacheKey cacheKey = getPropertyListCacheKey(search, projectId, resource.getRootPath());
 
         List<CmsProperty> properties = m_monitor.getCachedPropertyList(cacheKey);
 
@@ -7524,6 +7662,137 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return new ArrayList<CmsProperty>(properties);
     }
 
+    /**
+     * Reads the property objects of several resources at once.<p>
+     *
+     * Property lists which are not cached are read with as few database queries as possible,
+     * and are stored in the property list cache, so that subsequent calls of
+     * {@link #readPropertyObjects(CmsDbContext, CmsResource, boolean)} for these resources are cache hits.<p>
+     *
+     * All properties in the result will be in frozen (read only) state, so you can't change the values.<p>
+     *
+     * @param dbc the current database context
+     * @param resources the resources to read the properties for
+     * @param names the names of the properties to return, or <code>null</code> for all properties
+     * @param search true, if the properties should be searched on all parent folders if not found on the resource
+     *
+     * @return the lists of properties, with the structure ids of the resources as keys
+     *
+     * @throws CmsException if something goes wrong
+     *
+     * @see CmsObject#readPropertyObjects(List, Set, boolean)
+     */
+    public Map<CmsUUID, List<CmsProperty>> readPropertyObjects(
+        CmsDbContext dbc,
+        List<CmsResource> resources,
+        Set<String> names,
+        boolean search) throws CmsException {
+
+        CmsUUID projectId = getProjectIdForContext(dbc);
+        boolean useCache = dbc.getProjectId().isNullUUID();
+        Map<CmsUUID, List<CmsProperty>> result = new LinkedHashMap<CmsUUID, List<CmsProperty>>();
+
+        // collect the resources with uncached results, and the folders they inherit properties from
+        List<CmsResource> missing = new ArrayList<CmsResource>();
+        Map<String, CmsResource> required = new LinkedHashMap<String, CmsResource>();
+        for (CmsResource resource : resources) {
+            List<CmsProperty> properties = null;
+            if (useCache) {
+                properties = m_monitor.getCachedPropertyList(
+                    getPropertyListCacheKey(search, projectId, resource.getRootPath()));
+            }
+            if (properties != null) {
+                result.put(resource.getStructureId(), properties);
+                continue;
+            }
+            missing.add(resource);
+            required.put(resource.getRootPath(), resource);
+            if (search) {
+                String parent = CmsResource.getParentFolder(resource.getRootPath());
+                while ((parent != null) && !required.containsKey(parent)) {
+                    required.put(parent, null);
+                    parent = CmsResource.getParentFolder(parent);
+                }
+            }
+        }
+
+        // read the properties directly attached to the required resources
+        Map<String, List<CmsProperty>> attached = new HashMap<String, List<CmsProperty>>();
+        List<CmsResource> uncached = new ArrayList<CmsResource>();
+        for (Map.Entry<String, CmsResource> entry : required.entrySet()) {
+            List<CmsProperty> properties = null;
+            if (useCache) {
+                properties = m_monitor.getCachedPropertyList(
+                    getPropertyListCacheKey(false, projectId, entry.getKey()));
+            }
+            if (properties != null) {
+                attached.put(entry.getKey(), properties);
+            } else if (entry.getValue() != null) {
+                uncached.add(entry.getValue());
+            } else {
+                // no permission check on parent folder is required since we must have "read"
+                // permissions to read the child resource anyway
+                uncached.add(readResource(dbc, entry.getKey(), CmsResourceFilter.ALL));
+            }
+        }
+        if (!uncached.isEmpty()) {
+            Map<CmsUUID, List<CmsProperty>> read = getVfsDriver(dbc).readPropertyObjects(
+                dbc,
+                dbc.currentProject(),
+                uncached);
+            for (CmsResource resource : uncached) {
+                List<CmsProperty> properties = read.get(resource.getStructureId());
+                if (properties == null) {
+                    properties = new ArrayList<CmsProperty>();
+                }
+                CmsProperty.setFrozen(properties);
+                if (useCache) {
+                    m_monitor.cachePropertyList(
+                        getPropertyListCacheKey(false, projectId, resource.getRootPath()),
+                        properties);
+                }
+                attached.put(resource.getRootPath(), properties);
+            }
+        }
+
+        // build the results for the uncached resources
+        for (CmsResource resource : missing) {
+            List<CmsProperty> properties;
+            if (search) {
+                properties = new ArrayList<CmsProperty>();
+                String path = resource.getRootPath();
+                while (path != null) {
+                    // make sure properties from lower folders "overwrite" properties from upper folders
+                    List<CmsProperty> parentProperties = new ArrayList<CmsProperty>(attached.get(path));
+                    parentProperties.removeAll(properties);
+                    parentProperties.addAll(properties);
+                    properties = parentProperties;
+                    path = CmsResource.getParentFolder(path);
+                }
+                if (useCache) {
+                    m_monitor.cachePropertyList(
+                        getPropertyListCacheKey(true, projectId, resource.getRootPath()),
+                        properties);
+                }
+            } else {
+                properties = attached.get(resource.getRootPath());
+            }
+            result.put(resource.getStructureId(), properties);
+        }
+
+        // copy the cached lists and apply the name filter
+        for (Map.Entry<CmsUUID, List<CmsProperty>> entry : result.entrySet()) {
+            List<CmsProperty> properties = new ArrayList<CmsProperty>(entry.getValue().size());
+            for (CmsProperty property : entry.getValue()) {
+                if ((names == null) || names.contains(property.getName())) {
+                    properties.add(property);
+                }
+            }
+            entry.setValue(properties);
+        }
+        return result;
+    }
+
     /**
      * Reads the resources that were published in a publish task for a given publish history ID.<p>
      *
@@ -7716,9 +7985,13 @@ public final class CmsDriverManager implements I_CmsEventListener {
     throws CmsException, CmsDataAccessException {
 
         // try to get the sub resources from the cache
-        String cacheKey = getCacheKey(
-            new String[] {dbc.currentUser().getName(), filter.getCacheId(), readTree ? "+" : "-", parent.getRootPath()},
-            dbc);
+        CmsResourceCacheKey cacheKey = getResourceListCacheKey(
+            CmsResourceCacheKey.TYPE_RESOURCE_TREE,
+            dbc,
+            parent.getRootPath(),
+            dbc.currentUser().getName(),
+            filter.getCacheId(),
+            readTree ? "+" : "-");
 
         List<CmsResource> resourceList = m_monitor.getCachedResourceList(cacheKey);
         if ((resourceList == null) || !dbc.getProjectId().isNullUUID()) {
@@ -7805,24 +8078,24 @@ public final class CmsDriverManager implements I_CmsEventListener {
         CmsResourceFilter filter)
     throws CmsException {
 
-        String cacheKey;
+        CmsResourceCacheKey cacheKey;
         if (value == null) {
-            cacheKey = getCacheKey(
-                new String[] {
-                    dbc.currentUser().getName(),
-                    folder.getRootPath(),
-                    propertyDefinition,
-                    filter.getCacheId()},
-                dbc);
+            cacheKey = getResourceListCacheKey(
+                CmsResourceCacheKey.TYPE_RESOURCES_WITH_PROPERTY,
+                dbc,
+                folder.getRootPath(),
+                dbc.currentUser().getName(),
+                propertyDefinition,
+                filter.getCacheId());
         } else {
-            cacheKey = getCacheKey(
-                new String[] {
-                    dbc.currentUser().getName(),
-                    folder.getRootPath(),
-                    propertyDefinition,
-                    value,
-                    filter.getCacheId()},
-                dbc);
+            cacheKey = getResourceListCacheKey(
+                CmsResourceCacheKey.TYPE_RESOURCES_WITH_PROPERTY,
+                dbc,
+                folder.getRootPath(),
+                dbc.currentUser().getName(),
+                propertyDefinition,
+                value,
+                filter.getCacheId());
         }
         List<CmsResource> resourceList = m_monitor.getCachedResourceList(cacheKey);
         if ((resourceList == null) || !dbc.getProjectId().isNullUUID()) {
@@ -9455,8 +9728,11 @@ public final class CmsDriverManager implements I_CmsEventListener {
                 return;
             }
 
-            List<CmsLogEntry> log = new ArrayList<CmsLogEntry>(m_log);
-            m_log.clear();
+            List<CmsLogEntry> log;
+            synchronized (m_log) {
+                log = new ArrayList<CmsLogEntry>(m_log);
+                m_log.clear();
+            }
             String logTableEnabledStr = (String)OpenCms.getRuntimeProperty(PARAM_LOG_TABLE_ENABLED);
             if (Boolean.parseBoolean(logTableEnabledStr)) { // defaults to 'false' if value not set
                 m_projectDriver.log(dbc, log);
@@ -10843,6 +11119,75 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return false;
     }
 
+    /**
+     * Clears the resource related caches after a project has been published.<p>
+     *
+     * Only the cache entries which are affected by the published resources are removed. All caches are flushed
+     * if the publish job contains more resources than configured by the publish flush threshold,
+     * or if organizational unit resources have been published.<p>
+     *
+     * @param dbc the current database context
+     * @param publishHistoryId the publish history id of the publish job
+     */
+    private void clearCacheForPublishedResources(CmsDbContext dbc, CmsUUID publishHistoryId) {
+
+        List<CmsPublishedResource> publishedResources = null;
+        if ((dbc != null) && (m_publishFlushThreshold > 0)) {
+            try {
+                publishedResources = readPublishedResources(dbc, publishHistoryId);
+            } catch (CmsException e) {
+                LOG.error(
+                    Messages.get().getBundle().key(Messages.ERR_READ_PUBLISHED_RESOURCES_FOR_ID_1, publishHistoryId),
+                    e);
+            }
+        }
+        if ((publishedResources == null) || (publishedResources.size() > m_publishFlushThreshold)) {
+            m_monitor.clearCache();
+            return;
+        }
+
+        List<String> rootPaths = new ArrayList<String>(publishedResources.size());
+        Set<CmsUUID> ids = new HashSet<CmsUUID>();
+        for (CmsPublishedResource pubRes : publishedResources) {
+            if (pubRes.getRootPath().startsWith("/system/orgunits/")) {
+                // organizational units are cached independently of their resources
+                m_monitor.clearCache();
+                return;
+            }
+            rootPaths.add(pubRes.getRootPath());
+            ids.add(pubRes.getStructureId());
+            ids.add(pubRes.getResourceId());
+            if (pubRes.isFile() && (pubRes.getSiblingCount() > 1)) {
+                // siblings share the resource properties, so their cached property lists are affected as well
+                try {
+                    CmsResource resource = getVfsDriver(dbc).readResource(
+                        dbc,
+                        CmsProject.ONLINE_PROJECT_ID,
+                        pubRes.getStructureId(),
+                        true);
+                    for (CmsResource sibling : getVfsDriver(dbc).readSiblings(
+                        dbc,
+                        CmsProject.ONLINE_PROJECT_ID,
+                        resource,
+                        true)) {
+                        rootPaths.add(sibling.getRootPath());
+                    }
+                } catch (CmsDataAccessException e) {
+                    // the resource has been deleted, the siblings are matched by their resource id
+                    LOG.debug(e.getLocalizedMessage(), e);
+                }
+            }
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(
+                Messages.get().getBundle().key(
+                    Messages.LOG_UNCACHE_PUBLISHED_RESOURCES_2,
+                    new Integer(publishedResources.size()),
+                    publishHistoryId));
+        }
+        m_monitor.uncacheResources(rootPaths, ids);
+    }
+
     /**
      * Copies all relations from the source resource to the target resource.<p>
      *
@@ -11154,27 +11499,6 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return acl;
     }
 
-    /**
-     * Return a cache key build from the provided information.<p>
-     *
-     * @param prefix a prefix for the key
-     * @param flag a boolean flag for the key (only used if prefix is not null)
-     * @param projectId the project for which to generate the key
-     * @param resource the resource for which to generate the key
-     *
-     * @return String a cache key build from the provided information
-     */
-    private String getCacheKey(String prefix, boolean flag, CmsUUID projectId, String resource) {
-
-        StringBuffer b = new StringBuffer(64);
-        if (prefix != null) {
-            b.append(prefix);
-            b.append(flag ? '+' : '-');
-        }
-        b.append(CmsProject.isOnlineProject(projectId) ? '+' : '-');
-        return b.append(resource).toString();
-    }
-
     /**
      * Return a cache key build from the provided information.<p>
      *
@@ -11220,6 +11544,43 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return projectId;
     }
 
+    /**
+     * Returns the property list cache key for the given resource path.<p>
+     *
+     * @param search <code>true</code> if the key is for the properties including the inherited ones
+     * @param projectId the project for which to generate the key
+     * @param rootPath the root path of the resource
+     *
+     * @return the property list cache key
+     */
+    private CmsResourceCacheKey getPropertyListCacheKey(boolean search, CmsUUID projectId, String rootPath) {
+
+        return new CmsResourceCacheKey(
+            CmsResourceCacheKey.TYPE_PROPERTIES,
+            CmsProject.isOnlineProject(projectId),
+            rootPath,
+            search ? "+" : "-");
+    }
+
+    /**
+     * Returns the resource list cache key for a resource list read for the given resource path.<p>
+     *
+     * @param type the type of the resource list, see {@link CmsResourceCacheKey#TYPE_SUB_RESOURCES}
+     * @param dbc the database context for which to generate the key
+     * @param rootPath the root path of the resource the list is read for
+     * @param parameters the further parameters of the read operation
+     *
+     * @return the resource list cache key
+     */
+    private CmsResourceCacheKey getResourceListCacheKey(
+        int type,
+        CmsDbContext dbc,
+        String rootPath,
+        String... parameters) {
+
+        return new CmsResourceCacheKey(type, dbc.currentProject().isOnlineProject(), rootPath, parameters);
+    }
+
     /**
      * Returns if and what state needs to be updated.<p>
      *
@@ -0,0 +1,147 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.util.CmsUUID;
+
+/**
+ * Immutable key for the permission cache.<p>
+ *
+ * The key is built from the ids and flags of a permission check without creating any strings,
+ * and its hash code is computed only once.<p>
+ *
+ * @since 10.5.0
+ *
+ * @see I_CmsTypedCacheKey#getPermissionCacheKey(CmsDbContext, org.opencms.file.CmsResource, org.opencms.security.CmsPermissionSet, boolean, boolean)
+ */
+public final class CmsPermissionCacheKey {
+
+    /** Flag for a permission check which checks the lock state. */
+    public static final int FLAG_CHECK_LOCK = 1;
+
+    /** Flag for a permission check in the online project. */
+    public static final int FLAG_ONLINE = 4;
+
+    /** Flag for a permission check which requires the resource to be visible. */
+    public static final int FLAG_REQUIRE_VISIBLE = 2;
+
+    /** The allowed permissions of the required permission set. */
+    private final int m_allowedPermissions;
+
+    /** The denied permissions of the required permission set. */
+    private final int m_deniedPermissions;
+
+    /** The flags of the permission check. */
+    private final int m_flags;
+
+    /** The precomputed hash code. */
+    private final int m_hashCode;
+
+    /** The structure id of the checked resource. */
+    private final CmsUUID m_structureId;
+
+    /** The id of the user the permissions are checked for. */
+    private final CmsUUID m_userId;
+
+    /**
+     * Creates a new permission cache key.<p>
+     *
+     * @param userId the id of the user the permissions are checked for
+     * @param structureId the structure id of the checked resource
+     * @param allowedPermissions the allowed permissions of the required permission set
+     * @param deniedPermissions the denied permissions of the required permission set
+     * @param flags the flags of the permission check, a combination of the <code>FLAG_*</code> constants
+     */
+    public CmsPermissionCacheKey(
+        CmsUUID userId,
+        CmsUUID structureId,
+        int allowedPermissions,
+        int deniedPermissions,
+        int flags) {
+
+        m_userId = userId;
+        m_structureId = structureId;
+        m_allowedPermissions = allowedPermissions;
+        m_deniedPermissions = deniedPermissions;
+        m_flags = flags;
+        int hash = userId.hashCode();
+        hash = (31 * hash) + structureId.hashCode();
+        hash = (31 * hash) + allowedPermissions;
+        hash = (31 * hash) + deniedPermissions;
+        m_hashCode = (31 * hash) + flags;
+    }
+
+    /**
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    @Override
+    public boolean equals(Object obj) {
+
+        if (obj == this) {
+            return true;
+        }
+        if (obj instanceof CmsPermissionCacheKey) {
+            CmsPermissionCacheKey other = (CmsPermissionCacheKey)obj;
+            return (other.m_hashCode == m_hashCode)
+                && (other.m_flags == m_flags)
+                && (other.m_allowedPermissions == m_allowedPermissions)
+                && (other.m_deniedPermissions == m_deniedPermissions)
+                && other.m_structureId.equals(m_structureId)
+                && other.m_userId.equals(m_userId);
+        }
+        return false;
+    }
+
+    /**
+     * @see java.lang.Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+
+        return m_hashCode;
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+
+        StringBuffer result = new StringBuffer(96);
+        result.append(m_flags);
+        result.append('_');
+        result.append(m_userId);
+        result.append('_');
+        result.append(m_allowedPermissions);
+        result.append('_');
+        result.append(m_deniedPermissions);
+        result.append('_');
+        result.append(m_structureId);
+        return result.toString();
+    }
+}
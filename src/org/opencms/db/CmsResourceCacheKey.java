@@ -0,0 +1,154 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import java.util.Arrays;
+
+/**
+ * Immutable key for the caches of resource lists and property lists, which are read for a single resource path.<p>
+ *
+ * The key keeps the root path as a separate element, so the key is built without concatenating the path,
+ * and the cache entries affected by a changed resource can be found without parsing the key.
+ * The hash code is computed only once.<p>
+ *
+ * @since 10.5.0
+ */
+public final class CmsResourceCacheKey {
+
+    /** Key type for the properties of a resource. */
+    public static final int TYPE_PROPERTIES = 1;
+
+    /** Key type for the resources of a tree read by the parent folder. */
+    public static final int TYPE_RESOURCE_TREE = 2;
+
+    /** Key type for the resources with a property in a folder. */
+    public static final int TYPE_RESOURCES_WITH_PROPERTY = 3;
+
+    /** Key type for the sub resources of a folder. */
+    public static final int TYPE_SUB_RESOURCES = 4;
+
+    /** The precomputed hash code. */
+    private final int m_hashCode;
+
+    /** Signals if the key is for the online project. */
+    private final boolean m_online;
+
+    /** The further parameters of the cached read operation. */
+    private final String[] m_parameters;
+
+    /** The root path of the resource the cache entry was read for. */
+    private final String m_rootPath;
+
+    /** The type of the key. */
+    private final int m_type;
+
+    /**
+     * Creates a new resource cache key.<p>
+     *
+     * @param type the type of the key, one of the <code>TYPE_*</code> constants
+     * @param online <code>true</code> if the key is for the online project
+     * @param rootPath the root path of the resource the cache entry is read for
+     * @param parameters the further parameters of the cached read operation
+     */
+    public CmsResourceCacheKey(int type, boolean online, String rootPath, String... parameters) {
+
+        m_type = type;
+        m_online = online;
+        m_rootPath = rootPath;
+        m_parameters = parameters;
+        int hash = (31 * type) + (online ? 1 : 0);
+        hash = (31 * hash) + rootPath.hashCode();
+        m_hashCode = (31 * hash) + Arrays.hashCode(parameters);
+    }
+
+    /**
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    @Override
+    public boolean equals(Object obj) {
+
+        if (obj == this) {
+            return true;
+        }
+        if (obj instanceof CmsResourceCacheKey) {
+            CmsResourceCacheKey other = (CmsResourceCacheKey)obj;
+            return (other.m_hashCode == m_hashCode)
+                && (other.m_type == m_type)
+                && (other.m_online == m_online)
+                && other.m_rootPath.equals(m_rootPath)
+                && Arrays.equals(other.m_parameters, m_parameters);
+        }
+        return false;
+    }
+
+    /**
+     * Returns the root path of the resource the cache entry was read for.<p>
+     *
+     * @return the root path
+     */
+    public String getRootPath() {
+
+        return m_rootPath;
+    }
+
+    /**
+     * @see java.lang.Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+
+        return m_hashCode;
+    }
+
+    /**
+     * Returns if the key is for the online project.<p>
+     *
+     * @return <code>true</code> if the key is for the online project
+     */
+    public boolean isOnline() {
+
+        return m_online;
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+
+        StringBuffer result = new StringBuffer(64 + m_rootPath.length());
+        result.append(m_type);
+        result.append(m_online ? '+' : '-');
+        for (String parameter : m_parameters) {
+            result.append(parameter);
+            result.append('_');
+        }
+        result.append(m_rootPath);
+        return result.toString();
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.file.CmsResource;
+
+/**
+ * The orderings supported when reading a page of child resources from the VFS.<p>
+ *
+ * Resources with equal sort values are ordered by their structure id, so paging over
+ * a folder always returns every child exactly once.<p>
+ *
+ * @since 10.5.0
+ */
+public enum CmsResourceOrder {
+
+    /** Order by the creation date. */
+    DATE_CREATED("C_RESOURCES_ORDER_DATE_CREATED") {
+
+        /**
+         * @see org.opencms.db.CmsResourceOrder#compareValues(org.opencms.file.CmsResource, org.opencms.file.CmsResource)
+         */
+        @Override
+        protected int compareValues(CmsResource r1, CmsResource r2) {
+
+            return compareLongs(r1.getDateCreated(), r2.getDateCreated());
+        }
+    },
+
+    /** Order by the date of the last modification. */
+    DATE_LAST_MODIFIED("C_RESOURCES_ORDER_DATE_LASTMODIFIED") {
+
+        /**
+         * @see org.opencms.db.CmsResourceOrder#compareValues(org.opencms.file.CmsResource, org.opencms.file.CmsResource)
+         */
+        @Override
+        protected int compareValues(CmsResource r1, CmsResource r2) {
+
+            return compareLongs(r1.getDateLastModified(), r2.getDateLastModified());
+        }
+    },
+
+    /** Order by the resource path, which is the resource name for children of the same folder. */
+    NAME("C_RESOURCES_ORDER_NAME") {
+
+        /**
+         * @see org.opencms.db.CmsResourceOrder#compareValues(org.opencms.file.CmsResource, org.opencms.file.CmsResource)
+         */
+        @Override
+        protected int compareValues(CmsResource r1, CmsResource r2) {
+
+            return r1.getRootPath().compareTo(r2.getRootPath());
+        }
+    };
+
+    /** The key of the query providing the column to order by. */
+    private String m_queryKey;
+
+    /**
+     * Creates a new resource order.<p>
+     *
+     * @param queryKey the key of the query providing the column to order by
+     */
+    private CmsResourceOrder(String queryKey) {
+
+        m_queryKey = queryKey;
+    }
+
+    /**
+     * Compares two resources according to this order.<p>
+     *
+     * This is used by drivers which can not sort in the database.<p>
+     *
+     * @param r1 the first resource
+     * @param r2 the second resource
+     * @param ascending <code>true</code> for ascending, <code>false</code> for descending order
+     *
+     * @return the comparison result
+     */
+    public int compare(CmsResource r1, CmsResource r2, boolean ascending) {
+
+        int result = compareValues(r1, r2);
+        if (!ascending) {
+            result = -result;
+        }
+        if (result == 0) {
+            result = r1.getStructureId().compareTo(r2.getStructureId());
+        }
+        return result;
+    }
+
+    /**
+     * Returns the key of the query providing the column to order by.<p>
+     *
+     * @return the key of the query providing the column to order by
+     */
+    public String getQueryKey() {
+
+        return m_queryKey;
+    }
+
+    /**
+     * Compares two longs.<p>
+     *
+     * @param l1 the first value
+     * @param l2 the second value
+     *
+     * @return the comparison result
+     */
+    protected int compareLongs(long l1, long l2) {
+
+        return (l1 < l2) ? -1 : ((l1 == l2) ? 0 : 1);
+    }
+
+    /**
+     * Compares the values of two resources this order is based on.<p>
+     *
+     * @param r1 the first resource
+     * @param r2 the second resource
+     *
+     * @return the comparison result
+     */
+    protected abstract int compareValues(CmsResource r1, CmsResource r2);
+}
@@ -31,7 +31,9 @@ import org.opencms.main.CmsLog;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
@@ -40,6 +42,10 @@ import org.apache.commons.logging.Log;
 
 /**
  * Helper class used for matching rewrite aliases to incoming request URIs.<p>
+ *
+ * The regular expressions of the aliases are compiled only once, when the matcher is created, and are indexed
+ * by their literal prefix, so that only the patterns which can possibly match a given path are evaluated.
+ * Instances of this class are immutable and can be shared between threads.<p>
  */
 public class CmsRewriteAliasMatcher {
 
@@ -89,11 +95,73 @@ public class CmsRewriteAliasMatcher {
 
     }
 
+    /**
+     * A rewrite alias together with its compiled pattern.<p>
+     */
+    private static class CompiledAlias {
+
+        /** The rewrite alias. */
+        final CmsRewriteAlias m_alias;
+
+        /** The position of the alias in the original alias list. */
+        final int m_index;
+
+        /** The compiled pattern of the alias. */
+        final Pattern m_pattern;
+
+        /**
+         * Creates a new instance.<p>
+         *
+         * @param index the position of the alias in the original alias list
+         * @param alias the rewrite alias
+         * @param pattern the compiled pattern
+         */
+        CompiledAlias(int index, CmsRewriteAlias alias, Pattern pattern) {
+
+            m_index = index;
+            m_alias = alias;
+            m_pattern = pattern;
+        }
+    }
+
+    /**
+     * A node of the prefix tree used for finding the candidate aliases for a path.<p>
+     */
+    private static class PrefixNode {
+
+        /** The aliases whose literal prefix ends at this node, in the order of the original alias list. */
+        final List<CompiledAlias> m_aliases = new ArrayList<CompiledAlias>(1);
+
+        /** The child nodes, by the next character of the prefix. */
+        final Map<Character, PrefixNode> m_children = new HashMap<Character, PrefixNode>(4);
+
+        /**
+         * Gets the child node for the given character, creating it if necessary.<p>
+         *
+         * @param c the character
+         *
+         * @return the child node
+         */
+        PrefixNode getOrCreateChild(char c) {
+
+            Character key = Character.valueOf(c);
+            PrefixNode child = m_children.get(key);
+            if (child == null) {
+                child = new PrefixNode();
+                m_children.put(key, child);
+            }
+            return child;
+        }
+    }
+
     /** The logger instance for this class. */
     private static final Log LOG = CmsLog.getLog(CmsRewriteAliasMatcher.class);
 
-    /** The list of rewrite aliases to use for matching. */
-    private List<CmsRewriteAlias> m_aliases;
+    /** The number of aliases with a valid pattern. */
+    private int m_size;
+
+    /** The root of the prefix tree, holding the aliases without a literal prefix. */
+    private PrefixNode m_root = new PrefixNode();
 
     /**
      * Creates a new matcher instance for the given list of rewrite aliases.<p>
@@ -102,7 +170,34 @@ public class CmsRewriteAliasMatcher {
      */
     public CmsRewriteAliasMatcher(Collection<CmsRewriteAlias> aliases) {
 
-        m_aliases = new ArrayList<CmsRewriteAlias>(aliases);
+        int index = 0;
+        for (CmsRewriteAlias alias : aliases) {
+            Pattern pattern;
+            try {
+                pattern = Pattern.compile(alias.getPatternString());
+            } catch (PatternSyntaxException e) {
+                LOG.warn(e.getLocalizedMessage(), e);
+                continue;
+            }
+            String prefix = getLiteralPrefix(alias.getPatternString());
+            PrefixNode node = m_root;
+            for (int i = 0; i < prefix.length(); i++) {
+                node = node.getOrCreateChild(prefix.charAt(i));
+            }
+            node.m_aliases.add(new CompiledAlias(index, alias, pattern));
+            index += 1;
+        }
+        m_size = index;
+    }
+
+    /**
+     * Gets the number of rewrite aliases with a valid pattern used by this matcher.<p>
+     *
+     * @return the number of rewrite aliases
+     */
+    public int getSize() {
+
+        return m_size;
     }
 
     /**
@@ -114,19 +209,95 @@ public class CmsRewriteAliasMatcher {
      */
     public RewriteResult match(String path) {
 
-        for (CmsRewriteAlias alias : m_aliases) {
-            try {
-                Pattern pattern = Pattern.compile(alias.getPatternString());
-                Matcher matcher = pattern.matcher(path);
-                if (matcher.matches()) {
-                    String newPath = matcher.replaceFirst(alias.getReplacementString());
-                    return new RewriteResult(newPath, alias);
+        // the first alias of the original list which matches wins, so we walk down the prefix tree along the path
+        // and only check candidates which come before the best match found so far
+        CompiledAlias bestAlias = null;
+        String bestPath = null;
+        PrefixNode node = m_root;
+        int pos = 0;
+        while (node != null) {
+            for (CompiledAlias candidate : node.m_aliases) {
+                if ((bestAlias != null) && (candidate.m_index >= bestAlias.m_index)) {
+                    break;
                 }
-            } catch (PatternSyntaxException e) {
-                LOG.warn(e.getLocalizedMessage(), e);
-            } catch (IndexOutOfBoundsException e) {
-                LOG.warn(e.getLocalizedMessage(), e);
+                String newPath = rewrite(candidate, path);
+                if (newPath != null) {
+                    bestAlias = candidate;
+                    bestPath = newPath;
+                    break;
+                }
+            }
+            if (pos >= path.length()) {
+                break;
+            }
+            node = node.m_children.get(Character.valueOf(path.charAt(pos)));
+            pos += 1;
+        }
+        return bestAlias != null ? new RewriteResult(bestPath, bestAlias.m_alias) : null;
+    }
+
+    /**
+     * Determines the literal prefix which every string matched by the given regular expression must start with.<p>
+     *
+     * The analysis is conservative: whenever the expression contains a construct which is not
+     * simply a literal character, the prefix ends there.<p>
+     *
+     * @param regex the regular expression
+     *
+     * @return the literal prefix, possibly the empty string
+     */
+    static String getLiteralPrefix(String regex) {
+
+        if (regex.indexOf('|') != -1) {
+            // an alternation may make every part of the expression optional
+            return "";
+        }
+        StringBuffer prefix = new StringBuffer();
+        int i = regex.startsWith("^") ? 1 : 0;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            if ((c == '*') || (c == '?') || (c == '{')) {
+                // the preceding character is optional or repeated
+                if (prefix.length() > 0) {
+                    prefix.setLength(prefix.length() - 1);
+                }
+                break;
+            } else if (c == '\\') {
+                if ((i + 1) < regex.length()) {
+                    char escaped = regex.charAt(i + 1);
+                    if (!Character.isLetterOrDigit(escaped)) {
+                        prefix.append(escaped);
+                        i += 2;
+                        continue;
+                    }
+                }
+                break;
+            } else if ("[]().+^$".indexOf(c) != -1) {
+                break;
+            }
+            prefix.append(c);
+            i += 1;
+        }
+        return prefix.toString();
+    }
+
+    /**
+     * Applies a single rewrite alias to a path.<p>
+     *
+     * @param compiledAlias the alias to apply
+     * @param path the path
+     *
+     * @return the rewritten path, or null if the alias does not match the path
+     */
+    private String rewrite(CompiledAlias compiledAlias, String path) {
+
+        try {
+            Matcher matcher = compiledAlias.m_pattern.matcher(path);
+            if (matcher.matches()) {
+                return matcher.replaceFirst(compiledAlias.m_alias.getReplacementString());
             }
+        } catch (IndexOutOfBoundsException e) {
+            LOG.warn(e.getLocalizedMessage(), e);
         }
         return null;
     }
@@ -92,6 +92,7 @@ import org.opencms.util.CmsFileUtil;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -3871,6 +3872,30 @@ public final class CmsSecurityManager {
         }
     }
 
+    /**
+     * Reads the aliases matching a given filter.<p>
+     *
+     * @param context the current request context
+     * @param filter the alias filter; a filter without any conditions matches all aliases
+     *
+     * @return the aliases matching the filter
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public List<CmsAlias> readAliases(CmsRequestContext context, CmsAliasFilter filter) throws CmsException {
+
+        CmsDbContext dbc = m_dbContextFactory.getDbContext(context);
+        try {
+            List<CmsAlias> aliases = m_driverManager.readAliases(dbc, context.getCurrentProject(), filter);
+            return aliases;
+        } catch (Exception e) {
+            dbc.report(null, Messages.get().container(Messages.ERR_DB_OPERATION_0), e);
+            return null; // will never be executed
+        } finally {
+            dbc.clear();
+        }
+    }
+
     /**
      * Reads the aliases for a resource with a given structure id.<p>
      *
@@ -4138,6 +4163,67 @@ public final class CmsSecurityManager {
         return result;
     }
 
+    /**
+     * Returns a page of the child resources of a resource, that is the resources
+     * contained in a folder.<p>
+     *
+     * Only the child resources the current user has read permissions for are counted and returned.<p>
+     *
+     * @param context the current request context
+     * @param resource the resource to return the child resources for
+     * @param filter the resource filter to use
+     * @param getFolders if true the child folders are included in the result
+     * @param getFiles if true the child files are included in the result
+     * @param order the order of the child resources
+     * @param ascending <code>true</code> for ascending, <code>false</code> for descending order
+     * @param skip the number of child resources to skip
+     * @param max the maximum number of child resources to return
+     *
+     * @return a list of at most <code>max</code> child resources
+     *
+     * @throws CmsException if something goes wrong
+     * @throws CmsSecurityException if the user has insufficient permission for the given resource (read is required)
+     *
+     * @see CmsDriverManager#readChildResources(CmsDbContext, CmsResource, CmsResourceFilter, boolean, boolean, CmsResourceOrder, boolean, int, int)
+     */
+    public List<CmsResource> readChildResources(
+        CmsRequestContext context,
+        CmsResource resource,
+        CmsResourceFilter filter,
+        boolean getFolders,
+        boolean getFiles,
+        CmsResourceOrder order,
+        boolean ascending,
+        int skip,
+        int max)
+    throws CmsException, CmsSecurityException {
+
+        List<CmsResource> result = null;
+        CmsDbContext dbc = m_dbContextFactory.getDbContext(context);
+        try {
+            // check the access permissions
+            checkPermissions(dbc, resource, CmsPermissionSet.ACCESS_READ, true, CmsResourceFilter.ALL);
+            result = m_driverManager.readChildResources(
+                dbc,
+                resource,
+                filter,
+                getFolders,
+                getFiles,
+                order,
+                ascending,
+                skip,
+                max);
+        } catch (Exception e) {
+            dbc.report(
+                null,
+                Messages.get().container(Messages.ERR_READ_CHILD_RESOURCES_1, context.getSitePath(resource)),
+                e);
+        } finally {
+            dbc.clear();
+        }
+        return result;
+    }
+
     /**
      * Returns the default file for the given folder.<p>
      *
@@ -4265,6 +4351,44 @@ public final class CmsSecurityManager {
         return result;
     }
 
+    /**
+     * Reads the binary content of a file resource from the VFS as a stream.<p>
+     *
+     * The caller must close the returned stream.<p>
+     *
+     * @param context the current request context
+     * @param resource the resource to read the content for
+     *
+     * @return a stream to read the file content from
+     *
+     * @throws CmsException if something goes wrong
+     *
+     * @see #readFile(CmsRequestContext, CmsResource)
+     */
+    public InputStream readFileContentStream(CmsRequestContext context, CmsResource resource) throws CmsException {
+
+        InputStream result = null;
+        CmsDbContext dbc = m_dbContextFactory.getDbContext(context);
+        try {
+            result = m_driverManager.readFileContentStream(dbc, resource);
+        } catch (Exception e) {
+            if (resource instanceof I_CmsHistoryResource) {
+                dbc.report(
+                    null,
+                    Messages.get().container(
+                        Messages.ERR_READ_FILE_HISTORY_2,
+                        context.getSitePath(resource),
+                        new Integer(resource.getVersion())),
+                    e);
+            } else {
+                dbc.report(null, Messages.get().container(Messages.ERR_READ_FILE_1, context.getSitePath(resource)), e);
+            }
+        } finally {
+            dbc.clear();
+        }
+        return result;
+    }
+
     /**
      * Reads a folder resource from the VFS,
      * using the specified resource filter.<p>
@@ -4901,6 +5025,39 @@ public final class CmsSecurityManager {
         return result;
     }
 
+    /**
+     * Reads the property objects of several resources at once.<p>
+     *
+     * @param context the current request context
+     * @param resources the resources to read the properties for
+     * @param names the names of the properties to return, or <code>null</code> for all properties
+     * @param search <code>true</code>, if the properties should be searched on all parent folders  if not found on the resource
+     *
+     * @return the lists of <code>{@link CmsProperty}</code> objects, with the structure ids of the resources as keys
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public Map<CmsUUID, List<CmsProperty>> readPropertyObjects(
+        CmsRequestContext context,
+        List<CmsResource> resources,
+        Set<String> names,
+        boolean search) throws CmsException {
+
+        Map<CmsUUID, List<CmsProperty>> result = null;
+        CmsDbContext dbc = m_dbContextFactory.getDbContext(context);
+        try {
+            result = m_driverManager.readPropertyObjects(dbc, resources, names, search);
+        } catch (Exception e) {
+            dbc.report(
+                null,
+                Messages.get().container(Messages.ERR_READ_PROPS_FOR_RESOURCES_1, Integer.valueOf(resources.size())),
+                e);
+        } finally {
+            dbc.clear();
+        }
+        return result;
+    }
+
     /**
      * Reads the resources that were published in a publish task for a given publish history ID.<p>
      *
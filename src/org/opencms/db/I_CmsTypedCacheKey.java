@@ -0,0 +1,61 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.file.CmsResource;
+import org.opencms.security.CmsPermissionSet;
+
+/**
+ * Cache key generator which also provides typed cache key objects instead of strings.<p>
+ *
+ * Typed keys can be created without building strings, which makes them cheaper for caches which
+ * are accessed very frequently, like the permission cache.<p>
+ *
+ * @since 10.5.0
+ */
+public interface I_CmsTypedCacheKey extends I_CmsCacheKey {
+
+    /**
+     * Returns the key for the permission cache.<p>
+     *
+     * @param context the context
+     * @param resource the resource
+     * @param requiredPermissions the permissions to check
+     * @param requireVisible if the resource filter of the check requires the resource to be visible
+     * @param checkLock if the lock state is checked
+     *
+     * @return a cache key that is unique for the set of parameters, or <code>null</code> if the permission
+     *      check must not be cached for the given context
+     */
+    CmsPermissionCacheKey getPermissionCacheKey(
+        CmsDbContext context,
+        CmsResource resource,
+        CmsPermissionSet requiredPermissions,
+        boolean requireVisible,
+        boolean checkLock);
+}
@@ -41,6 +41,7 @@ import org.opencms.relations.CmsRelationFilter;
 import org.opencms.security.CmsOrganizationalUnit;
 import org.opencms.util.CmsUUID;
 
+import java.io.InputStream;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Collection;
@@ -451,6 +452,37 @@ public interface I_CmsVfsDriver {
         boolean getFolders,
         boolean getFiles) throws CmsDataAccessException;
 
+    /**
+     * Reads a page of the child resources of a resource, that is the resources contained in a folder.<p>
+     *
+     * The ordering and the offset and limit of the page are applied in the database,
+     * so only the rows of the requested page are read.<p>
+     *
+     * @param dbc the current database context
+     * @param currentProject the current project
+     * @param resource the parent folder
+     * @param getFolders if true the child folders are included in the result
+     * @param getFiles if true the child files are included in the result
+     * @param order the order of the child resources
+     * @param ascending <code>true</code> for ascending, <code>false</code> for descending order
+     * @param offset the number of child resources to skip
+     * @param limit the maximum number of child resources to return
+     *
+     * @return a list of at most <code>limit</code> child resources
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    List<CmsResource> readChildResources(
+        CmsDbContext dbc,
+        CmsProject currentProject,
+        CmsResource resource,
+        boolean getFolders,
+        boolean getFiles,
+        CmsResourceOrder order,
+        boolean ascending,
+        int offset,
+        int limit) throws CmsDataAccessException;
+
     /**
      * Reads the content of a file specified by it's resource ID.<p>
      *
@@ -464,6 +496,25 @@ public interface I_CmsVfsDriver {
      */
     byte[] readContent(CmsDbContext dbc, CmsUUID projectId, CmsUUID resourceId) throws CmsDataAccessException;
 
+    /**
+     * Reads the content of a file specified by it's resource ID as a stream.<p>
+     *
+     * Unlike {@link #readContent(CmsDbContext, CmsUUID, CmsUUID)} the content of large files is not
+     * materialized in memory. The database resources used to read the content must be released
+     * before this method returns, so drivers may copy large contents to a temporary file.
+     * The caller is responsible for closing the stream.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the ID of the current project
+     * @param resourceId the id of the resource
+     *
+     * @return a stream to read the file content from
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    InputStream readContentStream(CmsDbContext dbc, CmsUUID projectId, CmsUUID resourceId)
+    throws CmsDataAccessException;
+
     /**
      * Reads a folder specified by it's structure ID.<p>
      *
@@ -570,6 +621,23 @@ public interface I_CmsVfsDriver {
     List<CmsProperty> readPropertyObjects(CmsDbContext dbc, CmsProject project, CmsResource resource)
     throws CmsDataAccessException;
 
+    /**
+     * Reads all property objects mapped to the given resources, using as few database queries as possible.<p>
+     *
+     * The result contains an entry for each of the given resources, with an empty list if no properties are found.<p>
+     *
+     * @param dbc the current database context
+     * @param project the current project
+     * @param resources the resources to read the properties for
+     *
+     * @return the lists of properties, with the structure ids of the resources as keys
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    Map<CmsUUID, List<CmsProperty>> readPropertyObjects(
+        CmsDbContext dbc,
+        CmsProject project,
+        List<CmsResource> resources) throws CmsDataAccessException;
+
     /**
      * Reads all relations with the given filter for the given resource.<p>
      *
@@ -627,6 +695,22 @@ public interface I_CmsVfsDriver {
     List<CmsResource> readResources(CmsDbContext dbc, CmsUUID currentProject, CmsResourceState state, int mode)
     throws CmsDataAccessException;
 
+    /**
+     * Reads the resources for the given root paths, using as few database queries as possible.<p>
+     *
+     * Paths which do not exist are skipped, resources marked as deleted are included.
+     * The order of the result does not correspond to the order of the given paths.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the id of the project
+     * @param paths the root paths of the resources to read
+     *
+     * @return the resources that were read
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    List<CmsResource> readResourcesForPaths(CmsDbContext dbc, CmsUUID projectId, List<String> paths)
+    throws CmsDataAccessException;
+
     /**
      * Returns all resources associated to a given principal via an ACE.<p>
      *
@@ -519,6 +519,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_READ_PROPS_FOR_RESOURCE_1 = "ERR_READ_PROPS_FOR_RESOURCE_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_READ_PROPS_FOR_RESOURCES_1 = "ERR_READ_PROPS_FOR_RESOURCES_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_READ_PUBLISHED_RESOURCES_FOR_ID_1 = "ERR_READ_PUBLISHED_RESOURCES_FOR_ID_1";
 
@@ -849,6 +852,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String INIT_WAIT_FOR_DB_4 = "INIT_WAIT_FOR_DB_4";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_ALIAS_INDEX_LOADED_1 = "LOG_ALIAS_INDEX_LOADED_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_CHECK_RESOURCE_INSIDE_CURRENT_PROJECT_2 = "LOG_CHECK_RESOURCE_INSIDE_CURRENT_PROJECT_2";
 
@@ -879,6 +885,15 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_NO_EXPORT_POINTS_CONFIGURED_0 = "LOG_NO_EXPORT_POINTS_CONFIGURED_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_REPLICATED_EVENT_DATA_TOO_LONG_3 = "LOG_REPLICATED_EVENT_DATA_TOO_LONG_3";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_REWRITE_ALIASES_COMPILED_2 = "LOG_REWRITE_ALIASES_COMPILED_2";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_UNCACHE_PUBLISHED_RESOURCES_2 = "LOG_UNCACHE_PUBLISHED_RESOURCES_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_UPDATE_EXORT_POINTS_ERROR_0 = "LOG_UPDATE_EXORT_POINTS_ERROR_0";
 
@@ -57,6 +57,7 @@ import org.opencms.file.CmsFolder;
 import org.opencms.file.CmsGroup;
 import org.opencms.file.CmsProject;
 import org.opencms.file.CmsProperty;
+import org.opencms.file.CmsRequestContext;
 import org.opencms.file.CmsResource;
 import org.opencms.file.CmsResourceFilter;
 import org.opencms.file.CmsUser;
@@ -74,6 +75,7 @@ import org.opencms.main.I_CmsEventListener;
 import org.opencms.main.OpenCms;
 import org.opencms.publish.CmsPublishJobInfoBean;
 import org.opencms.relations.CmsRelationFilter;
+import org.opencms.report.CmsBufferedReport;
 import org.opencms.report.I_CmsReport;
 import org.opencms.security.CmsOrganizationalUnit;
 import org.opencms.security.I_CmsPrincipal;
@@ -97,13 +99,23 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.commons.logging.Log;
 
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 /**
  * Generic (ANSI-SQL) implementation of the project driver methods.<p>
@@ -1654,8 +1666,9 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
         int publishedFolderCount = 0;
         int deletedFolderCount = 0;
         int publishedFileCount = 0;
-        Set<CmsUUID> publishedContentIds = new HashSet<CmsUUID>();
-        Set<CmsUUID> publishedIds = new HashSet<CmsUUID>();
+        // synchronized, since the files may be published by several threads
+        Set<CmsUUID> publishedContentIds = Collections.synchronizedSet(new HashSet<CmsUUID>());
+        Set<CmsUUID> publishedIds = Collections.synchronizedSet(new HashSet<CmsUUID>());
 
         try {
 
@@ -1804,52 +1817,44 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
             Set<CmsUUID> changedAndDeletedResourceIds = Sets.intersection(deletedResourceIds, changedResourceIds);
             dbc.setAttribute(CmsDriverManager.KEY_CHANGED_AND_DELETED, changedAndDeletedResourceIds);
 
-            Iterator<CmsResource> itFiles = publishList.getFileList().iterator();
-            while (itFiles.hasNext()) {
-                CmsResource currentResource = itFiles.next();
-                try {
-                    // bounce the current publish task through all project drivers
-                    projectDriver.publishFile(
-                        dbc,
-                        report,
-                        ++publishedFileCount,
-                        filesSize,
-                        onlineProject,
-                        currentResource,
-                        publishedContentIds,
-                        publishList.getPublishHistoryId(),
-                        publishTag);
-
-                    CmsResourceState state = currentResource.getState();
-                    if (!state.isDeleted()) {
-                        // reset the resource state to UNCHANGED and the last-modified-in-project-ID to 0
-                        internalResetResourceState(dbc, currentResource);
-                    }
-
-                    // unlock it
-                    m_driverManager.unlockResource(dbc, currentResource, true, true);
-                    // log it
-                    CmsLogEntryType type = state.isNew()
-                    ? CmsLogEntryType.RESOURCE_PUBLISHED_NEW
-                    : (state.isDeleted()
-                    ? CmsLogEntryType.RESOURCE_PUBLISHED_DELETED
-                    : CmsLogEntryType.RESOURCE_PUBLISHED_MODIFIED);
-                    m_driverManager.log(
-                        dbc,
-                        new CmsLogEntry(
+            int publishThreads = OpenCms.getPublishManager().getPublishThreads();
+            if ((publishThreads > 1) && (filesSize > 1) && dbc.isDefaultDbContext()) {
+                // the folders have already been published, so the files can be published in parallel
+                publishedFileCount = publishFilesInParallel(
+                    dbc,
+                    report,
+                    projectDriver,
+                    onlineProject,
+                    publishList,
+                    publishedContentIds,
+                    publishedIds,
+                    publishTag,
+                    publishThreads);
+            } else {
+                Iterator<CmsResource> itFiles = publishList.getFileList().iterator();
+                while (itFiles.hasNext()) {
+                    CmsResource currentResource = itFiles.next();
+                    try {
+                        internalPublishFile(
                             dbc,
-                            currentResource.getStructureId(),
-                            type,
-                            new String[] {currentResource.getRootPath()}),
-                        true);
-
-                    publishedIds.add(currentResource.getStructureId());
-                    dbc.pop();
-                } catch (Throwable t) {
-                    dbc.report(
-                        report,
-                        Messages.get().container(Messages.ERR_ERROR_PUBLISHING_FILE_1, currentResource.getRootPath()),
-                        t);
+                            report,
+                            projectDriver,
+                            ++publishedFileCount,
+                            filesSize,
+                            onlineProject,
+                            currentResource,
+                            publishedContentIds,
+                            publishedIds,
+                            publishList.getPublishHistoryId(),
+                            publishTag);
+                    } catch (Throwable t) {
+                        dbc.report(
+                            report,
+                            Messages.get().container(
+                                Messages.ERR_ERROR_PUBLISHING_FILE_1,
+                                currentResource.getRootPath()),
+                            t);
+                    }
                 }
             }
 
@@ -3152,6 +3157,70 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
         return (CmsPublishList)oin.readObject();
     }
 
+    /**
+     * Publishes a single file, resets its state, unlocks it and logs the publish operation.<p>
+     *
+     * @param dbc the current database context
+     * @param report the report to write to
+     * @param projectDriver the project driver to bounce the publish task through
+     * @param m the number of the file in the publish list
+     * @param n the number of files in the publish list
+     * @param onlineProject the online project
+     * @param resource the file to publish
+     * @param publishedContentIds contains the UUIDs of already published content records
+     * @param publishedIds contains the structure ids of the published resources
+     * @param publishHistoryId the publish history id
+     * @param publishTag the publish tag
+     *
+     * @throws CmsException if something goes wrong
+     */
+    protected void internalPublishFile(
+        CmsDbContext dbc,
+        I_CmsReport report,
+        I_CmsProjectDriver projectDriver,
+        int m,
+        int n,
+        CmsProject onlineProject,
+        CmsResource resource,
+        Set<CmsUUID> publishedContentIds,
+        Set<CmsUUID> publishedIds,
+        CmsUUID publishHistoryId,
+        int publishTag)
+    throws CmsException {
+
+        // bounce the current publish task through all project drivers
+        projectDriver.publishFile(
+            dbc,
+            report,
+            m,
+            n,
+            onlineProject,
+            resource,
+            publishedContentIds,
+            publishHistoryId,
+            publishTag);
+
+        CmsResourceState state = resource.getState();
+        if (!state.isDeleted()) {
+            // reset the resource state to UNCHANGED and the last-modified-in-project-ID to 0
+            internalResetResourceState(dbc, resource);
+        }
+
+        // unlock it
+        m_driverManager.unlockResource(dbc, resource, true, true);
+        // log it
+        CmsLogEntryType type = state.isNew()
+        ? CmsLogEntryType.RESOURCE_PUBLISHED_NEW
+        : (state.isDeleted() ? CmsLogEntryType.RESOURCE_PUBLISHED_DELETED : CmsLogEntryType.RESOURCE_PUBLISHED_MODIFIED);
+        m_driverManager.log(
+            dbc,
+            new CmsLogEntry(dbc, resource.getStructureId(), type, new String[] {resource.getRootPath()}),
+            true);
+
+        publishedIds.add(resource.getStructureId());
+        dbc.pop();
+    }
+
     /**
      * Creates a new {@link CmsLogEntry} object from the given result set entry.<p>
      *
@@ -3730,6 +3799,155 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
         }
     }
 
+    /**
+     * Publishes the files of the given publish list with several threads.<p>
+     *
+     * The files are grouped by their resource id, since siblings share the same content.
+     * Each group is published by a single thread in the order of the publish list, while
+     * different groups are published in parallel. Each thread uses its own database context,
+     * and the report output of each file is written in one piece.<p>
+     *
+     * If publishing a file fails, no further files are started and the first error is thrown
+     * after all running threads have finished.<p>
+     *
+     * @param dbc the current database context
+     * @param report the report to write to
+     * @param projectDriver the project driver to bounce the publish tasks through
+     * @param onlineProject the online project
+     * @param publishList the publish list
+     * @param publishedContentIds contains the UUIDs of already published content records
+     * @param publishedIds contains the structure ids of the published resources
+     * @param publishTag the publish tag
+     * @param threads the number of threads to use
+     *
+     * @return the number of files for which publishing was started
+     *
+     * @throws CmsException if publishing a file fails
+     */
+    protected int publishFilesInParallel(
+        CmsDbContext dbc,
+        final I_CmsReport report,
+        final I_CmsProjectDriver projectDriver,
+        final CmsProject onlineProject,
+        final CmsPublishList publishList,
+        final Set<CmsUUID> publishedContentIds,
+        final Set<CmsUUID> publishedIds,
+        final int publishTag,
+        int threads)
+    throws CmsException {
+
+        // group the files by resource id, keeping the order of the publish list
+        Map<CmsUUID, List<CmsResource>> siblings = new LinkedHashMap<CmsUUID, List<CmsResource>>();
+        for (CmsResource resource : publishList.getFileList()) {
+            List<CmsResource> group = siblings.get(resource.getResourceId());
+            if (group == null) {
+                group = new ArrayList<CmsResource>(1);
+                siblings.put(resource.getResourceId(), group);
+            }
+            group.add(resource);
+        }
+        final Queue<List<CmsResource>> groups = new ConcurrentLinkedQueue<List<CmsResource>>(siblings.values());
+        final int filesSize = publishList.getFileList().size();
+        final AtomicInteger publishedFileCount = new AtomicInteger();
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        final Object changedAndDeleted = dbc.getAttribute(CmsDriverManager.KEY_CHANGED_AND_DELETED);
+        final CmsRequestContext context = dbc.getRequestContext();
+        final CmsUUID projectId = dbc.getProjectId();
+
+        threads = Math.min(threads, groups.size());
+        ExecutorService executor = Executors.newFixedThreadPool(
+            threads,
+            new ThreadFactoryBuilder().setNameFormat("OpenCms-Publish-%d").setDaemon(true).build());
+        try {
+            List<Future<?>> workers = new ArrayList<Future<?>>(threads);
+            for (int i = 0; i < threads; i++) {
+                workers.add(executor.submit(new Runnable() {
+
+                    public void run() {
+
+                        // each thread uses its own database context
+                        CmsDbContext threadDbc = new CmsDbContext(
+                            new CmsRequestContext(
+                                context.getCurrentUser(),
+                                context.getCurrentProject(),
+                                context.getUri(),
+                                context.getRequestMatcher(),
+                                context.getSiteRoot(),
+                                context.isSecureRequest(),
+                                context.getLocale(),
+                                context.getEncoding(),
+                                context.getRemoteAddress(),
+                                context.getRequestTime(),
+                                context.getDirectoryTranslator(),
+                                context.getFileTranslator(),
+                                context.getOuFqn()));
+                        threadDbc.setProjectId(projectId);
+                        threadDbc.setAttribute(CmsDriverManager.KEY_CHANGED_AND_DELETED, changedAndDeleted);
+                        List<CmsResource> group;
+                        while ((error.get() == null) && ((group = groups.poll()) != null)) {
+                            for (CmsResource resource : group) {
+                                CmsBufferedReport fileReport = new CmsBufferedReport(report);
+                                try {
+                                    internalPublishFile(
+                                        threadDbc,
+                                        fileReport,
+                                        projectDriver,
+                                        publishedFileCount.incrementAndGet(),
+                                        filesSize,
+                                        onlineProject,
+                                        resource,
+                                        publishedContentIds,
+                                        publishedIds,
+                                        publishList.getPublishHistoryId(),
+                                        publishTag);
+                                } catch (Throwable t) {
+                                    try {
+                                        threadDbc.report(
+                                            fileReport,
+                                            Messages.get().container(
+                                                Messages.ERR_ERROR_PUBLISHING_FILE_1,
+                                                resource.getRootPath()),
+                                            t);
+                                    } catch (Throwable e) {
+                                        error.compareAndSet(null, e);
+                                    }
+                                    break;
+                                } finally {
+                                    fileReport.flush();
+                                }
+                            }
+                        }
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                try {
+                    worker.get();
+                } catch (InterruptedException e) {
+                    // stop starting further files, the running files are finished by the threads
+                    error.compareAndSet(null, e);
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    error.compareAndSet(null, e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        Throwable t = error.get();
+        if (t instanceof CmsException) {
+            throw (CmsException)t;
+        } else if (t instanceof RuntimeException) {
+            throw (RuntimeException)t;
+        } else if (t instanceof Error) {
+            throw (Error)t;
+        } else if (t != null) {
+            dbc.throwException(Messages.get().container(Messages.ERR_PUBLISHING_FILES_INTERRUPTED_0), t);
+        }
+        return publishedFileCount.get();
+    }
+
     /**
      * Publishes a new file.<p>
      *
@@ -0,0 +1,157 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db.generic;
+
+import org.opencms.db.CmsDbConsistencyException;
+import org.opencms.file.CmsProperty;
+import org.opencms.file.CmsResource;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Multimap;
+
+/**
+ * Collects the property values read for several resources at once into the property lists of the resources.<p>
+ *
+ * The VFS drivers use this to read the properties of many resources with a few queries for all mapping ids,
+ * instead of one query per resource. Since siblings share the resource id, a property value mapped to
+ * a resource record is added to the property lists of all siblings.<p>
+ *
+ * @since 10.5.0
+ */
+public class CmsPropertyMappingCollector {
+
+    /** The property maps of the resources, with the structure ids as keys. */
+    private Map<CmsUUID, Map<String, CmsProperty>> m_propertyMaps;
+
+    /** The resources, with the resource ids as keys. */
+    private Multimap<String, CmsResource> m_resourcesByResourceId;
+
+    /** The resources, with the structure ids as keys. */
+    private Multimap<String, CmsResource> m_resourcesByStructureId;
+
+    /**
+     * Creates a new collector for the given resources.<p>
+     *
+     * @param resources the resources to collect the properties for
+     */
+    public CmsPropertyMappingCollector(List<CmsResource> resources) {
+
+        m_propertyMaps = new LinkedHashMap<CmsUUID, Map<String, CmsProperty>>();
+        m_resourcesByStructureId = ArrayListMultimap.create();
+        m_resourcesByResourceId = ArrayListMultimap.create();
+        for (CmsResource resource : resources) {
+            if (m_propertyMaps.containsKey(resource.getStructureId())) {
+                continue;
+            }
+            m_propertyMaps.put(resource.getStructureId(), new HashMap<String, CmsProperty>());
+            m_resourcesByStructureId.put(resource.getStructureId().toString(), resource);
+            m_resourcesByResourceId.put(resource.getResourceId().toString(), resource);
+        }
+    }
+
+    /**
+     * Adds a property value read from the database.<p>
+     *
+     * @param name the name of the property
+     * @param value the value of the property
+     * @param mappingType the mapping type of the property value
+     * @param mappingId the structure or resource id the property value is mapped to
+     *
+     * @throws CmsDbConsistencyException if the mapping type is unknown
+     */
+    public void add(String name, String value, int mappingType, String mappingId) throws CmsDbConsistencyException {
+
+        Collection<CmsResource> mappedResources;
+        if (mappingType == CmsProperty.STRUCTURE_RECORD_MAPPING) {
+            mappedResources = m_resourcesByStructureId.get(mappingId);
+        } else if (mappingType == CmsProperty.RESOURCE_RECORD_MAPPING) {
+            mappedResources = m_resourcesByResourceId.get(mappingId);
+        } else {
+            throw new CmsDbConsistencyException(
+                Messages.get().container(
+                    Messages.ERR_UNKNOWN_PROPERTY_VALUE_MAPPING_3,
+                    mappingId,
+                    new Integer(mappingType),
+                    name));
+        }
+        for (CmsResource resource : mappedResources) {
+            Map<String, CmsProperty> propertyMap = m_propertyMaps.get(resource.getStructureId());
+            CmsProperty property = propertyMap.get(name);
+            if (property == null) {
+                // there doesn't exist a property object for this key yet
+                property = new CmsProperty();
+                property.setName(name);
+                propertyMap.put(name, property);
+            }
+            if (mappingType == CmsProperty.STRUCTURE_RECORD_MAPPING) {
+                property.setStructureValue(value);
+            } else {
+                property.setResourceValue(value);
+            }
+            property.setOrigin(resource.getRootPath());
+        }
+    }
+
+    /**
+     * Returns the structure and resource ids of all resources, which are the mapping ids to read.<p>
+     *
+     * @return the mapping ids to read
+     */
+    public List<String> getMappingIds() {
+
+        Set<String> ids = new LinkedHashSet<String>(m_resourcesByStructureId.keySet());
+        ids.addAll(m_resourcesByResourceId.keySet());
+        return new ArrayList<String>(ids);
+    }
+
+    /**
+     * Returns the collected property lists.<p>
+     *
+     * The result contains an entry for each resource, with an empty list if no properties were added.<p>
+     *
+     * @return the property lists, with the structure ids of the resources as keys
+     */
+    public Map<CmsUUID, List<CmsProperty>> getPropertyLists() {
+
+        Map<CmsUUID, List<CmsProperty>> result = new LinkedHashMap<CmsUUID, List<CmsProperty>>();
+        for (Map.Entry<CmsUUID, Map<String, CmsProperty>> entry : m_propertyMaps.entrySet()) {
+            result.put(entry.getKey(), new ArrayList<CmsProperty>(entry.getValue().values()));
+        }
+        return result;
+    }
+}
@@ -34,11 +34,13 @@ import org.opencms.db.CmsAliasFilter;
 import org.opencms.db.CmsDbConsistencyException;
 import org.opencms.db.CmsDbContext;
 import org.opencms.db.CmsDbEntryNotFoundException;
+import org.opencms.db.CmsDbIoException;
 import org.opencms.db.CmsDbSqlException;
 import org.opencms.db.CmsDbUtil;
 import org.opencms.db.CmsDriverManager;
 import org.opencms.db.CmsPreparedStatementIntParameter;
 import org.opencms.db.CmsPreparedStatementStringParameter;
+import org.opencms.db.CmsResourceOrder;
 import org.opencms.db.CmsResourceState;
 import org.opencms.db.CmsRewriteAlias;
 import org.opencms.db.CmsRewriteAliasFilter;
@@ -76,10 +78,13 @@ import org.opencms.security.CmsOrganizationalUnit;
 import org.opencms.security.CmsPermissionSet;
 import org.opencms.util.CmsFileUtil;
 import org.opencms.util.CmsPair;
+import org.opencms.util.CmsSpooledInputStream;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -90,12 +95,15 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.logging.Log;
 
+import com.google.common.collect.Lists;
+
 /**
  * Generic (ANSI-SQL) database server implementation of the VFS driver methods.<p>
  *
@@ -106,6 +114,14 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
     /** Contains the macro replacement value for the offline project. */
     protected static final String OFFLINE = "OFFLINE";
 
+    /**
+     * Attribute name for the ids of the resources with a resource operation, temporarily used to compute the
+     * versions during publishing. Kept in the database context, since several publish jobs may run in parallel.<p>
+     *
+     * @see #publishVersions(CmsDbContext, CmsResource, boolean)
+     */
+    protected static final String DBC_ATTR_RESOURCE_OPERATIONS = "DBC_ATTR_RESOURCE_OPERATIONS";
+
     /** Contains the macro replacement value for the online project. */
     protected static final String ONLINE = "ONLINE";
 
@@ -115,13 +131,6 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
     /** The driver manager. */
     protected CmsDriverManager m_driverManager;
 
-    /**
-     * This field is temporarily used to compute the versions during publishing.<p>
-     *
-     * @see #publishVersions(CmsDbContext, CmsResource, boolean)
-     */
-    protected List<CmsUUID> m_resOp = new ArrayList<CmsUUID>();
-
     /** The sql manager. */
     protected CmsSqlManager m_sqlManager;
 
@@ -1659,7 +1668,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
 
         // if resource is null just flush the internal cache
         if (resource == null) {
-            m_resOp.clear();
+            dbc.removeAttribute(DBC_ATTR_RESOURCE_OPERATIONS);
             return;
         }
 
@@ -1668,9 +1677,15 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
             return;
         }
 
+        @SuppressWarnings("unchecked")
+        Set<CmsUUID> resOps = (Set<CmsUUID>)dbc.getAttribute(DBC_ATTR_RESOURCE_OPERATIONS);
+        if (resOps == null) {
+            resOps = new HashSet<CmsUUID>();
+            dbc.setAttribute(DBC_ATTR_RESOURCE_OPERATIONS, resOps);
+        }
         if (firstSibling) {
             // reset the resource operation flag
-            m_resOp.remove(resource.getResourceId());
+            resOps.remove(resource.getResourceId());
         }
 
         boolean resOp = false; // assume structure operation
@@ -1692,7 +1707,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
             if (resOp) {
                 return;
             }
-            if (m_resOp.contains(resource.getResourceId())) {
+            if (resOps.contains(resource.getResourceId())) {
                 return;
             }
         }
@@ -1708,7 +1723,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
 
         if (resOp) {
             if (resource.getSiblingCount() > 1) {
-                m_resOp.add(resource.getResourceId());
+                resOps.add(resource.getResourceId());
             }
             resVersion++;
         }
@@ -1850,6 +1865,81 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return result;
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readChildResources(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, org.opencms.file.CmsResource, boolean, boolean, org.opencms.db.CmsResourceOrder, boolean, int, int)
+     */
+    public List<CmsResource> readChildResources(
+        CmsDbContext dbc,
+        CmsProject currentProject,
+        CmsResource resource,
+        boolean getFolders,
+        boolean getFiles,
+        CmsResourceOrder order,
+        boolean ascending,
+        int offset,
+        int limit) throws CmsDataAccessException {
+
+        List<CmsResource> result = new ArrayList<CmsResource>();
+        if (limit <= 0) {
+            return result;
+        }
+        CmsUUID projectId = currentProject.getUuid();
+
+        int start = Math.max(offset, 0);
+
+        String resourceTypeClause;
+        if (getFolders && getFiles) {
+            resourceTypeClause = "";
+        } else if (getFolders) {
+            resourceTypeClause = m_sqlManager.readQuery(projectId, "C_RESOURCES_GET_SUBRESOURCES_GET_FOLDERS");
+        } else {
+            resourceTypeClause = m_sqlManager.readQuery(projectId, "C_RESOURCES_GET_SUBRESOURCES_GET_FILES");
+        }
+        String orderClause = m_sqlManager.readQuery(projectId, "C_RESOURCES_GET_SUBRESOURCES_ORDER");
+        orderClause = CmsStringUtil.substitute(
+            orderClause,
+            "%(COLUMN)",
+            m_sqlManager.readQuery(projectId, order.getQueryKey()));
+        orderClause = CmsStringUtil.substitute(orderClause, "%(DIRECTION)", ascending ? "ASC" : "DESC");
+
+        // the page query is either using LIMIT/OFFSET or ROW_NUMBER(), depending on the database
+        String query = m_sqlManager.readQuery(projectId, "C_RESOURCES_GET_SUBRESOURCES_PAGE");
+        query = CmsStringUtil.substitute(query, "%(TYPE)", resourceTypeClause);
+        query = CmsStringUtil.substitute(query, "%(ORDER)", orderClause);
+        query = CmsStringUtil.substitute(query, "%(OFFSET)", String.valueOf(start));
+        query = CmsStringUtil.substitute(query, "%(LIMIT)", String.valueOf(limit));
+        query = CmsStringUtil.substitute(query, "%(START)", String.valueOf(start + 1));
+        query = CmsStringUtil.substitute(query, "%(END)", String.valueOf((long)start + limit));
+
+        String sizeColumn = m_sqlManager.readQuery("C_RESOURCES_SIZE");
+
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet res = null;
+        try {
+            conn = m_sqlManager.getConnection(dbc);
+            stmt = m_sqlManager.getPreparedStatementForSql(conn, query);
+            stmt.setString(1, resource.getStructureId().toString());
+            res = stmt.executeQuery();
+
+            while (res.next()) {
+                long size = res.getInt(sizeColumn);
+                if (CmsFolder.isFolderSize(size)) {
+                    result.add(createFolder(res, projectId, false));
+                } else {
+                    result.add(createFile(res, projectId, false));
+                }
+            }
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(
+                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
+                e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, res);
+        }
+        return result;
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readContent(org.opencms.db.CmsDbContext, CmsUUID, org.opencms.util.CmsUUID)
      */
@@ -1893,6 +1983,60 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return byteRes;
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readContentStream(org.opencms.db.CmsDbContext, org.opencms.util.CmsUUID, org.opencms.util.CmsUUID)
+     */
+    public InputStream readContentStream(CmsDbContext dbc, CmsUUID projectId, CmsUUID resourceId)
+    throws CmsDataAccessException {
+
+        PreparedStatement stmt = null;
+        ResultSet res = null;
+        Connection conn = null;
+        InputStream result = null;
+
+        try {
+            conn = m_sqlManager.getConnection(dbc);
+            if (projectId.equals(CmsProject.ONLINE_PROJECT_ID)) {
+                stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_ONLINE_FILES_CONTENT");
+            } else {
+                stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_OFFLINE_FILES_CONTENT");
+            }
+            stmt.setString(1, resourceId.toString());
+            res = stmt.executeQuery();
+
+            if (!res.next()) {
+                throw new CmsVfsResourceNotFoundException(
+                    Messages.get().container(
+                        Messages.ERR_READ_CONTENT_WITH_RESOURCE_ID_2,
+                        resourceId,
+                        Boolean.valueOf(projectId.equals(CmsProject.ONLINE_PROJECT_ID))));
+            }
+            InputStream content = m_sqlManager.getBinaryStream(
+                res,
+                m_sqlManager.readQuery("C_RESOURCES_FILE_CONTENT"));
+            if (content != null) {
+                // copy the content, so the connection is not held while the caller reads the stream
+                result = CmsSpooledInputStream.spool(content, CmsSpooledInputStream.DEFAULT_MEMORY_THRESHOLD, null);
+            } else {
+                result = new ByteArrayInputStream(new byte[0]);
+            }
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(
+                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
+                e);
+        } catch (IOException e) {
+            throw new CmsDbIoException(
+                Messages.get().container(
+                    Messages.ERR_READ_CONTENT_WITH_RESOURCE_ID_2,
+                    resourceId,
+                    Boolean.valueOf(projectId.equals(CmsProject.ONLINE_PROJECT_ID))),
+                e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, res);
+        }
+        return result;
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readFolder(org.opencms.db.CmsDbContext, CmsUUID, org.opencms.util.CmsUUID)
      */
@@ -2218,6 +2362,53 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return new ArrayList<CmsProperty>(propertyMap.values());
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readPropertyObjects(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, java.util.List)
+     */
+    public Map<CmsUUID, List<CmsProperty>> readPropertyObjects(
+        CmsDbContext dbc,
+        CmsProject project,
+        List<CmsResource> resources) throws CmsDataAccessException {
+
+        CmsUUID projectId = ((dbc.getProjectId() == null) || dbc.getProjectId().isNullUUID())
+        ? project.getUuid()
+        : dbc.getProjectId();
+
+        CmsPropertyMappingCollector collector = new CmsPropertyMappingCollector(resources);
+
+        ResultSet res = null;
+        PreparedStatement stmt = null;
+        Connection conn = null;
+
+        try {
+            conn = m_sqlManager.getConnection(dbc);
+            for (List<String> chunk : Lists.partition(collector.getMappingIds(), CmsDbUtil.MAX_IN_CLAUSE_SIZE)) {
+                String query = CmsStringUtil.substitute(
+                    m_sqlManager.readQuery(projectId, "C_PROPERTIES_READALL_FOR_IDS"),
+                    "%(IDS)",
+                    CmsDbUtil.createInClause(chunk.size()));
+                stmt = m_sqlManager.getPreparedStatementForSql(conn, query);
+                for (int i = 0; i < chunk.size(); i++) {
+                    stmt.setString(i + 1, chunk.get(i));
+                }
+                res = stmt.executeQuery();
+                while (res.next()) {
+                    collector.add(res.getString(1), res.getString(2), res.getInt(3), res.getString(4));
+                }
+                m_sqlManager.closeAll(dbc, null, stmt, res);
+                stmt = null;
+                res = null;
+            }
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(
+                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
+                e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, res);
+        }
+        return collector.getPropertyLists();
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readRelations(org.opencms.db.CmsDbContext, CmsUUID, CmsResource, org.opencms.relations.CmsRelationFilter)
      */
@@ -2457,6 +2648,56 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return result;
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readResourcesForPaths(org.opencms.db.CmsDbContext, org.opencms.util.CmsUUID, java.util.List)
+     */
+    public List<CmsResource> readResourcesForPaths(CmsDbContext dbc, CmsUUID projectId, List<String> paths)
+    throws CmsDataAccessException {
+
+        // the resource paths are stored without trailing slash, the first row for a path takes precedence
+        Map<String, CmsResource> resources = new LinkedHashMap<String, CmsResource>();
+        List<String> dbPaths = new ArrayList<String>(paths.size());
+        for (String path : paths) {
+            dbPaths.add(CmsFileUtil.removeTrailingSeparator(path));
+        }
+
+        ResultSet res = null;
+        PreparedStatement stmt = null;
+        Connection conn = null;
+
+        try {
+            conn = m_sqlManager.getConnection(dbc);
+            for (List<String> chunk : Lists.partition(dbPaths, CmsDbUtil.MAX_IN_CLAUSE_SIZE)) {
+                String query = CmsStringUtil.substitute(
+                    m_sqlManager.readQuery(projectId, "C_RESOURCES_READ_FOR_PATHS"),
+                    "%(PATHS)",
+                    CmsDbUtil.createInClause(chunk.size()));
+                stmt = m_sqlManager.getPreparedStatementForSql(conn, query);
+                for (int i = 0; i < chunk.size(); i++) {
+                    stmt.setString(i + 1, chunk.get(i));
+                }
+                res = stmt.executeQuery();
+                while (res.next()) {
+                    CmsResource resource = createResource(res, projectId);
+                    String key = CmsFileUtil.removeTrailingSeparator(resource.getRootPath());
+                    if (!resources.containsKey(key)) {
+                        resources.put(key, resource);
+                    }
+                }
+                m_sqlManager.closeAll(dbc, null, stmt, res);
+                stmt = null;
+                res = null;
+            }
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(
+                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
+                e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, res);
+        }
+        return new ArrayList<CmsResource>(resources.values());
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readResourcesForPrincipalACE(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, org.opencms.util.CmsUUID)
      */
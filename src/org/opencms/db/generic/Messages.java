@@ -67,6 +67,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_ERROR_PUBLISHING_FOLDER_1 = "ERR_ERROR_PUBLISHING_FOLDER_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_PUBLISHING_FILES_INTERRUPTED_0 = "ERR_PUBLISHING_FILES_INTERRUPTED_0";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_GENERIC_SQL_0 = "ERR_GENERIC_SQL_0";
 
@@ -35,7 +35,9 @@ import org.opencms.db.CmsDbConsistencyException;
 import org.opencms.db.CmsDbContext;
 import org.opencms.db.CmsDbEntryNotFoundException;
 import org.opencms.db.CmsDbSqlException;
+import org.opencms.db.CmsDbUtil;
 import org.opencms.db.CmsDriverManager;
+import org.opencms.db.CmsResourceOrder;
 import org.opencms.db.CmsResourceState;
 import org.opencms.db.CmsRewriteAlias;
 import org.opencms.db.CmsRewriteAliasFilter;
@@ -43,6 +45,7 @@ import org.opencms.db.CmsVfsOnlineResourceAlreadyExistsException;
 import org.opencms.db.I_CmsDriver;
 import org.opencms.db.I_CmsProjectDriver;
 import org.opencms.db.I_CmsVfsDriver;
+import org.opencms.db.generic.CmsPropertyMappingCollector;
 import org.opencms.db.generic.Messages;
 import org.opencms.db.jpa.persistence.CmsDAOAlias;
 import org.opencms.db.jpa.persistence.CmsDAOContents;
@@ -103,10 +106,13 @@ import org.opencms.util.CmsPair;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.sql.ResultSet;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -120,6 +126,8 @@ import javax.persistence.Query;
 
 import org.apache.commons.logging.Log;
 
+import com.google.common.collect.Lists;
+
 /**
  * JPA database server implementation of the vfs driver methods.<p>
  *
@@ -178,6 +186,9 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
     /** Query key. */
     private static final String C_PROPERTIES_READALL_COUNT = "C_PROPERTIES_READALL_COUNT";
 
+    /** Query key. */
+    private static final String C_PROPERTIES_READALL_FOR_IDS = "C_PROPERTIES_READALL_FOR_IDS";
+
     /** Query key. */
     private static final String C_PROPERTIES_UPDATE = "C_PROPERTIES_UPDATE";
 
@@ -397,6 +408,9 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(org.opencms.db.jpa.CmsVfsDriver.class);
 
+    /** The maximum number of ids in an IN clause, the JPA SQL manager numbers at most 99 query parameters. */
+    private static final int MAX_IN_CLAUSE_SIZE = 99;
+
     /** The driver manager. */
     protected CmsDriverManager m_driverManager;
 
@@ -1953,6 +1967,37 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return result;
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readChildResources(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, org.opencms.file.CmsResource, boolean, boolean, org.opencms.db.CmsResourceOrder, boolean, int, int)
+     */
+    public List<CmsResource> readChildResources(
+        CmsDbContext dbc,
+        CmsProject currentProject,
+        CmsResource resource,
+        boolean getFolders,
+        boolean getFiles,
+        final CmsResourceOrder order,
+        final boolean ascending,
+        int offset,
+        int limit) throws CmsDataAccessException {
+
+        // the paging is done in memory here
+        List<CmsResource> children = readChildResources(dbc, currentProject, resource, getFolders, getFiles);
+        Collections.sort(children, new Comparator<CmsResource>() {
+
+            /**
+             * @see java.util.Comparator#compare(java.lang.Object, java.lang.Object)
+             */
+            public int compare(CmsResource r1, CmsResource r2) {
+
+                return order.compare(r1, r2, ascending);
+            }
+        });
+        int start = Math.min(Math.max(offset, 0), children.size());
+        int end = (int)Math.min((long)start + Math.max(limit, 0), children.size());
+        return new ArrayList<CmsResource>(children.subList(start, end));
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readContent(org.opencms.db.CmsDbContext, CmsUUID, org.opencms.util.CmsUUID)
      */
@@ -1996,6 +2041,16 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return byteRes == null ? EMPTY_BLOB : byteRes;
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readContentStream(org.opencms.db.CmsDbContext, org.opencms.util.CmsUUID, org.opencms.util.CmsUUID)
+     */
+    public InputStream readContentStream(CmsDbContext dbc, CmsUUID projectId, CmsUUID resourceId)
+    throws CmsDataAccessException {
+
+        // JPA maps the content to a byte array anyway
+        return new ByteArrayInputStream(readContent(dbc, projectId, resourceId));
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readFolder(org.opencms.db.CmsDbContext, CmsUUID, org.opencms.util.CmsUUID)
      */
@@ -2257,6 +2312,47 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return new ArrayList<CmsProperty>(propertyMap.values());
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readPropertyObjects(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, java.util.List)
+     */
+    public Map<CmsUUID, List<CmsProperty>> readPropertyObjects(
+        CmsDbContext dbc,
+        CmsProject project,
+        List<CmsResource> resources) throws CmsDataAccessException {
+
+        CmsUUID projectId = ((dbc.getProjectId() == null) || dbc.getProjectId().isNullUUID())
+        ? project.getUuid()
+        : dbc.getProjectId();
+
+        CmsPropertyMappingCollector collector = new CmsPropertyMappingCollector(resources);
+        try {
+            for (List<String> chunk : Lists.partition(collector.getMappingIds(), MAX_IN_CLAUSE_SIZE)) {
+                String query = CmsStringUtil.substitute(
+                    m_sqlManager.readQuery(projectId, C_PROPERTIES_READALL_FOR_IDS),
+                    "%(IDS)",
+                    CmsDbUtil.createInClause(chunk.size()));
+                Query q = m_sqlManager.createQueryFromJPQL(dbc, query);
+                for (int i = 0; i < chunk.size(); i++) {
+                    q.setParameter(i + 1, chunk.get(i));
+                }
+                @SuppressWarnings("unchecked")
+                List<Object[]> res = q.getResultList();
+
+                for (Object[] o : res) {
+                    I_CmsDAOProperties property = (I_CmsDAOProperties)o[1];
+                    collector.add(
+                        ((I_CmsDAOPropertyDef)o[0]).getPropertyDefName(),
+                        property.getPropertyValue(),
+                        property.getPropertyMappingType(),
+                        property.getPropertyMappingId());
+                }
+            }
+        } catch (PersistenceException e) {
+            throw new CmsDataAccessException(Messages.get().container(Messages.ERR_JPA_PERSITENCE_1, e), e);
+        }
+        return collector.getPropertyLists();
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readRelations(org.opencms.db.CmsDbContext, CmsUUID, CmsResource, org.opencms.relations.CmsRelationFilter)
      */
@@ -2440,6 +2536,23 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return result;
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readResourcesForPaths(org.opencms.db.CmsDbContext, org.opencms.util.CmsUUID, java.util.List)
+     */
+    public List<CmsResource> readResourcesForPaths(CmsDbContext dbc, CmsUUID projectId, List<String> paths)
+    throws CmsDataAccessException {
+
+        List<CmsResource> result = new ArrayList<CmsResource>(paths.size());
+        for (String path : paths) {
+            try {
+                result.add(readResource(dbc, projectId, CmsFileUtil.removeTrailingSeparator(path), true));
+            } catch (CmsVfsResourceNotFoundException e) {
+                // skip paths which do not exist
+            }
+        }
+        return result;
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readResourcesForPrincipalACE(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, org.opencms.util.CmsUUID)
      */
@@ -29,6 +29,7 @@ package org.opencms.file;
 
 import org.opencms.db.CmsDbEntryNotFoundException;
 import org.opencms.db.CmsPublishedResource;
+import org.opencms.db.CmsResourceOrder;
 import org.opencms.db.CmsResourceState;
 import org.opencms.db.CmsSecurityManager;
 import org.opencms.db.log.CmsLogEntry;
@@ -67,6 +68,8 @@ import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 import org.opencms.xml.content.CmsNumberSuffixNameSequence;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
@@ -1793,6 +1796,48 @@ public final class CmsObject {
         return m_securityManager.readChildResources(m_context, resource, filter, true, true);
     }
 
+    /**
+     * Returns a page of the child resources of a resource, that is the resources
+     * contained in a folder.<p>
+     *
+     * The ordering and paging is done by the database, so use this instead of
+     * {@link #getResourcesInFolder(String, CmsResourceFilter)} to browse large folders.<p>
+     *
+     * To find out if there are more child resources after the page, request one resource more
+     * than needed.<p>
+     *
+     * @param resourcename the full current site relative path of the resource to return the child resources for
+     * @param filter the resource filter to use
+     * @param order the order of the child resources
+     * @param ascending <code>true</code> for ascending, <code>false</code> for descending order
+     * @param skip the number of child resources to skip
+     * @param max the maximum number of child resources to return
+     *
+     * @return a list of at most <code>max</code> child <code>{@link CmsResource}</code>s
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public List<CmsResource> getResourcesInFolder(
+        String resourcename,
+        CmsResourceFilter filter,
+        CmsResourceOrder order,
+        boolean ascending,
+        int skip,
+        int max) throws CmsException {
+
+        CmsResource resource = readResource(resourcename, CmsResourceFilter.ALL);
+        return m_securityManager.readChildResources(
+            m_context,
+            resource,
+            filter,
+            true,
+            true,
+            order,
+            ascending,
+            skip,
+            max);
+    }
+
     /**
      * Adjusts the absolute resource root path for the current site.<p>
      *
@@ -2568,6 +2613,36 @@ public final class CmsObject {
         return readFile(resource);
     }
 
+    /**
+     * Reads the binary content of a file resource from the VFS as a stream.<p>
+     *
+     * In contrast to {@link #readFile(CmsResource)} the content is not loaded into memory
+     * as a whole, so use this to serve the content of large files. If the given resource is a
+     * {@link CmsFile} that already contains the content, a stream on that content is returned.<p>
+     *
+     * The caller must close the returned stream, since it may read from a temporary file
+     * which is only deleted when the stream is closed.<p>
+     *
+     * @param resource the resource to read the content for
+     *
+     * @return a stream to read the file content from
+     *
+     * @throws CmsException if the content could not be read for any reason
+     *
+     * @see #readFile(CmsResource)
+     */
+    public InputStream readFileContentStream(CmsResource resource) throws CmsException {
+
+        if (resource instanceof CmsFile) {
+            CmsFile file = (CmsFile)resource;
+            if ((file.getContents() != null) && (file.getContents().length > 0)) {
+                // file has the contents already available
+                return new ByteArrayInputStream(file.getContents());
+            }
+        }
+        return m_securityManager.readFileContentStream(m_context, resource);
+    }
+
     /**
      * Reads a folder resource from the VFS,
      * using the <code>{@link CmsResourceFilter#DEFAULT}</code> filter.<p>
@@ -2986,6 +3061,34 @@ public final class CmsObject {
         return m_securityManager.readPropertyObjects(m_context, resource, search);
     }
 
+    /**
+     * Reads the property objects of several resources at once.<p>
+     *
+     * This is much more efficient than calling <code>{@link CmsObject#readPropertyObjects(CmsResource, boolean)}</code>
+     * for each resource, since all properties which are not yet cached are read with as few database queries
+     * as possible. The property lists read are cached, so this can also be used to prepare
+     * subsequent single resource property reads, e.g. when iterating over the resources of a folder.<p>
+     *
+     * The result contains an entry for each of the given resources, with an empty list if no properties are found.
+     * The <code>search</code> parameter has the same meaning as in {@link #readPropertyObjects(CmsResource, boolean)}.<p>
+     *
+     * @param resources the resources to read the properties for
+     * @param names the names of the properties to return, or <code>null</code> for all properties
+     * @param search if <code>true</code>, the properties of all parent folders of the resources
+     *      are merged with the resource properties.
+     *
+     * @return the lists of <code>{@link CmsProperty}</code> objects, with the structure ids of the resources as keys
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public Map<CmsUUID, List<CmsProperty>> readPropertyObjects(
+        List<CmsResource> resources,
+        Set<String> names,
+        boolean search) throws CmsException {
+
+        return m_securityManager.readPropertyObjects(m_context, resources, names, search);
+    }
+
     /**
      * Reads all property objects from a resource.<p>
      *
@@ -52,6 +52,8 @@ import org.opencms.main.CmsLog;
 import org.opencms.main.OpenCms;
 import org.opencms.util.CmsUUID;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
@@ -580,6 +582,46 @@ public class CmsObjectWrapper {
         return res;
     }
 
+    /**
+     * Reads the binary content of a file resource from the VFS as a stream,
+     * using the specified resource filter.<p>
+     *
+     * The content of plain VFS files is streamed without loading it into memory. If a resource
+     * wrapper is responsible for the resource, or the UTF-8 marker has to be added, the content is
+     * read with {@link #readFile(String, CmsResourceFilter)} instead.<p>
+     *
+     * The caller must close the returned stream.<p>
+     *
+     * @see CmsObject#readFileContentStream(CmsResource)
+     *
+     * @param resourcename the name of the resource to read (full path)
+     * @param filter the resource filter to use while reading
+     *
+     * @return a stream to read the file content from
+     *
+     * @throws CmsException if the file resource could not be read for any reason
+     */
+    public InputStream readFileContentStream(String resourcename, CmsResourceFilter filter) throws CmsException {
+
+        // only plain VFS files can be streamed, since the wrappers may generate the content
+        boolean wrapped = false;
+        Iterator<I_CmsResourceWrapper> iter = getWrappers().iterator();
+        while (iter.hasNext()) {
+            I_CmsResourceWrapper wrapper = iter.next();
+            if (wrapper.readResource(m_cms, resourcename, filter) != null) {
+                wrapped = true;
+                break;
+            }
+        }
+        if (!wrapped) {
+            CmsResource res = m_cms.readResource(resourcename, filter);
+            if (!needUtf8Marker(res)) {
+                return m_cms.readFileContentStream(res);
+            }
+        }
+        return new ByteArrayInputStream(readFile(resourcename, filter).getContents());
+    }
+
     /**
      * Delegate method for {@link CmsObject#readPropertyObject(CmsResource, String, boolean)}.<p>
      *
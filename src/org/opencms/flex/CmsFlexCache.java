@@ -34,21 +34,21 @@ import org.opencms.loader.CmsJspLoader;
 import org.opencms.main.CmsLog;
 import org.opencms.main.I_CmsEventListener;
 import org.opencms.main.OpenCms;
+import org.opencms.monitor.CmsMemoryMonitor;
 import org.opencms.security.CmsRole;
-import org.opencms.util.CmsCollectionsGenericWrapper;
 import org.opencms.util.CmsStringUtil;
 
-import java.util.Collection;
-import java.util.Collections;
 import java.util.HashSet;
-import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
-import org.apache.commons.collections.map.LRUMap;
 import org.apache.commons.logging.Log;
 
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+
 /**
  * This class implements the FlexCache.<p>
  *
@@ -104,10 +104,10 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
     public static class CmsFlexCacheVariation extends Object {
 
         /** The key belonging to the resource. */
-        public CmsFlexCacheKey m_key;
+        public final CmsFlexCacheKey m_key;
 
         /** Maps variations to CmsFlexCacheEntries. */
-        public Map<String, I_CmsLruCacheObject> m_map;
+        public final Map<String, I_CmsLruCacheObject> m_map;
 
         /**
          * Generates a new instance of CmsFlexCacheVariation.<p>
@@ -117,59 +117,7 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         public CmsFlexCacheVariation(CmsFlexCacheKey theKey) {
 
             m_key = theKey;
-            m_map = new Hashtable<String, I_CmsLruCacheObject>(INITIAL_CAPACITY_VARIATIONS);
-        }
-    }
-
-    /**
-     * Extended LRUMap that handles the variations in case a key is removed.<p>
-     */
-    class CmsFlexKeyMap extends LRUMap {
-
-        /** Serial version UID required for safe serialization. */
-        private static final long serialVersionUID = 6931995916013396902L;
-
-        /**
-         * Initialize the map with the given size.<p>
-         *
-         * @param maxSize the maximum number of key to cache
-         */
-        public CmsFlexKeyMap(int maxSize) {
-
-            super(maxSize);
-        }
-
-        /**
-         * Ensures that all variations that referenced by this key are released
-         * if the key is released.<p>
-         *
-         * @param entry the entry to remove
-         *
-         * @return <code>true</code> to actually delete the entry
-         *
-         * @see LRUMap#removeLRU(LinkEntry)
-         */
-        @Override
-        protected boolean removeLRU(LinkEntry entry) {
-
-            CmsFlexCacheVariation v = (CmsFlexCacheVariation)entry.getValue();
-            if (v == null) {
-                return true;
-            }
-            Map<String, I_CmsLruCacheObject> m = v.m_map;
-            if ((m == null) || (m.size() == 0)) {
-                return true;
-            }
-            Collection<I_CmsLruCacheObject> entries = m.values();
-            synchronized (m_variationCache) {
-                for (I_CmsLruCacheObject e : entries) {
-                    m_variationCache.remove(e);
-                }
-                v.m_map.clear();
-                v.m_map = null;
-                v.m_key = null;
-            }
-            return true;
+            m_map = new ConcurrentHashMap<String, I_CmsLruCacheObject>(INITIAL_CAPACITY_VARIATIONS);
         }
     }
 
@@ -252,10 +200,20 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         OpenCms.getMemoryMonitor().register(getClass().getName() + ".m_entryLruCache", m_variationCache);
 
         if (m_enabled) {
-            CmsFlexKeyMap flexKeyMap = new CmsFlexKeyMap(maxKeys);
-            m_keyCache = Collections.synchronizedMap(
-                CmsCollectionsGenericWrapper.<String, CmsFlexCacheVariation> map(flexKeyMap));
-            OpenCms.getMemoryMonitor().register(getClass().getName() + ".m_resourceMap", flexKeyMap);
+            // when a key is evicted, all variations that are referenced by the key are released
+            m_keyCache = CmsMemoryMonitor.createLRUCacheMap(
+                maxKeys,
+                new RemovalListener<String, CmsFlexCacheVariation>() {
+
+                    @SuppressWarnings("synthetic-access")
+                    public void onRemoval(RemovalNotification<String, CmsFlexCacheVariation> notification) {
+
+                        if (notification.wasEvicted()) {
+                            releaseVariations(notification.getValue());
+                        }
+                    }
+                });
+            OpenCms.getMemoryMonitor().register(getClass().getName() + ".m_resourceMap", m_keyCache);
 
             OpenCms.addCmsEventListener(
                 this,
@@ -510,6 +468,8 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
                 m_variationCache.remove(entry);
                 return null;
             }
+            // record the access, so frequently used entries are not evicted
+            m_variationCache.touch(entry);
             // return the found cache entry
             return entry;
         } else {
@@ -688,7 +648,6 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
                         allEntries.remove();
                         m_variationCache.remove(nextObject);
                     }
-                    v.m_map = new Hashtable<String, I_CmsLruCacheObject>(INITIAL_CAPACITY_VARIATIONS);
                 } else {
                     // Clear key and entry
                     m_size -= v.m_map.size();
@@ -698,9 +657,7 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
                         allEntries.remove();
                         m_variationCache.remove(nextObject);
                     }
-
-                    v.m_map = null;
-                    v.m_key = null;
+                    // the variation is not modified further, as it may still be used by concurrent requests
                     m_keyCache.remove(s);
                 }
             }
@@ -741,7 +698,6 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
                 allEntries.remove();
                 m_variationCache.remove(nextObject);
             }
-            v.m_map = new Hashtable<String, I_CmsLruCacheObject>(INITIAL_CAPACITY_VARIATIONS);
         }
         m_size = 0;
     }
@@ -849,6 +805,27 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         });
     }
 
+    /**
+     * Releases all variations that are referenced by a key which has been evicted from the key cache.<p>
+     *
+     * @param v the variations of the evicted key
+     */
+    private void releaseVariations(CmsFlexCacheVariation v) {
+
+        if (v == null) {
+            return;
+        }
+        Map<String, I_CmsLruCacheObject> m = v.m_map;
+        if ((m == null) || (m.size() == 0)) {
+            return;
+        }
+        // the key and the map of the variation stay valid, as concurrent requests may still read them
+        for (I_CmsLruCacheObject e : m.values()) {
+            m_variationCache.remove(e);
+        }
+        m.clear();
+    }
+
     /**
      * Save a value to the cache.<p>
      *
@@ -99,12 +99,6 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
     /** A Map of cached headers for this resource. */
     private Map<String, List<String>> m_headers;
 
-    /** Pointer to the next cache entry in the LRU cache. */
-    private I_CmsLruCacheObject m_next;
-
-    /** Pointer to the previous cache entry in the LRU cache. */
-    private I_CmsLruCacheObject m_previous;
-
     /** Flag which indicates whether a cached redirect is permanent. */
     private boolean m_redirectPermanent;
 
@@ -130,9 +124,6 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
         m_dateLastModified = -1;
         // base memory footprint of this object with all referenced objects
         m_byteSize = 1024;
-
-        setNextLruObject(null);
-        setPreviousLruObject(null);
     }
 
     /**
@@ -286,22 +277,6 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
         return getLruCacheCosts();
     }
 
-    /**
-     * @see org.opencms.cache.I_CmsLruCacheObject#getNextLruObject()
-     */
-    public I_CmsLruCacheObject getNextLruObject() {
-
-        return m_next;
-    }
-
-    /**
-     * @see org.opencms.cache.I_CmsLruCacheObject#getPreviousLruObject()
-     */
-    public I_CmsLruCacheObject getPreviousLruObject() {
-
-        return m_previous;
-    }
-
     /**
      * @see org.opencms.cache.I_CmsLruCacheObject#getValue()
      */
@@ -477,22 +452,6 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
         setDateLastModified(now - (daytime % timeoutMinutes));
     }
 
-    /**
-     * @see org.opencms.cache.I_CmsLruCacheObject#setNextLruObject(org.opencms.cache.I_CmsLruCacheObject)
-     */
-    public void setNextLruObject(I_CmsLruCacheObject theNextEntry) {
-
-        m_next = theNextEntry;
-    }
-
-    /**
-     * @see org.opencms.cache.I_CmsLruCacheObject#setPreviousLruObject(org.opencms.cache.I_CmsLruCacheObject)
-     */
-    public void setPreviousLruObject(I_CmsLruCacheObject thePreviousEntry) {
-
-        m_previous = thePreviousEntry;
-    }
-
     /**
      * Set a redirect target for this cache entry.<p>
      *
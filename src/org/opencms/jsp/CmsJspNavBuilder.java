@@ -478,6 +478,7 @@ public class CmsJspNavBuilder {
         if (resources == null) {
             return Collections.<CmsJspNavElement> emptyList();
         }
+        prefetchProperties(resources);
         boolean includeAll = visibility == Visibility.all;
         boolean includeHidden = visibility == Visibility.includeHidden;
         for (CmsResource r : resources) {
@@ -699,6 +700,7 @@ public class CmsJspNavBuilder {
             LOG.error(e.getLocalizedMessage(), e);
             return Collections.<CmsJspNavElement> emptyList();
         }
+        prefetchProperties(resources);
 
         for (CmsResource r : resources) {
             CmsJspNavElement element = getNavigationForResource(m_cms.getSitePath(r), resourceFilter, shallow);
@@ -773,4 +775,20 @@ public class CmsJspNavBuilder {
 
         return new CmsJspNavElement(sitePath, resource, propertiesMap, level, m_locale);
     }
+
+    /**
+     * Reads the properties of the given resources with a single bulk read, so that
+     * reading the properties of the individual navigation elements are cache hits.<p>
+     *
+     * @param resources the resources to read the properties for
+     */
+    private void prefetchProperties(List<CmsResource> resources) {
+
+        try {
+            m_cms.readPropertyObjects(resources, null, false);
+        } catch (CmsException e) {
+            // the properties will be read for each resource
+            LOG.warn(e.getLocalizedMessage(), e);
+        }
+    }
 }
@@ -33,11 +33,13 @@ import org.opencms.file.CmsObject;
 import org.opencms.file.CmsProject;
 import org.opencms.file.CmsResource;
 import org.opencms.file.CmsResourceFilter;
+import org.opencms.file.types.CmsResourceTypeXmlContent;
 import org.opencms.file.types.CmsResourceTypeXmlPage;
 import org.opencms.i18n.CmsEncoder;
 import org.opencms.i18n.CmsLocaleManager;
 import org.opencms.lock.CmsLock;
 import org.opencms.main.CmsException;
+import org.opencms.main.CmsLog;
 import org.opencms.main.CmsRuntimeException;
 import org.opencms.main.OpenCms;
 import org.opencms.security.CmsPermissionSet;
@@ -46,6 +48,7 @@ import org.opencms.util.CmsConstantMap;
 import org.opencms.util.CmsUUID;
 import org.opencms.xml.I_CmsXmlDocument;
 import org.opencms.xml.content.CmsXmlContentFactory;
+import org.opencms.xml.content.CmsXmlContentReadModel;
 import org.opencms.xml.page.CmsXmlPageFactory;
 import org.opencms.xml.types.I_CmsXmlContentValue;
 
@@ -56,6 +59,7 @@ import java.util.Locale;
 import java.util.Map;
 
 import org.apache.commons.collections.Transformer;
+import org.apache.commons.logging.Log;
 
 /**
  * Allows access to the individual elements of an XML content, usually used inside a loop of a
@@ -81,7 +85,7 @@ public class CmsJspContentAccessBean {
          */
         public Object transform(Object input) {
 
-            return Boolean.valueOf(getRawContent().hasLocale(CmsJspElFunctions.convertLocale(input)));
+            return Boolean.valueOf(hasLocale(CmsJspElFunctions.convertLocale(input)));
         }
     }
 
@@ -98,7 +102,7 @@ public class CmsJspContentAccessBean {
 
             Locale locale = CmsJspElFunctions.convertLocale(input);
             Map<String, Boolean> result;
-            if (getRawContent().hasLocale(locale)) {
+            if (hasLocale(locale)) {
                 result = CmsCollectionsGenericWrapper.createLazyMap(new CmsHasValueTransformer(locale));
             } else {
                 result = CmsConstantMap.CONSTANT_BOOLEAN_FALSE_MAP;
@@ -131,7 +135,7 @@ public class CmsJspContentAccessBean {
          */
         public Object transform(Object input) {
 
-            return Boolean.valueOf(getRawContent().hasValue(String.valueOf(input), m_selectedLocale));
+            return Boolean.valueOf(hasValue(String.valueOf(input), m_selectedLocale));
         }
     }
 
@@ -197,7 +201,7 @@ public class CmsJspContentAccessBean {
 
             Locale locale = CmsLocaleManager.getLocale(String.valueOf(input));
             Map<String, String> result;
-            if (getRawContent().hasLocale(locale)) {
+            if (hasLocale(locale)) {
                 result = CmsCollectionsGenericWrapper.createLazyMap(new CmsRdfaTransformer(locale));
             } else {
                 // return a map that always returns an empty string
@@ -207,6 +211,28 @@ public class CmsJspContentAccessBean {
         }
     }
 
+    /**
+     * Provides a Map which lets the user access string values from the selected locale in an XML content,
+     * the input is assumed to be a String that represents a Locale.<p>
+     */
+    public class CmsLocaleStringValueTransformer implements Transformer {
+
+        /**
+         * @see org.apache.commons.collections.Transformer#transform(java.lang.Object)
+         */
+        public Object transform(Object input) {
+
+            Locale locale = CmsJspElFunctions.convertLocale(input);
+            Map<String, String> result;
+            if (hasLocale(locale)) {
+                result = CmsCollectionsGenericWrapper.createLazyMap(new CmsStringValueTransformer(locale));
+            } else {
+                result = CmsConstantMap.CONSTANT_EMPTY_STRING_MAP;
+            }
+            return result;
+        }
+    }
+
     /**
      * Provides a Map which lets the user access sub value Lists from the selected locale in an XML content,
      * the input is assumed to be a String that represents a Locale.<p>
@@ -220,7 +246,7 @@ public class CmsJspContentAccessBean {
 
             Locale locale = CmsJspElFunctions.convertLocale(input);
             Map<String, List<CmsJspContentAccessValueWrapper>> result;
-            if (getRawContent().hasLocale(locale)) {
+            if (hasLocale(locale)) {
                 result = CmsCollectionsGenericWrapper.createLazyMap(new CmsSubValueListTransformer(locale));
             } else {
                 result = CmsConstantMap.CONSTANT_EMPTY_LIST_MAP;
@@ -242,7 +268,7 @@ public class CmsJspContentAccessBean {
 
             Locale locale = CmsJspElFunctions.convertLocale(input);
             Map<String, List<CmsJspContentAccessValueWrapper>> result;
-            if (getRawContent().hasLocale(locale)) {
+            if (hasLocale(locale)) {
                 result = CmsCollectionsGenericWrapper.createLazyMap(new CmsValueListTransformer(locale));
             } else {
                 result = CmsConstantMap.CONSTANT_EMPTY_LIST_MAP;
@@ -264,7 +290,7 @@ public class CmsJspContentAccessBean {
 
             Locale locale = CmsLocaleManager.getLocale(String.valueOf(input));
             Map<String, CmsJspContentAccessValueWrapper> result;
-            if (getRawContent().hasLocale(locale)) {
+            if (hasLocale(locale)) {
                 result = CmsCollectionsGenericWrapper.createLazyMap(new CmsValueTransformer(locale));
             } else {
                 result = CONSTANT_NULL_VALUE_WRAPPER_MAP;
@@ -305,6 +331,53 @@ public class CmsJspContentAccessBean {
         }
     }
 
+    /**
+     * Provides a Map which lets the user access the string value of an element in an XML content,
+     * the input is assumed to be a String that represents an xpath in the XML content.<p>
+     */
+    public class CmsStringValueTransformer implements Transformer {
+
+        /** The selected locale. */
+        private Locale m_selectedLocale;
+
+        /**
+         * Constructor with a locale.<p>
+         *
+         * @param locale the locale to use
+         */
+        public CmsStringValueTransformer(Locale locale) {
+
+            m_selectedLocale = locale;
+        }
+
+        /**
+         * @see org.apache.commons.collections.Transformer#transform(java.lang.Object)
+         */
+        public Object transform(Object input) {
+
+            String path = String.valueOf(input);
+            String result;
+            try {
+                CmsXmlContentReadModel readModel = getReadModel();
+                if ((readModel != null)
+                    && (!readModel.hasValue(path, m_selectedLocale) || readModel.isTextBased(getCmsObject(), path))) {
+                    result = readModel.getText(path, m_selectedLocale);
+                } else if (getRawContent().hasValue(path, m_selectedLocale)) {
+                    result = getRawContent().getStringValue(getCmsObject(), path, m_selectedLocale);
+                } else {
+                    result = null;
+                }
+            } catch (CmsException e) {
+                throw new CmsRuntimeException(
+                    Messages.get().container(
+                        Messages.ERR_XML_CONTENT_UNMARSHAL_1,
+                        m_resource != null ? m_resource.getRootPath() : getRawContent().getFile().getRootPath()),
+                    e);
+            }
+            return result == null ? "" : result;
+        }
+    }
+
     /**
      * Provides a Map which lets the user access sub value Lists in an XML content,
      * the input is assumed to be a String that represents an xpath in the XML content.<p>
@@ -411,6 +484,9 @@ public class CmsJspContentAccessBean {
         }
     }
 
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsJspContentAccessBean.class);
+
     /** Constant Map that always returns the {@link CmsJspContentAccessValueWrapper#NULL_VALUE_WRAPPER}.*/
     protected static final Map<String, CmsJspContentAccessValueWrapper> CONSTANT_NULL_VALUE_WRAPPER_MAP = new CmsConstantMap<String, CmsJspContentAccessValueWrapper>(
         CmsJspContentAccessValueWrapper.NULL_VALUE_WRAPPER);
@@ -439,6 +515,9 @@ public class CmsJspContentAccessBean {
     /** Lazy initialized map of RDFA maps by locale. */
     private Map<String, Map<String, String>> m_localeRdfa;
 
+    /** The lazy initialized with the locale string values. */
+    private Map<String, Map<String, String>> m_localeStringValue;
+
     /** The lazy initialized with the locale sub value lists. */
     private Map<String, Map<String, List<CmsJspContentAccessValueWrapper>>> m_localeSubValueList;
 
@@ -448,6 +527,12 @@ public class CmsJspContentAccessBean {
     /** The lazy initialized with the locale value lists. */
     private Map<String, Map<String, List<CmsJspContentAccessValueWrapper>>> m_localeValueList;
 
+    /** The compact read model of the XML content, used as long as the full content has not been unmarshalled. */
+    private CmsXmlContentReadModel m_readModel;
+
+    /** Flag indicating the read model has already been requested. */
+    private boolean m_readModelRequested;
+
     /** The original locale requested for accessing entries from the XML content. */
     private Locale m_requestedLocale;
 
@@ -754,7 +839,15 @@ public class CmsJspContentAccessBean {
 
         // check the content if the locale has not been set yet
         if (m_locale == null) {
-            getRawContent();
+            CmsXmlContentReadModel readModel = getReadModel();
+            if (readModel != null) {
+                m_locale = OpenCms.getLocaleManager().getBestMatchingLocale(
+                    m_requestedLocale,
+                    OpenCms.getLocaleManager().getDefaultLocales(),
+                    readModel.getLocales());
+            } else {
+                getRawContent();
+            }
         }
         return m_locale;
     }
@@ -799,6 +892,36 @@ public class CmsJspContentAccessBean {
         return m_localeRdfa;
     }
 
+    /**
+     * Returns a lazy initialized Map that provides a Map that provides
+     * the string values from the XML content in the selected locale.<p>
+     *
+     * The first provided Map key is assumed to be a String that represents the Locale,
+     * the second provided Map key is assumed to be a String that represents the xpath to the value.
+     * For a value that does not exist, an empty String is returned.<p>
+     *
+     * In the online project, text based values are read from a cached read model of the XML content,
+     * so the XML content does not need to be unmarshalled for them.<p>
+     *
+     * Usage example on a JSP with the JSTL:<pre>
+     * &lt;cms:contentload ... &gt;
+     *     &lt;cms:contentaccess var="content" /&gt;
+     *     The Title in Locale "de": ${content.localeStringValue['de']['Title']}
+     * &lt;/cms:contentload&gt;</pre>
+     *
+     * @return a lazy initialized Map that provides a Map that provides
+     *      the string values from the XML content in the selected locale
+     *
+     * @see #getStringValue()
+     */
+    public Map<String, Map<String, String>> getLocaleStringValue() {
+
+        if (m_localeStringValue == null) {
+            m_localeStringValue = CmsCollectionsGenericWrapper.createLazyMap(new CmsLocaleStringValueTransformer());
+        }
+        return m_localeStringValue;
+    }
+
     /**
      * Returns a lazy initialized Map that provides a Map that provides Lists of direct sub values
      * from the XML content in the selected locale.<p>
@@ -963,6 +1086,27 @@ public class CmsJspContentAccessBean {
         return m_categories;
     }
 
+    /**
+     * Returns a lazy initialized Map that provides the string values from the XML content in the current locale.<p>
+     *
+     * The provided Map key is assumed to be a String that represents the xpath to the value.
+     * Use this method in case you only need the String of a value, for example in a formatter.<p>
+     *
+     * Usage example on a JSP with the JSTL:<pre>
+     * &lt;cms:contentload ... &gt;
+     *     &lt;cms:contentaccess var="content" /&gt;
+     *     The Title: ${content.stringValue['Title']}
+     * &lt;/cms:contentload&gt;</pre>
+     *
+     * @return a lazy initialized Map that provides the string values from the XML content in the current locale
+     *
+     * @see #getLocaleStringValue()
+     */
+    public Map<String, String> getStringValue() {
+
+        return getLocaleStringValue().get(getLocale());
+    }
+
     /**
      * Returns a lazy initialized Map that provides Lists of direct sub values
      * of the given value from the XML content in the current locale.<p>
@@ -1058,6 +1202,67 @@ public class CmsJspContentAccessBean {
         m_resource = resource;
     }
 
+    /**
+     * Returns the read model of the XML content, if it can be used instead of the unmarshalled XML content.<p>
+     *
+     * The read model is only used in the online project, for XML contents that have not been unmarshalled yet.<p>
+     *
+     * @return the read model of the XML content, or <code>null</code> if it can not be used
+     */
+    private CmsXmlContentReadModel getReadModel() {
+
+        if (m_content != null) {
+            return null;
+        }
+        if (!m_readModelRequested) {
+            m_readModelRequested = true;
+            if ((m_resource != null)
+                && CmsResourceTypeXmlContent.isXmlContent(m_resource)
+                && m_cms.getRequestContext().getCurrentProject().isOnlineProject()) {
+                try {
+                    m_readModel = CmsXmlContentFactory.unmarshalReadModel(m_cms, m_resource);
+                } catch (CmsException e) {
+                    // use the unmarshalled XML content instead
+                    LOG.debug(e.getLocalizedMessage(), e);
+                }
+            }
+        }
+        return m_readModel;
+    }
+
+    /**
+     * Checks if the XML content contains the given locale.<p>
+     *
+     * @param locale the locale to check
+     *
+     * @return <code>true</code> if the XML content contains the given locale
+     */
+    private boolean hasLocale(Locale locale) {
+
+        CmsXmlContentReadModel readModel = getReadModel();
+        if (readModel != null) {
+            return readModel.hasLocale(locale);
+        }
+        return getRawContent().hasLocale(locale);
+    }
+
+    /**
+     * Checks if the XML content contains a value with the given path in the given locale.<p>
+     *
+     * @param path the path of the value
+     * @param locale the locale
+     *
+     * @return <code>true</code> if the value exists
+     */
+    private boolean hasValue(String path, Locale locale) {
+
+        CmsXmlContentReadModel readModel = getReadModel();
+        if (readModel != null) {
+            return readModel.hasValue(path, locale);
+        }
+        return getRawContent().hasValue(path, locale);
+    }
+
     /**
      * Reads the categories assigned to the content's VFS resource.
      * @return the categories assigned to the content's VFS resource.
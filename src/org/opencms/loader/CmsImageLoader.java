@@ -27,21 +27,29 @@
 
 package org.opencms.loader;
 
+import org.opencms.cache.CmsDiskCacheFileSender;
 import org.opencms.cache.CmsVfsNameBasedDiskCache;
 import org.opencms.configuration.CmsParameterConfiguration;
 import org.opencms.file.CmsFile;
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsResource;
+import org.opencms.flex.CmsFlexResponse;
 import org.opencms.main.CmsEvent;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
 import org.opencms.main.I_CmsEventListener;
 import org.opencms.main.OpenCms;
 import org.opencms.scheduler.jobs.CmsImageCacheCleanupJob;
+import org.opencms.util.CmsRequestUtil;
 import org.opencms.util.CmsStringUtil;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -77,6 +85,12 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
     /** The configuration parameter for the OpenCms XML configuration to enable the image scaling. */
     public static final String CONFIGURATION_SCALING_ENABLED = "image.scaling.enabled";
 
+    /** The configuration parameter for the OpenCms XML configuration to set the maximum number of queued image scale operations. */
+    public static final String CONFIGURATION_SCALING_QUEUE_SIZE = "image.scaling.queuesize";
+
+    /** The configuration parameter for the OpenCms XML configuration to set the number of image scaling threads. */
+    public static final String CONFIGURATION_SCALING_THREADS = "image.scaling.threads";
+
     /** Default name for the image cache repository. */
     public static final String IMAGE_REPOSITORY_DEFAULT = "/WEB-INF/imagecache/";
 
@@ -98,6 +112,9 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
     /** The maximum image size (width * height) to apply image blurring when down scaling (setting this to high may cause "out of memory" errors). */
     protected static int m_maxBlurSize = CmsImageScaler.SCALE_DEFAULT_MAX_BLUR_SIZE;
 
+    /** The worker pool for image scale operations. */
+    protected static CmsImageScalingPool m_scalingPool;
+
     /** The disk cache to use for saving scaled image versions. */
     protected static CmsVfsNameBasedDiskCache m_vfsDiskCache;
 
@@ -107,6 +124,12 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
     /** The maximum image size (width or height) to allow when up scaling an image using request parameters. */
     protected int m_maxScaleSize = CmsImageScaler.SCALE_DEFAULT_MAX_SIZE;
 
+    /** The maximum number of queued image scale operations. */
+    protected int m_scalingQueueSize = CmsImageScalingPool.DEFAULT_QUEUE_SIZE;
+
+    /** The number of image scaling threads. */
+    protected int m_scalingThreads = CmsImageScalingPool.getDefaultThreads();
+
     /**
      * Creates a new image loader.<p>
      */
@@ -152,6 +175,16 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
         return m_maxBlurSize;
     }
 
+    /**
+     * Returns the worker pool for image scale operations, which also provides the scaling statistics.<p>
+     *
+     * @return the worker pool for image scale operations, or <code>null</code> if the loader has not been initialized
+     */
+    public static CmsImageScalingPool getScalingPool() {
+
+        return m_scalingPool;
+    }
+
     /**
      * Returns <code>true</code> if the image scaling and processing capabilities for the
      * OpenCms VFS images have been enabled, <code>false</code> if not.<p>
@@ -200,6 +233,18 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
             if (CONFIGURATION_DOWNSCALE.equals(paramName)) {
                 m_downScaleParams = paramValue.trim();
             }
+            if (CONFIGURATION_SCALING_THREADS.equals(paramName)) {
+                m_scalingThreads = CmsStringUtil.getIntValue(
+                    paramValue,
+                    CmsImageScalingPool.getDefaultThreads(),
+                    paramName);
+            }
+            if (CONFIGURATION_SCALING_QUEUE_SIZE.equals(paramName)) {
+                m_scalingQueueSize = CmsStringUtil.getIntValue(
+                    paramValue,
+                    CmsImageScalingPool.DEFAULT_QUEUE_SIZE,
+                    paramName);
+            }
         }
         super.addConfigurationParameter(paramName, paramValue);
     }
@@ -244,6 +289,10 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
         m_enabled = false;
         m_imageRepositoryFolder = null;
         m_vfsDiskCache = null;
+        if (m_scalingPool != null) {
+            m_scalingPool.shutdown();
+            m_scalingPool = null;
+        }
     }
 
     /**
@@ -286,6 +335,10 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
                 OpenCms.getSystemInfo().getWebApplicationRfsPath(),
                 m_imageRepositoryFolder);
         }
+        // initialize the scaling worker pool
+        if (m_scalingPool == null) {
+            m_scalingPool = new CmsImageScalingPool(Math.max(1, m_scalingThreads), Math.max(1, m_scalingQueueSize));
+        }
         OpenCms.addCmsEventListener(this);
         // output setup information
         if (CmsLog.INIT.isInfoEnabled()) {
@@ -295,6 +348,11 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
                     m_vfsDiskCache.getRepositoryPath()));
             CmsLog.INIT.info(
                 Messages.get().getBundle().key(Messages.INIT_IMAGE_SCALING_ENABLED_1, Boolean.valueOf(m_enabled)));
+            CmsLog.INIT.info(
+                Messages.get().getBundle().key(
+                    Messages.INIT_IMAGE_SCALING_POOL_2,
+                    Integer.valueOf(m_scalingPool.getThreads()),
+                    Integer.valueOf(Math.max(1, m_scalingQueueSize))));
         }
     }
 
@@ -312,8 +370,28 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
             }
             // get the scale information from the request
             CmsImageScaler scaler = new CmsImageScaler(req, m_maxScaleSize, m_maxBlurSize);
+            if (!(resource instanceof CmsFile) && !(res instanceof CmsFlexResponse)) {
+                // the content is not required in memory (as it is for the static export or for includes),
+                // so a cached image can be sent directly from the disk cache
+                String cacheName = m_vfsDiskCache.getCacheName(resource, scaler.isValid() ? scaler.toString() : null);
+                File cacheFile = m_vfsDiskCache.getCacheFile(cacheName);
+                if (cacheFile != null) {
+                    setCachingHeaders(resource, req, res);
+                    CmsDiskCacheFileSender.send(req, res, cacheFile);
+                    return;
+                }
+            }
             // load the file from the cache
-            CmsFile file = getScaledImage(cms, resource, scaler);
+            CmsFile file;
+            try {
+                file = getScaledImage(cms, resource, scaler);
+            } catch (RejectedExecutionException e) {
+                // too many images are scaled at the moment, let the client retry later
+                LOG.warn(Messages.get().getBundle().key(Messages.LOG_IMAGE_SCALING_QUEUE_FULL_1, resource.getRootPath()));
+                res.setHeader(CmsRequestUtil.HEADER_RETRY_AFTER, "5");
+                res.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                return;
+            }
             // now perform standard load operation inherited from dump loader
             super.load(cms, file, req, res);
         } else {
@@ -342,9 +420,14 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
     throws IOException, CmsException {
 
         String cacheParam = scaler.isValid() ? scaler.toString() : null;
-        String cacheName = m_vfsDiskCache.getCacheName(resource, cacheParam);
+        final String cacheName = m_vfsDiskCache.getCacheName(resource, cacheParam);
         byte[] content = m_vfsDiskCache.getCacheContent(cacheName);
 
+        if ((content == null) && scaler.isValid() && (m_scalingPool != null)) {
+            // scale the image in the worker pool, concurrent requests for the same scaled image share the result
+            content = scaleImage(cms, resource, scaler, cacheName);
+        }
+
         CmsFile file;
         if (content != null) {
             if (resource instanceof CmsFile) {
@@ -371,4 +454,56 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
         }
         return file;
     }
+
+    /**
+     * Scales the given image in the scaling worker pool and saves the result in the disk cache.<p>
+     *
+     * If the same scaled image is already being created for another request, this waits for
+     * the result of that operation instead of scaling the image again.<p>
+     *
+     * @param cms the current users OpenCms context
+     * @param resource the base VFS resource for the image
+     * @param scaler the configured image scaler
+     * @param cacheName the name of the scaled image in the disk cache
+     *
+     * @return the content of the scaled image
+     *
+     * @throws IOException in case of errors accessing the disk based cache
+     * @throws CmsException in case of errors accessing the OpenCms VFS
+     * @throws RejectedExecutionException in case too many scale operations are queued
+     */
+    protected byte[] scaleImage(
+        final CmsObject cms,
+        final CmsResource resource,
+        final CmsImageScaler scaler,
+        final String cacheName) throws IOException, CmsException, RejectedExecutionException {
+
+        try {
+            return m_scalingPool.execute(cacheName, new Callable<byte[]>() {
+
+                public byte[] call() throws Exception {
+
+                    CmsFile file = cms.readFile(resource);
+                    byte[] content = scaler.scaleImage(file);
+                    m_vfsDiskCache.saveCacheFile(cacheName, content);
+                    return content;
+                }
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getLocalizedMessage());
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof CmsException) {
+                throw (CmsException)cause;
+            } else if (cause instanceof IOException) {
+                throw (IOException)cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            } else if (cause instanceof Error) {
+                throw (Error)cause;
+            }
+            throw new IOException(cause);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,293 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.loader;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * A bounded worker pool for image scaling operations with single-flight de-duplication.<p>
+ *
+ * Jobs are identified by a key, usually the name of the scaled image in the disk cache.
+ * While a job for a key is queued or running, all further requests for the same key wait for the result
+ * of that job instead of scaling the same image again.<p>
+ *
+ * The number of worker threads and the number of queued jobs are limited, so a burst of image requests
+ * can not use up all request threads of the servlet container. If the queue is full, a
+ * {@link RejectedExecutionException} is thrown.<p>
+ *
+ * @since 10.5.0
+ */
+public class CmsImageScalingPool {
+
+    /**
+     * A job that removes itself from the map of running jobs once it is done.<p>
+     */
+    private class Job extends FutureTask<byte[]> {
+
+        /** The job key. */
+        private String m_key;
+
+        /**
+         * Creates a new job.<p>
+         *
+         * @param key the job key
+         * @param callable the callable which produces the result
+         */
+        Job(String key, Callable<byte[]> callable) {
+
+            super(callable);
+            m_key = key;
+        }
+
+        /**
+         * @see java.util.concurrent.FutureTask#done()
+         */
+        @Override
+        protected void done() {
+
+            m_jobs.remove(m_key, this);
+        }
+
+        /**
+         * @see java.util.concurrent.FutureTask#run()
+         */
+        @Override
+        public void run() {
+
+            long start = System.currentTimeMillis();
+            try {
+                super.run();
+            } finally {
+                long time = System.currentTimeMillis() - start;
+                m_scaledCount.incrementAndGet();
+                m_totalTime.addAndGet(time);
+                long max = m_maxTime.get();
+                while ((time > max) && !m_maxTime.compareAndSet(max, time)) {
+                    max = m_maxTime.get();
+                }
+            }
+        }
+    }
+
+    /** The default size of the job queue. */
+    public static final int DEFAULT_QUEUE_SIZE = 100;
+
+    /** The executor running the jobs. */
+    private ThreadPoolExecutor m_executor;
+
+    /** The jobs which are queued or running, by key. */
+    private ConcurrentMap<String, Job> m_jobs = new ConcurrentHashMap<String, Job>();
+
+    /** The number of requests which waited for a job started by another request. */
+    private AtomicLong m_joinedCount = new AtomicLong();
+
+    /** The maximum time spent on a single job. */
+    private AtomicLong m_maxTime = new AtomicLong();
+
+    /** The number of rejected jobs. */
+    private AtomicLong m_rejectedCount = new AtomicLong();
+
+    /** The number of executed jobs. */
+    private AtomicLong m_scaledCount = new AtomicLong();
+
+    /** The total time spent on executing jobs. */
+    private AtomicLong m_totalTime = new AtomicLong();
+
+    /**
+     * Creates a new image scaling pool.<p>
+     *
+     * @param threads the number of worker threads
+     * @param queueSize the maximum number of queued jobs
+     */
+    public CmsImageScalingPool(int threads, int queueSize) {
+
+        m_executor = new ThreadPoolExecutor(
+            threads,
+            threads,
+            60,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(queueSize),
+            new ThreadFactoryBuilder().setNameFormat("OpenCms-ImageScaling-%d").setDaemon(true).build());
+        m_executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Returns the default number of worker threads, which is half the number of available processors.<p>
+     *
+     * @return the default number of worker threads
+     */
+    public static int getDefaultThreads() {
+
+        return Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    }
+
+    /**
+     * Executes the given job in the pool and waits for its result.<p>
+     *
+     * If a job with the same key is already queued or running, no new job is started, instead the result
+     * of the existing job is returned.<p>
+     *
+     * @param key the job key
+     * @param callable the job
+     *
+     * @return the result of the job
+     *
+     * @throws ExecutionException if the job failed, the cause is the exception thrown by the job
+     * @throws InterruptedException if the current thread was interrupted while waiting for the result
+     * @throws RejectedExecutionException if the job queue is full
+     */
+    public byte[] execute(String key, Callable<byte[]> callable)
+    throws ExecutionException, InterruptedException, RejectedExecutionException {
+
+        Job job = new Job(key, callable);
+        Future<byte[]> existing = m_jobs.putIfAbsent(key, job);
+        if (existing != null) {
+            m_joinedCount.incrementAndGet();
+            try {
+                return existing.get();
+            } catch (CancellationException e) {
+                // the job has been rejected
+                throw new RejectedExecutionException(e);
+            }
+        }
+        try {
+            m_executor.execute(job);
+        } catch (RejectedExecutionException e) {
+            m_jobs.remove(key, job);
+            m_rejectedCount.incrementAndGet();
+            // make sure requests which already joined this job don't wait forever
+            job.cancel(false);
+            throw e;
+        }
+        return job.get();
+    }
+
+    /**
+     * Returns the number of jobs currently being executed.<p>
+     *
+     * @return the number of jobs currently being executed
+     */
+    public int getActiveCount() {
+
+        return m_executor.getActiveCount();
+    }
+
+    /**
+     * Returns the average time in milliseconds spent on a single job.<p>
+     *
+     * @return the average time in milliseconds spent on a single job
+     */
+    public long getAverageTime() {
+
+        long count = m_scaledCount.get();
+        return count == 0 ? 0 : m_totalTime.get() / count;
+    }
+
+    /**
+     * Returns the number of requests which waited for the result of a job started by another request.<p>
+     *
+     * @return the number of requests which waited for the result of a job started by another request
+     */
+    public long getJoinedCount() {
+
+        return m_joinedCount.get();
+    }
+
+    /**
+     * Returns the maximum time in milliseconds spent on a single job.<p>
+     *
+     * @return the maximum time in milliseconds spent on a single job
+     */
+    public long getMaxTime() {
+
+        return m_maxTime.get();
+    }
+
+    /**
+     * Returns the number of jobs waiting for a worker thread.<p>
+     *
+     * @return the number of jobs waiting for a worker thread
+     */
+    public int getQueueLength() {
+
+        return m_executor.getQueue().size();
+    }
+
+    /**
+     * Returns the number of jobs which have been rejected because the queue was full.<p>
+     *
+     * @return the number of rejected jobs
+     */
+    public long getRejectedCount() {
+
+        return m_rejectedCount.get();
+    }
+
+    /**
+     * Returns the number of executed jobs.<p>
+     *
+     * @return the number of executed jobs
+     */
+    public long getScaledCount() {
+
+        return m_scaledCount.get();
+    }
+
+    /**
+     * Returns the number of worker threads.<p>
+     *
+     * @return the number of worker threads
+     */
+    public int getThreads() {
+
+        return m_executor.getMaximumPoolSize();
+    }
+
+    /**
+     * Shuts down the pool.<p>
+     *
+     * Jobs which are already queued are still executed.<p>
+     */
+    public void shutdown() {
+
+        m_executor.shutdown();
+    }
+}
@@ -326,6 +326,41 @@ public final class CmsLockFilter implements Cloneable {
      */
     public boolean match(String rootPath, CmsLock lock) {
 
+        return match(rootPath, lock, true);
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+
+        StringBuffer str = new StringBuffer(128);
+        str.append("[");
+        str.append("children").append("=").append(m_includeChildren).append(", ");
+        str.append("parents").append("=").append(m_includeParents).append(", ");
+        str.append("types").append("=").append(m_types).append(", ");
+        str.append("includedUser").append("=").append(m_ownedByUserId).append(", ");
+        str.append("excludedUser").append("=").append(m_notOwnedByUserId).append(", ");
+        str.append("project").append("=").append(m_projectId).append(", ");
+        str.append("lockableBy").append("=").append(m_lockableByUser).append(", ");
+        str.append("notLockableBy").append("=").append(m_notLockableByUser).append(", ");
+        str.append("includeShared").append("=").append(m_sharedExclusive);
+        str.append("]");
+        return str.toString();
+    }
+
+    /**
+     * Matches the given lock against this filter and the given path.<p>
+     *
+     * @param rootPath the path to match the lock against
+     * @param lock the lock to match
+     * @param checkRelatedLock if the related lock should be matched if the lock itself does not match
+     *
+     * @return <code>true</code> if the given lock matches
+     */
+    private boolean match(String rootPath, CmsLock lock, boolean checkRelatedLock) {
+
         boolean match = false;
         if (m_includeChildren) {
             // safe since rootPath always ends with slash if a folder
@@ -356,31 +391,10 @@ public final class CmsLockFilter implements Cloneable {
             match = m_types.contains(lock.getType());
             match = match || (m_includeParents && lock.isInherited());
         }
-        // check the related lock if available
-        if (!match && !lock.getRelatedLock().isNullLock()) {
-            match = match(rootPath, lock.getRelatedLock());
+        // check the related lock if available, the related lock of the related lock is the lock itself
+        if (!match && checkRelatedLock && !lock.getRelatedLock().isNullLock()) {
+            match = match(rootPath, lock.getRelatedLock(), false);
         }
         return match;
     }
-
-    /**
-     * @see java.lang.Object#toString()
-     */
-    @Override
-    public String toString() {
-
-        StringBuffer str = new StringBuffer(128);
-        str.append("[");
-        str.append("children").append("=").append(m_includeChildren).append(", ");
-        str.append("parents").append("=").append(m_includeParents).append(", ");
-        str.append("types").append("=").append(m_types).append(", ");
-        str.append("includedUser").append("=").append(m_ownedByUserId).append(", ");
-        str.append("excludedUser").append("=").append(m_notOwnedByUserId).append(", ");
-        str.append("project").append("=").append(m_projectId).append(", ");
-        str.append("lockableBy").append("=").append(m_lockableByUser).append(", ");
-        str.append("notLockableBy").append("=").append(m_notLockableByUser).append(", ");
-        str.append("includeShared").append("=").append(m_sharedExclusive);
-        str.append("]");
-        return str.toString();
-    }
 }
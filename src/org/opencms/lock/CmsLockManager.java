@@ -44,8 +44,10 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * The CmsLockManager is used by the Cms application to detect
@@ -81,6 +83,40 @@ public final class CmsLockManager {
         m_driverManager = driverManager;
     }
 
+    /**
+     * Returns the locks which may match the given lock filter for the given root path.<p>
+     *
+     * Unless the filter also looks at siblings, only the locks below and above the given path
+     * are returned, instead of all locks.<p>
+     *
+     * @param lockTable the table of the current locks
+     * @param rootPath the root path the filter is applied to
+     * @param filter the lock filter
+     *
+     * @return the locks which may match the filter
+     */
+    static List<CmsLock> getLockCandidates(CmsLockTable lockTable, String rootPath, CmsLockFilter filter) {
+
+        if (filter.isSharedExclusive()) {
+            // the siblings of any lock may match
+            return lockTable.getAllLocks();
+        }
+        Set<CmsLock> candidates = new LinkedHashSet<CmsLock>();
+        if (filter.isIncludeChildren()) {
+            // the filter matches all lock paths starting with the root path
+            String folderPath = rootPath.endsWith("/") ? rootPath : CmsResource.getParentFolder(rootPath);
+            candidates.addAll(lockTable.getLocksBelow(folderPath != null ? folderPath : "/"));
+        }
+        if (filter.isIncludeParent()) {
+            candidates.addAll(lockTable.getParentFolderLocks(rootPath));
+            CmsLock lock = lockTable.get(rootPath);
+            if ((lock != null) && rootPath.endsWith("/")) {
+                candidates.add(lock);
+            }
+        }
+        return new ArrayList<CmsLock>(candidates);
+    }
+
     /**
      * Adds a resource to the lock manager.<p>
      *
@@ -120,13 +156,13 @@ public final class CmsLockManager {
         if (needNewLock) {
             // lock the resource
             newLock = new CmsLock(resource.getRootPath(), user.getId(), project, type);
-            lockResource(newLock);
+            lockResource(newLock, resource.getResourceId());
         }
 
         // handle collisions with exclusive locked sub-resources in case of a folder
         if (resource.isFolder() && newLock.getSystemLock().isUnlocked()) {
             String resourceName = resource.getRootPath();
-            Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
+            Iterator<CmsLock> itLocks = getLockTable().getLocksBelow(resourceName).iterator();
             while (itLocks.hasNext()) {
                 CmsLock lock = itLocks.next();
                 String lockedPath = lock.getResourceName();
@@ -199,7 +235,11 @@ public final class CmsLockManager {
 
         // check exclusive direct locks first
         CmsLock lock = getDirectLock(resource.getRootPath());
-        if ((lock == null) && includeSiblings) {
+        if ((lock != null) && (getLockTable().getResourceId(resource.getRootPath()) == null)) {
+            // remember the resource id of locks read from the database for the sibling lookup
+            getLockTable().setResourceId(resource.getRootPath(), resource.getResourceId());
+        }
+        if ((lock == null) && includeSiblings && hasLockedSiblings(resource)) {
             // check if siblings are exclusively locked
             List<CmsResource> siblings = internalReadSiblings(dbc, resource);
             lock = getSiblingsLock(siblings, resource.getRootPath());
@@ -231,7 +271,7 @@ public final class CmsLockManager {
     throws CmsException {
 
         List<CmsResource> lockedResources = new ArrayList<CmsResource>();
-        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
+        Iterator<CmsLock> itLocks = getLockCandidates(getLockTable(), resource.getRootPath(), filter).iterator();
         while (itLocks.hasNext()) {
             CmsLock lock = itLocks.next();
             CmsResource lockedResource;
@@ -283,7 +323,7 @@ public final class CmsLockManager {
         Map<String, CmsResource> cache) throws CmsException {
 
         List<CmsResource> lockedResources = new ArrayList<CmsResource>();
-        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
+        Iterator<CmsLock> itLocks = getLockCandidates(getLockTable(), resource.getRootPath(), filter).iterator();
         while (itLocks.hasNext()) {
             CmsLock lock = itLocks.next();
             CmsResource lockedResource;
@@ -358,7 +398,7 @@ public final class CmsLockManager {
     public List<CmsLock> getLocks(CmsDbContext dbc, String resourceName, CmsLockFilter filter) throws CmsException {
 
         List<CmsLock> locks = new ArrayList<CmsLock>();
-        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
+        Iterator<CmsLock> itLocks = getLockCandidates(getLockTable(), resourceName, filter).iterator();
         while (itLocks.hasNext()) {
             CmsLock lock = itLocks.next();
             if (filter.isSharedExclusive()) {
@@ -404,40 +444,13 @@ public final class CmsLockManager {
         if (resource == null) {
             return false;
         }
-        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
+        // only the locks of the resource itself and of resources below it are relevant
+        Iterator<CmsLock> itLocks = getLockTable().getLocksBelow(resource.getRootPath()).iterator();
         while (itLocks.hasNext()) {
             CmsLock lock = itLocks.next();
-            if (lock.getSystemLock().isUnlocked()) {
-                // only system locks matter here
-                continue;
-            }
-            if (lock.getResourceName().startsWith(resource.getRootPath())) {
-                if (lock.getResourceName().startsWith(resource.getRootPath())) {
-                    return true;
-                }
-                try {
-                    resource = m_driverManager.readResource(dbc, lock.getResourceName(), CmsResourceFilter.ALL);
-                } catch (CmsVfsResourceNotFoundException e) {
-                    OpenCms.getMemoryMonitor().uncacheLock(lock.getResourceName());
-                    continue;
-                }
-                CmsResource lockedResource;
-                try {
-                    lockedResource = m_driverManager.readResource(dbc, lock.getResourceName(), CmsResourceFilter.ALL);
-                } catch (CmsVfsResourceNotFoundException e) {
-                    OpenCms.getMemoryMonitor().uncacheLock(lock.getResourceName());
-                    continue;
-                }
-                if (lockedResource.getSiblingCount() > 1) {
-                    Iterator<CmsResource> itSiblings = internalReadSiblings(dbc, lockedResource).iterator();
-                    while (itSiblings.hasNext()) {
-                        CmsResource sibling = itSiblings.next();
-                        CmsLock siblingLock = internalSiblingLock(lock, sibling.getRootPath());
-                        if (siblingLock.getResourceName().startsWith(resource.getRootPath())) {
-                            return true;
-                        }
-                    }
-                }
+            // only system locks matter here
+            if (!lock.getSystemLock().isUnlocked() && lock.getResourceName().startsWith(resource.getRootPath())) {
+                return true;
             }
         }
         return false;
@@ -453,6 +466,8 @@ public final class CmsLockManager {
 
         CmsLock lock = OpenCms.getMemoryMonitor().getCachedLock(source);
         if (lock != null) {
+            // the resource id does not change when the resource is moved
+            CmsUUID resourceId = getLockTable().getResourceId(source);
             OpenCms.getMemoryMonitor().uncacheLock(lock.getResourceName());
             CmsLock newLock = new CmsLock(destination, lock.getUserId(), lock.getProject(), lock.getType());
             lock = lock.getRelatedLock();
@@ -460,7 +475,7 @@ public final class CmsLockManager {
                 CmsLock relatedLock = new CmsLock(destination, lock.getUserId(), lock.getProject(), lock.getType());
                 newLock.setRelatedLock(relatedLock);
             }
-            OpenCms.getMemoryMonitor().cacheLock(newLock);
+            OpenCms.getMemoryMonitor().cacheLock(newLock, resourceId);
         }
     }
 
@@ -481,7 +496,7 @@ public final class CmsLockManager {
             Iterator<CmsLock> itLocks = locks.iterator();
             while (itLocks.hasNext()) {
                 CmsLock lock = itLocks.next();
-                internalLockResource(lock, lockCache);
+                internalLockResource(lock, null, lockCache);
             }
             OpenCms.getMemoryMonitor().flushLocks(lockCache);
             m_runningInServlet = true;
@@ -576,7 +591,7 @@ public final class CmsLockManager {
             if (resource.isFolder()) {
                 // in case of a folder, remove any exclusive locks on sub-resources that probably have
                 // been upgraded from an inherited lock when the user edited a resource
-                Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
+                Iterator<CmsLock> itLocks = getLockTable().getLocksBelow(resourcename).iterator();
                 while (itLocks.hasNext()) {
                     String lockedPath = (itLocks.next()).getResourceName();
                     if (lockedPath.startsWith(resourcename) && !lockedPath.equals(resourcename)) {
@@ -593,13 +608,12 @@ public final class CmsLockManager {
         }
 
         if (lock.getType().isSharedExclusive()) {
-            List<String> locks = OpenCms.getMemoryMonitor().getAllCachedLockPaths();
             // when a resource with a shared lock gets unlocked, fetch all siblings of the resource
             // to the same content record to identify the exclusive locked sibling
             List<CmsResource> siblings = internalReadSiblings(dbc, resource);
             for (int i = 0; i < siblings.size(); i++) {
                 CmsResource sibling = siblings.get(i);
-                if (locks.contains(sibling.getRootPath())) {
+                if (getDirectLock(sibling.getRootPath()) != null) {
                     // remove the exclusive locked sibling
                     if (removeSystemLock) {
                         unlockResource(sibling.getRootPath(), true);
@@ -757,6 +771,16 @@ public final class CmsLockManager {
         return OpenCms.getMemoryMonitor().getCachedLock(resourcename);
     }
 
+    /**
+     * Returns the table of the current locks.<p>
+     *
+     * @return the table of the current locks
+     */
+    private CmsLockTable getLockTable() {
+
+        return OpenCms.getMemoryMonitor().getCachedLockTable();
+    }
+
     /**
      * Returns the lock of a possible locked parent folder of a resource, system locks are ignored.<p>
      *
@@ -766,18 +790,14 @@ public final class CmsLockManager {
      */
     private CmsLock getParentFolderLock(String resourceName) {
 
-        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
+        // the locks of the parent folders, starting with the nearest one
+        Iterator<CmsLock> itLocks = getLockTable().getParentFolderLocks(resourceName).iterator();
         while (itLocks.hasNext()) {
-            CmsLock lock = itLocks.next();
-            if (lock.getResourceName().endsWith("/")
-                && resourceName.startsWith(lock.getResourceName())
-                && !resourceName.equals(lock.getResourceName())) {
-                // system locks does not get inherited
-                lock = lock.getEditionLock();
-                // check the lock
-                if (!lock.isUnlocked()) {
-                    return lock;
-                }
+            // system locks does not get inherited
+            CmsLock lock = itLocks.next().getEditionLock();
+            // check the lock
+            if (!lock.isUnlocked()) {
+                return lock;
             }
         }
         return CmsLock.getNullLock();
@@ -825,15 +845,41 @@ public final class CmsLockManager {
 
     }
 
+    /**
+     * Checks if a sibling of the given resource may be locked.<p>
+     *
+     * If the resource ids of all locks are known, this is answered without reading the siblings.<p>
+     *
+     * @param resource the resource
+     *
+     * @return <code>false</code> if no sibling of the resource is locked
+     */
+    private boolean hasLockedSiblings(CmsResource resource) {
+
+        CmsLockTable lockTable = getLockTable();
+        if (!lockTable.isResourceIdIndexComplete()) {
+            return true;
+        }
+        Iterator<CmsLock> itLocks = lockTable.getLocksByResourceId(resource.getResourceId()).iterator();
+        while (itLocks.hasNext()) {
+            if (!itLocks.next().getResourceName().equals(resource.getRootPath())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Finally set the given lock.<p>
      *
      * @param lock the lock to set
+     * @param resourceId the resource id of the locked resource, may be <code>null</code> if unknown
      * @param locks during reading the locks from db we need to operate on an extra map
      *
      * @throws CmsLockException if the lock is not compatible with the current lock
      */
-    private void internalLockResource(CmsLock lock, Map<String, CmsLock> locks) throws CmsLockException {
+    private void internalLockResource(CmsLock lock, CmsUUID resourceId, Map<String, CmsLock> locks)
+    throws CmsLockException {
 
         CmsLock currentLock = null;
         if (locks == null) {
@@ -848,7 +894,7 @@ public final class CmsLockManager {
             if (!currentLock.getSystemLock().isUnlocked() && lock.getSystemLock().isUnlocked()) {
                 lock.setRelatedLock(currentLock);
                 if (locks == null) {
-                    OpenCms.getMemoryMonitor().cacheLock(lock);
+                    OpenCms.getMemoryMonitor().cacheLock(lock, resourceId);
                 } else {
                     locks.put(lock.getResourceName(), lock);
                 }
@@ -860,7 +906,7 @@ public final class CmsLockManager {
             }
         } else {
             if (locks == null) {
-                OpenCms.getMemoryMonitor().cacheLock(lock);
+                OpenCms.getMemoryMonitor().cacheLock(lock, resourceId);
             } else {
                 locks.put(lock.getResourceName(), lock);
             }
@@ -936,13 +982,14 @@ public final class CmsLockManager {
      * Sets the given lock to the resource.<p>
      *
      * @param lock the lock to set
+     * @param resourceId the resource id of the locked resource
      *
      * @throws CmsLockException if the lock is not compatible with the current lock
      */
-    private void lockResource(CmsLock lock) throws CmsLockException {
+    private void lockResource(CmsLock lock, CmsUUID resourceId) throws CmsLockException {
 
         m_isDirty = true;
-        internalLockResource(lock, null);
+        internalLockResource(lock, resourceId, null);
     }
 
     /**
@@ -0,0 +1,515 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.lock;
+
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Table of the currently set locks, indexed by the root path of the locked resources.<p>
+ *
+ * Besides the lookup of a lock by its exact root path, the locks are kept in a tree of path segments,
+ * so that the locks of the parent folders of a resource and all locks below a folder can be found
+ * without looking at all locks. In addition, the locks are indexed by the resource id of the locked
+ * resource if it is known, which allows to find locked siblings of a resource.<p>
+ *
+ * Read access is not synchronized, while all modifications of the table are serialized.<p>
+ *
+ * @since 10.5.0
+ */
+public final class CmsLockTable {
+
+    /**
+     * A lock together with the resource id of the locked resource.<p>
+     */
+    private static final class LockEntry {
+
+        /** The lock. */
+        final CmsLock m_lock;
+
+        /** The resource id of the locked resource, may be <code>null</code> if unknown. */
+        final CmsUUID m_resourceId;
+
+        /**
+         * Creates a new entry.<p>
+         *
+         * @param lock the lock
+         * @param resourceId the resource id of the locked resource, may be <code>null</code>
+         */
+        LockEntry(CmsLock lock, CmsUUID resourceId) {
+
+            m_lock = lock;
+            m_resourceId = resourceId;
+        }
+    }
+
+    /**
+     * A node in the tree of path segments.<p>
+     */
+    private static final class PathNode {
+
+        /** The child nodes by path segment. */
+        final Map<String, PathNode> m_children = new ConcurrentHashMap<String, PathNode>(4, 0.75f, 2);
+
+        /** The lock of the resource with the path of this node and no trailing slash. */
+        volatile CmsLock m_fileLock;
+
+        /** The lock of the folder with the path of this node. */
+        volatile CmsLock m_folderLock;
+
+        /** The path segment of this node. */
+        final String m_name;
+
+        /** The parent node, <code>null</code> for the root node. */
+        final PathNode m_parent;
+
+        /**
+         * Creates a new node.<p>
+         *
+         * @param parent the parent node
+         * @param name the path segment of the node
+         */
+        PathNode(PathNode parent, String name) {
+
+            m_parent = parent;
+            m_name = name;
+        }
+
+        /**
+         * Checks if this node neither holds locks nor has children.<p>
+         *
+         * @return <code>true</code> if this node is empty
+         */
+        boolean isEmpty() {
+
+            return (m_fileLock == null) && (m_folderLock == null) && m_children.isEmpty();
+        }
+    }
+
+    /** The locks by root path. */
+    private final Map<String, LockEntry> m_locks;
+
+    /** The root paths of the locks by resource id of the locked resource. */
+    private final Map<CmsUUID, List<String>> m_resourceIds;
+
+    /** The root node of the path tree. */
+    private final PathNode m_root;
+
+    /** The number of locks for which the resource id of the locked resource is unknown. */
+    private volatile int m_unindexedLocks;
+
+    /**
+     * Creates a new, empty lock table.<p>
+     */
+    public CmsLockTable() {
+
+        m_locks = new ConcurrentHashMap<String, LockEntry>();
+        m_resourceIds = new ConcurrentHashMap<CmsUUID, List<String>>();
+        m_root = new PathNode(null, "");
+    }
+
+    /**
+     * Creates a new lock table containing the given locks.<p>
+     *
+     * @param locks the locks by root path
+     */
+    public CmsLockTable(Map<String, CmsLock> locks) {
+
+        this();
+        for (CmsLock lock : locks.values()) {
+            put(lock, null);
+        }
+    }
+
+    /**
+     * Removes all locks from this table.<p>
+     */
+    public synchronized void clear() {
+
+        m_locks.clear();
+        m_resourceIds.clear();
+        m_root.m_children.clear();
+        m_root.m_fileLock = null;
+        m_root.m_folderLock = null;
+        m_unindexedLocks = 0;
+    }
+
+    /**
+     * Returns the lock set on the resource with the given root path.<p>
+     *
+     * @param rootPath the root path of the resource
+     *
+     * @return the lock, or <code>null</code> if the resource is not directly locked
+     */
+    public CmsLock get(String rootPath) {
+
+        LockEntry entry = m_locks.get(rootPath);
+        return entry != null ? entry.m_lock : null;
+    }
+
+    /**
+     * Returns the root paths of all locked resources.<p>
+     *
+     * @return the root paths of all locked resources
+     */
+    public List<String> getAllLockPaths() {
+
+        return new ArrayList<String>(m_locks.keySet());
+    }
+
+    /**
+     * Returns all locks.<p>
+     *
+     * @return all locks
+     */
+    public List<CmsLock> getAllLocks() {
+
+        List<CmsLock> result = new ArrayList<CmsLock>(m_locks.size());
+        for (LockEntry entry : m_locks.values()) {
+            result.add(entry.m_lock);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the locks of the resource with the given root path and of all resources below it.<p>
+     *
+     * For a folder path, this are all locks with a root path starting with the folder path.<p>
+     *
+     * @param rootPath the root path of the resource
+     *
+     * @return the locks of the resource and all resources below
+     */
+    public List<CmsLock> getLocksBelow(String rootPath) {
+
+        PathNode node = m_root;
+        int start = rootPath.startsWith("/") ? 1 : 0;
+        while ((node != null) && (start < rootPath.length())) {
+            int end = rootPath.indexOf('/', start);
+            if (end == -1) {
+                end = rootPath.length();
+            }
+            node = node.m_children.get(rootPath.substring(start, end));
+            start = end + 1;
+        }
+        if (node == null) {
+            return Collections.emptyList();
+        }
+        List<CmsLock> result = new ArrayList<CmsLock>();
+        CmsLock fileLock = node.m_fileLock;
+        if ((fileLock != null) && !rootPath.endsWith("/")) {
+            result.add(fileLock);
+        }
+        CmsLock folderLock = node.m_folderLock;
+        if (folderLock != null) {
+            result.add(folderLock);
+        }
+        collectLocks(node, result);
+        return result;
+    }
+
+    /**
+     * Returns all locks of resources with the given resource id, i.e. the locks of the resource and its siblings.<p>
+     *
+     * Only locks for which the resource id of the locked resource is known are returned,
+     * see {@link #isResourceIdIndexComplete()}.<p>
+     *
+     * @param resourceId the resource id
+     *
+     * @return the locks of the resources with the given resource id
+     */
+    public List<CmsLock> getLocksByResourceId(CmsUUID resourceId) {
+
+        List<String> paths = m_resourceIds.get(resourceId);
+        if (paths == null) {
+            return Collections.emptyList();
+        }
+        List<CmsLock> result = new ArrayList<CmsLock>(paths.size());
+        for (String path : paths) {
+            CmsLock lock = get(path);
+            if (lock != null) {
+                result.add(lock);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the locks of the parent folders of the resource with the given root path.<p>
+     *
+     * The lock of the nearest parent folder comes first in the result.<p>
+     *
+     * @param rootPath the root path of the resource
+     *
+     * @return the locks of the parent folders
+     */
+    public List<CmsLock> getParentFolderLocks(String rootPath) {
+
+        List<CmsLock> result = null;
+        PathNode node = m_root;
+        int start = rootPath.startsWith("/") ? 1 : 0;
+        while (node != null) {
+            int end = rootPath.indexOf('/', start);
+            if ((end == -1) || (end == (rootPath.length() - 1))) {
+                // the remaining segment is the resource itself
+                if (start < rootPath.length()) {
+                    CmsLock lock = node.m_folderLock;
+                    if (lock != null) {
+                        if (result == null) {
+                            result = new ArrayList<CmsLock>(2);
+                        }
+                        result.add(0, lock);
+                    }
+                }
+                break;
+            }
+            CmsLock lock = node.m_folderLock;
+            if (lock != null) {
+                if (result == null) {
+                    result = new ArrayList<CmsLock>(2);
+                }
+                result.add(0, lock);
+            }
+            node = node.m_children.get(rootPath.substring(start, end));
+            start = end + 1;
+        }
+        if (result == null) {
+            return Collections.emptyList();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the resource id of the resource locked with the given root path.<p>
+     *
+     * @param rootPath the root path of the locked resource
+     *
+     * @return the resource id, or <code>null</code> if the resource is not locked or its id is unknown
+     */
+    public CmsUUID getResourceId(String rootPath) {
+
+        LockEntry entry = m_locks.get(rootPath);
+        return entry != null ? entry.m_resourceId : null;
+    }
+
+    /**
+     * Checks if the resource ids of all locked resources are known.<p>
+     *
+     * Only in this case, {@link #getLocksByResourceId(CmsUUID)} returns the locks of all siblings.<p>
+     *
+     * @return <code>true</code> if the resource ids of all locked resources are known
+     */
+    public boolean isResourceIdIndexComplete() {
+
+        return m_unindexedLocks == 0;
+    }
+
+    /**
+     * Sets the given lock.<p>
+     *
+     * If the resource id is <code>null</code> and the resource with the root path
+     * of the lock was already locked, the resource id of the previous lock is kept.<p>
+     *
+     * @param lock the lock to set
+     * @param resourceId the resource id of the locked resource, may be <code>null</code> if unknown
+     */
+    public synchronized void put(CmsLock lock, CmsUUID resourceId) {
+
+        String rootPath = lock.getResourceName();
+        LockEntry oldEntry = m_locks.get(rootPath);
+        if (oldEntry != null) {
+            if (resourceId == null) {
+                resourceId = oldEntry.m_resourceId;
+            }
+            unindexResourceId(rootPath, oldEntry.m_resourceId);
+        }
+        m_locks.put(rootPath, new LockEntry(lock, resourceId));
+        indexResourceId(rootPath, resourceId);
+
+        PathNode node = m_root;
+        int start = rootPath.startsWith("/") ? 1 : 0;
+        while (start < rootPath.length()) {
+            int end = rootPath.indexOf('/', start);
+            if (end == -1) {
+                end = rootPath.length();
+            }
+            String name = rootPath.substring(start, end);
+            PathNode child = node.m_children.get(name);
+            if (child == null) {
+                child = new PathNode(node, name);
+                node.m_children.put(name, child);
+            }
+            node = child;
+            start = end + 1;
+        }
+        if (rootPath.endsWith("/")) {
+            node.m_folderLock = lock;
+        } else {
+            node.m_fileLock = lock;
+        }
+    }
+
+    /**
+     * Removes the lock of the resource with the given root path.<p>
+     *
+     * @param rootPath the root path of the resource
+     *
+     * @return the removed lock, or <code>null</code> if the resource was not locked
+     */
+    public synchronized CmsLock remove(String rootPath) {
+
+        LockEntry entry = m_locks.remove(rootPath);
+        if (entry == null) {
+            return null;
+        }
+        unindexResourceId(rootPath, entry.m_resourceId);
+
+        PathNode node = m_root;
+        int start = rootPath.startsWith("/") ? 1 : 0;
+        while ((node != null) && (start < rootPath.length())) {
+            int end = rootPath.indexOf('/', start);
+            if (end == -1) {
+                end = rootPath.length();
+            }
+            node = node.m_children.get(rootPath.substring(start, end));
+            start = end + 1;
+        }
+        if (node != null) {
+            if (rootPath.endsWith("/")) {
+                node.m_folderLock = null;
+            } else {
+                node.m_fileLock = null;
+            }
+            // remove nodes which are no longer needed
+            while ((node.m_parent != null) && node.isEmpty()) {
+                node.m_parent.m_children.remove(node.m_name);
+                node = node.m_parent;
+            }
+        }
+        return entry.m_lock;
+    }
+
+    /**
+     * Sets the resource id of an already locked resource if it is not known yet.<p>
+     *
+     * @param rootPath the root path of the locked resource
+     * @param resourceId the resource id of the locked resource
+     */
+    public synchronized void setResourceId(String rootPath, CmsUUID resourceId) {
+
+        LockEntry entry = m_locks.get(rootPath);
+        if ((entry != null) && (entry.m_resourceId == null) && (resourceId != null)) {
+            put(entry.m_lock, resourceId);
+        }
+    }
+
+    /**
+     * Returns the number of locks in this table.<p>
+     *
+     * @return the number of locks
+     */
+    public int size() {
+
+        return m_locks.size();
+    }
+
+    /**
+     * Adds the locks of all nodes below the given node to the given list.<p>
+     *
+     * @param node the node
+     * @param result the list to add the locks to
+     */
+    private void collectLocks(PathNode node, List<CmsLock> result) {
+
+        Iterator<PathNode> itChildren = node.m_children.values().iterator();
+        while (itChildren.hasNext()) {
+            PathNode child = itChildren.next();
+            CmsLock lock = child.m_fileLock;
+            if (lock != null) {
+                result.add(lock);
+            }
+            lock = child.m_folderLock;
+            if (lock != null) {
+                result.add(lock);
+            }
+            collectLocks(child, result);
+        }
+    }
+
+    /**
+     * Adds the given root path to the resource id index.<p>
+     *
+     * @param rootPath the root path of the locked resource
+     * @param resourceId the resource id of the locked resource, may be <code>null</code>
+     */
+    private void indexResourceId(String rootPath, CmsUUID resourceId) {
+
+        if (resourceId == null) {
+            m_unindexedLocks++;
+            return;
+        }
+        List<String> paths = m_resourceIds.get(resourceId);
+        List<String> newPaths = new ArrayList<String>(paths != null ? paths.size() + 1 : 1);
+        if (paths != null) {
+            newPaths.addAll(paths);
+        }
+        newPaths.add(rootPath);
+        m_resourceIds.put(resourceId, Collections.unmodifiableList(newPaths));
+    }
+
+    /**
+     * Removes the given root path from the resource id index.<p>
+     *
+     * @param rootPath the root path of the locked resource
+     * @param resourceId the resource id of the locked resource, may be <code>null</code>
+     */
+    private void unindexResourceId(String rootPath, CmsUUID resourceId) {
+
+        if (resourceId == null) {
+            m_unindexedLocks--;
+            return;
+        }
+        List<String> paths = m_resourceIds.get(resourceId);
+        if (paths == null) {
+            return;
+        }
+        List<String> newPaths = new ArrayList<String>(paths);
+        newPaths.remove(rootPath);
+        if (newPaths.isEmpty()) {
+            m_resourceIds.remove(resourceId);
+        } else {
+            m_resourceIds.put(resourceId, Collections.unmodifiableList(newPaths));
+        }
+    }
+}
@@ -155,6 +155,17 @@ public class CmsEventManager {
         }
     }
 
+    /**
+     * Shuts down this event manager.<p>
+     *
+     * The default implementation does nothing, subclasses that use background threads or
+     * external resources should release them here.<p>
+     */
+    public void shutDown() {
+
+        // noop
+    }
+
     /**
      * Returns the map of all configured event listeners.<p>
      *
@@ -0,0 +1,304 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.main;
+
+import org.opencms.db.CmsDbContext;
+import org.opencms.i18n.CmsEncoder;
+import org.opencms.i18n.CmsLocaleManager;
+import org.opencms.report.CmsLogReport;
+import org.opencms.util.CmsStringUtil;
+import org.opencms.util.CmsUUID;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An OpenCms event in the form it is replicated to the other nodes of a cluster.<p>
+ *
+ * Only event data values of simple types (strings, numbers, booleans and UUIDs) are replicated.
+ * On the receiving node, the event data contains {@link I_CmsEventListener#KEY_REPLICATED}, so that listeners
+ * can skip work which has already been done on the originating node for the shared database or file system.
+ * For publish events, a new database context and a log report are added on the receiving node,
+ * so that the listeners can read the published resources from the shared database.<p>
+ *
+ * @since 10.5.0
+ */
+public class CmsReplicatedEvent {
+
+    /** Type prefix for boolean values. */
+    private static final String TYPE_BOOLEAN = "b";
+
+    /** Type prefix for integer values. */
+    private static final String TYPE_INTEGER = "i";
+
+    /** Type prefix for string values. */
+    private static final String TYPE_STRING = "s";
+
+    /** Type prefix for UUID values. */
+    private static final String TYPE_UUID = "u";
+
+    /** The encoded event data. */
+    private final String m_data;
+
+    /** The time the event was fired on the originating node. */
+    private final long m_date;
+
+    /** The unique id of the replicated event. */
+    private final String m_id;
+
+    /** The id of the node on which the event was fired. */
+    private final String m_nodeId;
+
+    /** The event type. */
+    private final int m_type;
+
+    /**
+     * Creates a new replicated event.<p>
+     *
+     * @param id the unique id of the replicated event
+     * @param nodeId the id of the node on which the event was fired
+     * @param type the event type
+     * @param date the time the event was fired on the originating node
+     * @param data the encoded event data
+     */
+    public CmsReplicatedEvent(String id, String nodeId, int type, long date, String data) {
+
+        m_id = id;
+        m_nodeId = nodeId;
+        m_type = type;
+        m_date = date;
+        m_data = data == null ? "" : data;
+    }
+
+    /**
+     * Creates the replicated form of the given local event.<p>
+     *
+     * @param nodeId the id of the local node
+     * @param event the event
+     *
+     * @return the replicated event
+     */
+    public static CmsReplicatedEvent create(String nodeId, CmsEvent event) {
+
+        // sort the data to get the same encoding for the same data
+        Map<String, String> encoded = new TreeMap<String, String>();
+        if (event.getData() != null) {
+            for (Map.Entry<String, Object> entry : event.getData().entrySet()) {
+                if (I_CmsEventListener.KEY_REPLICATED.equals(entry.getKey())) {
+                    // the marker is only set on the receiving node
+                    continue;
+                }
+                String value = encodeValue(entry.getValue());
+                if (value != null) {
+                    encoded.put(entry.getKey(), value);
+                }
+            }
+        }
+        StringBuffer data = new StringBuffer();
+        for (Map.Entry<String, String> entry : encoded.entrySet()) {
+            if (data.length() > 0) {
+                data.append('&');
+            }
+            data.append(CmsEncoder.encode(entry.getKey(), CmsEncoder.ENCODING_UTF_8));
+            data.append('=');
+            data.append(CmsEncoder.encode(entry.getValue(), CmsEncoder.ENCODING_UTF_8));
+        }
+        return new CmsReplicatedEvent(
+            new CmsUUID().toString(),
+            nodeId,
+            event.getType(),
+            System.currentTimeMillis(),
+            data.toString());
+    }
+
+    /**
+     * Two replicated events are equal if they have the same type and data, regardless of their origin.<p>
+     *
+     * This is used to coalesce identical events before they are sent.<p>
+     *
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    @Override
+    public boolean equals(Object obj) {
+
+        if (obj == this) {
+            return true;
+        }
+        if (obj instanceof CmsReplicatedEvent) {
+            CmsReplicatedEvent other = (CmsReplicatedEvent)obj;
+            return (m_type == other.m_type) && m_data.equals(other.m_data);
+        }
+        return false;
+    }
+
+    /**
+     * Returns the encoded event data.<p>
+     *
+     * @return the encoded event data
+     */
+    public String getData() {
+
+        return m_data;
+    }
+
+    /**
+     * Returns the time the event was fired on the originating node.<p>
+     *
+     * @return the time the event was fired
+     */
+    public long getDate() {
+
+        return m_date;
+    }
+
+    /**
+     * Returns the unique id of the replicated event.<p>
+     *
+     * @return the unique id of the replicated event
+     */
+    public String getId() {
+
+        return m_id;
+    }
+
+    /**
+     * Returns the id of the node on which the event was fired.<p>
+     *
+     * @return the node id
+     */
+    public String getNodeId() {
+
+        return m_nodeId;
+    }
+
+    /**
+     * Returns the event type.<p>
+     *
+     * @return the event type
+     */
+    public int getType() {
+
+        return m_type;
+    }
+
+    /**
+     * @see java.lang.Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+
+        return (31 * m_type) + m_data.hashCode();
+    }
+
+    /**
+     * Creates the local event for this replicated event.<p>
+     *
+     * @return the local event
+     */
+    public CmsEvent toEvent() {
+
+        Map<String, Object> data = new HashMap<String, Object>();
+        List<String> entries = CmsStringUtil.splitAsList(m_data, '&');
+        for (String entry : entries) {
+            int pos = entry.indexOf('=');
+            if (pos > 0) {
+                String key = CmsEncoder.decode(entry.substring(0, pos), CmsEncoder.ENCODING_UTF_8);
+                Object value = decodeValue(CmsEncoder.decode(entry.substring(pos + 1), CmsEncoder.ENCODING_UTF_8));
+                if (value != null) {
+                    data.put(key, value);
+                }
+            }
+        }
+        data.put(I_CmsEventListener.KEY_REPLICATED, Boolean.TRUE);
+        if (m_type == I_CmsEventListener.EVENT_PUBLISH_PROJECT) {
+            data.put(I_CmsEventListener.KEY_DBCONTEXT, new CmsDbContext());
+            data.put(
+                I_CmsEventListener.KEY_REPORT,
+                new CmsLogReport(CmsLocaleManager.getDefaultLocale(), CmsReplicatedEvent.class));
+        }
+        return new CmsEvent(m_type, data);
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+
+        return "[" + m_nodeId + ":" + m_type + ":" + m_data + "]";
+    }
+
+    /**
+     * Encodes the given event data value.<p>
+     *
+     * @param value the value to encode
+     *
+     * @return the encoded value, or <code>null</code> if the value can not be replicated
+     */
+    private static String encodeValue(Object value) {
+
+        if (value instanceof String) {
+            return TYPE_STRING + value;
+        } else if (value instanceof Integer) {
+            return TYPE_INTEGER + value;
+        } else if (value instanceof Boolean) {
+            return TYPE_BOOLEAN + value;
+        } else if (value instanceof CmsUUID) {
+            return TYPE_UUID + value;
+        }
+        return null;
+    }
+
+    /**
+     * Decodes the given event data value.<p>
+     *
+     * @param value the value to decode
+     *
+     * @return the decoded value, or <code>null</code> if the value type is unknown
+     */
+    private static Object decodeValue(String value) {
+
+        if (value.length() == 0) {
+            return null;
+        }
+        String type = value.substring(0, 1);
+        String content = value.substring(1);
+        if (TYPE_STRING.equals(type)) {
+            return content;
+        } else if (TYPE_INTEGER.equals(type)) {
+            return Integer.valueOf(content);
+        } else if (TYPE_BOOLEAN.equals(type)) {
+            return Boolean.valueOf(content);
+        } else if (TYPE_UUID.equals(type)) {
+            return new CmsUUID(content);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,444 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.main;
+
+import org.opencms.configuration.CmsConfigurationException;
+import org.opencms.configuration.CmsParameterConfiguration;
+import org.opencms.configuration.I_CmsConfigurationParameterHandler;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Event manager that replicates selected events, usually the cache invalidation events,
+ * to the other nodes of a cluster.<p>
+ *
+ * Events fired locally are processed immediately and queued for replication.
+ * A background thread periodically sends the queued events with the configured {@link I_CmsEventTransport}
+ * and fires the events received from the other nodes locally. Received events are not replicated again.<p>
+ *
+ * Before they are sent, identical events are coalesced, and a pending {@link I_CmsEventListener#EVENT_CLEAR_CACHES}
+ * event makes all pending online, offline and flex cache clear events unnecessary.<p>
+ *
+ * The event manager is configured in <code>opencms-system.xml</code> with the following parameters:
+ * <ul>
+ * <li><code>transport</code>: the class name of the transport, default is {@link org.opencms.db.CmsDbEventTransport}</li>
+ * <li><code>node</code>: the unique id of this node, default is a new random id</li>
+ * <li><code>events</code>: comma separated list of the event types to replicate</li>
+ * <li><code>interval</code>: the replication interval in milliseconds</li>
+ * </ul>
+ * Additional parameters are available to the transport.<p>
+ *
+ * @since 10.5.0
+ */
+public class CmsReplicatingEventManager extends CmsEventManager implements I_CmsConfigurationParameterHandler {
+
+    /** The default replication interval in milliseconds. */
+    public static final int DEFAULT_INTERVAL = 5000;
+
+    /** The default transport class. */
+    public static final String DEFAULT_TRANSPORT = "org.opencms.db.CmsDbEventTransport";
+
+    /** Parameter name for the event types to replicate. */
+    public static final String PARAM_EVENTS = "events";
+
+    /** Parameter name for the replication interval. */
+    public static final String PARAM_INTERVAL = "interval";
+
+    /** Parameter name for the node id. */
+    public static final String PARAM_NODE = "node";
+
+    /** Parameter name for the transport class. */
+    public static final String PARAM_TRANSPORT = "transport";
+
+    /** The event types replicated by default. */
+    private static final int[] DEFAULT_EVENTS = {
+        I_CmsEventListener.EVENT_ALIASES_MODIFIED,
+        I_CmsEventListener.EVENT_PUBLISH_PROJECT,
+        I_CmsEventListener.EVENT_CLEAR_CACHES,
+        I_CmsEventListener.EVENT_CLEAR_ONLINE_CACHES,
+        I_CmsEventListener.EVENT_CLEAR_OFFLINE_CACHES,
+        I_CmsEventListener.EVENT_FLEX_CACHE_CLEAR,
+        I_CmsEventListener.EVENT_FLEX_PURGE_JSP_REPOSITORY};
+
+    /** The static log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsReplicatingEventManager.class);
+
+    /** The event types made unnecessary by a pending "clear caches" event. */
+    private static final Set<Integer> SUBSUMED_BY_CLEAR_CACHES = new HashSet<Integer>(
+        Arrays.asList(
+            new Integer[] {
+                Integer.valueOf(I_CmsEventListener.EVENT_CLEAR_ONLINE_CACHES),
+                Integer.valueOf(I_CmsEventListener.EVENT_CLEAR_OFFLINE_CACHES),
+                Integer.valueOf(I_CmsEventListener.EVENT_FLEX_CACHE_CLEAR)}));
+
+    /** The number of events dropped because they were coalesced with other pending events. */
+    private final AtomicLong m_coalescedCount = new AtomicLong();
+
+    /** The configuration parameters. */
+    private CmsParameterConfiguration m_configuration = new CmsParameterConfiguration();
+
+    /** The replication interval in milliseconds. */
+    private int m_interval;
+
+    /** The last observed delay between firing an event on another node and firing it locally. */
+    private volatile long m_lastLag;
+
+    /** The largest observed delay between firing an event on another node and firing it locally. */
+    private volatile long m_maxLag;
+
+    /** The id of this node. */
+    private String m_nodeId;
+
+    /** The events waiting to be sent, in the order they were fired. */
+    private Set<CmsReplicatedEvent> m_outbox = new LinkedHashSet<CmsReplicatedEvent>();
+
+    /** The number of events received from other nodes. */
+    private final AtomicLong m_receivedCount = new AtomicLong();
+
+    /** The event types to replicate. */
+    private Set<Integer> m_replicatedEvents;
+
+    /** The number of events sent to other nodes. */
+    private final AtomicLong m_sentCount = new AtomicLong();
+
+    /** The replication thread. */
+    private ReplicationThread m_thread;
+
+    /** The event transport. */
+    private I_CmsEventTransport m_transport;
+
+    /**
+     * The thread that exchanges events with the other nodes.<p>
+     */
+    private class ReplicationThread extends Thread {
+
+        /** Flag to indicate the thread should stop. */
+        private volatile boolean m_stopped;
+
+        /**
+         * Creates a new replication thread.<p>
+         */
+        ReplicationThread() {
+
+            super("OpenCms-Event-Replication");
+            setDaemon(true);
+        }
+
+        /**
+         * @see java.lang.Thread#run()
+         */
+        @Override
+        public void run() {
+
+            while (!m_stopped) {
+                try {
+                    sleep(m_interval);
+                } catch (InterruptedException e) {
+                    // shutdown requested or spurious wakeup, check the flag
+                    continue;
+                }
+                if (OpenCms.getRunLevel() < OpenCms.RUNLEVEL_3_SHELL_ACCESS) {
+                    // the database and the listeners are not yet available
+                    continue;
+                }
+                try {
+                    replicate();
+                } catch (Throwable t) {
+                    LOG.error(Messages.get().getBundle().key(Messages.LOG_EVENT_REPLICATION_FAILED_0), t);
+                }
+            }
+        }
+
+        /**
+         * Stops the thread.<p>
+         */
+        void shutDown() {
+
+            m_stopped = true;
+            interrupt();
+        }
+    }
+
+    /**
+     * @see org.opencms.configuration.I_CmsConfigurationParameterHandler#addConfigurationParameter(java.lang.String, java.lang.String)
+     */
+    public void addConfigurationParameter(String paramName, String paramValue) {
+
+        m_configuration.add(paramName, paramValue);
+    }
+
+    /**
+     * @see org.opencms.main.CmsEventManager#fireEvent(org.opencms.main.CmsEvent)
+     */
+    @Override
+    public void fireEvent(CmsEvent event) {
+
+        super.fireEvent(event);
+        if ((m_replicatedEvents != null) && m_replicatedEvents.contains(event.getTypeInteger())) {
+            enqueue(CmsReplicatedEvent.create(m_nodeId, event));
+        }
+    }
+
+    /**
+     * Returns the number of events dropped because they were coalesced with other pending events.<p>
+     *
+     * @return the number of coalesced events
+     */
+    public long getCoalescedCount() {
+
+        return m_coalescedCount.get();
+    }
+
+    /**
+     * @see org.opencms.configuration.I_CmsConfigurationParameterHandler#getConfiguration()
+     */
+    public CmsParameterConfiguration getConfiguration() {
+
+        return m_configuration;
+    }
+
+    /**
+     * Returns the last observed delay in milliseconds between firing an event on another node and firing it locally.<p>
+     *
+     * @return the last observed replication lag
+     */
+    public long getLastLag() {
+
+        return m_lastLag;
+    }
+
+    /**
+     * Returns the largest observed delay in milliseconds between firing an event on another node and firing it locally.<p>
+     *
+     * @return the largest observed replication lag
+     */
+    public long getMaxLag() {
+
+        return m_maxLag;
+    }
+
+    /**
+     * Returns the id of this node.<p>
+     *
+     * @return the id of this node
+     */
+    public String getNodeId() {
+
+        return m_nodeId;
+    }
+
+    /**
+     * Returns the number of events received from other nodes.<p>
+     *
+     * @return the number of received events
+     */
+    public long getReceivedCount() {
+
+        return m_receivedCount.get();
+    }
+
+    /**
+     * Returns the number of events sent to other nodes.<p>
+     *
+     * @return the number of sent events
+     */
+    public long getSentCount() {
+
+        return m_sentCount.get();
+    }
+
+    /**
+     * @see org.opencms.configuration.I_CmsConfigurationParameterHandler#initConfiguration()
+     */
+    public void initConfiguration() throws CmsConfigurationException {
+
+        m_nodeId = m_configuration.getString(PARAM_NODE, new CmsUUID().toString());
+        m_interval = m_configuration.getInteger(PARAM_INTERVAL, DEFAULT_INTERVAL);
+        m_replicatedEvents = new HashSet<Integer>();
+        List<String> events = m_configuration.getList(PARAM_EVENTS);
+        if (events.isEmpty()) {
+            for (int i = 0; i < DEFAULT_EVENTS.length; i++) {
+                m_replicatedEvents.add(Integer.valueOf(DEFAULT_EVENTS[i]));
+            }
+        } else {
+            for (String event : events) {
+                m_replicatedEvents.add(Integer.valueOf(event.trim()));
+            }
+        }
+        String transport = m_configuration.getString(PARAM_TRANSPORT, DEFAULT_TRANSPORT);
+        try {
+            m_transport = (I_CmsEventTransport)Class.forName(transport).newInstance();
+        } catch (Exception e) {
+            throw new CmsConfigurationException(
+                Messages.get().container(Messages.ERR_EVENT_TRANSPORT_INVALID_1, transport),
+                e);
+        }
+        if (CmsLog.INIT.isInfoEnabled()) {
+            CmsLog.INIT.info(Messages.get().getBundle().key(Messages.INIT_EVENT_REPLICATION_2, m_nodeId, transport));
+        }
+    }
+
+    /**
+     * @see org.opencms.main.CmsEventManager#shutDown()
+     */
+    @Override
+    public void shutDown() {
+
+        if (m_thread != null) {
+            m_thread.shutDown();
+            m_thread = null;
+        }
+        if (m_transport != null) {
+            m_transport.shutDown();
+        }
+    }
+
+    /**
+     * @see org.opencms.main.CmsEventManager#initialize(org.opencms.main.CmsEventManager)
+     */
+    @Override
+    protected void initialize(CmsEventManager base) {
+
+        super.initialize(base);
+        if (m_transport == null) {
+            // configuration was not initialized, e.g. because no parameters are available
+            try {
+                initConfiguration();
+            } catch (CmsConfigurationException e) {
+                LOG.error(e.getLocalizedMessage(), e);
+                return;
+            }
+        }
+        try {
+            m_transport.initialize(m_nodeId, m_configuration);
+        } catch (CmsException e) {
+            LOG.error(e.getLocalizedMessage(), e);
+            return;
+        }
+        m_thread = new ReplicationThread();
+        m_thread.start();
+    }
+
+    /**
+     * Sends the pending events and fires the events received from the other nodes.<p>
+     *
+     * @throws CmsException if something goes wrong
+     */
+    protected void replicate() throws CmsException {
+
+        List<CmsReplicatedEvent> outgoing;
+        synchronized (m_outbox) {
+            outgoing = new ArrayList<CmsReplicatedEvent>(m_outbox);
+            m_outbox.clear();
+        }
+        if (!outgoing.isEmpty()) {
+            try {
+                m_transport.send(outgoing);
+            } catch (CmsException e) {
+                // keep the events for the next attempt
+                synchronized (m_outbox) {
+                    List<CmsReplicatedEvent> pending = new ArrayList<CmsReplicatedEvent>(m_outbox);
+                    m_outbox.clear();
+                    m_outbox.addAll(outgoing);
+                    for (CmsReplicatedEvent event : pending) {
+                        enqueue(event);
+                    }
+                }
+                throw e;
+            }
+            m_sentCount.addAndGet(outgoing.size());
+        }
+        List<CmsReplicatedEvent> incoming = m_transport.receive();
+        if (incoming.isEmpty()) {
+            return;
+        }
+        // coalesce the received events as well, e.g. if several nodes published at the same time
+        Set<CmsReplicatedEvent> events = new LinkedHashSet<CmsReplicatedEvent>(incoming);
+        long maxLag = 0;
+        for (CmsReplicatedEvent event : events) {
+            super.fireEvent(event.toEvent());
+            long lag = System.currentTimeMillis() - event.getDate();
+            if (lag > maxLag) {
+                maxLag = lag;
+            }
+        }
+        m_receivedCount.addAndGet(incoming.size());
+        m_lastLag = maxLag;
+        if (maxLag > m_maxLag) {
+            m_maxLag = maxLag;
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(
+                Messages.get().getBundle().key(
+                    Messages.LOG_EVENT_REPLICATION_RECEIVED_3,
+                    Integer.valueOf(incoming.size()),
+                    Integer.valueOf(events.size()),
+                    Long.valueOf(maxLag)));
+        }
+    }
+
+    /**
+     * Adds an event to the outbox, coalescing it with the events already pending.<p>
+     *
+     * @param event the event to add
+     */
+    private void enqueue(CmsReplicatedEvent event) {
+
+        synchronized (m_outbox) {
+            if (event.getType() == I_CmsEventListener.EVENT_CLEAR_CACHES) {
+                Iterator<CmsReplicatedEvent> it = m_outbox.iterator();
+                while (it.hasNext()) {
+                    if (SUBSUMED_BY_CLEAR_CACHES.contains(Integer.valueOf(it.next().getType()))) {
+                        it.remove();
+                        m_coalescedCount.incrementAndGet();
+                    }
+                }
+            } else if (SUBSUMED_BY_CLEAR_CACHES.contains(Integer.valueOf(event.getType()))) {
+                for (CmsReplicatedEvent pending : m_outbox) {
+                    if (pending.getType() == I_CmsEventListener.EVENT_CLEAR_CACHES) {
+                        m_coalescedCount.incrementAndGet();
+                        return;
+                    }
+                }
+            }
+            if (!m_outbox.add(event)) {
+                m_coalescedCount.incrementAndGet();
+            }
+        }
+    }
+}
@@ -61,6 +61,20 @@ package org.opencms.main;
  */
 public interface I_CmsEventListener {
 
+    /**
+     * Event "aliases have been modified".<p>
+     *
+     * Event data:
+     * <ul>
+     * <li><code>{@link #KEY_STRUCTURE_IDS}</code> (optional): comma separated structure ids of the resources
+     * whose aliases have been modified</li>
+     * <li><code>{@link #KEY_SITE_ROOT}</code> (optional): the site root whose rewrite aliases have been modified</li>
+     * </ul>
+     *
+     * @see org.opencms.db.CmsAliasManager
+     */
+    int EVENT_ALIASES_MODIFIED = 34;
+
     /**
      * Event "a project is to published" (but has not yet been published).<p>
      *
@@ -390,6 +404,9 @@ public interface I_CmsEventListener {
     /** Key name for passing a publish list in the data map. */
     String KEY_PUBLISHLIST = "publishList";
 
+    /** Key name for marking an event in the data map which was replicated from another cluster node. */
+    String KEY_REPLICATED = "replicated";
+
     /** Key name for passing a report in the data map. */
     String KEY_REPORT = "report";
 
@@ -399,9 +416,15 @@ public interface I_CmsEventListener {
     /** Key name for passing a List of {@link org.opencms.file.CmsResource} in the data map. */
     String KEY_RESOURCES = "resources";
 
+    /** Key name for passing a site root in the data map. */
+    String KEY_SITE_ROOT = "siteRoot";
+
     /** Key name for skipping searchindexing. */
     String KEY_SKIPINDEX = "skipindex";
 
+    /** Key name for passing a comma separated list of structure ids in the data map. */
+    String KEY_STRUCTURE_IDS = "structureIds";
+
     /** Key name for passing a user action. */
     String KEY_USER_ACTION = "userAction";
 
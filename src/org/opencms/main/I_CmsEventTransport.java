@@ -0,0 +1,78 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.main;
+
+import org.opencms.configuration.CmsParameterConfiguration;
+
+import java.util.List;
+
+/**
+ * Transport used by the {@link CmsReplicatingEventManager} to exchange events between the nodes of a cluster.<p>
+ *
+ * Implementations must be thread safe only with respect to {@link #shutDown()}, since
+ * {@link #send(List)} and {@link #receive()} are always called from the same replication thread.<p>
+ *
+ * @since 10.5.0
+ */
+public interface I_CmsEventTransport {
+
+    /**
+     * Initializes the transport.<p>
+     *
+     * @param nodeId the id of the local node
+     * @param configuration the configuration parameters of the event manager
+     *
+     * @throws CmsException if something goes wrong
+     */
+    void initialize(String nodeId, CmsParameterConfiguration configuration) throws CmsException;
+
+    /**
+     * Returns the events fired on other nodes since the last call of this method.<p>
+     *
+     * Events sent by the local node must not be returned.<p>
+     *
+     * @return the events fired on other nodes, in the order they were sent
+     *
+     * @throws CmsException if something goes wrong
+     */
+    List<CmsReplicatedEvent> receive() throws CmsException;
+
+    /**
+     * Sends the given events to the other nodes.<p>
+     *
+     * @param events the events to send
+     *
+     * @throws CmsException if something goes wrong
+     */
+    void send(List<CmsReplicatedEvent> events) throws CmsException;
+
+    /**
+     * Shuts down the transport and releases all resources.<p>
+     */
+    void shutDown();
+}
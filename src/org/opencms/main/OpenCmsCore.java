@@ -107,6 +107,7 @@ import org.opencms.workflow.I_CmsWorkflowManager;
 import org.opencms.workplace.CmsWorkplace;
 import org.opencms.workplace.CmsWorkplaceManager;
 import org.opencms.xml.CmsXmlContentTypeManager;
+import org.opencms.xml.CmsXmlEntityResolver;
 import org.opencms.xml.containerpage.CmsFormatterConfiguration;
 
 import java.io.IOException;
@@ -1197,6 +1198,7 @@ public final class OpenCmsCore {
                 e);
         }
         m_memoryMonitor.initialize(systemConfiguration);
+        CmsXmlEntityResolver.setCacheSettings(systemConfiguration.getCacheSettings());
 
         // get the event manager from the configuration and initialize it with the events already registered
         CmsEventManager configuredEventManager = systemConfiguration.getEventManager();
@@ -1455,6 +1457,14 @@ public final class OpenCmsCore {
         } catch (Exception e) {
             CmsLog.INIT.error("Problem with clearing caches after initialization: " + e.getLocalizedMessage(), e);
         }
+
+        try {
+            // load the XML content definitions and the alias index after the caches have been cleared
+            CmsXmlEntityResolver.warmUpCaches(initCmsObject(adminCms));
+            m_aliasManager.initialize(initCmsObject(adminCms));
+        } catch (CmsException e) {
+            CmsLog.INIT.error(e.getLocalizedMessage(), e);
+        }
     }
 
     /**
@@ -1925,6 +1935,16 @@ public final class OpenCmsCore {
                     CmsLog.INIT.error(e.getLocalizedMessage(), e);
                 }
 
+                try {
+                    if (m_eventManager != null) {
+                        m_eventManager.shutDown();
+                    }
+                } catch (Throwable e) {
+                    CmsLog.INIT.error(
+                        Messages.get().getBundle().key(Messages.LOG_ERROR_EVENT_MANAGER_SHUTDOWN_1, e.getMessage()),
+                        e);
+                }
+
                 try {
                     // has to be stopped before the security manager, since this thread uses it
                     if (m_threadStore != null) {
@@ -0,0 +1,170 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.monitor;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects hit, miss, load and eviction counts of a cache.<p>
+ *
+ * Caches that want their statistics to be reported by the memory monitor register an instance
+ * of this class with {@link CmsMemoryMonitor#registerCacheStatistics(String, CmsCacheStatistics)}.<p>
+ *
+ * @since 10.5.0
+ */
+public class CmsCacheStatistics {
+
+    /** The number of entries evicted because of the cache size limit. */
+    private AtomicLong m_evictions = new AtomicLong();
+
+    /** The number of cache hits. */
+    private AtomicLong m_hits = new AtomicLong();
+
+    /** The number of values loaded into the cache. */
+    private AtomicLong m_loads = new AtomicLong();
+
+    /** The total time spent loading values, in nanoseconds. */
+    private AtomicLong m_loadTime = new AtomicLong();
+
+    /** The number of cache misses. */
+    private AtomicLong m_misses = new AtomicLong();
+
+    /**
+     * Returns the average time spent loading a value, in milliseconds.<p>
+     *
+     * @return the average load time in milliseconds, or 0 if no value was loaded yet
+     */
+    public double getAverageLoadTime() {
+
+        long loads = m_loads.get();
+        if (loads == 0) {
+            return 0;
+        }
+        return (m_loadTime.get() / (double)loads) / 1000000.0;
+    }
+
+    /**
+     * Returns the number of entries evicted because of the cache size limit.<p>
+     *
+     * @return the number of evicted entries
+     */
+    public long getEvictionCount() {
+
+        return m_evictions.get();
+    }
+
+    /**
+     * Returns the number of cache hits.<p>
+     *
+     * @return the number of cache hits
+     */
+    public long getHitCount() {
+
+        return m_hits.get();
+    }
+
+    /**
+     * Returns the ratio of hits to all lookups in percent.<p>
+     *
+     * @return the hit rate in percent, or 100 if there was no lookup yet
+     */
+    public double getHitRate() {
+
+        long hits = m_hits.get();
+        long lookups = hits + m_misses.get();
+        if (lookups == 0) {
+            return 100.0;
+        }
+        return (hits * 100.0) / lookups;
+    }
+
+    /**
+     * Returns the number of values loaded into the cache.<p>
+     *
+     * @return the number of loaded values
+     */
+    public long getLoadCount() {
+
+        return m_loads.get();
+    }
+
+    /**
+     * Returns the number of cache misses.<p>
+     *
+     * @return the number of cache misses
+     */
+    public long getMissCount() {
+
+        return m_misses.get();
+    }
+
+    /**
+     * Returns the total time spent loading values, in milliseconds.<p>
+     *
+     * @return the total load time in milliseconds
+     */
+    public long getTotalLoadTime() {
+
+        return m_loadTime.get() / 1000000L;
+    }
+
+    /**
+     * Records that an entry was evicted because of the cache size limit.<p>
+     */
+    public void recordEviction() {
+
+        m_evictions.incrementAndGet();
+    }
+
+    /**
+     * Records a cache hit.<p>
+     */
+    public void recordHit() {
+
+        m_hits.incrementAndGet();
+    }
+
+    /**
+     * Records that a value was loaded into the cache.<p>
+     *
+     * @param nanos the time spent loading the value, in nanoseconds
+     */
+    public void recordLoad(long nanos) {
+
+        m_loads.incrementAndGet();
+        m_loadTime.addAndGet(nanos);
+    }
+
+    /**
+     * Records a cache miss.<p>
+     */
+    public void recordMiss() {
+
+        m_misses.incrementAndGet();
+    }
+}
@@ -29,11 +29,13 @@ package org.opencms.monitor;
 
 import org.opencms.cache.CmsLruCache;
 import org.opencms.cache.CmsMemoryObjectCache;
+import org.opencms.cache.CmsResourcePathCache;
 import org.opencms.cache.CmsVfsMemoryObjectCache;
 import org.opencms.configuration.CmsSystemConfiguration;
 import org.opencms.db.CmsCacheSettings;
 import org.opencms.db.CmsDriverManager;
 import org.opencms.db.CmsPublishedResource;
+import org.opencms.db.CmsResourceCacheKey;
 import org.opencms.db.CmsSecurityManager;
 import org.opencms.file.CmsFile;
 import org.opencms.file.CmsGroup;
@@ -47,6 +49,7 @@ import org.opencms.flex.CmsFlexCache.CmsFlexCacheVariation;
 import org.opencms.i18n.CmsLocaleManager;
 import org.opencms.lock.CmsLock;
 import org.opencms.lock.CmsLockManager;
+import org.opencms.lock.CmsLockTable;
 import org.opencms.mail.CmsMailTransport;
 import org.opencms.mail.CmsSimpleMail;
 import org.opencms.main.CmsEvent;
@@ -69,16 +72,20 @@ import org.opencms.util.CmsUUID;
 import org.opencms.util.PrintfFormat;
 import org.opencms.xml.CmsXmlContentDefinition;
 import org.opencms.xml.CmsXmlEntityResolver;
+import org.opencms.xml.content.CmsXmlContentReadModel;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.ConcurrentModificationException;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import javax.mail.internet.InternetAddress;
@@ -88,7 +95,12 @@ import org.apache.commons.collections.buffer.SynchronizedBuffer;
 import org.apache.commons.collections.map.LRUMap;
 import org.apache.commons.logging.Log;
 
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
 
 /**
  * Monitors OpenCms memory consumption.<p>
@@ -147,6 +159,8 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         USERGROUPS,
         /** VFS Object cache. */
         VFS_OBJECT,
+        /** XML content read model cache. */
+        XML_CONTENT_READ_MODEL,
         /** XML Entity Permanent cache. */
         XML_ENTITY_PERM,
         /** XML Entity Temporary cache. */
@@ -184,7 +198,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     private Map<String, Locale> m_cacheLocale;
 
     /** Cache for the resource locks. */
-    private Map<String, CmsLock> m_cacheLock;
+    private CmsLockTable m_cacheLock;
 
     /** The memory object cache map. */
     private Map<String, Object> m_cacheMemObject;
@@ -193,7 +207,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     private Map<String, CmsOrganizationalUnit> m_cacheOrgUnit;
 
     /** Cache for permission checks. */
-    private Map<String, I_CmsPermissionHandler.CmsPermissionCheckResult> m_cachePermission;
+    private Map<Object, I_CmsPermissionHandler.CmsPermissionCheckResult> m_cachePermission;
 
     /** Cache for offline projects. */
     private Map<String, CmsProject> m_cacheProject;
@@ -205,7 +219,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     private Map<String, CmsProperty> m_cacheProperty;
 
     /** Cache for property lists. */
-    private Map<String, List<CmsProperty>> m_cachePropertyList;
+    private Map<CmsResourceCacheKey, List<CmsProperty>> m_cachePropertyList;
 
     /** Cache for published resources. */
     private Map<String, List<CmsPublishedResource>> m_cachePublishedResources;
@@ -214,11 +228,17 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     private Map<String, CmsResource> m_cacheResource;
 
     /** Cache for resource lists. */
-    private Map<String, List<CmsResource>> m_cacheResourceList;
+    private Map<CmsResourceCacheKey, List<CmsResource>> m_cacheResourceList;
+
+    /** Cache for the resources of complete paths. */
+    private CmsResourcePathCache m_cacheResourcePath;
 
     /** Cache for role lists. */
     private Map<String, List<CmsRole>> m_cacheRoleLists;
 
+    /** The statistics of the registered caches. */
+    private Map<String, CmsCacheStatistics> m_cacheStatistics = new ConcurrentHashMap<String, CmsCacheStatistics>();
+
     /** Cache for user data. */
     private Map<String, CmsUser> m_cacheUser;
 
@@ -231,6 +251,9 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /** The vfs memory cache map. */
     private Map<String, Object> m_cacheVfsObject;
 
+    /** The cache for the compact read models of online XML contents. */
+    private Map<String, CmsXmlContentReadModel> m_cacheXmlContentReadModels;
+
     /** A permanent cache to avoid multiple readings of often used files from the VFS. */
     private Map<String, byte[]> m_cacheXmlPermanentEntity;
 
@@ -319,6 +342,55 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         return (Map<T, V>)(builder.build().asMap());
     }
 
+    /**
+     * Creates a thread safe LRU cache map based on the guava cache builder,
+     * which notifies the given listener about removed entries.<p>
+     *
+     * @param capacity the cache capacity
+     * @param listener the listener which is notified about removed entries
+     *
+     * @return the cache map
+     */
+    public static <T, V> Map<T, V> createLRUCacheMap(int capacity, RemovalListener<T, V> listener) {
+
+        CacheBuilder<T, V> builder = CacheBuilder.newBuilder().concurrencyLevel(CONCURRENCY_LEVEL).maximumSize(
+            capacity).removalListener(listener);
+        return builder.<T, V> build().asMap();
+    }
+
+    /**
+     * Creates a thread safe cache map limited by the total weight of its entries.<p>
+     *
+     * Entries are evicted in least recently used order once the total weight exceeds the given maximum.<p>
+     *
+     * @param maxWeight the maximum total weight of all entries
+     * @param weigher calculates the weight of an entry
+     * @param statistics if not <code>null</code>, the evictions are recorded in these statistics
+     *
+     * @return the cache map
+     */
+    public static <T, V> Map<T, V> createWeightedCacheMap(
+        long maxWeight,
+        Weigher<T, V> weigher,
+        final CmsCacheStatistics statistics) {
+
+        CacheBuilder<T, V> builder = CacheBuilder.newBuilder().concurrencyLevel(CONCURRENCY_LEVEL).maximumWeight(
+            maxWeight).weigher(weigher);
+        if (statistics != null) {
+            builder = builder.removalListener(new RemovalListener<T, V>() {
+
+                public void onRemoval(RemovalNotification<T, V> notification) {
+
+                    if (notification.getCause() == RemovalCause.SIZE) {
+                        statistics.recordEviction();
+                    }
+                }
+            });
+        }
+        Cache<T, V> cache = builder.build();
+        return cache.asMap();
+    }
+
     /**
      * Returns the size of objects that are instances of
      * <code>byte[]</code>, <code>String</code>, <code>CmsFile</code>,<code>I_CmsLruCacheObject</code>.<p>
@@ -615,7 +687,23 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         if (m_disabled.get(CacheType.LOCK) != null) {
             return;
         }
-        m_cacheLock.put(lock.getResourceName(), lock);
+        m_cacheLock.put(lock, null);
+    }
+
+    /**
+     * Caches the given lock together with the resource id of the locked resource.<p>
+     *
+     * The lock is cached by it resource's root path.<p>
+     *
+     * @param lock the lock to cache
+     * @param resourceId the resource id of the locked resource
+     */
+    public void cacheLock(CmsLock lock, CmsUUID resourceId) {
+
+        if (m_disabled.get(CacheType.LOCK) != null) {
+            return;
+        }
+        m_cacheLock.put(lock, resourceId);
     }
 
     /**
@@ -649,10 +737,10 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /**
      * Caches the given permission check result under the given cache key.<p>
      *
-     * @param key the cache key
+     * @param key the cache key, either a String or a {@link org.opencms.db.CmsPermissionCacheKey}
      * @param permission the permission check result to cache
      */
-    public void cachePermission(String key, I_CmsPermissionHandler.CmsPermissionCheckResult permission) {
+    public void cachePermission(Object key, I_CmsPermissionHandler.CmsPermissionCheckResult permission) {
 
         if (m_disabled.get(CacheType.PERMISSION) != null) {
             return;
@@ -708,7 +796,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      * @param key the cache key
      * @param propertyList the property list to cache
      */
-    public void cachePropertyList(String key, List<CmsProperty> propertyList) {
+    public void cachePropertyList(CmsResourceCacheKey key, List<CmsProperty> propertyList) {
 
         if (m_disabled.get(CacheType.PROPERTY_LIST) != null) {
             return;
@@ -772,13 +860,32 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         m_cacheResource.put(key, resource);
     }
 
+    /**
+     * Caches the resources of a path.<p>
+     *
+     * The first resource is the root folder, the following resources belong to the given path segment names.<p>
+     *
+     * @param online <code>true</code> if the resources were read from the online project
+     * @param names the path segment names
+     * @param resources the resources to cache
+     *
+     * @see CmsResourcePathCache#put(boolean, List, List)
+     */
+    public void cacheResourcePath(boolean online, List<String> names, List<CmsResource> resources) {
+
+        if (m_disabled.get(CacheType.RESOURCE) != null) {
+            return;
+        }
+        m_cacheResourcePath.put(online, names, resources);
+    }
+
     /**
      * Caches the given resource list under the given cache key.<p>
      *
      * @param key the cache key
      * @param resourceList the resource list to cache
      */
-    public void cacheResourceList(String key, List<CmsResource> resourceList) {
+    public void cacheResourceList(CmsResourceCacheKey key, List<CmsResource> resourceList) {
 
         if (m_disabled.get(CacheType.RESOURCE_LIST) != null) {
             return;
@@ -870,6 +977,20 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         m_cacheVfsObject.put(key, obj);
     }
 
+    /**
+     * Caches the given XML content read model under the given cache key.<p>
+     *
+     * @param key the cache key
+     * @param readModel the XML content read model to cache
+     */
+    public void cacheXmlContentReadModel(String key, CmsXmlContentReadModel readModel) {
+
+        if (m_disabled.get(CacheType.XML_CONTENT_READ_MODEL) != null) {
+            return;
+        }
+        m_cacheXmlContentReadModels.put(key, readModel);
+    }
+
     /**
      * Caches the given xml entity under the given system id.<p>
      *
@@ -1067,6 +1188,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
                     break;
                 case RESOURCE:
                     m_cacheResource.clear();
+                    m_cacheResourcePath.clear();
                     break;
                 case RESOURCE_LIST:
                     m_cacheResourceList.clear();
@@ -1086,6 +1208,9 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
                 case VFS_OBJECT:
                     m_cacheVfsObject.clear();
                     break;
+                case XML_CONTENT_READ_MODEL:
+                    m_cacheXmlContentReadModels.clear();
+                    break;
                 case XML_ENTITY_PERM:
                     m_cacheXmlPermanentEntity.clear();
                     break;
@@ -1143,11 +1268,11 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
             return;
         }
         // initialize new lock cache
-        Map<String, CmsLock> newLockCache = new ConcurrentHashMap<String, CmsLock>(newLocks);
+        CmsLockTable newLockCache = new CmsLockTable(newLocks);
         // register it
         register(CmsLockManager.class.getName(), newLockCache);
         // save the old cache
-        Map<String, CmsLock> oldCache = m_cacheLock;
+        CmsLockTable oldCache = m_cacheLock;
         // replace the old by the new cache
         m_cacheLock = newLockCache;
         // clean up the old cache
@@ -1371,7 +1496,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public List<String> getAllCachedLockPaths() {
 
-        return new ArrayList<String>(m_cacheLock.keySet());
+        return m_cacheLock.getAllLockPaths();
     }
 
     /**
@@ -1381,7 +1506,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public List<CmsLock> getAllCachedLocks() {
 
-        return new ArrayList<CmsLock>(m_cacheLock.values());
+        return m_cacheLock.getAllLocks();
     }
 
     /**
@@ -1406,6 +1531,16 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         return new ArrayList<CmsPublishJobInfoBean>(m_publishHistory);
     }
 
+    /**
+     * Returns the statistics of all registered caches.<p>
+     *
+     * @return the cache statistics, by cache name
+     */
+    public Map<String, CmsCacheStatistics> getCacheStatistics() {
+
+        return Collections.unmodifiableMap(m_cacheStatistics);
+    }
+
     /**
      * Returns the ACL cached with the given cache key or <code>null</code> if not found.<p>
      *
@@ -1470,6 +1605,16 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         return m_cacheLock.get(rootPath);
     }
 
+    /**
+     * Returns the table of the cached locks, which allows path and resource id based lock lookups.<p>
+     *
+     * @return the table of the cached locks
+     */
+    public CmsLockTable getCachedLockTable() {
+
+        return m_cacheLock;
+    }
+
     /**
      * Returns the memory object cached with the given cache key or <code>null</code> if not found.<p>
      *
@@ -1497,11 +1642,11 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /**
      * Returns the permission check result cached with the given cache key or <code>null</code> if not found.<p>
      *
-     * @param key the cache key to look for
+     * @param key the cache key to look for, either a String or a {@link org.opencms.db.CmsPermissionCacheKey}
      *
      * @return the permission check result cached with the given cache key
      */
-    public I_CmsPermissionHandler.CmsPermissionCheckResult getCachedPermission(String key) {
+    public I_CmsPermissionHandler.CmsPermissionCheckResult getCachedPermission(Object key) {
 
         return m_cachePermission.get(key);
     }
@@ -1549,7 +1694,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      *
      * @return the property list cached with the given cache key
      */
-    public List<CmsProperty> getCachedPropertyList(String key) {
+    public List<CmsProperty> getCachedPropertyList(CmsResourceCacheKey key) {
 
         return m_cachePropertyList.get(key);
     }
@@ -1624,11 +1769,30 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      *
      * @return the resource list cached with the given cache key
      */
-    public List<CmsResource> getCachedResourceList(String key) {
+    public List<CmsResource> getCachedResourceList(CmsResourceCacheKey key) {
 
         return m_cacheResourceList.get(key);
     }
 
+    /**
+     * Returns the cached resources of a path.<p>
+     *
+     * Resources which are not cached are <code>null</code> in the result list.<p>
+     *
+     * @param online <code>true</code> to look up the resources of the online project
+     * @param names the path segment names
+     * @param count the number of resources to return, including the root folder
+     * @param lastIsFile <code>true</code> if the last resource may also be a file
+     *
+     * @return the list of cached resources, containing <code>null</code> for the resources which are not cached
+     *
+     * @see CmsResourcePathCache#get(boolean, List, int, boolean)
+     */
+    public List<CmsResource> getCachedResourcePath(boolean online, List<String> names, int count, boolean lastIsFile) {
+
+        return m_cacheResourcePath.get(online, names, count, lastIsFile);
+    }
+
     /**
      * Returns the value cached with the given cache key or <code>null</code> if not found.<p>
      *
@@ -1701,6 +1865,18 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         return m_cacheVfsObject.get(key);
     }
 
+    /**
+     * Returns the XML content read model cached with the given cache key or <code>null</code> if not found.<p>
+     *
+     * @param key the cache key to look for
+     *
+     * @return the XML content read model cached with the given cache key
+     */
+    public CmsXmlContentReadModel getCachedXmlContentReadModel(String key) {
+
+        return m_cacheXmlContentReadModels.get(key);
+    }
+
     /**
      * Returns the xml permanent entity content cached with the given systemId or <code>null</code> if not found.<p>
      *
@@ -1849,8 +2025,12 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         m_cacheContentDefinitions = createLRUCacheMap(64);
         register(CmsXmlEntityResolver.class.getName() + ".contentDefinitionsCache", m_cacheContentDefinitions);
 
+        // xml content read model cache
+        m_cacheXmlContentReadModels = createLRUCacheMap(512);
+        register(CmsXmlContentReadModel.class.getName(), m_cacheXmlContentReadModels);
+
         // lock cache
-        m_cacheLock = new ConcurrentHashMap<String, CmsLock>();
+        m_cacheLock = new CmsLockTable();
         register(CmsLockManager.class.getName(), m_cacheLock);
 
         // locale cache
@@ -1904,6 +2084,10 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         m_cacheResource = createLRUCacheMap(cacheSettings.getResourceCacheSize());
         register(CmsDriverManager.class.getName() + ".resourceCache", m_cacheResource);
 
+        // resource path cache
+        m_cacheResourcePath = new CmsResourcePathCache(cacheSettings.getResourceCacheSize());
+        register(CmsDriverManager.class.getName() + ".resourcePathCache", m_cacheResourcePath);
+
         // roles cache
         m_cacheHasRoles = createLRUCacheMap(cacheSettings.getRolesCacheSize());
         register(CmsDriverManager.class.getName() + ".rolesCache", m_cacheHasRoles);
@@ -2091,6 +2275,21 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         }
     }
 
+    /**
+     * Adds the statistics of a cache to the monitor.<p>
+     *
+     * The statistics are written to the status log and the status email.<p>
+     *
+     * @param cacheName the name of the cache
+     * @param statistics the statistics of the cache
+     */
+    public void registerCacheStatistics(String cacheName, CmsCacheStatistics statistics) {
+
+        if (enabled()) {
+            m_cacheStatistics.put(cacheName, statistics);
+        }
+    }
+
     /**
      * Checks if some kind of persistence is required.<p>
      *
@@ -2262,6 +2461,62 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         m_publishHistory.remove(publishJob);
     }
 
+    /**
+     * Removes all cached resource paths, property lists and resource lists which may be affected by a change
+     * of the given resources.<p>
+     *
+     * This is used instead of {@link #clearCache()} after publishing, so that the cache entries of resources
+     * which were not published are kept. Folder paths have to end with a <code>'/'</code>, all cache entries
+     * below a given folder are removed as well, since the sub-resources may have been moved together with the folder.<p>
+     *
+     * Resources are cached by the resource path cache, which is also used to find cached siblings of the
+     * changed resources. The resource lists are removed if they were read for one of the given resources,
+     * or one of its parent folders.<p>
+     *
+     * @param rootPaths the root paths of the changed resources
+     * @param ids the structure and resource ids of the changed resources
+     */
+    public void uncacheResources(Collection<String> rootPaths, Collection<CmsUUID> ids) {
+
+        Set<String> paths = new HashSet<String>();
+        Set<String> parentPaths = new HashSet<String>();
+        Set<String> folderPaths = new HashSet<String>();
+        for (String rootPath : rootPaths) {
+            paths.add(rootPath);
+            if (CmsResource.isFolder(rootPath)) {
+                folderPaths.add(rootPath);
+            }
+            String parent = CmsResource.getParentFolder(rootPath);
+            while (parent != null) {
+                parentPaths.add(parent);
+                parent = CmsResource.getParentFolder(parent);
+            }
+        }
+
+        // cached resources may also be siblings of the changed resources, or be cached with an old path
+        Set<CmsUUID> idSet = new HashSet<CmsUUID>(ids);
+        for (CmsResource resource : m_cacheResourcePath.values()) {
+            if (idSet.contains(resource.getStructureId()) || idSet.contains(resource.getResourceId())) {
+                // the property lists of the sibling have to be removed too
+                paths.add(resource.getRootPath());
+            }
+        }
+        paths.addAll(parentPaths);
+
+        m_cacheResourcePath.remove(paths, folderPaths, idSet);
+        removeKeysForPaths(m_cachePropertyList, paths, folderPaths);
+
+        removeKeysForPaths(m_cacheResourceList, paths, folderPaths);
+
+        // these caches are not keyed by path, and are cheap to rebuild
+        flushCache(CacheType.PROJECT);
+        flushCache(CacheType.PROJECT_RESOURCES);
+        flushCache(CacheType.ACL);
+        flushCache(CacheType.PERMISSION);
+        flushCache(CacheType.HAS_ROLE);
+        flushCache(CacheType.ROLE_LIST);
+    }
+
     /**
      * Removes the given user from the cache.<p>
      *
@@ -2340,7 +2595,8 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /**
      * Returns the number of items within a monitored object.<p>
      *
-     * <code>obj</code> must be of type {@link CmsLruCache} or {@link Map}.<p>
+     * <code>obj</code> must be of type {@link CmsLruCache}, {@link CmsResourcePathCache},
+     * {@link CmsLockTable} or {@link Map}.<p>
      *
      * @param obj the object
      *
@@ -2351,6 +2607,12 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         if (obj instanceof CmsLruCache) {
             return Integer.toString(((CmsLruCache)obj).size());
         }
+        if (obj instanceof CmsResourcePathCache) {
+            return Integer.toString(((CmsResourcePathCache)obj).size());
+        }
+        if (obj instanceof CmsLockTable) {
+            return Integer.toString(((CmsLockTable)obj).size());
+        }
         if (obj instanceof Map) {
             return Integer.toString(((Map<?, ?>)obj).size());
         }
@@ -2555,6 +2817,36 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         }
         content += "\nTotal size of cache memory monitored: " + totalSize + " (" + (totalSize / 1048576) + ")\n\n";
 
+        if (!m_cacheStatistics.isEmpty()) {
+            content += "Current statistics of the caches:\n\n";
+            List<String> statisticsKeys = new ArrayList<String>(m_cacheStatistics.keySet());
+            Collections.sort(statisticsKeys);
+            for (String key : statisticsKeys) {
+                CmsCacheStatistics statistics = m_cacheStatistics.get(key);
+                content += new PrintfFormat("%-42.42s").sprintf(key)
+                    + "  "
+                    + "Hits: "
+                    + statistics.getHitCount()
+                    + "   "
+                    + "Misses: "
+                    + statistics.getMissCount()
+                    + "   "
+                    + "Hit rate: "
+                    + Math.round(statistics.getHitRate())
+                    + "%   "
+                    + "Loads: "
+                    + statistics.getLoadCount()
+                    + "   "
+                    + "Avg load time: "
+                    + Math.round(statistics.getAverageLoadTime())
+                    + " ms   "
+                    + "Evictions: "
+                    + statistics.getEvictionCount()
+                    + "\n";
+            }
+            content += "\n";
+        }
+
         String from = m_configuration.getEmailSender();
         List<InternetAddress> receivers = new ArrayList<InternetAddress>();
         List<String> receiverEmails = m_configuration.getEmailReceiver();
@@ -2664,6 +2956,23 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
                             form.sprintf(Long.toString(size))}));
             }
 
+            List<String> statisticsKeys = new ArrayList<String>(m_cacheStatistics.keySet());
+            Collections.sort(statisticsKeys);
+            for (String key : statisticsKeys) {
+                CmsCacheStatistics statistics = m_cacheStatistics.get(key);
+                LOG.info(
+                    Messages.get().getBundle().key(
+                        Messages.LOG_MM_CACHE_STATISTICS_7,
+                        new Object[] {
+                            key,
+                            Long.valueOf(statistics.getHitCount()),
+                            Long.valueOf(statistics.getMissCount()),
+                            Long.valueOf(Math.round(statistics.getHitRate())),
+                            Long.valueOf(statistics.getLoadCount()),
+                            Long.valueOf(Math.round(statistics.getAverageLoadTime())),
+                            Long.valueOf(statistics.getEvictionCount())}));
+            }
+
             LOG.info(
                 Messages.get().getBundle().key(
                     Messages.LOG_MM_WARNING_MEM_STATUS_6,
@@ -2736,4 +3045,50 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         m_memoryCurrent.update();
         m_memoryAverage.calculateAverage(m_memoryCurrent);
     }
+
+    /**
+     * Checks if the given path is one of the given paths, or below one of the given folders.<p>
+     *
+     * @param path the path to check
+     * @param paths the affected paths
+     * @param folderPaths the affected folders
+     *
+     * @return <code>true</code> if the given path is affected
+     */
+    private boolean isPathAffected(String path, Set<String> paths, Set<String> folderPaths) {
+
+        if (paths.contains(path)) {
+            return true;
+        }
+        if (!folderPaths.isEmpty()) {
+            String parent = CmsResource.getParentFolder(path);
+            while (parent != null) {
+                if (folderPaths.contains(parent)) {
+                    return true;
+                }
+                parent = CmsResource.getParentFolder(parent);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes all entries from the given cache which were read for an affected path.<p>
+     *
+     * @param cache the cache to remove the entries from
+     * @param paths the affected paths
+     * @param folderPaths the affected folders
+     */
+    private void removeKeysForPaths(
+        Map<CmsResourceCacheKey, ?> cache,
+        Set<String> paths,
+        Set<String> folderPaths) {
+
+        Iterator<CmsResourceCacheKey> it = cache.keySet().iterator();
+        while (it.hasNext()) {
+            if (isPathAffected(it.next().getRootPath(), paths, folderPaths)) {
+                it.remove();
+            }
+        }
+    }
 }
@@ -27,6 +27,7 @@
 
 package org.opencms.pdftools;
 
+import org.opencms.cache.CmsDiskCacheFileSender;
 import org.opencms.file.CmsFile;
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsResource;
@@ -42,6 +43,7 @@ import org.opencms.util.CmsStringUtil;
 import org.opencms.workplace.CmsWorkplace;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.util.Collections;
 import java.util.Locale;
 import java.util.Map;
@@ -166,10 +168,11 @@ public class CmsPdfResourceHandler implements I_CmsResourceInit {
         byte[] result = null;
         String cacheParams = formatter.getStructureId() + ";" + formatter.getDateLastModified() + ";" + locale;
         String cacheName = m_pdfCache.getCacheName(content, cacheParams);
+        File cacheFile = null;
         if (cms.getRequestContext().getCurrentProject().isOnlineProject()) {
-            result = m_pdfCache.getCacheContent(cacheName);
+            cacheFile = m_pdfCache.getCacheFile(cacheName);
         }
-        if (result == null) {
+        if (cacheFile == null) {
             cmsForJspExecution.getRequestContext().setUri(content.getRootPath());
             byte[] xhtmlData = CmsPdfFormatterUtils.executeJsp(
                 cmsForJspExecution,
@@ -194,7 +197,11 @@ public class CmsPdfResourceHandler implements I_CmsResourceInit {
                     + formatter.getRootPath());
         }
         response.setContentType("application/pdf");
-        response.getOutputStream().write(result);
+        if (cacheFile != null) {
+            CmsDiskCacheFileSender.send(request, response, cacheFile);
+        } else {
+            response.getOutputStream().write(result);
+        }
         CmsResourceInitException initEx = new CmsResourceInitException(CmsPdfResourceHandler.class);
         initEx.setClearErrors(true);
         throw initEx;
@@ -245,26 +252,29 @@ public class CmsPdfResourceHandler implements I_CmsResourceInit {
         }
         CmsPdfThumbnailLink linkObj = new CmsPdfThumbnailLink(cms, uri, options);
         CmsResource pdf = linkObj.getPdfResource();
-        CmsFile pdfFile = cms.readFile(pdf);
-        CmsPdfThumbnailGenerator thumbnailGenerator = new CmsPdfThumbnailGenerator();
         // use a wrapped resource because we want the cache to store files with the correct (image file) extensions
-        CmsWrappedResource wrapperWithImageExtension = new CmsWrappedResource(pdfFile);
-        wrapperWithImageExtension.setRootPath(pdfFile.getRootPath() + "." + linkObj.getFormat());
+        CmsWrappedResource wrapperWithImageExtension = new CmsWrappedResource(pdf);
+        wrapperWithImageExtension.setRootPath(pdf.getRootPath() + "." + linkObj.getFormat());
         String cacheName = m_thumbnailCache.getCacheName(
             wrapperWithImageExtension.getResource(),
             options + ";" + linkObj.getFormat());
-        byte[] imageData = m_thumbnailCache.getCacheContent(cacheName);
-        if (imageData == null) {
-            imageData = thumbnailGenerator.generateThumbnail(
+        File cacheFile = m_thumbnailCache.getCacheFile(cacheName);
+        response.setContentType(IMAGE_MIMETYPES.get(linkObj.getFormat()));
+        if (cacheFile != null) {
+            CmsDiskCacheFileSender.send(request, response, cacheFile);
+        } else {
+            // the PDF content is only required if the thumbnail is not cached
+            CmsFile pdfFile = cms.readFile(pdf);
+            CmsPdfThumbnailGenerator thumbnailGenerator = new CmsPdfThumbnailGenerator();
+            byte[] imageData = thumbnailGenerator.generateThumbnail(
                 new ByteArrayInputStream(pdfFile.getContents()),
                 linkObj.getWidth(),
                 linkObj.getHeight(),
                 linkObj.getFormat(),
                 linkObj.getPage());
             m_thumbnailCache.saveCacheFile(cacheName, imageData);
+            response.getOutputStream().write(imageData);
         }
-        response.setContentType(IMAGE_MIMETYPES.get(linkObj.getFormat()));
-        response.getOutputStream().write(imageData);
         CmsResourceInitException initEx = new CmsResourceInitException(CmsPdfResourceHandler.class);
         initEx.setClearErrors(true);
         throw initEx;
@@ -34,9 +34,11 @@ import org.opencms.db.CmsUserSettings;
 import org.opencms.db.I_CmsDbContextFactory;
 import org.opencms.file.CmsDataAccessException;
 import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProject;
 import org.opencms.file.CmsRequestContext;
 import org.opencms.file.CmsResource;
 import org.opencms.file.CmsUser;
+import org.opencms.file.CmsVfsResourceNotFoundException;
 import org.opencms.lock.CmsLockType;
 import org.opencms.main.CmsEvent;
 import org.opencms.main.CmsException;
@@ -50,10 +52,14 @@ import org.opencms.security.CmsAuthentificationException;
 import org.opencms.security.CmsRole;
 import org.opencms.util.CmsUUID;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.apache.commons.logging.Log;
 
@@ -70,9 +76,6 @@ public final class CmsPublishEngine {
     /** The id of the admin user. */
     private CmsUUID m_adminUserId;
 
-    /** The current running publish job. */
-    private CmsPublishThread m_currentPublishThread;
-
     /** The runtime info factory used during publishing. */
     private final I_CmsDbContextFactory m_dbContextFactory;
 
@@ -88,12 +91,22 @@ public final class CmsPublishEngine {
     /** The publish history list with already published jobs. */
     private final CmsPublishHistory m_publishHistory;
 
+    /** The cached resources of the running and waiting publish jobs, used to detect overlapping publish jobs. */
+    private final Map<CmsPublishJobInfoBean, CmsPublishJobResources> m_publishJobResources = Collections.synchronizedMap(
+        new WeakHashMap<CmsPublishJobInfoBean, CmsPublishJobResources>());
+
+    /** The maximum number of publish jobs running at the same time. */
+    private int m_publishLanes = 1;
+
     /** The queue with still waiting publish job. */
     private final CmsPublishQueue m_publishQueue;
 
     /** The amount of time the system will wait for a running publish job during shutdown. */
     private int m_publishQueueShutdowntime;
 
+    /** The threads of the currently running publish jobs. */
+    private final List<CmsPublishThread> m_publishThreads = new CopyOnWriteArrayList<CmsPublishThread>();
+
     /** Is set during shutdown. */
     private boolean m_shuttingDown;
 
@@ -132,30 +145,29 @@ public final class CmsPublishEngine {
     }
 
     /**
-     * Abandons the given publish thread.<p>
+     * Abandons the current publish thread.<p>
+     *
+     * If several publish jobs are running, the thread of the job started first is abandoned.<p>
      */
     public void abandonThread() {
 
-        if (!m_currentPublishThread.isAlive()) {
-            // thread is dead
-            if (LOG.isDebugEnabled()) {
-                LOG.debug(Messages.get().getBundle().key(Messages.LOG_PUBLISH_ENGINE_DEAD_JOB_0));
-            }
-        } else {
-            // thread is not dead, and we suppose it hangs :(
-            if (LOG.isWarnEnabled()) {
-                LOG.warn(
-                    Messages.get().getBundle().key(
-                        Messages.LOG_THREADSTORE_PUBLISH_THREAD_INTERRUPT_2,
-                        m_currentPublishThread.getName(),
-                        m_currentPublishThread.getUUID()));
-            }
-            m_currentPublishThread.interrupt();
+        CmsPublishThread publishThread = getCurrentPublishJob();
+        if (publishThread != null) {
+            abandonThread(publishThread);
+        }
+    }
+
+    /**
+     * Abandons the publish thread of the given running publish job.<p>
+     *
+     * @param publishJob the running publish job
+     */
+    public void abandonThread(CmsPublishJobRunning publishJob) {
+
+        CmsPublishThread publishThread = getPublishThread(publishJob.m_publishJob);
+        if (publishThread != null) {
+            abandonThread(publishThread);
         }
-        // just throw it away
-        m_currentPublishThread = null;
-        // and try again
-        checkCurrentPublishJobThread();
     }
 
     /**
@@ -186,31 +198,35 @@ public final class CmsPublishEngine {
             return;
         }
 
-        // there is no running publish job
-        if (m_currentPublishThread == null) {
-            // but something is waiting in the queue
-            if (!m_publishQueue.isEmpty()) {
-                // start the next waiting publish job
-                CmsPublishJobInfoBean publishJob = m_publishQueue.next();
-                m_currentPublishThread = new CmsPublishThread(this, publishJob);
-                m_currentPublishThread.start();
-            } else {
-                // nothing to do
+        // clean up the dead threads
+        for (CmsPublishThread publishThread : m_publishThreads) {
+            if (!publishThread.isAlive()) {
                 if (LOG.isDebugEnabled()) {
-                    LOG.debug(Messages.get().getBundle().key(Messages.LOG_PUBLISH_ENGINE_NO_RUNNING_JOB_0));
+                    LOG.debug(Messages.get().getBundle().key(Messages.LOG_PUBLISH_ENGINE_DEAD_JOB_0));
                 }
+                m_publishThreads.remove(publishThread);
             }
-            return;
         }
-        if (m_currentPublishThread.isAlive()) {
-            // normal running
-            // wait until it is finished
-            if (LOG.isDebugEnabled()) {
+
+        // start waiting publish jobs as long as there are free lanes
+        while (m_publishThreads.size() < m_publishLanes) {
+            CmsPublishJobInfoBean publishJob = nextPublishJob();
+            if (publishJob == null) {
+                break;
+            }
+            CmsPublishThread publishThread = new CmsPublishThread(this, publishJob);
+            m_publishThreads.add(publishThread);
+            publishThread.start();
+        }
+
+        if (LOG.isDebugEnabled()) {
+            if (m_publishThreads.isEmpty()) {
+                // nothing to do
+                LOG.debug(Messages.get().getBundle().key(Messages.LOG_PUBLISH_ENGINE_NO_RUNNING_JOB_0));
+            } else {
+                // normal running, wait until the running jobs are finished
                 LOG.debug(Messages.get().getBundle().key(Messages.LOG_PUBLISH_ENGINE_WAITING_0));
             }
-        } else {
-            // clean up the dead thread
-            abandonThread();
         }
     }
 
@@ -272,10 +288,11 @@ public final class CmsPublishEngine {
      */
     public CmsPublishJobBase getJobByPublishHistoryId(CmsUUID publishHistoryId) {
 
-        // try current running job
-        if ((m_currentPublishThread != null)
-            && m_currentPublishThread.getPublishJob().getPublishHistoryId().equals(publishHistoryId)) {
-            return new CmsPublishJobRunning(m_currentPublishThread.getPublishJob());
+        // try current running jobs
+        for (CmsPublishThread publishThread : m_publishThreads) {
+            if (publishThread.getPublishJob().getPublishHistoryId().equals(publishHistoryId)) {
+                return new CmsPublishJobRunning(publishThread.getPublishJob());
+            }
         }
         // try enqueued jobs
         Iterator<CmsPublishJobEnqueued> itEnqueuedJobs = getPublishQueue().asList().iterator();
@@ -334,10 +351,10 @@ public final class CmsPublishEngine {
         // prevent new publish jobs are accepted
         m_shuttingDown = true;
 
-        // if a job is currently running,
+        // if jobs are currently running,
         // wait the specified amount of time,
-        // then write an abort message to the report
-        if (m_currentPublishThread != null) {
+        // then write an abort message to the reports
+        if (!m_publishThreads.isEmpty()) {
 
             // if a shutdown time is defined, wait  if a publish process is running
             if (m_publishQueueShutdowntime > 0) {
@@ -350,8 +367,8 @@ public final class CmsPublishEngine {
                 }
             }
 
-            if (m_currentPublishThread != null) {
-                CmsPublishJobInfoBean publishJob = m_currentPublishThread.getPublishJob();
+            for (CmsPublishThread publishThread : m_publishThreads) {
+                CmsPublishJobInfoBean publishJob = publishThread.getPublishJob();
                 try {
                     abortPublishJob(m_adminUserId, new CmsPublishJobEnqueued(publishJob), false);
                 } catch (CmsException e) {
@@ -398,9 +415,9 @@ public final class CmsPublishEngine {
         // abort event should be raised before the job is removed implicitly
         m_listeners.fireAbort(userId, publishJob);
 
-        if ((m_currentPublishThread == null)
-            || !publishJob.m_publishJob.equals(m_currentPublishThread.getPublishJob())) {
-            // engine is currently publishing another job or is not publishing
+        CmsPublishThread publishThread = getPublishThread(publishJob.m_publishJob);
+        if (publishThread == null) {
+            // engine is currently publishing other jobs or is not publishing
             if (!m_publishQueue.abortPublishJob(publishJob.m_publishJob)) {
                 // job not found
                 throw new CmsPublishException(
@@ -408,10 +425,10 @@ public final class CmsPublishEngine {
             }
         } else if (!m_shuttingDown) {
             // engine is currently publishing the job to abort
-            m_currentPublishThread.abort();
-        } else if (m_shuttingDown && (m_currentPublishThread != null)) {
+            publishThread.abort();
+        } else {
             // aborting the current job during shut down
-            I_CmsReport report = m_currentPublishThread.getReport();
+            I_CmsReport report = publishThread.getReport();
             report.println();
             report.println();
             report.println(
@@ -459,7 +476,7 @@ public final class CmsPublishEngine {
 
         m_engineState = CmsPublishEngineState.ENGINE_STARTED;
         // start publish job if jobs waiting
-        if ((m_currentPublishThread == null) && !m_publishQueue.isEmpty()) {
+        if ((m_publishThreads.size() < m_publishLanes) && !m_publishQueue.isEmpty()) {
             checkCurrentPublishJobThread();
         }
     }
@@ -467,11 +484,24 @@ public final class CmsPublishEngine {
     /**
      * Returns the current running publish job.<p>
      *
+     * If several publish jobs are running, the one started first is returned.<p>
+     *
      * @return the current running publish job
      */
     protected CmsPublishThread getCurrentPublishJob() {
 
-        return m_currentPublishThread;
+        Iterator<CmsPublishThread> it = m_publishThreads.iterator();
+        return it.hasNext() ? it.next() : null;
+    }
+
+    /**
+     * Returns all current running publish jobs.<p>
+     *
+     * @return the current running publish jobs
+     */
+    protected List<CmsPublishThread> getCurrentPublishJobs() {
+
+        return new ArrayList<CmsPublishThread>(m_publishThreads);
     }
 
     /**
@@ -567,10 +597,15 @@ public final class CmsPublishEngine {
      * @param adminCms the admin cms
      * @param publishQueuePersistance flag if the queue is persisted
      * @param publishQueueShutdowntime amount of time to wait for a publish job during shutdown
+     * @param publishLanes the maximum number of non overlapping publish jobs running at the same time
      *
      * @throws CmsException if something goes wrong
      */
-    protected void initialize(CmsObject adminCms, boolean publishQueuePersistance, int publishQueueShutdowntime)
+    protected void initialize(
+        CmsObject adminCms,
+        boolean publishQueuePersistance,
+        int publishQueueShutdowntime,
+        int publishLanes)
     throws CmsException {
 
         // check the driver manager
@@ -579,6 +614,7 @@ public final class CmsPublishEngine {
         }
 
         m_publishQueueShutdowntime = publishQueueShutdowntime;
+        m_publishLanes = Math.max(1, publishLanes);
 
         // initially the engine is stopped, must be restartet after full system initialization
         m_engineState = CmsPublishEngineState.ENGINE_STOPPED;
@@ -598,7 +634,7 @@ public final class CmsPublishEngine {
     protected boolean isRunning() {
 
         return (((m_engineState == CmsPublishEngineState.ENGINE_STARTED) && !m_publishQueue.isEmpty())
-            || (m_currentPublishThread != null));
+            || !m_publishThreads.isEmpty());
     }
 
     /**
@@ -693,10 +729,9 @@ public final class CmsPublishEngine {
             // log failure, most likely a database problem
             LOG.error(t.getLocalizedMessage(), t);
         }
-        if (Thread.currentThread() == m_currentPublishThread) {
-            // wipe the dead thread, only if this thread has not been abandoned
-            m_currentPublishThread = null;
-        }
+        // wipe the finished thread, if it has not been abandoned
+        m_publishThreads.remove(Thread.currentThread());
+        m_publishJobResources.remove(publishJob);
         // clear the published resources cache
         OpenCms.getMemoryMonitor().flushCache(CmsMemoryMonitor.CacheType.PUBLISHED_RESOURCES);
         // try to start a new publish job
@@ -771,7 +806,7 @@ public final class CmsPublishEngine {
         if (m_engineState != CmsPublishEngineState.ENGINE_STARTED) {
             m_engineState = CmsPublishEngineState.ENGINE_STARTED;
             // start publish job if jobs waiting
-            if ((m_currentPublishThread == null) && !m_publishQueue.isEmpty()) {
+            if ((m_publishThreads.size() < m_publishLanes) && !m_publishQueue.isEmpty()) {
                 checkCurrentPublishJobThread();
             }
         }
@@ -812,6 +847,83 @@ public final class CmsPublishEngine {
         }
     }
 
+    /**
+     * Abandons the given publish thread.<p>
+     *
+     * @param publishThread the publish thread to abandon
+     */
+    private void abandonThread(CmsPublishThread publishThread) {
+
+        if (!publishThread.isAlive()) {
+            // thread is dead
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(Messages.get().getBundle().key(Messages.LOG_PUBLISH_ENGINE_DEAD_JOB_0));
+            }
+        } else {
+            // thread is not dead, and we suppose it hangs :(
+            if (LOG.isWarnEnabled()) {
+                LOG.warn(
+                    Messages.get().getBundle().key(
+                        Messages.LOG_THREADSTORE_PUBLISH_THREAD_INTERRUPT_2,
+                        publishThread.getName(),
+                        publishThread.getUUID()));
+            }
+            publishThread.interrupt();
+        }
+        // just throw it away
+        m_publishThreads.remove(publishThread);
+        m_publishJobResources.remove(publishThread.getPublishJob());
+        // and try again
+        checkCurrentPublishJobThread();
+    }
+
+    /**
+     * Returns the resources of the given publish job, used to detect overlapping publish jobs.<p>
+     *
+     * @param publishJob the publish job
+     *
+     * @return the resources of the given publish job
+     */
+    private CmsPublishJobResources getPublishJobResources(CmsPublishJobInfoBean publishJob) {
+
+        CmsPublishJobResources resources = m_publishJobResources.get(publishJob);
+        if (resources == null) {
+            CmsPublishList publishList = publishJob.getPublishList();
+            List<String> movedRootPaths = null;
+            if ((publishList != null)
+                && (publishList.getFileList() != null)
+                && (publishList.getFolderList() != null)
+                && (publishList.getDeletedFolderList() != null)) {
+                movedRootPaths = readMovedRootPaths(publishList);
+            }
+            if (movedRootPaths != null) {
+                resources = new CmsPublishJobResources(publishList, movedRootPaths);
+            } else {
+                // unknown resources overlap with every other publish job
+                resources = new CmsPublishJobResources(null);
+            }
+            m_publishJobResources.put(publishJob, resources);
+        }
+        return resources;
+    }
+
+    /**
+     * Returns the thread publishing the given publish job.<p>
+     *
+     * @param publishJob the publish job
+     *
+     * @return the thread publishing the given publish job, or <code>null</code> if the job is not running
+     */
+    private CmsPublishThread getPublishThread(CmsPublishJobInfoBean publishJob) {
+
+        for (CmsPublishThread publishThread : m_publishThreads) {
+            if (publishJob.equals(publishThread.getPublishJob())) {
+                return publishThread;
+            }
+        }
+        return null;
+    }
+
     /**
      * Returns <code>true</code> if the login manager allows login.<p>
      *
@@ -831,4 +943,86 @@ public final class CmsPublishEngine {
             return false;
         }
     }
+
+    /**
+     * Returns the next publish job to start, removing it from the queue.<p>
+     *
+     * With more than one publish lane, the first waiting publish job is returned which does neither overlap
+     * with a running publish job nor with a publish job waiting before it in the queue.<p>
+     *
+     * @return the next publish job to start, or <code>null</code> if no publish job can be started
+     */
+    private CmsPublishJobInfoBean nextPublishJob() {
+
+        if (m_publishQueue.isEmpty()) {
+            return null;
+        }
+        if (m_publishLanes == 1) {
+            return m_publishQueue.next();
+        }
+        List<CmsPublishJobResources> blocked = new ArrayList<CmsPublishJobResources>();
+        for (CmsPublishThread publishThread : m_publishThreads) {
+            blocked.add(getPublishJobResources(publishThread.getPublishJob()));
+        }
+        for (CmsPublishJobEnqueued enqueuedJob : m_publishQueue.asList()) {
+            CmsPublishJobResources resources = getPublishJobResources(enqueuedJob.m_publishJob);
+            boolean overlaps = false;
+            for (CmsPublishJobResources blockedResources : blocked) {
+                if (blockedResources.overlaps(resources)) {
+                    overlaps = true;
+                    break;
+                }
+            }
+            if (!overlaps) {
+                return m_publishQueue.take(enqueuedJob.m_publishJob);
+            }
+            // overlapping jobs keep their order, so later jobs must not overtake this one
+            blocked.add(resources);
+        }
+        return null;
+    }
+
+    /**
+     * Reads the old root paths of the moved resources in the given publish list.<p>
+     *
+     * A resource has been moved if its online root path differs from the root path in the publish list.<p>
+     *
+     * @param publishList the revived publish list
+     *
+     * @return the old root paths of the moved resources, or <code>null</code> if they could not be read
+     */
+    private List<String> readMovedRootPaths(CmsPublishList publishList) {
+
+        List<String> movedRootPaths = new ArrayList<String>();
+        CmsDbContext dbc = m_dbContextFactory.getDbContext();
+        try {
+            for (CmsResource resource : publishList.getAllResources()) {
+                if (resource.getState().isNew()) {
+                    // new resources do not exist online
+                    continue;
+                }
+                CmsResource onlineResource;
+                try {
+                    onlineResource = m_driverManager.getVfsDriver(dbc).readResource(
+                        dbc,
+                        CmsProject.ONLINE_PROJECT_ID,
+                        resource.getStructureId(),
+                        true);
+                } catch (CmsVfsResourceNotFoundException e) {
+                    // the resource has never been published
+                    continue;
+                }
+                if (!onlineResource.getRootPath().equals(resource.getRootPath())) {
+                    movedRootPaths.add(onlineResource.getRootPath());
+                }
+            }
+        } catch (CmsException e) {
+            dbc.rollback();
+            LOG.error(e.getLocalizedMessage(), e);
+            return null;
+        } finally {
+            dbc.clear();
+        }
+        return movedRootPaths;
+    }
 }
@@ -0,0 +1,147 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.publish;
+
+import org.opencms.db.CmsPublishList;
+import org.opencms.file.CmsResource;
+import org.opencms.util.CmsUUID;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The set of resources touched by a publish job, used to decide whether two publish jobs can run in parallel.<p>
+ *
+ * Two publish jobs overlap if they share a resource, a sibling of a resource or a path, or if one of them
+ * publishes a folder containing a resource of the other one. For moved resources, both the new and the old
+ * root path are taken into account.<p>
+ *
+ * @since 10.5.0
+ */
+public final class CmsPublishJobResources {
+
+    /** The resource ids of the published resources, to detect siblings. */
+    private Set<CmsUUID> m_resourceIds;
+
+    /** The root paths of the published resources, including the old root paths of moved resources. */
+    private Set<String> m_rootPaths;
+
+    /** Flag to indicate that the resources of the publish job are unknown. */
+    private boolean m_unknown;
+
+    /**
+     * Creates the resource set for the given publish list.<p>
+     *
+     * @param publishList the publish list of the publish job
+     */
+    public CmsPublishJobResources(CmsPublishList publishList) {
+
+        this(publishList, Collections.<String> emptyList());
+    }
+
+    /**
+     * Creates the resource set for the given publish list.<p>
+     *
+     * @param publishList the publish list of the publish job
+     * @param movedRootPaths the old (online) root paths of the moved resources in the publish list
+     */
+    public CmsPublishJobResources(CmsPublishList publishList, Collection<String> movedRootPaths) {
+
+        m_resourceIds = new HashSet<CmsUUID>();
+        m_rootPaths = new HashSet<String>();
+        if ((publishList == null)
+            || (publishList.getFileList() == null)
+            || (publishList.getFolderList() == null)
+            || (publishList.getDeletedFolderList() == null)) {
+            // the publish list has not been revived yet, so be conservative
+            m_unknown = true;
+            return;
+        }
+        addResources(publishList.getFolderList());
+        addResources(publishList.getDeletedFolderList());
+        addResources(publishList.getFileList());
+        m_rootPaths.addAll(movedRootPaths);
+    }
+
+    /**
+     * Checks if the given publish job resources overlap with this one.<p>
+     *
+     * @param other the resources of the other publish job
+     *
+     * @return <code>true</code> if both publish jobs must not run at the same time
+     */
+    public boolean overlaps(CmsPublishJobResources other) {
+
+        if (m_unknown || other.m_unknown) {
+            return true;
+        }
+        for (CmsUUID resourceId : other.m_resourceIds) {
+            if (m_resourceIds.contains(resourceId)) {
+                return true;
+            }
+        }
+        return containsPathOrParent(other.m_rootPaths) || other.containsPathOrParent(m_rootPaths);
+    }
+
+    /**
+     * Adds the given resources.<p>
+     *
+     * @param resources the resources to add
+     */
+    private void addResources(List<CmsResource> resources) {
+
+        for (CmsResource resource : resources) {
+            m_resourceIds.add(resource.getResourceId());
+            m_rootPaths.add(resource.getRootPath());
+        }
+    }
+
+    /**
+     * Checks if one of the given paths, or one of its parent folders, is published by this publish job.<p>
+     *
+     * @param rootPaths the root paths to check
+     *
+     * @return <code>true</code> if one of the given paths or parent folders is published by this publish job
+     */
+    private boolean containsPathOrParent(Set<String> rootPaths) {
+
+        for (String rootPath : rootPaths) {
+            String path = rootPath;
+            while (path != null) {
+                if (m_rootPaths.contains(path)) {
+                    return true;
+                }
+                path = CmsResource.getParentFolder(path);
+            }
+        }
+        return false;
+    }
+}
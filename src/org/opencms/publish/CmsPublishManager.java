@@ -69,6 +69,12 @@ public class CmsPublishManager {
     /** The default history size. */
     public static final int DEFAULT_HISTORY_SIZE = 100;
 
+    /** The default number of publish jobs running at the same time. */
+    public static final int DEFAULT_PUBLISH_LANES = 1;
+
+    /** The default number of threads used to publish the files of a single publish job. */
+    public static final int DEFAULT_PUBLISH_THREADS = 1;
+
     /** The default persistence setting for the publish queue. */
     public static final boolean DEFAULT_QUEUE_PERSISTANCE = false;
 
@@ -87,6 +93,9 @@ public class CmsPublishManager {
     /** The maximum size of the publish history. */
     private int m_publishHistorySize;
 
+    /** The maximum number of non overlapping publish jobs running at the same time. */
+    private int m_publishLanes = DEFAULT_PUBLISH_LANES;
+
     /** Publish job verifier. */
     private CmsPublishListVerifier m_publishListVerifier = new CmsPublishListVerifier();
 
@@ -99,6 +108,9 @@ public class CmsPublishManager {
     /** The amount of time to wait for a publish job during shutdown. */
     private int m_publishQueueShutdowntime;
 
+    /** The number of threads used to publish the files of a single publish job. */
+    private int m_publishThreads = DEFAULT_PUBLISH_THREADS;
+
     /** The security manager. */
     private CmsSecurityManager m_securityManager;
 
@@ -135,6 +147,16 @@ public class CmsPublishManager {
         m_publishEngine.abandonThread();
     }
 
+    /**
+     * Abandons the thread of the given running publish job.<p>
+     *
+     * @param publishJob the running publish job
+     */
+    public void abandonThread(CmsPublishJobRunning publishJob) {
+
+        m_publishEngine.abandonThread(publishJob);
+    }
+
     /**
      * Aborts the given publish job.<p>
      *
@@ -208,6 +230,20 @@ public class CmsPublishManager {
         return new CmsPublishJobRunning(m_publishEngine.getCurrentPublishJob().getPublishJob());
     }
 
+    /**
+     * Returns all current running publish jobs.<p>
+     *
+     * @return a list of {@link CmsPublishJobRunning} objects
+     */
+    public List<CmsPublishJobRunning> getCurrentPublishJobs() {
+
+        List<CmsPublishJobRunning> result = new ArrayList<CmsPublishJobRunning>();
+        for (CmsPublishThread publishThread : m_publishEngine.getCurrentPublishJobs()) {
+            result.add(new CmsPublishJobRunning(publishThread.getPublishJob()));
+        }
+        return result;
+    }
+
     /**
      * Returns a publish job based on its publish history id.<p>
      *
@@ -413,6 +449,28 @@ public class CmsPublishManager {
         return m_publishQueueShutdowntime;
     }
 
+    /**
+     * Returns the maximum number of publish jobs running at the same time.<p>
+     *
+     * Only publish jobs which do not share any resources run at the same time.<p>
+     *
+     * @return the number of publish lanes
+     */
+    public int getPublishLanes() {
+
+        return m_publishLanes;
+    }
+
+    /**
+     * Returns the number of threads used to publish the files of a single publish job.<p>
+     *
+     * @return the number of publish threads
+     */
+    public int getPublishThreads() {
+
+        return m_publishThreads;
+    }
+
     /**
      * Returns a new publish list that contains the unpublished resources related
      * to all resources in the given publish list, the related resources exclude
@@ -469,7 +527,7 @@ public class CmsPublishManager {
      */
     public void initialize(CmsObject cms) throws CmsException {
 
-        m_publishEngine.initialize(cms, m_publishQueuePersistance, m_publishQueueShutdowntime);
+        m_publishEngine.initialize(cms, m_publishQueuePersistance, m_publishQueueShutdowntime, m_publishLanes);
         m_frozen = true;
     }
 
@@ -686,6 +744,19 @@ public class CmsPublishManager {
         m_publishListRemoveMode = publishListRemoveMode;
     }
 
+    /**
+     * Sets the maximum number of publish jobs running at the same time.<p>
+     *
+     * @param publishLanes the number of publish lanes, parsed as <code>int</code>
+     */
+    public void setPublishLanes(String publishLanes) {
+
+        if (m_frozen) {
+            throw new CmsRuntimeException(Messages.get().container(Messages.ERR_CONFIG_FROZEN_0));
+        }
+        m_publishLanes = Math.max(1, Integer.parseInt(publishLanes));
+    }
+
     /**
      * Sets if the publish queue is re-initialized on startup.<p>
      *
@@ -712,6 +783,19 @@ public class CmsPublishManager {
         m_publishQueueShutdowntime = Integer.parseInt(publishQueueShutdowntime);
     }
 
+    /**
+     * Sets the number of threads used to publish the files of a single publish job.<p>
+     *
+     * @param publishThreads the number of publish threads, parsed as <code>int</code>
+     */
+    public void setPublishThreads(String publishThreads) {
+
+        if (m_frozen) {
+            throw new CmsRuntimeException(Messages.get().container(Messages.ERR_CONFIG_FROZEN_0));
+        }
+        m_publishThreads = Math.max(1, Integer.parseInt(publishThreads));
+    }
+
     /**
      * Sets the security manager during initialization.<p>
      *
@@ -315,6 +315,22 @@ public class CmsPublishQueue {
         }
     }
 
+    /**
+     * Removes the given publish job from the queue in order to publish it.<p>
+     *
+     * Unlike {@link #remove(CmsPublishJobInfoBean)}, the publish job is not deleted from the database,
+     * just like for publish jobs returned by {@link #next()}.<p>
+     *
+     * @param publishJob the publish job to be published
+     *
+     * @return the given publish job
+     */
+    protected CmsPublishJobInfoBean take(CmsPublishJobInfoBean publishJob) {
+
+        OpenCms.getMemoryMonitor().uncachePublishJob(publishJob);
+        return publishJob;
+    }
+
     /**
      * Updates the given job in the list.<p>
      *
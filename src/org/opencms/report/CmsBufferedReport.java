@@ -0,0 +1,208 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.report;
+
+import org.opencms.i18n.CmsMessageContainer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Report which buffers its output until it is flushed to a target report.<p>
+ *
+ * Used by operations that run in parallel threads, so that the output of the single threads
+ * is written to the shared target report in one piece and is not mixed up.<p>
+ *
+ * @since 10.5.0
+ */
+public class CmsBufferedReport extends A_CmsReport {
+
+    /** The buffered report calls. */
+    private List<Object[]> m_entries = new ArrayList<Object[]>();
+
+    /** Flag which indicates that the buffered output has been written to the target report. */
+    private boolean m_flushed;
+
+    /** The report to write the buffered output to. */
+    private I_CmsReport m_target;
+
+    /**
+     * Creates a new buffered report.<p>
+     *
+     * @param target the report to write the buffered output to
+     */
+    public CmsBufferedReport(I_CmsReport target) {
+
+        init(target.getLocale(), target.getSiteRoot());
+        m_target = target;
+    }
+
+    /**
+     * @see org.opencms.report.A_CmsReport#addError(java.lang.Object)
+     */
+    @Override
+    public void addError(Object obj) {
+
+        super.addError(obj);
+        // errors are not buffered, so the target report knows about them even if the output is not flushed yet
+        synchronized (m_target) {
+            m_target.addError(obj);
+        }
+    }
+
+    /**
+     * @see org.opencms.report.A_CmsReport#addWarning(java.lang.Object)
+     */
+    @Override
+    public void addWarning(Object obj) {
+
+        super.addWarning(obj);
+        synchronized (m_target) {
+            m_target.addWarning(obj);
+        }
+    }
+
+    /**
+     * Writes the buffered output to the target report,
+     * any output after this is directly written to the target report.<p>
+     *
+     * The output of concurrently flushed reports with the same target is not mixed up.<p>
+     */
+    public synchronized void flush() {
+
+        synchronized (m_target) {
+            for (Object[] entry : m_entries) {
+                write(entry);
+            }
+        }
+        m_entries = null;
+        m_flushed = true;
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#getReportUpdate()
+     */
+    public String getReportUpdate() {
+
+        return "";
+    }
+
+    /**
+     * @see org.opencms.report.A_CmsReport#print(org.opencms.i18n.CmsMessageContainer)
+     */
+    @Override
+    public void print(CmsMessageContainer container) {
+
+        print(container, FORMAT_DEFAULT);
+    }
+
+    /**
+     * @see org.opencms.report.A_CmsReport#print(org.opencms.i18n.CmsMessageContainer, int)
+     */
+    @Override
+    public void print(CmsMessageContainer container, int format) {
+
+        add(new Object[] {Boolean.FALSE, container, Integer.valueOf(format)});
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#println()
+     */
+    public void println() {
+
+        add(new Object[] {Boolean.TRUE, null, null});
+    }
+
+    /**
+     * @see org.opencms.report.A_CmsReport#println(org.opencms.i18n.CmsMessageContainer)
+     */
+    @Override
+    public void println(CmsMessageContainer container) {
+
+        println(container, FORMAT_DEFAULT);
+    }
+
+    /**
+     * @see org.opencms.report.A_CmsReport#println(org.opencms.i18n.CmsMessageContainer, int)
+     */
+    @Override
+    public void println(CmsMessageContainer container, int format) {
+
+        add(new Object[] {Boolean.TRUE, container, Integer.valueOf(format)});
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#println(java.lang.Throwable)
+     */
+    public void println(Throwable t) {
+
+        add(new Object[] {Boolean.TRUE, t, null});
+    }
+
+    /**
+     * @see org.opencms.report.A_CmsReport#print(java.lang.String, int)
+     */
+    @Override
+    protected void print(String value, int format) {
+
+        // all output is handled by the message container methods
+    }
+
+    /**
+     * Buffers a report call, or writes it to the target report if the buffer has already been flushed.<p>
+     *
+     * @param entry the report call
+     */
+    private synchronized void add(Object[] entry) {
+
+        if (m_flushed) {
+            write(entry);
+        } else {
+            m_entries.add(entry);
+        }
+    }
+
+    /**
+     * Writes a report call to the target report.<p>
+     *
+     * @param entry the report call
+     */
+    private void write(Object[] entry) {
+
+        boolean newLine = ((Boolean)entry[0]).booleanValue();
+        if (entry[1] instanceof Throwable) {
+            m_target.println((Throwable)entry[1]);
+        } else if (entry[1] == null) {
+            m_target.println();
+        } else if (newLine) {
+            m_target.println((CmsMessageContainer)entry[1], ((Integer)entry[2]).intValue());
+        } else {
+            m_target.print((CmsMessageContainer)entry[1], ((Integer)entry[2]).intValue());
+        }
+    }
+}
@@ -36,6 +36,10 @@ import org.opencms.loader.CmsResourceManager;
 import org.opencms.main.CmsException;
 import org.opencms.main.OpenCms;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
 /**
  * Represents a single entry in the repository. In the context of OpenCms
  * this means a single {@link CmsResource}.<p>
@@ -102,6 +106,27 @@ public class CmsRepositoryItem implements I_CmsRepositoryItem {
         return m_resource.getLength();
     }
 
+    /**
+     * @see org.opencms.repository.I_CmsRepositoryItem#getContentStream()
+     */
+    public InputStream getContentStream() throws IOException {
+
+        if (!m_resource.isFile()) {
+            return null;
+        }
+
+        if (m_content != null) {
+            // the content has already been read
+            return new ByteArrayInputStream(m_content);
+        }
+
+        try {
+            return m_cms.readFileContentStream(m_cms.getSitePath(m_resource), CmsResourceFilter.IGNORE_EXPIRATION);
+        } catch (CmsException ex) {
+            throw new IOException(ex.getLocalizedMessage(), ex);
+        }
+    }
+
     /**
      * @see org.opencms.repository.I_CmsRepositoryItem#getCreationDate()
      */
@@ -27,6 +27,9 @@
 
 package org.opencms.repository;
 
+import java.io.IOException;
+import java.io.InputStream;
+
 /**
  * This class represents items in the repository interface. That can be
  * files or folders (collections). <p>
@@ -49,6 +52,18 @@ public interface I_CmsRepositoryItem {
      */
     long getContentLength();
 
+    /**
+     * Returns the content of this item as a stream.<p>
+     *
+     * In contrast to {@link #getContent()} the content does not need to be loaded into memory
+     * as a whole. The caller must close the returned stream.<p>
+     *
+     * @return the content of this item as a stream, or <code>null</code> if this item is a collection
+     *
+     * @throws IOException if the content could not be read
+     */
+    InputStream getContentStream() throws IOException;
+
     /**
      * Returns the date of the creation of this item.<p>
      *
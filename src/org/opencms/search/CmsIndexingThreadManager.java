@@ -28,29 +28,86 @@
 package org.opencms.search;
 
 import org.opencms.db.CmsPublishedResource;
+import org.opencms.file.CmsObject;
 import org.opencms.file.CmsResource;
 import org.opencms.i18n.CmsMessageContainer;
+import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
+import org.opencms.main.OpenCms;
+import org.opencms.report.CmsBufferedReport;
 import org.opencms.report.CmsLogReport;
 import org.opencms.report.I_CmsReport;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.logging.Log;
 
 /**
  * Implements the management of indexing threads.<p>
  *
+ * The thread manager works as a pipeline: up to the configured number of indexing threads extract the
+ * documents for the resources in parallel, while the thread calling the manager is the single consumer
+ * that writes the extracted documents to the index writer. The number of documents being extracted
+ * at the same time is bounded, so the caller blocks if all indexing threads are busy.<p>
+ *
  * @since 6.0.0
  */
 public class CmsIndexingThreadManager {
 
+    /**
+     * The data of a running indexing thread.<p>
+     */
+    private static class CmsIndexingJob {
+
+        /** The indexer the thread was created for. */
+        CmsVfsIndexer m_indexer;
+
+        /** The buffered report of the thread, may be <code>null</code>. */
+        CmsBufferedReport m_report;
+
+        /** The resource to index. */
+        CmsResource m_resource;
+
+        /** The start time of the thread. */
+        long m_startTime;
+
+        /** The index writer to write the document with. */
+        I_CmsIndexWriter m_writer;
+
+        /**
+         * Creates a new indexing job.<p>
+         *
+         * @param indexer the indexer the thread was created for
+         * @param writer the index writer to write the document with
+         * @param resource the resource to index
+         */
+        CmsIndexingJob(CmsVfsIndexer indexer, I_CmsIndexWriter writer, CmsResource resource) {
+
+            m_indexer = indexer;
+            m_writer = writer;
+            m_resource = resource;
+            m_report = indexer.getReport() != null ? new CmsBufferedReport(indexer.getReport()) : null;
+            m_startTime = System.currentTimeMillis();
+        }
+    }
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsIndexingThreadManager.class);
 
     /** Number of threads abandoned. */
     private int m_abandonedCounter;
 
+    /** The indexing threads which have finished, but whose documents have not been written yet. */
+    private BlockingQueue<CmsIndexingThread> m_finishedThreads = new LinkedBlockingQueue<CmsIndexingThread>();
+
     /** The time the last error was written to the log. */
     private long m_lastLogErrorTime;
 
@@ -60,12 +117,22 @@ public class CmsIndexingThreadManager {
     /** The maximum number of modifications before a commit in the search index is triggered. */
     private int m_maxModificationsBeforeCommit;
 
+    /** Number of documents written to or deleted from the index. */
+    private int m_modificationCounter;
+
     /** Number of thread returned. */
     private int m_returnedCounter;
 
+    /** The running indexing threads, in the order they have been started. */
+    private Map<CmsIndexingThread, CmsIndexingJob> m_runningThreads = new LinkedHashMap<CmsIndexingThread,
+        CmsIndexingJob>();
+
     /** Overall number of threads started. */
     private int m_startedCounter;
 
+    /** The maximum number of indexing threads running in parallel. */
+    private int m_threads;
+
     /** Timeout for abandoning threads. */
     private long m_timeout;
 
@@ -77,17 +144,32 @@ public class CmsIndexingThreadManager {
      */
     public CmsIndexingThreadManager(long timeout, int maxModificationsBeforeCommit) {
 
+        this(timeout, maxModificationsBeforeCommit, 1);
+    }
+
+    /**
+     * Creates and starts a thread manager for indexing threads.<p>
+     *
+     * @param timeout timeout after a thread is abandoned
+     * @param maxModificationsBeforeCommit the maximum number of modifications before a commit in the search index is triggered
+     * @param threads the maximum number of indexing threads running in parallel
+     */
+    public CmsIndexingThreadManager(long timeout, int maxModificationsBeforeCommit, int threads) {
+
         m_timeout = timeout;
         m_maxModificationsBeforeCommit = maxModificationsBeforeCommit;
+        m_threads = Math.max(1, threads);
     }
 
     /**
      * Creates and starts a new indexing thread for a resource.<p>
      *
-     * After an indexing thread was started, the manager suspends itself
-     * and waits for an amount of time specified by the <code>timeout</code>
-     * value. If the timeout value is reached, the indexing thread is
-     * aborted by an interrupt signal.<p>
+     * If the maximum number of indexing threads is already running, the manager suspends itself
+     * until one of the running threads has finished or reached the <code>timeout</code>. Threads which
+     * reach the timeout are aborted by an interrupt signal.<p>
+     *
+     * The documents created by the indexing threads are written to the index by the thread calling this method,
+     * either in a later call of this method or in {@link #waitForIndexingThreads()}.<p>
      *
      * @param indexer the VFS indexer to create the index thread for
      * @param writer the index writer that can update the index
@@ -95,70 +177,122 @@ public class CmsIndexingThreadManager {
      */
     public void createIndexingThread(CmsVfsIndexer indexer, I_CmsIndexWriter writer, CmsResource res) {
 
-        I_CmsReport report = indexer.getReport();
+        // wait until an indexing thread is available
+        while (m_runningThreads.size() >= m_threads) {
+            writeFinishedThreads(true);
+        }
         m_startedCounter++;
+        CmsIndexingJob job = new CmsIndexingJob(indexer, writer, res);
         CmsIndexingThread thread = new CmsIndexingThread(
-            indexer.getCms(),
+            getThreadCms(indexer.getCms()),
             res,
             indexer.getIndex(),
             m_startedCounter,
-            report);
+            job.m_report) {
+
+            @Override
+            public void run() {
+
+                try {
+                    super.run();
+                } finally {
+                    m_finishedThreads.add(this);
+                }
+            }
+        };
         thread.setPriority(Thread.MIN_PRIORITY);
+        m_runningThreads.put(thread, job);
         thread.start();
-        try {
-            thread.join(m_timeout);
-        } catch (InterruptedException e) {
-            // ignore
-        }
-        if (thread.isAlive()) {
-            // the thread has not finished - so it must be marked as an abandoned thread
-            m_abandonedCounter++;
-            thread.interrupt();
-            if (LOG.isWarnEnabled()) {
-                LOG.warn(Messages.get().getBundle().key(Messages.LOG_INDEXING_TIMEOUT_1, res.getRootPath()));
-            }
-            if (report != null) {
-                report.println();
-                report.print(
-                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_FAILED_0),
-                    I_CmsReport.FORMAT_WARNING);
-                report.println(
-                    Messages.get().container(Messages.RPT_SEARCH_INDEXING_TIMEOUT_1, res.getRootPath()),
-                    I_CmsReport.FORMAT_WARNING);
+        // write the documents of the threads which have already finished
+        writeFinishedThreads(false);
+    }
+
+    /**
+     * Returns if the indexing manager still have indexing threads.<p>
+     *
+     * This includes the threads which have finished, but whose documents have not been written to the index yet.
+     * The method neither waits for the threads nor writes their documents, use {@link #waitForIndexingThreads()}
+     * for this.<p>
+     *
+     * @return true if the indexing manager still have indexing threads
+     */
+    public boolean isRunning() {
+
+        return !m_runningThreads.isEmpty();
+    }
+
+    /**
+     * Writes statistical information to the report.<p>
+     *
+     * The method reports the total number of threads started
+     * (equals to the number of indexed files), the number of returned
+     * threads (equals to the number of successfully indexed files),
+     * and the number of abandoned threads (hanging threads reaching the timeout).
+     *
+     * @param report the report to write the statistics to
+     */
+    public void reportStatistics(I_CmsReport report) {
+
+        if (report != null) {
+            CmsMessageContainer message = Messages.get().container(
+                Messages.RPT_SEARCH_INDEXING_STATS_4,
+                new Object[] {
+                    new Integer(m_startedCounter),
+                    new Integer(m_returnedCounter),
+                    new Integer(m_abandonedCounter),
+                    report.formatRuntime()});
+
+            report.println(message);
+            if (!(report instanceof CmsLogReport) && LOG.isInfoEnabled()) {
+                // only write to the log if report is not already a log report
+                LOG.info(message.key());
             }
-        } else {
-            // the thread finished normally
-            m_returnedCounter++;
         }
-        I_CmsSearchDocument doc = thread.getResult();
-        if (doc != null) {
-            // write the document to the index
-            indexer.updateResource(writer, res.getRootPath(), doc);
-        } else {
-            indexer.deleteResource(writer, new CmsPublishedResource(res));
+    }
+
+    /**
+     * Waits until all indexing threads have finished or reached the timeout,
+     * and writes their documents to the index.<p>
+     */
+    public void waitForIndexingThreads() {
+
+        while (isRunning()) {
+            // wait for the next indexing thread to finish or to reach the timeout
+            writeFinishedThreads(true);
+            logWaitingThreads();
+        }
+        if (LOG.isInfoEnabled()) {
+            // write a note to the log that all threads have finished
+            LOG.info(Messages.get().getBundle().key(Messages.LOG_THREADS_FINISHED_0));
         }
-        if ((m_startedCounter % m_maxModificationsBeforeCommit) == 0) {
+    }
+
+    /**
+     * Returns the OpenCms user context to use for an indexing thread.<p>
+     *
+     * If several indexing threads run in parallel, each thread gets its own copy of the context.<p>
+     *
+     * @param cms the OpenCms user context of the indexer
+     *
+     * @return the OpenCms user context to use for an indexing thread
+     */
+    private CmsObject getThreadCms(CmsObject cms) {
+
+        if (m_threads > 1) {
             try {
-                writer.commit();
-            } catch (IOException e) {
-                if (LOG.isWarnEnabled()) {
-                    LOG.warn(
-                        Messages.get().getBundle().key(
-                            Messages.LOG_IO_INDEX_WRITER_COMMIT_2,
-                            indexer.getIndex().getName(),
-                            indexer.getIndex().getPath()),
-                        e);
-                }
+                return OpenCms.initCmsObject(cms);
+            } catch (CmsException e) {
+                LOG.error(e.getLocalizedMessage(), e);
             }
         }
+        return cms;
     }
 
     /**
-     * Returns if the indexing manager still have indexing threads.<p>
-     *
-     * @return true if the indexing manager still have indexing threads
+     * Writes a warning to the log every 30 seconds and an error every 10 minutes
+     * while waiting for the indexing threads.<p>
      */
-    public boolean isRunning() {
+    private void logWaitingThreads() {
 
         if (m_lastLogErrorTime <= 0) {
             m_lastLogErrorTime = System.currentTimeMillis();
@@ -186,41 +320,107 @@ public class CmsIndexingThreadManager {
                 m_lastLogErrorTime = currentTime;
             }
         }
+    }
 
-        boolean result = (m_returnedCounter + m_abandonedCounter) < m_startedCounter;
-        if (result && LOG.isInfoEnabled()) {
-            // write a note to the log that all threads have finished
-            LOG.info(Messages.get().getBundle().key(Messages.LOG_THREADS_FINISHED_0));
+    /**
+     * Writes the document of an indexing thread to the index.<p>
+     *
+     * @param thread the indexing thread
+     * @param job the indexing job data of the thread
+     * @param abandoned <code>true</code> if the thread has reached the timeout
+     */
+    private void writeDocument(CmsIndexingThread thread, CmsIndexingJob job, boolean abandoned) {
+
+        CmsResource res = job.m_resource;
+        I_CmsReport report = job.m_indexer.getReport();
+        if (job.m_report != null) {
+            job.m_report.flush();
+        }
+        if (abandoned) {
+            // the thread has not finished - so it must be marked as an abandoned thread
+            m_abandonedCounter++;
+            thread.interrupt();
+            if (LOG.isWarnEnabled()) {
+                LOG.warn(Messages.get().getBundle().key(Messages.LOG_INDEXING_TIMEOUT_1, res.getRootPath()));
+            }
+            if (report != null) {
+                report.println();
+                report.print(
+                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_FAILED_0),
+                    I_CmsReport.FORMAT_WARNING);
+                report.println(
+                    Messages.get().container(Messages.RPT_SEARCH_INDEXING_TIMEOUT_1, res.getRootPath()),
+                    I_CmsReport.FORMAT_WARNING);
+            }
+        } else {
+            // the thread finished normally
+            m_returnedCounter++;
+        }
+        I_CmsSearchDocument doc = thread.getResult();
+        if (doc != null) {
+            // write the document to the index
+            job.m_indexer.updateResource(job.m_writer, res.getRootPath(), doc);
+        } else {
+            job.m_indexer.deleteResource(job.m_writer, new CmsPublishedResource(res));
+        }
+        m_modificationCounter++;
+        if ((m_modificationCounter % m_maxModificationsBeforeCommit) == 0) {
+            try {
+                job.m_writer.commit();
+            } catch (IOException e) {
+                if (LOG.isWarnEnabled()) {
+                    LOG.warn(
+                        Messages.get().getBundle().key(
+                            Messages.LOG_IO_INDEX_WRITER_COMMIT_2,
+                            job.m_indexer.getIndex().getName(),
+                            job.m_indexer.getIndex().getPath()),
+                        e);
+                }
+            }
         }
-        return result;
     }
 
     /**
-     * Writes statistical information to the report.<p>
-     *
-     * The method reports the total number of threads started
-     * (equals to the number of indexed files), the number of returned
-     * threads (equals to the number of successfully indexed files),
-     * and the number of abandoned threads (hanging threads reaching the timeout).
+     * Writes the documents of all finished indexing threads to the index,
+     * and abandons the threads which have reached the timeout.<p>
      *
-     * @param report the report to write the statistics to
+     * @param wait if <code>true</code>, waits until at least one thread has finished or reached the timeout
      */
-    public void reportStatistics(I_CmsReport report) {
+    private void writeFinishedThreads(boolean wait) {
 
-        if (report != null) {
-            CmsMessageContainer message = Messages.get().container(
-                Messages.RPT_SEARCH_INDEXING_STATS_4,
-                new Object[] {
-                    new Integer(m_startedCounter),
-                    new Integer(m_returnedCounter),
-                    new Integer(m_abandonedCounter),
-                    report.formatRuntime()});
-
-            report.println(message);
-            if (!(report instanceof CmsLogReport) && LOG.isInfoEnabled()) {
-                // only write to the log if report is not already a log report
-                LOG.info(message.key());
+        if (wait && m_finishedThreads.isEmpty() && !m_runningThreads.isEmpty()) {
+            // the first running thread is the one which reaches the timeout first
+            long startTime = m_runningThreads.values().iterator().next().m_startTime;
+            long waitTime = (startTime + m_timeout) - System.currentTimeMillis();
+            if (waitTime > 0) {
+                try {
+                    CmsIndexingThread thread = m_finishedThreads.poll(waitTime, TimeUnit.MILLISECONDS);
+                    if (thread != null) {
+                        m_finishedThreads.add(thread);
+                    }
+                } catch (InterruptedException e) {
+                    // ignore
+                }
+            }
+        }
+        CmsIndexingThread thread;
+        while ((thread = m_finishedThreads.poll()) != null) {
+            CmsIndexingJob job = m_runningThreads.remove(thread);
+            if (job != null) {
+                writeDocument(thread, job, false);
+            }
+            // otherwise the thread has been abandoned before and its document has already been handled
+        }
+        long currentTime = System.currentTimeMillis();
+        Iterator<Map.Entry<CmsIndexingThread, CmsIndexingJob>> it = m_runningThreads.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<CmsIndexingThread, CmsIndexingJob> entry = it.next();
+            if ((entry.getValue().m_startTime + m_timeout) > currentTime) {
+                // the threads are ordered by start time, so all following threads are still within the timeout
+                break;
             }
+            it.remove();
+            writeDocument(entry.getKey(), entry.getValue(), true);
         }
     }
-}
\ No newline at end of file
+}
@@ -29,6 +29,7 @@ package org.opencms.search;
 
 import org.opencms.configuration.CmsConfigurationException;
 import org.opencms.db.CmsDriverManager;
+import org.opencms.db.CmsPublishList;
 import org.opencms.db.CmsPublishedResource;
 import org.opencms.db.CmsResourceState;
 import org.opencms.file.CmsObject;
@@ -67,6 +68,7 @@ import org.opencms.search.solr.CmsSolrFieldConfiguration;
 import org.opencms.search.solr.CmsSolrIndex;
 import org.opencms.search.solr.CmsSolrIndexWriter;
 import org.opencms.search.solr.spellchecking.CmsSolrSpellchecker;
+import org.opencms.security.CmsAccessControlEntry;
 import org.opencms.security.CmsRole;
 import org.opencms.security.CmsRoleViolationException;
 import org.opencms.util.A_CmsModeStringEnumeration;
@@ -88,6 +90,7 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.lucene.analysis.Analyzer;
@@ -686,6 +689,10 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
     /** Contains the available field configurations. */
     private Map<String, CmsSearchFieldConfiguration> m_fieldConfigurations;
 
+    /** The root paths of the folders with changed permissions of the running publish jobs, by publish history id. */
+    private Map<CmsUUID, List<String>> m_foldersWithChangedPermissions = new ConcurrentHashMap<CmsUUID,
+        List<String>>();
+
     /** The force unlock type. */
     private CmsSearchForceUnlockMode m_forceUnlockMode;
 
@@ -695,6 +702,9 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
     /** A list of search indexes. */
     private List<CmsSearchIndex> m_indexes;
 
+    /** The configured maximum number of indexing threads running in parallel, 0 if not configured. */
+    private int m_indexingThreads;
+
     /** Seconds to wait for an index lock. */
     private int m_indexLockMaxWaitSeconds = 10;
 
@@ -838,6 +848,21 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         return true;
     }
 
+    /**
+     * Checks if the permissions granted by the access control entries of a resource have been changed.<p>
+     *
+     * @param offlineEntries the access control entries of the resource in the offline project
+     * @param onlineEntries the access control entries of the resource in the online project
+     *
+     * @return <code>true</code> if the entries differ
+     */
+    static boolean hasChangedPermissions(
+        List<CmsAccessControlEntry> offlineEntries,
+        List<CmsAccessControlEntry> onlineEntries) {
+
+        return !(offlineEntries.containsAll(onlineEntries) && onlineEntries.containsAll(offlineEntries));
+    }
+
     /**
      * Adds an analyzer.<p>
      *
@@ -997,7 +1022,17 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
                     LOG.debug(Messages.get().getBundle().key(Messages.LOG_EVENT_CLEAR_CACHES_0), new Exception());
                 }
                 break;
+            case I_CmsEventListener.EVENT_BEFORE_PUBLISH_PROJECT:
+                // the permissions of the online folders are only available before they are overwritten
+                collectFoldersWithChangedPermissions(
+                    (CmsPublishList)event.getData().get(I_CmsEventListener.KEY_PUBLISHLIST),
+                    (CmsUUID)event.getData().get(I_CmsEventListener.KEY_PROJECTID));
+                break;
             case I_CmsEventListener.EVENT_PUBLISH_PROJECT:
+                if (event.getData().containsKey(I_CmsEventListener.KEY_REPLICATED)) {
+                    // the indexes have been updated by the node which published the resources
+                    break;
+                }
                 // event data contains a list of the published resources
                 CmsUUID publishHistoryId = new CmsUUID((String)event.getData().get(I_CmsEventListener.KEY_PUBLISHID));
                 if (LOG.isDebugEnabled()) {
@@ -1295,6 +1330,20 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         return null;
     }
 
+    /**
+     * Returns the configured maximum number of indexing threads running in parallel.<p>
+     *
+     * If this is not configured, <code>0</code> is returned and a single indexing thread is used,
+     * so the documents are extracted one at a time. Extracting documents in parallel must be enabled explicitly,
+     * since all configured document factories must be thread safe for it.<p>
+     *
+     * @return the configured maximum number of indexing threads running in parallel
+     */
+    public int getIndexingThreads() {
+
+        return m_indexingThreads;
+    }
+
     /**
      * Returns the seconds to wait for an index lock during an update operation.<p>
      *
@@ -1509,6 +1558,7 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         OpenCms.addCmsEventListener(
             this,
             new int[] {
+                I_CmsEventListener.EVENT_BEFORE_PUBLISH_PROJECT,
                 I_CmsEventListener.EVENT_CLEAR_CACHES,
                 I_CmsEventListener.EVENT_PUBLISH_PROJECT,
                 I_CmsEventListener.EVENT_REBUILD_SEARCHINDEXES});
@@ -2085,6 +2135,28 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         }
     }
 
+    /**
+     * Sets the maximum number of indexing threads running in parallel.<p>
+     *
+     * Only set a value greater than 1 if all configured document factories are thread safe.<p>
+     *
+     * @param value the maximum number of indexing threads running in parallel
+     */
+    public void setIndexingThreads(String value) {
+
+        try {
+            m_indexingThreads = Math.max(0, Integer.parseInt(value.trim()));
+        } catch (Exception e) {
+            LOG.error(
+                Messages.get().getBundle().key(
+                    Messages.LOG_PARSE_INDEXING_THREADS_FAILED_2,
+                    value,
+                    new Integer(1)),
+                e);
+            m_indexingThreads = 0;
+        }
+    }
+
     /**
      * Sets the seconds to wait for an index lock during an update operation.<p>
      *
@@ -2463,7 +2535,9 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
      */
     protected CmsIndexingThreadManager getThreadManager() {
 
-        return new CmsIndexingThreadManager(m_timeout, m_maxModificationsBeforeCommit);
+        // extracting documents in parallel is opt-in, since document factories are not required to be thread safe
+        int threads = m_indexingThreads > 0 ? m_indexingThreads : 1;
+        return new CmsIndexingThreadManager(m_timeout, m_maxModificationsBeforeCommit, threads);
     }
 
     /**
@@ -2665,6 +2739,7 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
                 }
             }
 
+            addResourcesBelowChangedFolders(adminCms, publishHistoryId, updateResources);
             findRelatedContainerPages(adminCms, updateResources);
             if (!updateResources.isEmpty()) {
                 // sort the resource to update
@@ -2778,14 +2853,7 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
                     indexer.rebuildIndex(writer, threadManager, source);
 
                     // wait for indexing threads to finish
-                    while (threadManager.isRunning()) {
-                        try {
-                            Thread.sleep(500);
-                        } catch (InterruptedException e) {
-                            // just continue with the loop after interruption
-                            LOG.info(e.getLocalizedMessage(), e);
-                        }
-                    }
+                    threadManager.waitForIndexingThreads();
 
                     // commit and optimize the index after each index source has been finished
                     try {
@@ -2939,14 +3007,7 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
                     }
 
                     // wait for indexing threads to finish
-                    while (threadManager.isRunning()) {
-                        try {
-                            Thread.sleep(500);
-                        } catch (InterruptedException e) {
-                            // just continue with the loop after interruption
-                            LOG.info(e.getLocalizedMessage(), e);
-                        }
-                    }
+                    threadManager.waitForIndexingThreads();
                 }
             } finally {
                 // close the index writer
@@ -3030,6 +3091,93 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         }
     }
 
+    /**
+     * Adds the files below the folders with permissions changed by a publish job to the resources to update.<p>
+     *
+     * The permissions of the files are stored in the index of the files, so if the permissions of a folder
+     * are changed, all files inheriting them have to be re-indexed as well.<p>
+     *
+     * @param adminCms the cms context
+     * @param publishHistoryId the history id of the publish job
+     * @param updateResources the resources to update
+     */
+    private void addResourcesBelowChangedFolders(
+        CmsObject adminCms,
+        CmsUUID publishHistoryId,
+        List<CmsPublishedResource> updateResources) {
+
+        List<String> folders = m_foldersWithChangedPermissions.remove(publishHistoryId);
+        if (folders == null) {
+            return;
+        }
+        CmsObject cms = adminCms;
+        try {
+            cms = OpenCms.initCmsObject(adminCms);
+            cms.getRequestContext().setSiteRoot("");
+        } catch (CmsException e) {
+            LOG.error(e.getLocalizedMessage(), e);
+        }
+        for (String folder : folders) {
+            try {
+                List<CmsResource> resources = cms.readResources(folder, CmsResourceFilter.ALL.addRequireFile(), true);
+                for (CmsResource resource : resources) {
+                    CmsPublishedResource pubRes = new CmsPublishedResource(
+                        resource,
+                        -1,
+                        CmsResourceState.STATE_CHANGED);
+                    if (!updateResources.contains(pubRes)) {
+                        updateResources.add(pubRes);
+                    }
+                }
+            } catch (CmsException e) {
+                if (LOG.isWarnEnabled()) {
+                    LOG.warn(e.getLocalizedMessage(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Collects the folders of a publish list whose access control entries are changed by the publish job.<p>
+     *
+     * @param publishList the publish list
+     * @param projectId the id of the project which is published
+     */
+    private void collectFoldersWithChangedPermissions(CmsPublishList publishList, CmsUUID projectId) {
+
+        List<String> folders = new ArrayList<String>();
+        try {
+            CmsObject onlineCms = OpenCms.initCmsObject(m_adminCms);
+            onlineCms.getRequestContext().setSiteRoot("");
+            onlineCms.getRequestContext().setCurrentProject(onlineCms.readProject(CmsProject.ONLINE_PROJECT_ID));
+            CmsObject offlineCms = OpenCms.initCmsObject(onlineCms);
+            offlineCms.getRequestContext().setCurrentProject(offlineCms.readProject(projectId));
+            for (CmsResource folder : publishList.getFolderList()) {
+                if (!folder.getState().isChanged()) {
+                    // new folders have no indexed descendants, deleted ones are removed from the index anyway
+                    continue;
+                }
+                String rootPath = folder.getRootPath();
+                try {
+                    if (hasChangedPermissions(
+                        offlineCms.getAccessControlEntries(rootPath, false),
+                        onlineCms.getAccessControlEntries(rootPath, false))) {
+                        folders.add(rootPath);
+                    }
+                } catch (CmsException e) {
+                    // the folder may have been moved, check all its descendants to be safe
+                    LOG.debug(e.getLocalizedMessage(), e);
+                    folders.add(rootPath);
+                }
+            }
+        } catch (CmsException e) {
+            LOG.error(e.getLocalizedMessage(), e);
+        }
+        if (!folders.isEmpty()) {
+            m_foldersWithChangedPermissions.put(publishList.getPublishHistoryId(), folders);
+        }
+    }
+
     /**
      * Creates the Solr core container.<p>
      *
@@ -48,6 +48,9 @@ import java.util.List;
  * On the other hand, the MIME type <code>.html</code> in OpenCms can be almost any resource type,
  * like <code>xmlpage</code>, <code>xmlcontent</code> or even <code>jsp</code>.<p>
  *
+ * If the search configuration sets <code>indexingThreads</code> to a value greater than 1, the factories are
+ * used by several indexing threads at the same time and must be thread safe.<p>
+ *
  * @since 6.0.0
  */
 public interface I_CmsDocumentFactory extends I_CmsSearchExtractor {
@@ -146,6 +146,9 @@ public class CmsSearchField implements Serializable {
      */
     public static final String FIELD_PRIORITY = "priority";
 
+    /** Name of the field that contains the ids of the principals granted read permission on the document. */
+    public static final String FIELD_READ_PRINCIPALS = "read_principals";
+
     /** Name of the field that contains the resource locales of the document. */
     public static final String FIELD_RESOURCE_LOCALES = "res_locales";
 
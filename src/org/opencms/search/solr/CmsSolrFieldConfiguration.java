@@ -55,7 +55,11 @@ import org.opencms.search.fields.CmsSearchFieldConfiguration;
 import org.opencms.search.fields.CmsSearchFieldMapping;
 import org.opencms.search.fields.CmsSearchFieldMappingType;
 import org.opencms.search.fields.I_CmsSearchFieldMapping;
+import org.opencms.security.CmsAccessControlList;
+import org.opencms.security.CmsPermissionSet;
+import org.opencms.security.CmsPermissionSetCustom;
 import org.opencms.util.CmsStringUtil;
+import org.opencms.util.CmsUUID;
 import org.opencms.xml.CmsXmlContentDefinition;
 import org.opencms.xml.containerpage.CmsContainerElementBean;
 import org.opencms.xml.containerpage.CmsContainerPageBean;
@@ -226,6 +230,11 @@ public class CmsSolrFieldConfiguration extends CmsSearchFieldConfiguration {
             document.addSearchField(m_solrFields.get(CmsSearchField.FIELD_SEARCH_CHANNEL), "content");
         }
 
+        // index the principals that may read the resource, used to pre-filter search results by permission
+        for (String principal : getReadPrincipals(cms, resource)) {
+            document.addSearchField(m_solrFields.get(CmsSearchField.FIELD_READ_PRINCIPALS), principal);
+        }
+
         return document;
     }
 
@@ -639,6 +648,35 @@ public class CmsSolrFieldConfiguration extends CmsSearchFieldConfiguration {
         return result;
     }
 
+    /**
+     * Returns the ids of all principals that are granted read permission on the given resource.<p>
+     *
+     * The result contains every principal whose access control entry allows reading,
+     * including the "all others" principal. Since denied permissions of other principals are not considered,
+     * the result is a superset of the principals that can actually read the resource.
+     * An empty list is returned if the access control list can not be read.<p>
+     *
+     * @param cms the current CMS context
+     * @param resource the resource to get the read principals for
+     *
+     * @return the ids of all principals that are granted read permission
+     */
+    protected List<String> getReadPrincipals(CmsObject cms, CmsResource resource) {
+
+        List<String> result = new ArrayList<String>();
+        try {
+            CmsAccessControlList acl = cms.getAccessControlList(cms.getSitePath(resource));
+            for (Map.Entry<CmsUUID, CmsPermissionSetCustom> entry : acl.getPermissionMap().entrySet()) {
+                if ((entry.getValue().getPermissions() & CmsPermissionSet.PERMISSION_READ) > 0) {
+                    result.add(entry.getKey().toString());
+                }
+            }
+        } catch (CmsException e) {
+            LOG.warn(e.getLocalizedMessage(), e);
+        }
+        return result;
+    }
+
     /**
      * Returns the search field mappings declared within the XSD.<p>
      *
@@ -740,6 +778,9 @@ public class CmsSolrFieldConfiguration extends CmsSearchFieldConfiguration {
         sfield = new CmsSolrField(CmsSearchField.FIELD_SEARCH_CHANNEL, null, null, null, 0);
         m_solrFields.put(sfield.getName(), sfield);
 
+        sfield = new CmsSolrField(CmsSearchField.FIELD_READ_PRINCIPALS, null, null, null, 0);
+        m_solrFields.put(sfield.getName(), sfield);
+
         /*
          * Fields with mapping
          */
@@ -33,10 +33,12 @@ package org.opencms.search.solr;
 
 import org.opencms.configuration.CmsConfigurationException;
 import org.opencms.configuration.CmsParameterConfiguration;
+import org.opencms.file.CmsGroup;
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsProject;
 import org.opencms.file.CmsResource;
 import org.opencms.file.CmsResourceFilter;
+import org.opencms.file.CmsUser;
 import org.opencms.file.types.CmsResourceTypeXmlContainerPage;
 import org.opencms.file.types.CmsResourceTypeXmlContent;
 import org.opencms.i18n.CmsEncoder;
@@ -60,6 +62,7 @@ import org.opencms.search.fields.CmsSearchField;
 import org.opencms.search.galleries.CmsGallerySearchParameters;
 import org.opencms.search.galleries.CmsGallerySearchResult;
 import org.opencms.search.galleries.CmsGallerySearchResultList;
+import org.opencms.security.CmsAccessControlEntry;
 import org.opencms.security.CmsRole;
 import org.opencms.security.CmsRoleViolationException;
 import org.opencms.util.CmsRequestUtil;
@@ -74,6 +77,8 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.servlet.ServletResponse;
 
@@ -81,6 +86,7 @@ import org.apache.commons.logging.Log;
 import org.apache.lucene.index.Term;
 import org.apache.solr.client.solrj.SolrClient;
 import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.SolrServerException;
 import org.apache.solr.client.solrj.embedded.EmbeddedSolrServer;
 import org.apache.solr.client.solrj.response.QueryResponse;
 import org.apache.solr.common.SolrDocument;
@@ -169,14 +175,26 @@ public class CmsSolrIndex extends CmsSearchIndex {
     private static final Charset UTF8 = Charset.forName("UTF-8");
 
     /** The embedded Solr client for this index. */
-    SolrClient m_solr;
+    volatile SolrClient m_solr;
 
-    /** The post document manipulator. */
-    private I_CmsSolrPostSearchProcessor m_postProcessor;
+    /** The number of searches currently executed. */
+    private AtomicInteger m_activeSearches = new AtomicInteger();
 
     /** The core name for the index. */
     private String m_coreName;
 
+    /** The maximum number of searches executed at the same time. */
+    private AtomicInteger m_maxActiveSearches = new AtomicInteger();
+
+    /** The post document manipulator. */
+    private I_CmsSolrPostSearchProcessor m_postProcessor;
+
+    /** The number of executed searches. */
+    private AtomicLong m_searchCount = new AtomicLong();
+
+    /** The total time spent on executing searches. */
+    private AtomicLong m_searchTime = new AtomicLong();
+
     /**
      * Default constructor.<p>
      */
@@ -304,6 +322,27 @@ public class CmsSolrIndex extends CmsSearchIndex {
         return resultList;
     }
 
+    /**
+     * Returns the number of searches which are currently executed on this index.<p>
+     *
+     * @return the number of searches which are currently executed on this index
+     */
+    public int getActiveSearchCount() {
+
+        return m_activeSearches.get();
+    }
+
+    /**
+     * Returns the average time in milliseconds of the searches executed on this index.<p>
+     *
+     * @return the average time in milliseconds of the searches executed on this index
+     */
+    public long getAverageSearchTime() {
+
+        long count = m_searchCount.get();
+        return count == 0 ? 0 : m_searchTime.get() / count;
+    }
+
     /**
      * @see org.opencms.search.CmsSearchIndex#getConfiguration()
      */
@@ -332,7 +371,7 @@ public class CmsSolrIndex extends CmsSearchIndex {
      * @see org.opencms.search.CmsSearchIndex#getDocument(java.lang.String, java.lang.String)
      */
     @Override
-    public synchronized I_CmsSearchDocument getDocument(String fieldname, String term) {
+    public I_CmsSearchDocument getDocument(String fieldname, String term) {
 
         try {
             SolrQuery query = new SolrQuery();
@@ -341,9 +380,10 @@ public class CmsSolrIndex extends CmsSearchIndex {
             } else {
                 query.setQuery(fieldname + ":" + term);
             }
+            query.setRows(Integer.valueOf(1));
             QueryResponse res = m_solr.query(query);
             if (res != null) {
-                SolrDocumentList sdl = m_solr.query(query).getResults();
+                SolrDocumentList sdl = res.getResults();
                 if ((sdl.getNumFound() > 0L) && (sdl.get(0) != null)) {
                     return new CmsSolrDocument(sdl.get(0));
                 }
@@ -406,6 +446,16 @@ public class CmsSolrIndex extends CmsSearchIndex {
         return result;
     }
 
+    /**
+     * Returns the maximum number of searches which have been executed on this index at the same time.<p>
+     *
+     * @return the maximum number of searches which have been executed on this index at the same time
+     */
+    public int getMaxActiveSearchCount() {
+
+        return m_maxActiveSearches.get();
+    }
+
     /**
      * Returns the search post processor.<p>
      *
@@ -416,6 +466,16 @@ public class CmsSolrIndex extends CmsSearchIndex {
         return m_postProcessor;
     }
 
+    /**
+     * Returns the number of searches executed on this index.<p>
+     *
+     * @return the number of searches executed on this index
+     */
+    public long getSearchCount() {
+
+        return m_searchCount.get();
+    }
+
     /**
      * @see org.opencms.search.CmsSearchIndex#initialize()
      */
@@ -453,7 +513,7 @@ public class CmsSolrIndex extends CmsSearchIndex {
      */
     @Override
     @Deprecated
-    public synchronized CmsSearchResultList search(CmsObject cms, CmsSearchParameters params) {
+    public CmsSearchResultList search(CmsObject cms, CmsSearchParameters params) {
 
         throw new UnsupportedOperationException();
     }
@@ -582,15 +642,22 @@ public class CmsSolrIndex extends CmsSearchIndex {
         if (!ignoreSearchExclude) {
             query.addFilterQuery(CmsSearchField.FIELD_SEARCH_EXCLUDE + ":\"false\"");
         }
+        String permissionFilter = createPermissionFilterQuery(cms);
+        if (permissionFilter != null) {
+            query.addFilterQuery(permissionFilter);
+        }
 
         int previousPriority = Thread.currentThread().getPriority();
         long startTime = System.currentTimeMillis();
+        // use the same Solr client for the complete search, even if the client of the index is replaced meanwhile
+        SolrClient solr = m_solr;
 
         // remember the initial query
         SolrQuery initQuery = query.clone();
 
         query.setHighlight(false);
         LocalSolrQueryRequest solrQueryRequest = null;
+        searchStarted();
         try {
 
             // initialize the search context
@@ -617,12 +684,14 @@ public class CmsSolrIndex extends CmsSearchIndex {
                 page = Math.round(start / rows) + 1;
             }
 
-            // set the start to '0' and expand the rows before performing the query
+            // set the start to '0' and only fetch the documents up to the requested page,
+            // if the permission check removes documents, further documents are fetched on demand
             query.setStart(new Integer(0));
-            query.setRows(new Integer((5 * rows * page) + start));
+            query.setRows(new Integer(start + rows));
 
             // perform the Solr query and remember the original Solr response
-            QueryResponse queryResponse = m_solr.query(query);
+            QueryResponse queryResponse = solr.query(query);
+            SolrDocumentList results = queryResponse.getResults();
             long solrTime = System.currentTimeMillis() - startTime;
 
             // initialize the counts
@@ -644,17 +713,20 @@ public class CmsSolrIndex extends CmsSearchIndex {
             long visibleHitCount = hitCount;
             float maxScore = 0;
 
-            // If we're using a postprocessor, (re-)initialize it before using it
-            if (m_postProcessor != null) {
-                m_postProcessor.init();
-            }
+            // use a separate post processor for each search, unless the post processor is thread safe
+            I_CmsSolrPostSearchProcessor postProcessor = createPostProcessor();
 
             // process found documents
             List<CmsSearchResource> allDocs = new ArrayList<CmsSearchResource>();
             int cnt = 0;
-            for (int i = 0; (i < queryResponse.getResults().size()) && (cnt < end); i++) {
+            for (int i = 0; cnt < end; i++) {
+                if ((i >= results.size())
+                    && ((rows < 1) || (results.size() >= hitCount) || !fetchNextDocuments(solr, query, results))) {
+                    // no more documents available
+                    break;
+                }
                 try {
-                    SolrDocument doc = queryResponse.getResults().get(i);
+                    SolrDocument doc = results.get(i);
                     CmsSolrDocument searchDoc = new CmsSolrDocument(doc);
                     if (needsPermissionCheck(searchDoc)) {
                         // only if the document is an OpenCms internal resource perform the permission check
@@ -664,8 +736,8 @@ public class CmsSolrIndex extends CmsSearchIndex {
                         if (resource != null) {
                             // permission check performed successfully: the user has read permissions!
                             if (cnt >= start) {
-                                if (m_postProcessor != null) {
-                                    doc = m_postProcessor.process(
+                                if (postProcessor != null) {
+                                    doc = postProcessor.process(
                                         searchCms,
                                         resource,
                                         (SolrInputDocument)searchDoc.getDocument());
@@ -724,8 +796,8 @@ public class CmsSolrIndex extends CmsSearchIndex {
                 queryResponse.getResponseHeader().indexOf(QUERY_TIME_NAME, 0),
                 new Integer(new Long(System.currentTimeMillis() - startTime).intValue()));
             long highlightEndTime = System.currentTimeMillis();
-            SolrCore core = m_solr instanceof EmbeddedSolrServer
-            ? ((EmbeddedSolrServer)m_solr).getCoreContainer().getCore(getCoreName())
+            SolrCore core = solr instanceof EmbeddedSolrServer
+            ? ((EmbeddedSolrServer)solr).getCoreContainer().getCore(getCoreName())
             : null;
             CmsSolrResultList result = null;
             try {
@@ -867,6 +939,7 @@ public class CmsSolrIndex extends CmsSearchIndex {
             }
             // re-set thread to previous priority
             Thread.currentThread().setPriority(previousPriority);
+            searchFinished(startTime);
         }
 
     }
@@ -905,6 +978,30 @@ public class CmsSolrIndex extends CmsSearchIndex {
         return search(cms, new CmsSolrQuery(null, CmsRequestUtil.createParameterMap(solrQuery)), false);
     }
 
+    /**
+     * Updates the search statistics after a search has been finished.<p>
+     *
+     * @param startTime the start time of the search
+     */
+    private void searchFinished(long startTime) {
+
+        m_activeSearches.decrementAndGet();
+        m_searchCount.incrementAndGet();
+        m_searchTime.addAndGet(System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * Updates the search statistics before a search is started.<p>
+     */
+    private void searchStarted() {
+
+        int active = m_activeSearches.incrementAndGet();
+        int max = m_maxActiveSearches.get();
+        while ((active > max) && !m_maxActiveSearches.compareAndSet(max, active)) {
+            max = m_maxActiveSearches.get();
+        }
+    }
+
     /**
      * Writes the response into the writer.<p>
      *
@@ -943,10 +1040,16 @@ public class CmsSolrIndex extends CmsSearchIndex {
     /**
      * Sets the search post processor.<p>
      *
+     * Each search uses its own instance of the post processor. Only a post processor which implements
+     * {@link I_CmsSolrThreadSafePostSearchProcessor} is initialized once and shared by all searches.<p>
+     *
      * @param postProcessor the search post processor to set
      */
     public void setPostProcessor(I_CmsSolrPostSearchProcessor postProcessor) {
 
+        if (postProcessor instanceof I_CmsSolrThreadSafePostSearchProcessor) {
+            postProcessor.init();
+        }
         m_postProcessor = postProcessor;
     }
 
@@ -973,14 +1076,16 @@ public class CmsSolrIndex extends CmsSearchIndex {
 
         SolrCore core = null;
         LocalSolrQueryRequest solrQueryRequest = null;
+        SolrClient solr = m_solr;
         try {
             q.setRequestHandler("/spell");
 
-            QueryResponse queryResponse = m_solr.query(q);
+            QueryResponse queryResponse = solr.query(q);
 
             List<CmsSearchResource> resourceDocumentList = new ArrayList<CmsSearchResource>();
             SolrDocumentList solrDocumentList = new SolrDocumentList();
-            if (m_postProcessor != null) {
+            I_CmsSolrPostSearchProcessor postProcessor = createPostProcessor();
+            if (postProcessor != null) {
                 for (int i = 0; (i < queryResponse.getResults().size()); i++) {
                     try {
                         SolrDocument doc = queryResponse.getResults().get(i);
@@ -990,8 +1095,8 @@ public class CmsSolrIndex extends CmsSearchIndex {
                             CmsResource resource = getResource(cms, searchDoc);
                             if (resource != null) {
                                 // permission check performed successfully: the user has read permissions!
-                                if (m_postProcessor != null) {
-                                    doc = m_postProcessor.process(
+                                if (postProcessor != null) {
+                                    doc = postProcessor.process(
                                         cms,
                                         resource,
                                         (SolrInputDocument)searchDoc.getDocument());
@@ -1011,8 +1116,8 @@ public class CmsSolrIndex extends CmsSearchIndex {
             }
 
             // create and return the result
-            core = m_solr instanceof EmbeddedSolrServer
-            ? ((EmbeddedSolrServer)m_solr).getCoreContainer().getCore(getCoreName())
+            core = solr instanceof EmbeddedSolrServer
+            ? ((EmbeddedSolrServer)solr).getCoreContainer().getCore(getCoreName())
             : null;
 
             SolrQueryResponse solrQueryResponse = new SolrQueryResponse();
@@ -1162,6 +1267,110 @@ public class CmsSolrIndex extends CmsSearchIndex {
         }
     }
 
+    /**
+     * Creates the filter query that restricts the search result to documents the current user may read.<p>
+     *
+     * The filter matches all documents where the user itself, one of its groups or roles, or the
+     * "all others" principal is granted read permission. Documents indexed without principals are always matched.
+     * Since the filter may still match documents the user can not read, the permission check on the
+     * found resources is performed nevertheless.<p>
+     *
+     * @param cms the current OpenCms context
+     *
+     * @return the filter query, or <code>null</code> if no filter is required
+     */
+    private String createPermissionFilterQuery(CmsObject cms) {
+
+        if (!isCheckingPermissions()) {
+            return null;
+        }
+        try {
+            if (!OpenCms.getRoleManager().getOrgUnitsForRole(cms, CmsRole.VFS_MANAGER.forOrgUnit(""), true).isEmpty()) {
+                // users that may ignore permissions are not restricted
+                return null;
+            }
+            CmsUser user = cms.getRequestContext().getCurrentUser();
+            StringBuffer filter = new StringBuffer(256);
+            filter.append(CmsSearchField.FIELD_READ_PRINCIPALS).append(":(\"");
+            filter.append(CmsAccessControlEntry.PRINCIPAL_ALL_OTHERS_ID).append('"');
+            filter.append(" OR \"").append(user.getId()).append('"');
+            for (CmsGroup group : cms.getGroupsOfUser(user.getName(), false)) {
+                filter.append(" OR \"").append(group.getId()).append('"');
+            }
+            if (!user.isGuestUser()) {
+                for (CmsRole role : OpenCms.getRoleManager().getRolesOfUser(
+                    cms,
+                    user.getName(),
+                    "",
+                    true,
+                    false,
+                    true)) {
+                    filter.append(" OR \"").append(role.getId()).append('"');
+                }
+            }
+            filter.append(") OR (*:* -").append(CmsSearchField.FIELD_READ_PRINCIPALS).append(":[* TO *])");
+            return filter.toString();
+        } catch (CmsException e) {
+            // without a filter the permission check on the found resources is still performed
+            LOG.warn(e.getLocalizedMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Creates the post processor to use for a single search.<p>
+     *
+     * Since post processors may keep state between {@link I_CmsSolrPostSearchProcessor#init()} and
+     * the processing of the documents, each search uses its own instance of the configured post processor.
+     * Post processors which implement {@link I_CmsSolrThreadSafePostSearchProcessor} are shared instead.<p>
+     *
+     * @return the initialized post processor, or <code>null</code> if no post processor is configured
+     */
+    private I_CmsSolrPostSearchProcessor createPostProcessor() {
+
+        I_CmsSolrPostSearchProcessor postProcessor = m_postProcessor;
+        if ((postProcessor == null) || (postProcessor instanceof I_CmsSolrThreadSafePostSearchProcessor)) {
+            return postProcessor;
+        }
+        try {
+            postProcessor = postProcessor.getClass().newInstance();
+        } catch (Exception e) {
+            // the post processor can not be instantiated, use the configured instance
+            LOG.warn(e.getLocalizedMessage(), e);
+        }
+        postProcessor.init();
+        return postProcessor;
+    }
+
+    /**
+     * Fetches the documents following the given results and appends them to the results.<p>
+     *
+     * The number of fetched documents equals the number of documents already fetched,
+     * such that the number of additional queries grows only logarithmically with the number of
+     * documents removed by the permission check.<p>
+     *
+     * @param solr the Solr client to use
+     * @param query the query to fetch further documents for
+     * @param results the documents fetched so far
+     *
+     * @return <code>true</code> if further documents have been fetched
+     *
+     * @throws IOException if communicating with the Solr server fails
+     * @throws SolrServerException if the query fails
+     */
+    private boolean fetchNextDocuments(SolrClient solr, SolrQuery query, SolrDocumentList results)
+    throws SolrServerException, IOException {
+
+        SolrQuery nextQuery = query.getCopy();
+        // facets are already part of the initial response
+        nextQuery.setFacet(false);
+        nextQuery.setStart(Integer.valueOf(results.size()));
+        nextQuery.setRows(Integer.valueOf(Math.max(results.size(), CmsSolrQuery.DEFAULT_ROWS.intValue())));
+        SolrDocumentList nextResults = solr.query(nextQuery).getResults();
+        results.addAll(nextResults);
+        return !nextResults.isEmpty();
+    }
+
     /**
      * Generates a valid core name from the provided name (the index name).
      * @param name the index name.
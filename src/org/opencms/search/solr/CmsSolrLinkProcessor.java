@@ -42,8 +42,10 @@ import org.apache.solr.common.SolrInputDocument;
 /**
  * This Solr post processor generates for each found document the corresponding link and
  * adds this link into the resulting document as field.<p>
+ *
+ * The link processor keeps no state, so it is shared by all searches of an index.<p>
  */
-public class CmsSolrLinkProcessor implements I_CmsSolrPostSearchProcessor {
+public class CmsSolrLinkProcessor implements I_CmsSolrThreadSafePostSearchProcessor {
 
     /**
      * @see org.opencms.search.solr.I_CmsSolrPostSearchProcessor#process(org.opencms.file.CmsObject, org.opencms.file.CmsResource, org.apache.solr.common.SolrInputDocument)
@@ -45,12 +45,19 @@ import org.apache.solr.common.SolrInputDocument;
  * NOTE: Currently it is only possible to use this interface
  * if you run an embedded Solr server instance.<p>
  *
+ * Searches run in parallel, so each search creates its own instance of the post processor with the
+ * default constructor and initializes it with {@link #init()}. Post processors which are thread safe
+ * can implement {@link I_CmsSolrThreadSafePostSearchProcessor} to be initialized once and shared instead.<p>
+ *
  * @since 8.5.0
  */
 public interface I_CmsSolrPostSearchProcessor {
 
     /**
      * (Re-)Initializes the post processor.<p>
+     *
+     * This is called at the start of every search, unless the post processor implements
+     * {@link I_CmsSolrThreadSafePostSearchProcessor}.<p>
      */
     void init();
 
@@ -82,8 +82,8 @@ public final class CmsSiteManagerImpl {
     /** The length of the "/sites/" folder plus 1. */
     private static final int SITES_FOLDER_POS = SITES_FOLDER.length() + 1;
 
-    /** A list of additional site roots, that is site roots that are not below the "/sites/" folder. */
-    private List<String> m_additionalSiteRoots;
+    /** The additional site roots, that is site roots that are not below the "/sites/" folder. */
+    private volatile CmsSiteRootPrefixTree m_additionalSiteRoots;
 
     /**
      * The list of aliases for the site that is configured at the moment,
@@ -102,8 +102,8 @@ public final class CmsSiteManagerImpl {
     /** The shared folder name. */
     private String m_sharedFolder;
 
-    /** Contains all configured site matchers in a list for direct access. */
-    private List<CmsSiteMatcher> m_siteMatchers;
+    /** Contains all configured site matchers, by their normalized scheme, server name and port. */
+    private CmsSiteMatcherIndex m_siteMatchers;
 
     /** Maps site matchers to sites. */
     private Map<CmsSiteMatcher, CmsSite> m_siteMatcherSites;
@@ -130,7 +130,7 @@ public final class CmsSiteManagerImpl {
         m_siteRootSites = new HashMap<String, CmsSite>();
         m_aliases = new ArrayList<CmsSiteMatcher>();
         m_siteParams = new TreeMap<String, String>();
-        m_additionalSiteRoots = new ArrayList<String>();
+        m_additionalSiteRoots = new CmsSiteRootPrefixTree(Collections.<String> emptyList());
         m_workplaceServers = new ArrayList<String>();
         m_workplaceMatchers = new ArrayList<CmsSiteMatcher>();
 
@@ -699,6 +699,9 @@ public final class CmsSiteManagerImpl {
      * Returns the map of configured sites, using
      * {@link CmsSiteMatcher} objects as keys and {@link CmsSite} objects as values.<p>
      *
+     * The map is replaced whenever the site configuration changes, so the returned maps
+     * can be compared by identity to detect configuration changes.<p>
+     *
      * @return the map of configured sites, using {@link CmsSiteMatcher}
      *      objects as keys and {@link CmsSite} objects as values
      */
@@ -839,11 +842,13 @@ public final class CmsSiteManagerImpl {
             setSiteMatcherSites(m_siteMatcherSites);
 
             // store additional site roots to optimize lookups later
+            List<String> additionalSiteRoots = new ArrayList<String>();
             for (String root : m_siteRootSites.keySet()) {
                 if (!root.startsWith(SITES_FOLDER)) {
-                    m_additionalSiteRoots.add(root);
+                    additionalSiteRoots.add(root);
                 }
             }
+            m_additionalSiteRoots = new CmsSiteRootPrefixTree(additionalSiteRoots);
 
             // initialization is done, set the frozen flag to true
             m_frozen = true;
@@ -1101,6 +1106,8 @@ public final class CmsSiteManagerImpl {
         m_frozen = false;
         setDefaultUri(clone.readResource(defaulrUri).getRootPath());
         setSharedFolder(clone.readResource(sharedFolder).getRootPath());
+        // replace the site map, so that the change of the site configuration can be detected
+        setSiteMatcherSites(new HashMap<CmsSiteMatcher, CmsSite>(m_siteMatcherSites));
         m_frozen = true;
     }
 
@@ -1176,30 +1183,21 @@ public final class CmsSiteManagerImpl {
     private CmsSiteMatcher getRequestMatcher(HttpServletRequest req) {
 
         CmsSiteMatcher matcher = new CmsSiteMatcher(req.getScheme(), req.getServerName(), req.getServerPort());
-        // this is required to get the right configured time offset
-        int index = m_siteMatchers.indexOf(matcher);
-        if (index < 0) {
-            return matcher;
-        }
-        return m_siteMatchers.get(index);
+        // return the configured matcher if possible, this is required to get the right configured time offset
+        CmsSiteMatcher configuredMatcher = m_siteMatchers.get(matcher);
+        return configuredMatcher != null ? configuredMatcher : matcher;
     }
 
     /**
-     * Returns <code>true</code> if the given root path matches any of the stored additional sites.<p>
+     * Returns the longest of the stored additional site roots which matches the given root path.<p>
      *
      * @param rootPath the root path to check
      *
-     * @return <code>true</code> if the given root path matches any of the stored additional sites
+     * @return the matching additional site root, or <code>null</code> if no additional site root matches
      */
     private String lookupAdditionalSite(String rootPath) {
 
-        for (int i = 0, size = m_additionalSiteRoots.size(); i < size; i++) {
-            String siteRoot = m_additionalSiteRoots.get(i);
-            if (rootPath.startsWith(siteRoot)) {
-                return siteRoot;
-            }
-        }
-        return null;
+        return m_additionalSiteRoots.getSiteRoot(rootPath);
     }
 
     /**
@@ -1231,6 +1229,6 @@ public final class CmsSiteManagerImpl {
     private void setSiteMatcherSites(Map<CmsSiteMatcher, CmsSite> siteMatcherSites) {
 
         m_siteMatcherSites = Collections.unmodifiableMap(siteMatcherSites);
-        m_siteMatchers = Collections.unmodifiableList(new ArrayList<CmsSiteMatcher>(m_siteMatcherSites.keySet()));
+        m_siteMatchers = new CmsSiteMatcherIndex(siteMatcherSites.keySet());
     }
 }
\ No newline at end of file
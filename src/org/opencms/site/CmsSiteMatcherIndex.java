@@ -0,0 +1,99 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.site;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable index of the configured site matchers, used for finding the configured matcher for a request.<p>
+ *
+ * The matchers are keyed by scheme, lower case server name and port, which is consistent with
+ * {@link CmsSiteMatcher#equals(Object)}, so server names are matched case insensitive.<p>
+ *
+ * @since 10.5.0
+ */
+public final class CmsSiteMatcherIndex {
+
+    /** The configured site matchers, by their index key. */
+    private final Map<String, CmsSiteMatcher> m_matchers;
+
+    /**
+     * Creates a new index for the given site matchers.<p>
+     *
+     * @param matchers the configured site matchers
+     */
+    public CmsSiteMatcherIndex(Collection<CmsSiteMatcher> matchers) {
+
+        m_matchers = new HashMap<String, CmsSiteMatcher>(matchers.size());
+        for (CmsSiteMatcher matcher : matchers) {
+            m_matchers.put(getKey(matcher), matcher);
+        }
+    }
+
+    /**
+     * Returns the configured site matcher which is equal to the given matcher.<p>
+     *
+     * The configured matcher carries the configured time offset, which a matcher created for a request does not.<p>
+     *
+     * @param matcher the matcher to look up, usually created for a request
+     *
+     * @return the configured site matcher, or <code>null</code> if no configured matcher is equal to the given one
+     */
+    public CmsSiteMatcher get(CmsSiteMatcher matcher) {
+
+        return m_matchers.get(getKey(matcher));
+    }
+
+    /**
+     * Returns the number of site matchers in this index.<p>
+     *
+     * @return the number of site matchers
+     */
+    public int size() {
+
+        return m_matchers.size();
+    }
+
+    /**
+     * Returns the index key of a site matcher.<p>
+     *
+     * @param matcher the site matcher
+     *
+     * @return the index key
+     */
+    private static String getKey(CmsSiteMatcher matcher) {
+
+        StringBuffer key = new StringBuffer(64);
+        key.append(matcher.getServerProtocol()).append("://");
+        key.append(matcher.getServerName().toLowerCase(Locale.ENGLISH)).append(':').append(matcher.getServerPort());
+        return key.toString();
+    }
+}
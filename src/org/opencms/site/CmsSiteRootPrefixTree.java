@@ -0,0 +1,139 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.site;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable prefix tree over site roots, used for finding the site root of a resource root path.<p>
+ *
+ * The tree is keyed by path segments, so a lookup only takes as many steps as the root path has segments,
+ * independent of the number of configured site roots.<p>
+ *
+ * @since 10.5.0
+ */
+public final class CmsSiteRootPrefixTree {
+
+    /**
+     * A node of the prefix tree.<p>
+     */
+    private static final class Node {
+
+        /** The child nodes, by path segment. */
+        final Map<String, Node> m_children = new HashMap<String, Node>(4);
+
+        /** The site root ending at this node, or null. */
+        String m_siteRoot;
+    }
+
+    /** The root node. */
+    private final Node m_root = new Node();
+
+    /** The number of site roots in the tree. */
+    private final int m_size;
+
+    /**
+     * Creates a new prefix tree for the given site roots.<p>
+     *
+     * @param siteRoots the site roots, with a leading but without a trailing slash
+     */
+    public CmsSiteRootPrefixTree(Collection<String> siteRoots) {
+
+        for (String siteRoot : siteRoots) {
+            Node node = m_root;
+            int start = 0;
+            int length = siteRoot.length();
+            while (start < length) {
+                int end = siteRoot.indexOf('/', start);
+                if (end < 0) {
+                    end = length;
+                }
+                if (end > start) {
+                    String segment = siteRoot.substring(start, end);
+                    Node child = node.m_children.get(segment);
+                    if (child == null) {
+                        child = new Node();
+                        node.m_children.put(segment, child);
+                    }
+                    node = child;
+                }
+                start = end + 1;
+            }
+            node.m_siteRoot = siteRoot;
+        }
+        m_size = siteRoots.size();
+    }
+
+    /**
+     * Returns the longest site root which is a prefix of the given root path,
+     * or <code>null</code> if no site root matches.<p>
+     *
+     * A site root only matches complete path segments, so <code>/foo</code> matches
+     * <code>/foo/bar/</code>, but not <code>/foobar/</code>.<p>
+     *
+     * @param rootPath the root path of a resource
+     *
+     * @return the longest matching site root, or <code>null</code>
+     */
+    public String getSiteRoot(String rootPath) {
+
+        Node node = m_root;
+        String result = node.m_siteRoot;
+        int start = 0;
+        int length = rootPath.length();
+        while (start < length) {
+            int end = rootPath.indexOf('/', start);
+            if (end < 0) {
+                end = length;
+            }
+            if (end > start) {
+                node = node.m_children.get(rootPath.substring(start, end));
+                if (node == null) {
+                    break;
+                }
+                if (node.m_siteRoot != null) {
+                    result = node.m_siteRoot;
+                }
+            }
+            start = end + 1;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of site roots in this tree.<p>
+     *
+     * @return the number of site roots
+     */
+    public int size() {
+
+        return m_size;
+    }
+}
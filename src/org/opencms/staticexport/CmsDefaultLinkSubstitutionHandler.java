@@ -130,6 +130,28 @@ public class CmsDefaultLinkSubstitutionHandler implements I_CmsLinkSubstitutionH
             return CmsWorkplace.getStaticResourceUri(link);
         }
 
+        CmsLinkSubstitutionCache linkCache = null;
+        CmsLinkSubstitutionCache.CacheKey linkCacheKey = null;
+        CmsLinkSubstitutionCache.CacheEntry linkCacheEntry = null;
+        if (cms.getRequestContext().getCurrentProject().isOnlineProject()
+            && (OpenCms.getRunLevel() >= OpenCms.RUNLEVEL_4_SERVLET_ACCESS)) {
+            // offline links are not cached, since they would have to be invalidated on every change
+            linkCache = OpenCms.getStaticExportManager().getLinkSubstitutionCache();
+        }
+        if (linkCache != null) {
+            linkCacheKey = linkCache.createKey(cms, link, siteRoot, targetDetailPage, forceSecure);
+            CmsLinkSubstitutionCache.CacheEntry cached = linkCache.get(linkCacheKey);
+            if (cached != null) {
+                if (cached.getOverrideSiteRoot() != null) {
+                    cms.getRequestContext().setAttribute(
+                        cached.getOverrideSiteRootAttribute(),
+                        cached.getOverrideSiteRoot());
+                }
+                return cached.getLink();
+            }
+            linkCacheEntry = linkCache.createEntry(cms);
+        }
+
         // make sure we have an absolute link
         String absoluteLink = CmsLinkManager.getAbsoluteUri(link, cms.getRequestContext().getUri());
         String overrideSiteRoot = null;
@@ -181,6 +203,9 @@ public class CmsDefaultLinkSubstitutionHandler implements I_CmsLinkSubstitutionH
             } else {
                 rootVfsName = vfsName;
             }
+            if (linkCacheEntry != null) {
+                linkCacheEntry.setTargetRootPath(rootVfsName);
+            }
             if (!rootVfsName.startsWith(CmsWorkplace.VFS_PATH_WORKPLACE)) {
                 // never use the ADE manager for workplace links, to be sure the workplace stays usable in case of configuration errors
                 I_CmsDetailPageFinder finder = OpenCms.getADEManager().getDetailPageFinder();
@@ -201,6 +226,9 @@ public class CmsDefaultLinkSubstitutionHandler implements I_CmsLinkSubstitutionH
                     cms.getRequestContext().setSiteRoot("");
                     CmsResource element = cms.readResource(rootVfsName, CmsResourceFilter.IGNORE_EXPIRATION);
                     detailContent = element;
+                    if (linkCacheEntry != null) {
+                        linkCacheEntry.setDetailContentId(element.getStructureId());
+                    }
                     Locale locale = cms.getRequestContext().getLocale();
                     List<Locale> defaultLocales = OpenCms.getLocaleManager().getDefaultLocales();
                     vfsName = CmsStringUtil.joinPaths(
@@ -210,6 +238,9 @@ public class CmsDefaultLinkSubstitutionHandler implements I_CmsLinkSubstitutionH
 
                 } catch (CmsVfsException e) {
                     LOG.error(e.getLocalizedMessage(), e);
+                    if (linkCacheEntry != null) {
+                        linkCacheEntry.setUncacheable();
+                    }
                 } finally {
                     cms.getRequestContext().setSiteRoot(originalSiteRoot);
 
@@ -219,6 +250,9 @@ public class CmsDefaultLinkSubstitutionHandler implements I_CmsLinkSubstitutionH
             LOG.info(e.getLocalizedMessage(), e);
         } catch (CmsException e) {
             LOG.error(e.getLocalizedMessage(), e);
+            if (linkCacheEntry != null) {
+                linkCacheEntry.setUncacheable();
+            }
         }
 
         // if the link points to another site, there needs to be a server prefix
@@ -398,7 +432,15 @@ public class CmsDefaultLinkSubstitutionHandler implements I_CmsLinkSubstitutionH
             cms.getRequestContext().setAttribute(OVERRIDE_SITEROOT_PREFIX + resultLink, overrideSiteRoot);
         }
 
-        return serverPrefix.concat(resultLink);
+        String result = serverPrefix.concat(resultLink);
+        if (linkCacheEntry != null) {
+            if (overrideSiteRoot != null) {
+                linkCacheEntry.setOverrideSiteRoot(OVERRIDE_SITEROOT_PREFIX + resultLink, overrideSiteRoot);
+            }
+            linkCacheEntry.setLink(result);
+            linkCache.put(linkCacheKey, linkCacheEntry);
+        }
+        return result;
     }
 
     /**
@@ -0,0 +1,537 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.staticexport;
+
+import org.opencms.db.CmsPublishedResource;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsRequestContext;
+import org.opencms.file.CmsResource;
+import org.opencms.main.OpenCms;
+import org.opencms.monitor.CmsCacheStatistics;
+import org.opencms.monitor.CmsMemoryMonitor;
+import org.opencms.util.CmsUUID;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cache for the links generated by {@link CmsDefaultLinkSubstitutionHandler} in the Online project.<p>
+ *
+ * The cache key contains all parts of the request context which are used for generating a link.
+ * Every entry remembers the root paths and the detail content the link depends on, so that after publishing
+ * only the entries affected by the published resources are removed. All entries become invalid as soon as
+ * the site configuration changes, and entries for detail page links also when the ADE configuration changes.<p>
+ *
+ * @since 10.5.0
+ */
+public class CmsLinkSubstitutionCache {
+
+    /**
+     * Immutable key for the link cache.<p>
+     */
+    public static final class CacheKey {
+
+        /** The detail content id of the request context. */
+        private final CmsUUID m_detailContentId;
+
+        /** The flag to force secure links. */
+        private final boolean m_forceSecure;
+
+        /** The value of the request context attribute for image links. */
+        private final boolean m_imageLink;
+
+        /** The precomputed hash code. */
+        private final int m_hashCode;
+
+        /** The link to substitute. */
+        private final String m_link;
+
+        /** The locale of the request context. */
+        private final Locale m_locale;
+
+        /** The secure request flag of the request context. */
+        private final boolean m_secureRequest;
+
+        /** The site root of the request context. */
+        private final String m_siteRoot;
+
+        /** The target detail page. */
+        private final String m_targetDetailPage;
+
+        /** The target site root. */
+        private final String m_targetSiteRoot;
+
+        /** The URI of the request context. */
+        private final String m_uri;
+
+        /** The id of the current user. */
+        private final CmsUUID m_userId;
+
+        /**
+         * Creates a new key.<p>
+         *
+         * @param cms the current CMS context
+         * @param link the link to substitute
+         * @param targetSiteRoot the target site root
+         * @param targetDetailPage the target detail page
+         * @param forceSecure the flag to force secure links
+         */
+        CacheKey(CmsObject cms, String link, String targetSiteRoot, String targetDetailPage, boolean forceSecure) {
+
+            CmsRequestContext context = cms.getRequestContext();
+            m_link = link;
+            m_targetSiteRoot = targetSiteRoot;
+            m_targetDetailPage = targetDetailPage;
+            m_forceSecure = forceSecure;
+            m_siteRoot = context.getSiteRoot();
+            m_uri = context.getUri();
+            m_locale = context.getLocale();
+            m_secureRequest = context.isSecureRequest();
+            m_userId = context.getCurrentUser().getId();
+            m_detailContentId = context.getDetailContentId();
+            m_imageLink = Boolean.parseBoolean(
+                "" + context.getAttribute(CmsDefaultLinkSubstitutionHandler.ATTR_IS_IMAGE_LINK));
+
+            int hash = m_link.hashCode();
+            hash = (31 * hash) + hashCode(m_targetSiteRoot);
+            hash = (31 * hash) + hashCode(m_targetDetailPage);
+            hash = (31 * hash) + hashCode(m_siteRoot);
+            hash = (31 * hash) + hashCode(m_uri);
+            hash = (31 * hash) + hashCode(m_locale);
+            hash = (31 * hash) + m_userId.hashCode();
+            hash = (31 * hash) + hashCode(m_detailContentId);
+            hash = (31 * hash) + (m_forceSecure ? 1 : 0);
+            hash = (31 * hash) + (m_secureRequest ? 1 : 0);
+            m_hashCode = (31 * hash) + (m_imageLink ? 1 : 0);
+        }
+
+        /**
+         * Returns the hash code of an object which may be <code>null</code>.<p>
+         *
+         * @param obj the object
+         *
+         * @return the hash code, or 0 for <code>null</code>
+         */
+        private static int hashCode(Object obj) {
+
+            return obj != null ? obj.hashCode() : 0;
+        }
+
+        /**
+         * Compares two objects which may be <code>null</code>.<p>
+         *
+         * @param a the first object
+         * @param b the second object
+         *
+         * @return <code>true</code> if the objects are equal
+         */
+        private static boolean isEqual(Object a, Object b) {
+
+            return a == null ? b == null : a.equals(b);
+        }
+
+        /**
+         * @see java.lang.Object#equals(java.lang.Object)
+         */
+        @Override
+        public boolean equals(Object obj) {
+
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey other = (CacheKey)obj;
+            return (m_hashCode == other.m_hashCode)
+                && (m_forceSecure == other.m_forceSecure)
+                && (m_secureRequest == other.m_secureRequest)
+                && (m_imageLink == other.m_imageLink)
+                && m_link.equals(other.m_link)
+                && m_userId.equals(other.m_userId)
+                && isEqual(m_uri, other.m_uri)
+                && isEqual(m_siteRoot, other.m_siteRoot)
+                && isEqual(m_targetSiteRoot, other.m_targetSiteRoot)
+                && isEqual(m_targetDetailPage, other.m_targetDetailPage)
+                && isEqual(m_locale, other.m_locale)
+                && isEqual(m_detailContentId, other.m_detailContentId);
+        }
+
+        /**
+         * @see java.lang.Object#hashCode()
+         */
+        @Override
+        public int hashCode() {
+
+            return m_hashCode;
+        }
+    }
+
+    /**
+     * Entry of the link cache, which also stores what the link depends on.<p>
+     *
+     * The entry is filled while the link is generated, and must not be changed after it was added to the cache.<p>
+     */
+    public static final class CacheEntry {
+
+        /** False if the link should not be cached. */
+        private boolean m_cacheable = true;
+
+        /** The state of the ADE configuration when the link was generated. */
+        private final Object m_configState;
+
+        /** The structure id of the detail content, if the link points to a detail page. */
+        private CmsUUID m_detailContentId;
+
+        /** The generated link. */
+        private String m_link;
+
+        /** The site root which should be used for the server prefix of the link. */
+        private String m_overrideSiteRoot;
+
+        /** The name of the request context attribute for the override site root. */
+        private String m_overrideSiteRootAttribute;
+
+        /** The state of the site configuration when the link was generated. */
+        private final Object m_siteState;
+
+        /** The root path of the page the link was generated for. */
+        private final String m_sourceRootPath;
+
+        /** The root path of the link target. */
+        private String m_targetRootPath;
+
+        /**
+         * Creates a new entry.<p>
+         *
+         * @param configState the state of the ADE configuration
+         * @param siteState the state of the site configuration
+         * @param sourceRootPath the root path of the page the link is generated for
+         */
+        CacheEntry(Object configState, Object siteState, String sourceRootPath) {
+
+            m_configState = configState;
+            m_siteState = siteState;
+            m_sourceRootPath = sourceRootPath;
+        }
+
+        /**
+         * Returns the generated link.<p>
+         *
+         * @return the generated link
+         */
+        public String getLink() {
+
+            return m_link;
+        }
+
+        /**
+         * Returns the site root which should be used for the server prefix of the link.<p>
+         *
+         * @return the site root for the server prefix, or <code>null</code>
+         */
+        public String getOverrideSiteRoot() {
+
+            return m_overrideSiteRoot;
+        }
+
+        /**
+         * Returns the name of the request context attribute for the override site root.<p>
+         *
+         * @return the name of the request context attribute for the override site root
+         */
+        public String getOverrideSiteRootAttribute() {
+
+            return m_overrideSiteRootAttribute;
+        }
+
+        /**
+         * Sets the structure id of the detail content.<p>
+         *
+         * @param detailContentId the structure id of the detail content
+         */
+        public void setDetailContentId(CmsUUID detailContentId) {
+
+            m_detailContentId = detailContentId;
+        }
+
+        /**
+         * Sets the generated link.<p>
+         *
+         * @param link the generated link
+         */
+        public void setLink(String link) {
+
+            m_link = link;
+        }
+
+        /**
+         * Sets the site root which should be used for the server prefix of the link.<p>
+         *
+         * @param attribute the name of the request context attribute for the override site root
+         * @param overrideSiteRoot the site root for the server prefix
+         */
+        public void setOverrideSiteRoot(String attribute, String overrideSiteRoot) {
+
+            m_overrideSiteRootAttribute = attribute;
+            m_overrideSiteRoot = overrideSiteRoot;
+        }
+
+        /**
+         * Sets the root path of the link target.<p>
+         *
+         * @param targetRootPath the root path of the link target
+         */
+        public void setTargetRootPath(String targetRootPath) {
+
+            m_targetRootPath = targetRootPath;
+        }
+
+        /**
+         * Prevents that the link is cached, e.g. because an error occurred while generating it.<p>
+         */
+        public void setUncacheable() {
+
+            m_cacheable = false;
+        }
+    }
+
+    /** The default maximum number of cached links. */
+    public static final int DEFAULT_SIZE = 10000;
+
+    /** The cached links. */
+    private Map<CacheKey, CacheEntry> m_cache;
+
+    /** The statistics of this cache. */
+    private CmsCacheStatistics m_statistics;
+
+    /**
+     * Creates a new link cache.<p>
+     *
+     * @param size the maximum number of cached links
+     */
+    public CmsLinkSubstitutionCache(int size) {
+
+        m_cache = CmsMemoryMonitor.createLRUCacheMap(size);
+        m_statistics = new CmsCacheStatistics();
+    }
+
+    /**
+     * Checks if a path is one of the given paths or below one of the given folders.<p>
+     *
+     * @param path the path to check
+     * @param paths the paths
+     * @param folders the folder paths
+     *
+     * @return <code>true</code> if the path is affected
+     */
+    private static boolean isAffected(String path, Set<String> paths, Set<String> folders) {
+
+        if (path == null) {
+            return false;
+        }
+        if (paths.contains(path)) {
+            return true;
+        }
+        String parent = CmsResource.getParentFolder(path);
+        while (parent != null) {
+            if (folders.contains(parent)) {
+                return true;
+            }
+            parent = CmsResource.getParentFolder(parent);
+        }
+        return false;
+    }
+
+    /**
+     * Removes all cached links.<p>
+     */
+    public void clear() {
+
+        m_cache.clear();
+    }
+
+    /**
+     * Creates a new, empty cache entry for a link which is about to be generated.<p>
+     *
+     * @param cms the current CMS context
+     *
+     * @return the new cache entry
+     */
+    public CacheEntry createEntry(CmsObject cms) {
+
+        CmsRequestContext context = cms.getRequestContext();
+        return new CacheEntry(getConfigState(), getSiteState(), context.addSiteRoot(context.getUri()));
+    }
+
+    /**
+     * Creates the cache key for a link.<p>
+     *
+     * @param cms the current CMS context
+     * @param link the link to substitute
+     * @param siteRoot the target site root
+     * @param targetDetailPage the target detail page
+     * @param forceSecure the flag to force secure links
+     *
+     * @return the cache key
+     */
+    public CacheKey createKey(
+        CmsObject cms,
+        String link,
+        String siteRoot,
+        String targetDetailPage,
+        boolean forceSecure) {
+
+        return new CacheKey(cms, link, siteRoot, targetDetailPage, forceSecure);
+    }
+
+    /**
+     * Returns the cached entry for the given key.<p>
+     *
+     * @param key the cache key
+     *
+     * @return the cached entry, or <code>null</code> if no valid entry is cached
+     */
+    public CacheEntry get(CacheKey key) {
+
+        CacheEntry entry = m_cache.get(key);
+        if ((entry != null)
+            && ((entry.m_siteState != getSiteState())
+                || ((entry.m_detailContentId != null) && (entry.m_configState != getConfigState())))) {
+            // the sites or the detail pages may have changed
+            m_cache.remove(key);
+            entry = null;
+        }
+        if (entry == null) {
+            m_statistics.recordMiss();
+        } else {
+            m_statistics.recordHit();
+        }
+        return entry;
+    }
+
+    /**
+     * Returns the statistics of this cache.<p>
+     *
+     * @return the statistics of this cache
+     */
+    public CmsCacheStatistics getStatistics() {
+
+        return m_statistics;
+    }
+
+    /**
+     * Caches the given entry, unless the link can not be cached.<p>
+     *
+     * @param key the cache key
+     * @param entry the entry with the generated link
+     */
+    public void put(CacheKey key, CacheEntry entry) {
+
+        if (entry.m_cacheable && (entry.m_link != null) && (entry.m_targetRootPath != null)) {
+            m_cache.put(key, entry);
+        }
+    }
+
+    /**
+     * Returns the number of cached links.<p>
+     *
+     * @return the number of cached links
+     */
+    public int size() {
+
+        return m_cache.size();
+    }
+
+    /**
+     * Removes the cached links which may be affected by publishing the given resources.<p>
+     *
+     * These are the links to the published resources and resources below published folders,
+     * the links generated for such pages, and the links to published detail contents.
+     * If folders have been moved or deleted, all cached links are removed.<p>
+     *
+     * @param publishedResources the published resources
+     */
+    public void uncacheResources(List<CmsPublishedResource> publishedResources) {
+
+        Set<String> paths = new HashSet<String>();
+        Set<String> folders = new HashSet<String>();
+        Set<CmsUUID> ids = new HashSet<CmsUUID>();
+        for (CmsPublishedResource pubRes : publishedResources) {
+            if (pubRes.isFolder()) {
+                if (pubRes.getState().isDeleted() || pubRes.isMoved()) {
+                    // this may change detail pages, which are configured by structure id
+                    clear();
+                    return;
+                }
+                folders.add(pubRes.getRootPath());
+            }
+            paths.add(pubRes.getRootPath());
+            ids.add(pubRes.getStructureId());
+        }
+        Iterator<CacheEntry> itEntries = m_cache.values().iterator();
+        while (itEntries.hasNext()) {
+            CacheEntry entry = itEntries.next();
+            if (ids.contains(entry.m_detailContentId)
+                || isAffected(entry.m_targetRootPath, paths, folders)
+                || isAffected(entry.m_sourceRootPath, paths, folders)) {
+                itEntries.remove();
+            }
+        }
+    }
+
+    /**
+     * Returns the state of the Online ADE configuration, which detail page links depend on.<p>
+     *
+     * @return the state of the Online ADE configuration, or <code>null</code> if ADE is not initialized
+     */
+    Object getConfigState() {
+
+        if ((OpenCms.getADEManager() == null) || !OpenCms.getADEManager().isInitialized()) {
+            return null;
+        }
+        return OpenCms.getADEManager().getOnlineConfigurationState();
+    }
+
+    /**
+     * Returns the state of the site configuration, which all links depend on.<p>
+     *
+     * @return the state of the site configuration, or <code>null</code> if the site manager is not initialized
+     */
+    Object getSiteState() {
+
+        if (OpenCms.getSiteManager() == null) {
+            return null;
+        }
+        return OpenCms.getSiteManager().getSites();
+    }
+}
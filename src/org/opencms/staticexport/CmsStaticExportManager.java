@@ -29,7 +29,6 @@ package org.opencms.staticexport;
 
 import org.opencms.ade.detailpage.CmsDetailPageUtil;
 import org.opencms.ade.detailpage.I_CmsDetailPageFinder;
-import org.opencms.file.CmsFile;
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsProperty;
 import org.opencms.file.CmsPropertyDefinition;
@@ -39,6 +38,7 @@ import org.opencms.file.types.CmsResourceTypeJsp;
 import org.opencms.i18n.CmsAcceptLanguageHeaderParser;
 import org.opencms.i18n.CmsI18nInfo;
 import org.opencms.i18n.CmsLocaleManager;
+import org.opencms.loader.CmsDumpLoader;
 import org.opencms.loader.I_CmsResourceLoader;
 import org.opencms.main.CmsContextInfo;
 import org.opencms.main.CmsEvent;
@@ -62,9 +62,11 @@ import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 import org.opencms.workplace.CmsWorkplace;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
@@ -80,6 +82,7 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.logging.Log;
 
 /**
@@ -210,6 +213,9 @@ public class CmsStaticExportManager implements I_CmsEventListener {
     /** Handler class for static export. */
     private I_CmsStaticExportHandler m_handler;
 
+    /** Cache for the links generated by the link substitution handler in the Online project. */
+    private CmsLinkSubstitutionCache m_linkSubstitutionCache;
+
     /** The configured link substitution handler. */
     private I_CmsLinkSubstitutionHandler m_linkSubstitutionHandler;
 
@@ -597,17 +603,22 @@ public class CmsStaticExportManager implements I_CmsEventListener {
             LOG.debug(Messages.get().getBundle().key(Messages.LOG_SE_RESOURCE_START_1, data));
         }
 
-        CmsFile file = exportCms.readFile(OpenCms.initResource(exportCms, vfsName, req, wrapRes));
-        vfsName = exportCms.getSitePath(file);
+        CmsResource exportResource = OpenCms.initResource(exportCms, vfsName, req, wrapRes);
+        vfsName = exportCms.getSitePath(exportResource);
 
         // check loader id for resource
-        I_CmsResourceLoader loader = OpenCms.getResourceManager().getLoader(file);
+        I_CmsResourceLoader loader = OpenCms.getResourceManager().getLoader(exportResource);
         if ((loader == null) || (!loader.isStaticExportEnabled())) {
-            Object[] arguments = new Object[] {vfsName, new Integer(file.getTypeId())};
+            Object[] arguments = new Object[] {vfsName, new Integer(exportResource.getTypeId())};
             throw new CmsStaticExportException(
                 Messages.get().container(Messages.ERR_EXPORT_NOT_SUPPORTED_2, arguments));
         }
 
+        // the content of unprocessed files is streamed to the RFS when exporting after publish,
+        // so large binary files are not read into memory
+        boolean streamContent = !exportOnDemand && (loader.getLoaderId() == CmsDumpLoader.RESOURCE_LOADER_ID);
+        CmsResource file = streamContent ? exportResource : exportCms.readFile(exportResource);
+
         // ensure we have exactly the same setup as if called "the usual way"
         // we only have to do this in case of the static export on demand
         if (exportOnDemand) {
@@ -645,26 +656,37 @@ public class CmsStaticExportManager implements I_CmsEventListener {
                     ctxInfo.setLocale(locale);
                     locCms = OpenCms.initCmsObject(exportCms, ctxInfo);
                 }
-                // read the content in the matching locale
-                byte[] content = loader.export(locCms, file, req, wrapRes);
-                if (content != null) {
-                    // write to rfs
+                String locRfsName = rfsName;
+                if (locales.contains(locale)) {
+                    locRfsName = rule.getLocalizedRfsName(rfsName, "/");
+                }
+                if (streamContent) {
+                    // write to rfs without loading the content
                     exported = true;
-                    String locRfsName = rfsName;
-                    if (locales.contains(locale)) {
-                        locRfsName = rule.getLocalizedRfsName(rfsName, "/");
+                    writeResource(req, rule.getExportPath(), locRfsName, resource, locCms.readFileContentStream(file));
+                } else {
+                    // read the content in the matching locale
+                    byte[] content = loader.export(locCms, file, req, wrapRes);
+                    if (content != null) {
+                        // write to rfs
+                        exported = true;
+                        writeResource(req, rule.getExportPath(), locRfsName, resource, content);
                     }
-                    writeResource(req, rule.getExportPath(), locRfsName, resource, content);
                 }
             }
         }
         if (!matched) {
             // no rule matched
             String exportPath = getExportPath(siteRoot + vfsName);
-            byte[] content = loader.export(exportCms, file, req, wrapRes);
-            if (content != null) {
+            if (streamContent) {
                 exported = true;
-                writeResource(req, exportPath, rfsName, resource, content);
+                writeResource(req, exportPath, rfsName, resource, exportCms.readFileContentStream(file));
+            } else {
+                byte[] content = loader.export(exportCms, file, req, wrapRes);
+                if (content != null) {
+                    exported = true;
+                    writeResource(req, exportPath, rfsName, resource, content);
+                }
             }
         }
 
@@ -1151,6 +1173,16 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         return m_handler;
     }
 
+    /**
+     * Returns the cache for the links generated by the link substitution handler in the Online project.<p>
+     *
+     * @return the link substitution cache, or <code>null</code> if the export manager is not initialized
+     */
+    public CmsLinkSubstitutionCache getLinkSubstitutionCache() {
+
+        return m_linkSubstitutionCache;
+    }
+
     /**
      * Returns the configured link substitution handler class.<p>
      *
@@ -1646,6 +1678,11 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         m_cacheExportLinks = CmsMemoryMonitor.createLRUCacheMap(2048);
         OpenCms.getMemoryMonitor().register(this.getClass().getName() + ".m_cacheExportLinks", m_cacheExportLinks);
 
+        m_linkSubstitutionCache = new CmsLinkSubstitutionCache(CmsLinkSubstitutionCache.DEFAULT_SIZE);
+        OpenCms.getMemoryMonitor().registerCacheStatistics(
+            this.getClass().getName() + ".m_linkSubstitutionCache",
+            m_linkSubstitutionCache.getStatistics());
+
         // register this object as event listener
         OpenCms.addCmsEventListener(
             this,
@@ -2280,11 +2317,37 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         m_cacheSecureLinks.clear();
         m_cacheExportLinks.clear();
         m_exportnameResources = null;
+        if (m_linkSubstitutionCache != null) {
+            clearLinkSubstitutionCache(event);
+        }
         if (LOG.isDebugEnabled()) {
             LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLUSHED_CACHES_1, new Integer(event.getType())));
         }
     }
 
+    /**
+     * Removes the links affected by the given event from the link substitution cache.<p>
+     *
+     * After publishing, only the links depending on the published resources are removed,
+     * for all other events the complete cache is cleared.<p>
+     *
+     * @param event the event that requested to clear the caches
+     */
+    protected void clearLinkSubstitutionCache(CmsEvent event) {
+
+        if ((event.getType() == I_CmsEventListener.EVENT_PUBLISH_PROJECT) && (event.getData() != null)) {
+            try {
+                CmsUUID publishHistoryId = new CmsUUID((String)event.getData().get(I_CmsEventListener.KEY_PUBLISHID));
+                CmsObject cms = OpenCms.initCmsObject(m_adminCms);
+                m_linkSubstitutionCache.uncacheResources(cms.readPublishedResources(publishHistoryId));
+                return;
+            } catch (Exception e) {
+                LOG.error(e.getLocalizedMessage(), e);
+            }
+        }
+        m_linkSubstitutionCache.clear();
+    }
+
     /**
      * Creates the backup folders for the given export folder and deletes the oldest if the maximum number is reached.<p>
      *
@@ -2825,17 +2888,42 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         byte[] content)
     throws CmsException {
 
-        String exportFileName = CmsFileUtil.normalizePath(exportPath + rfsName);
+        writeResource(req, exportPath, rfsName, resource, new ByteArrayInputStream(content));
+    }
 
-        // make sure all required parent folder exist
-        createExportFolder(exportPath, rfsName);
-        // generate export file instance and output stream
+    /**
+     * Writes a resource to the given export path with the given rfs name and the given content stream.<p>
+     *
+     * The content stream is closed by this method.<p>
+     *
+     * @param req the current request
+     * @param exportPath the path to export the resource
+     * @param rfsName the rfs name
+     * @param resource the resource
+     * @param content the content stream
+     *
+     * @throws CmsException if something goes wrong
+     */
+    protected void writeResource(
+        HttpServletRequest req,
+        String exportPath,
+        String rfsName,
+        CmsResource resource,
+        InputStream content)
+    throws CmsException {
+
+        String exportFileName = CmsFileUtil.normalizePath(exportPath + rfsName);
         File exportFile = new File(exportFileName);
-        // write new exported file content
         try {
+            // make sure all required parent folder exist
+            createExportFolder(exportPath, rfsName);
+            // write new exported file content
             FileOutputStream exportStream = new FileOutputStream(exportFile);
-            exportStream.write(content);
-            exportStream.close();
+            try {
+                IOUtils.copyLarge(content, exportStream);
+            } finally {
+                exportStream.close();
+            }
 
             // log export success
             if (LOG.isInfoEnabled()) {
@@ -2846,10 +2934,14 @@ public class CmsStaticExportManager implements I_CmsEventListener {
                         exportFileName));
             }
 
+        } catch (CmsException e) {
+            throw e;
         } catch (Throwable t) {
             throw new CmsStaticExportException(
                 Messages.get().container(Messages.ERR_OUTPUT_STREAM_1, exportFileName),
                 t);
+        } finally {
+            IOUtils.closeQuietly(content);
         }
         // update the file with the modification date from the server
         if (req != null) {
@@ -71,6 +71,7 @@ import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 import org.opencms.workplace.CmsWorkplaceMessages;
 import org.opencms.workplace.explorer.CmsResourceUtil;
+import org.opencms.workplace.explorer.CmsResourceUtilBatchLoader;
 
 import java.util.Arrays;
 import java.util.Collection;
@@ -320,6 +321,30 @@ public class CmsResourceTable extends CustomComponent {
         CmsMessages messages,
         Locale locale) {
 
+        fillItemDefault(resourceItem, cms, resource, messages, locale, null);
+    }
+
+    /**
+     * Static helper method to initialize the 'standard' properties of a data item from a given resource.<p>
+     *
+     * If a batch loader is given, the properties, user names and project names loaded by it are used,
+     * instead of reading them separately for the resource.<p>
+     *
+     * @param resourceItem the resource item to fill
+     * @param cms the CMS context
+     * @param resource the resource
+     * @param messages the message bundle
+     * @param locale the locale
+     * @param batchLoader the batch loader for the displayed resources, may be <code>null</code>
+     */
+    public static void fillItemDefault(
+        Item resourceItem,
+        CmsObject cms,
+        CmsResource resource,
+        CmsMessages messages,
+        Locale locale,
+        CmsResourceUtilBatchLoader batchLoader) {
+
         if (resource == null) {
             LOG.error("Error rendering item for 'null' resource");
             return;
@@ -333,10 +358,18 @@ public class CmsResourceTable extends CustomComponent {
             cms = A_CmsUI.getCmsObject();
             LOG.warn("CmsObject was 'null', using thread local CmsObject");
         }
-        CmsResourceUtil resUtil = new CmsResourceUtil(cms, resource);
+        CmsResourceUtil resUtil;
+        if ((batchLoader != null) && (batchLoader.getCms() == cms)) {
+            resUtil = batchLoader.getResourceUtil(resource);
+        } else {
+            batchLoader = null;
+            resUtil = new CmsResourceUtil(cms, resource);
+        }
         Map<String, CmsProperty> resourceProps = null;
         try {
-            List<CmsProperty> props = cms.readPropertyObjects(resource, false);
+            List<CmsProperty> props = batchLoader != null
+            ? batchLoader.getProperties(resource)
+            : cms.readPropertyObjects(resource, false);
             resourceProps = new HashMap<String, CmsProperty>();
             for (CmsProperty prop : props) {
                 resourceProps.put(prop.getName(), prop);
@@ -561,8 +594,10 @@ public class CmsResourceTable extends CustomComponent {
         if (clearFilter) {
             m_container.removeAllContainerFilters();
         }
+        // read the data shared by all rows in as few lookups as possible
+        CmsResourceUtilBatchLoader batchLoader = new CmsResourceUtilBatchLoader(cms, resources);
         for (CmsResource resource : resources) {
-            fillItem(cms, resource, wpLocale);
+            fillItem(cms, resource, wpLocale, batchLoader);
         }
         m_fileTable.sort();
         clearSelection();
@@ -656,11 +691,34 @@ public class CmsResourceTable extends CustomComponent {
      */
     protected void fillItem(CmsObject cms, CmsResource resource, Locale locale) {
 
+        fillItem(cms, resource, locale, null);
+    }
+
+    /**
+     * Fills the file item data, using the data loaded by the given batch loader.<p>
+     *
+     * @param cms the cms context
+     * @param resource the resource
+     * @param locale the workplace locale
+     * @param batchLoader the batch loader for the displayed resources, may be <code>null</code>
+     */
+    protected void fillItem(
+        CmsObject cms,
+        CmsResource resource,
+        Locale locale,
+        CmsResourceUtilBatchLoader batchLoader) {
+
         Item resourceItem = m_container.getItem(resource.getStructureId());
         if (resourceItem == null) {
             resourceItem = m_container.addItem(resource.getStructureId());
         }
-        fillItemDefault(resourceItem, cms, resource, CmsVaadinUtils.getWpMessagesForCurrentLocale(), locale);
+        fillItemDefault(
+            resourceItem,
+            cms,
+            resource,
+            CmsVaadinUtils.getWpMessagesForCurrentLocale(),
+            locale,
+            batchLoader);
     }
 
 }
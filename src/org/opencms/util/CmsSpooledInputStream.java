@@ -0,0 +1,156 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Input stream reading a copy of the content of another stream.<p>
+ *
+ * The copy is kept in memory if the content is small, otherwise it is written to a temporary file,
+ * which is deleted when the stream is closed. This allows to release the resources the original stream
+ * depends on, for example a database connection, before the content is passed on to a slow consumer.<p>
+ *
+ * @since 10.5.0
+ */
+public final class CmsSpooledInputStream extends FilterInputStream {
+
+    /** The default maximum size of content which is kept in memory (1 MB). */
+    public static final int DEFAULT_MEMORY_THRESHOLD = 1024 * 1024;
+
+    /** The size of the buffer used to copy the content. */
+    private static final int BUFFER_SIZE = 8192;
+
+    /** The prefix of the temporary files. */
+    private static final String TEMP_FILE_PREFIX = "opencms-spool-";
+
+    /** The temporary file, <code>null</code> after the stream has been closed. */
+    private File m_file;
+
+    /**
+     * Creates a new stream reading a temporary file.<p>
+     *
+     * @param file the temporary file
+     *
+     * @throws IOException if the file can not be opened
+     */
+    private CmsSpooledInputStream(File file) throws IOException {
+
+        super(new FileInputStream(file));
+        m_file = file;
+    }
+
+    /**
+     * Reads the given stream completely and returns a stream to read its content again.<p>
+     *
+     * The given stream is not closed.<p>
+     *
+     * @param in the stream to copy
+     * @param memoryThreshold the maximum number of bytes kept in memory
+     * @param tempDir the directory for the temporary file, or <code>null</code> for the default temporary directory
+     *
+     * @return a stream to read the content from
+     *
+     * @throws IOException if reading the stream or writing the temporary file fails
+     */
+    public static InputStream spool(InputStream in, int memoryThreshold, File tempDir) throws IOException {
+
+        ByteArrayOutputStream memory = new ByteArrayOutputStream();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            memory.write(buffer, 0, read);
+            if (memory.size() > memoryThreshold) {
+                return spoolToFile(memory, in, buffer, tempDir);
+            }
+        }
+        return new ByteArrayInputStream(memory.toByteArray());
+    }
+
+    /**
+     * Writes the content already read and the rest of the given stream to a temporary file.<p>
+     *
+     * @param memory the content already read
+     * @param in the stream to copy
+     * @param buffer the buffer to use for copying
+     * @param tempDir the directory for the temporary file, or <code>null</code> for the default temporary directory
+     *
+     * @return a stream reading the temporary file
+     *
+     * @throws IOException if reading the stream or writing the temporary file fails
+     */
+    private static InputStream spoolToFile(ByteArrayOutputStream memory, InputStream in, byte[] buffer, File tempDir)
+    throws IOException {
+
+        File file = File.createTempFile(TEMP_FILE_PREFIX, ".tmp", tempDir);
+        boolean success = false;
+        try {
+            OutputStream out = new FileOutputStream(file);
+            try {
+                memory.writeTo(out);
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+            } finally {
+                out.close();
+            }
+            InputStream result = new CmsSpooledInputStream(file);
+            success = true;
+            return result;
+        } finally {
+            if (!success) {
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * @see java.io.FilterInputStream#close()
+     */
+    @Override
+    public void close() throws IOException {
+
+        try {
+            super.close();
+        } finally {
+            if ((m_file != null) && !m_file.delete()) {
+                m_file.deleteOnExit();
+            }
+            m_file = null;
+        }
+    }
+}
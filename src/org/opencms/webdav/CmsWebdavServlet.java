@@ -523,22 +523,24 @@ public class CmsWebdavServlet extends HttpServlet {
 
         InputStream resourceInputStream = null;
         if (!item.isCollection()) {
-            resourceInputStream = new ByteArrayInputStream(item.getContent());
+            resourceInputStream = item.getContentStream();
         } else {
             resourceInputStream = is;
         }
 
         Reader reader = new InputStreamReader(resourceInputStream);
 
-        // Copy the input stream to the output stream
-        exception = copyRange(reader, writer);
-
-        // Clean up the reader
         try {
-            reader.close();
-        } catch (Exception e) {
-            if (LOG.isErrorEnabled()) {
-                LOG.error(Messages.get().getBundle().key(Messages.ERR_CLOSE_READER_0), e);
+            // Copy the input stream to the output stream
+            exception = copyRange(reader, writer);
+        } finally {
+            // Clean up the reader
+            try {
+                reader.close();
+            } catch (Exception e) {
+                if (LOG.isErrorEnabled()) {
+                    LOG.error(Messages.get().getBundle().key(Messages.ERR_CLOSE_READER_0), e);
+                }
             }
         }
 
@@ -564,30 +566,26 @@ public class CmsWebdavServlet extends HttpServlet {
         IOException exception = null;
         InputStream resourceInputStream = null;
 
-        // Optimization: If the binary content has already been loaded, send
-        // it directly
+        // stream the content, so large files are not loaded into memory
         if (!item.isCollection()) {
-            byte[] buffer = item.getContent();
-            if (buffer != null) {
-                ostream.write(buffer, 0, buffer.length);
-                return;
-            }
-            resourceInputStream = new ByteArrayInputStream(item.getContent());
+            resourceInputStream = item.getContentStream();
         } else {
             resourceInputStream = is;
         }
 
         InputStream istream = new BufferedInputStream(resourceInputStream, m_input);
 
-        // Copy the input stream to the output stream
-        exception = copyRange(istream, ostream);
-
-        // Clean up the input stream
         try {
-            istream.close();
-        } catch (Exception e) {
-            if (LOG.isErrorEnabled()) {
-                LOG.error(Messages.get().getBundle().key(Messages.ERR_CLOSE_INPUT_STREAM_0), e);
+            // Copy the input stream to the output stream
+            exception = copyRange(istream, ostream);
+        } finally {
+            // Clean up the input stream
+            try {
+                istream.close();
+            } catch (Exception e) {
+                if (LOG.isErrorEnabled()) {
+                    LOG.error(Messages.get().getBundle().key(Messages.ERR_CLOSE_INPUT_STREAM_0), e);
+                }
             }
         }
 
@@ -612,17 +610,19 @@ public class CmsWebdavServlet extends HttpServlet {
 
         IOException exception = null;
 
-        InputStream resourceInputStream = new ByteArrayInputStream(item.getContent());
+        InputStream resourceInputStream = item.getContentStream();
 
         Reader reader = new InputStreamReader(resourceInputStream);
-        exception = copyRange(reader, writer, range.getStart(), range.getEnd());
-
-        // Clean up the input stream
         try {
-            reader.close();
-        } catch (Exception e) {
-            if (LOG.isErrorEnabled()) {
-                LOG.error(Messages.get().getBundle().key(Messages.ERR_CLOSE_READER_0), e);
+            exception = copyRange(reader, writer, range.getStart(), range.getEnd());
+        } finally {
+            // Clean up the input stream
+            try {
+                reader.close();
+            } catch (Exception e) {
+                if (LOG.isErrorEnabled()) {
+                    LOG.error(Messages.get().getBundle().key(Messages.ERR_CLOSE_READER_0), e);
+                }
             }
         }
 
@@ -654,34 +654,36 @@ public class CmsWebdavServlet extends HttpServlet {
 
         while ((exception == null) && (ranges.hasNext())) {
 
-            InputStream resourceInputStream = new ByteArrayInputStream(item.getContent());
+            InputStream resourceInputStream = item.getContentStream();
 
             Reader reader = new InputStreamReader(resourceInputStream);
-            CmsWebdavRange currentRange = ranges.next();
-
-            // Writing MIME header.
-            writer.println();
-            writer.println("--" + MIME_SEPARATION);
-            if (contentType != null) {
-                writer.println("Content-Type: " + contentType);
-            }
-            writer.println(
-                "Content-Range: bytes "
-                    + currentRange.getStart()
-                    + "-"
-                    + currentRange.getEnd()
-                    + "/"
-                    + currentRange.getLength());
-            writer.println();
-
-            // Printing content
-            exception = copyRange(reader, writer, currentRange.getStart(), currentRange.getEnd());
-
             try {
-                reader.close();
-            } catch (Exception e) {
-                if (LOG.isErrorEnabled()) {
-                    LOG.error(Messages.get().getBundle().key(Messages.ERR_CLOSE_READER_0), e);
+                CmsWebdavRange currentRange = ranges.next();
+
+                // Writing MIME header.
+                writer.println();
+                writer.println("--" + MIME_SEPARATION);
+                if (contentType != null) {
+                    writer.println("Content-Type: " + contentType);
+                }
+                writer.println(
+                    "Content-Range: bytes "
+                        + currentRange.getStart()
+                        + "-"
+                        + currentRange.getEnd()
+                        + "/"
+                        + currentRange.getLength());
+                writer.println();
+
+                // Printing content
+                exception = copyRange(reader, writer, currentRange.getStart(), currentRange.getEnd());
+            } finally {
+                try {
+                    reader.close();
+                } catch (Exception e) {
+                    if (LOG.isErrorEnabled()) {
+                        LOG.error(Messages.get().getBundle().key(Messages.ERR_CLOSE_READER_0), e);
+                    }
                 }
             }
 
@@ -712,16 +714,18 @@ public class CmsWebdavServlet extends HttpServlet {
 
         IOException exception = null;
 
-        InputStream resourceInputStream = new ByteArrayInputStream(item.getContent());
+        InputStream resourceInputStream = item.getContentStream();
         InputStream istream = new BufferedInputStream(resourceInputStream, m_input);
-        exception = copyRange(istream, ostream, range.getStart(), range.getEnd());
-
-        // Clean up the input stream
         try {
-            istream.close();
-        } catch (Exception e) {
-            if (LOG.isErrorEnabled()) {
-                LOG.error(Messages.get().getBundle().key(Messages.ERR_CLOSE_INPUT_STREAM_0), e);
+            exception = copyRange(istream, ostream, range.getStart(), range.getEnd());
+        } finally {
+            // Clean up the input stream
+            try {
+                istream.close();
+            } catch (Exception e) {
+                if (LOG.isErrorEnabled()) {
+                    LOG.error(Messages.get().getBundle().key(Messages.ERR_CLOSE_INPUT_STREAM_0), e);
+                }
             }
         }
 
@@ -753,34 +757,35 @@ public class CmsWebdavServlet extends HttpServlet {
 
         while ((exception == null) && (ranges.hasNext())) {
 
-            InputStream resourceInputStream = new ByteArrayInputStream(item.getContent());
+            InputStream resourceInputStream = item.getContentStream();
             InputStream istream = new BufferedInputStream(resourceInputStream, m_input);
-
-            CmsWebdavRange currentRange = ranges.next();
-
-            // Writing MIME header.
-            ostream.println();
-            ostream.println("--" + MIME_SEPARATION);
-            if (contentType != null) {
-                ostream.println("Content-Type: " + contentType);
-            }
-            ostream.println(
-                "Content-Range: bytes "
-                    + currentRange.getStart()
-                    + "-"
-                    + currentRange.getEnd()
-                    + "/"
-                    + currentRange.getLength());
-            ostream.println();
-
-            // Printing content
-            exception = copyRange(istream, ostream, currentRange.getStart(), currentRange.getEnd());
-
             try {
-                istream.close();
-            } catch (Exception e) {
-                if (LOG.isErrorEnabled()) {
-                    LOG.error(Messages.get().getBundle().key(Messages.ERR_CLOSE_INPUT_STREAM_0), e);
+                CmsWebdavRange currentRange = ranges.next();
+
+                // Writing MIME header.
+                ostream.println();
+                ostream.println("--" + MIME_SEPARATION);
+                if (contentType != null) {
+                    ostream.println("Content-Type: " + contentType);
+                }
+                ostream.println(
+                    "Content-Range: bytes "
+                        + currentRange.getStart()
+                        + "-"
+                        + currentRange.getEnd()
+                        + "/"
+                        + currentRange.getLength());
+                ostream.println();
+
+                // Printing content
+                exception = copyRange(istream, ostream, currentRange.getStart(), currentRange.getEnd());
+            } finally {
+                try {
+                    istream.close();
+                } catch (Exception e) {
+                    if (LOG.isErrorEnabled()) {
+                        LOG.error(Messages.get().getBundle().key(Messages.ERR_CLOSE_INPUT_STREAM_0), e);
+                    }
                 }
             }
 
@@ -2178,7 +2183,7 @@ public class CmsWebdavServlet extends HttpServlet {
         try {
             I_CmsRepositoryItem item = m_session.getItem(path);
 
-            oldResourceStream = new ByteArrayInputStream(item.getContent());
+            oldResourceStream = item.getContentStream();
         } catch (CmsException e) {
             if (LOG.isErrorEnabled()) {
                 LOG.error(Messages.get().getBundle().key(Messages.LOG_ITEM_NOT_FOUND_1, path), e);
@@ -2188,13 +2193,15 @@ public class CmsWebdavServlet extends HttpServlet {
         // Copy data in oldRevisionContent to contentFile
         if (oldResourceStream != null) {
 
-            int numBytesRead;
-            byte[] copyBuffer = new byte[BUFFER_SIZE];
-            while ((numBytesRead = oldResourceStream.read(copyBuffer)) != -1) {
-                randAccessContentFile.write(copyBuffer, 0, numBytesRead);
+            try {
+                int numBytesRead;
+                byte[] copyBuffer = new byte[BUFFER_SIZE];
+                while ((numBytesRead = oldResourceStream.read(copyBuffer)) != -1) {
+                    randAccessContentFile.write(copyBuffer, 0, numBytesRead);
+                }
+            } finally {
+                oldResourceStream.close();
             }
-
-            oldResourceStream.close();
         }
 
         randAccessContentFile.setLength(range.getLength());
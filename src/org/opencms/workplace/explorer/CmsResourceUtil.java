@@ -200,6 +200,9 @@ public final class CmsResourceUtil {
     /** If greater than zero, the path will be formatted to this number of chars. */
     private int m_abbrevLength;
 
+    /** The batch loader providing shared data for a list of resources, may be <code>null</code>. */
+    private CmsResourceUtilBatchLoader m_batchLoader;
+
     /** The current cms context. */
     private CmsObject m_cms;
 
@@ -536,8 +539,7 @@ public final class CmsResourceUtil {
             // user
             lockedBy = getLock().getUserId().toString();
             try {
-                lockedBy = getCurrentOuRelativeName(
-                    CmsPrincipal.readPrincipalIncludingHistory(getCms(), getLock().getUserId()).getName());
+                lockedBy = getCurrentOuRelativeName(readPrincipalName(getLock().getUserId()));
             } catch (Throwable e) {
                 lockedBy = e.getMessage();
             }
@@ -579,6 +581,9 @@ public final class CmsResourceUtil {
                 // the resource is unlocked and unchanged
                 return "";
             }
+            if (m_batchLoader != null) {
+                return getCurrentOuRelativeName(m_batchLoader.getProjectName(pId));
+            }
             try {
                 return getCurrentOuRelativeName(getCms().readProject(pId).getName());
             } catch (CmsDbEntryNotFoundException e) {
@@ -1172,8 +1177,7 @@ public final class CmsResourceUtil {
 
         String user = m_resource.getUserCreated().toString();
         try {
-            user = getCurrentOuRelativeName(
-                CmsPrincipal.readPrincipalIncludingHistory(getCms(), m_resource.getUserCreated()).getName());
+            user = getCurrentOuRelativeName(readPrincipalName(m_resource.getUserCreated()));
         } catch (Throwable e) {
             LOG.info(e.getLocalizedMessage());
         }
@@ -1189,8 +1193,7 @@ public final class CmsResourceUtil {
 
         String user = m_resource.getUserLastModified().toString();
         try {
-            user = getCurrentOuRelativeName(
-                CmsPrincipal.readPrincipalIncludingHistory(getCms(), m_resource.getUserLastModified()).getName());
+            user = getCurrentOuRelativeName(readPrincipalName(m_resource.getUserLastModified()));
         } catch (Throwable e) {
             LOG.info(e.getLocalizedMessage());
         }
@@ -1345,6 +1348,16 @@ public final class CmsResourceUtil {
         m_siteMode = siteMode;
     }
 
+    /**
+     * Sets the batch loader which provides shared data for a list of resources.<p>
+     *
+     * @param batchLoader the batch loader
+     */
+    void setBatchLoader(CmsResourceUtilBatchLoader batchLoader) {
+
+        m_batchLoader = batchLoader;
+    }
+
     /**
      * Returns the simple name if the ou is the same as the current user's ou.<p>
      *
@@ -1388,6 +1401,11 @@ public final class CmsResourceUtil {
      */
     private List<String> getProjectResources() {
 
+        if ((m_projectResources == null)
+            && (m_batchLoader != null)
+            && m_batchLoader.getProject().equals(getReferenceProject())) {
+            m_projectResources = m_batchLoader.getProjectResources();
+        }
         if (m_projectResources == null) {
             try {
                 m_projectResources = getCms().readProjectResources(getReferenceProject());
@@ -1399,4 +1417,21 @@ public final class CmsResourceUtil {
         }
         return m_projectResources;
     }
+
+    /**
+     * Reads the name of the user or group with the given id, including historical principals.<p>
+     *
+     * @param principalId the principal id
+     *
+     * @return the fully qualified name of the principal
+     *
+     * @throws CmsException if the principal could not be read
+     */
+    private String readPrincipalName(CmsUUID principalId) throws CmsException {
+
+        if (m_batchLoader != null) {
+            return m_batchLoader.getPrincipalName(principalId);
+        }
+        return CmsPrincipal.readPrincipalIncludingHistory(getCms(), principalId).getName();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,212 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.workplace.explorer;
+
+import org.opencms.db.CmsDbEntryNotFoundException;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProject;
+import org.opencms.file.CmsProperty;
+import org.opencms.file.CmsResource;
+import org.opencms.main.CmsException;
+import org.opencms.main.CmsLog;
+import org.opencms.security.CmsPrincipal;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Loads the data needed for displaying a list of resources in the workplace with as few lookups as possible.<p>
+ *
+ * The properties of all resources are read with a single bulk read, the resources of the current project are
+ * read once, and user and project names are only read once for each id. The {@link CmsResourceUtil} instances
+ * created by this loader use the loaded data instead of reading it again for each resource.<p>
+ *
+ * Instances of this class are not thread safe, and are intended to be used only for filling a single list.<p>
+ *
+ * @since 10.5.0
+ */
+public class CmsResourceUtilBatchLoader {
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsResourceUtilBatchLoader.class);
+
+    /** The CMS context. */
+    private CmsObject m_cms;
+
+    /** The user and group names already read, with the principal ids as keys. */
+    private Map<CmsUUID, String> m_principalNames = new HashMap<CmsUUID, String>();
+
+    /** The current project. */
+    private CmsProject m_project;
+
+    /** The project names already read, with the project ids as keys. */
+    private Map<CmsUUID, String> m_projectNames = new HashMap<CmsUUID, String>();
+
+    /** The resources of the current project. */
+    private List<String> m_projectResources;
+
+    /** The properties of the resources, with the structure ids as keys. */
+    private Map<CmsUUID, List<CmsProperty>> m_properties;
+
+    /**
+     * Creates a new loader and reads the properties of the given resources.<p>
+     *
+     * @param cms the CMS context
+     * @param resources the resources which should be displayed
+     */
+    public CmsResourceUtilBatchLoader(CmsObject cms, List<CmsResource> resources) {
+
+        m_cms = cms;
+        m_project = cms.getRequestContext().getCurrentProject();
+        try {
+            m_properties = cms.readPropertyObjects(resources, null, false);
+        } catch (CmsException e) {
+            LOG.error(e.getLocalizedMessage(), e);
+            m_properties = Collections.emptyMap();
+        }
+    }
+
+    /**
+     * Returns the CMS context.<p>
+     *
+     * @return the CMS context
+     */
+    public CmsObject getCms() {
+
+        return m_cms;
+    }
+
+    /**
+     * Returns the properties of the given resource.<p>
+     *
+     * @param resource the resource
+     *
+     * @return the properties of the resource
+     *
+     * @throws CmsException if the properties of a resource not loaded by this loader could not be read
+     */
+    public List<CmsProperty> getProperties(CmsResource resource) throws CmsException {
+
+        List<CmsProperty> properties = m_properties.get(resource.getStructureId());
+        if (properties == null) {
+            properties = m_cms.readPropertyObjects(resource, false);
+        }
+        return properties;
+    }
+
+    /**
+     * Creates a resource utility for the given resource, which uses the data loaded by this loader.<p>
+     *
+     * @param resource the resource
+     *
+     * @return the resource utility
+     */
+    public CmsResourceUtil getResourceUtil(CmsResource resource) {
+
+        CmsResourceUtil resUtil = new CmsResourceUtil(m_cms, resource);
+        resUtil.setBatchLoader(this);
+        return resUtil;
+    }
+
+    /**
+     * Returns the name of the user or group with the given id, including historical principals.<p>
+     *
+     * @param principalId the principal id
+     *
+     * @return the fully qualified name of the principal
+     *
+     * @throws CmsException if the principal could not be read
+     */
+    String getPrincipalName(CmsUUID principalId) throws CmsException {
+
+        String name = m_principalNames.get(principalId);
+        if (name == null) {
+            name = CmsPrincipal.readPrincipalIncludingHistory(m_cms, principalId).getName();
+            m_principalNames.put(principalId, name);
+        }
+        return name;
+    }
+
+    /**
+     * Returns the current project.<p>
+     *
+     * @return the current project
+     */
+    CmsProject getProject() {
+
+        return m_project;
+    }
+
+    /**
+     * Returns the name of the project with the given id, including historical projects.<p>
+     *
+     * @param projectId the project id
+     *
+     * @return the fully qualified name of the project
+     *
+     * @throws CmsException if the project could not be read
+     */
+    String getProjectName(CmsUUID projectId) throws CmsException {
+
+        String name = m_projectNames.get(projectId);
+        if (name == null) {
+            try {
+                name = m_cms.readProject(projectId).getName();
+            } catch (CmsDbEntryNotFoundException e) {
+                name = m_cms.readHistoryProject(projectId).getName();
+            }
+            m_projectNames.put(projectId, name);
+        }
+        return name;
+    }
+
+    /**
+     * Returns the resources of the current project.<p>
+     *
+     * @return the resources of the current project
+     */
+    List<String> getProjectResources() {
+
+        if (m_projectResources == null) {
+            try {
+                m_projectResources = m_cms.readProjectResources(m_project);
+            } catch (Throwable e) {
+                LOG.error(e.getLocalizedMessage(), e);
+                // use an empty list (all resources are "outside")
+                m_projectResources = new ArrayList<String>();
+            }
+        }
+        return m_projectResources;
+    }
+}
@@ -38,6 +38,7 @@ import org.opencms.xml.types.CmsXmlCategoryValue;
 import org.opencms.xml.types.I_CmsXmlContentValue;
 import org.opencms.xml.types.I_CmsXmlSchemaType;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
@@ -699,7 +700,12 @@ public abstract class A_CmsXmlDocument implements I_CmsXmlDocument {
 
         if (m_file != null) {
             // file is set, use bytes from file directly
-            CmsXmlUtils.validateXmlStructure(m_file.getContents(), resolver);
+            Attribute schema = m_document.getRootElement().attribute(
+                I_CmsXmlSchemaType.XSI_NAMESPACE_ATTRIBUTE_NO_SCHEMA_LOCATION);
+            CmsXmlUtils.validateXmlStructure(
+                new ByteArrayInputStream(m_file.getContents()),
+                schema != null ? schema.getValue() : null,
+                resolver);
         } else {
             // use XML document - note that this will be copied in a byte[] array first
             CmsXmlUtils.validateXmlStructure(m_document, m_encoding, resolver);
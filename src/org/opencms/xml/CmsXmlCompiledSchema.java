@@ -0,0 +1,338 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.xml;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.xml.XMLConstants;
+import javax.xml.transform.sax.SAXSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+
+import org.w3c.dom.ls.LSInput;
+import org.w3c.dom.ls.LSResourceResolver;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+/**
+ * A compiled XML schema used for validating XML documents, together with the system ids of all
+ * schema files it was compiled from.<p>
+ *
+ * If the schema could not be compiled, this contains the compile error instead of a schema,
+ * so that the failure can be cached until one of the schema files changes.<p>
+ *
+ * The schema files are resolved with the OpenCms XML entity resolver, so that the
+ * <code>opencms://</code> and <code>internal://</code> references of XML content schemas can be used.<p>
+ *
+ * @since 10.5.0
+ */
+public class CmsXmlCompiledSchema {
+
+    /**
+     * Wraps a SAX input source as a DOM LS input for the schema factory.<p>
+     */
+    private static class CmsInputSourceLSInput implements LSInput {
+
+        /** The base URI. */
+        private String m_baseURI;
+
+        /** The wrapped input source. */
+        private InputSource m_source;
+
+        /**
+         * Creates a new LS input for the given input source.<p>
+         *
+         * @param source the input source
+         * @param baseURI the base URI
+         */
+        CmsInputSourceLSInput(InputSource source, String baseURI) {
+
+            m_source = source;
+            m_baseURI = baseURI;
+        }
+
+        /**
+         * @see org.w3c.dom.ls.LSInput#getBaseURI()
+         */
+        public String getBaseURI() {
+
+            return m_baseURI;
+        }
+
+        /**
+         * @see org.w3c.dom.ls.LSInput#getByteStream()
+         */
+        public InputStream getByteStream() {
+
+            return m_source.getByteStream();
+        }
+
+        /**
+         * @see org.w3c.dom.ls.LSInput#getCertifiedText()
+         */
+        public boolean getCertifiedText() {
+
+            return false;
+        }
+
+        /**
+         * @see org.w3c.dom.ls.LSInput#getCharacterStream()
+         */
+        public Reader getCharacterStream() {
+
+            return m_source.getCharacterStream();
+        }
+
+        /**
+         * @see org.w3c.dom.ls.LSInput#getEncoding()
+         */
+        public String getEncoding() {
+
+            return m_source.getEncoding();
+        }
+
+        /**
+         * @see org.w3c.dom.ls.LSInput#getPublicId()
+         */
+        public String getPublicId() {
+
+            return m_source.getPublicId();
+        }
+
+        /**
+         * @see org.w3c.dom.ls.LSInput#getStringData()
+         */
+        public String getStringData() {
+
+            return null;
+        }
+
+        /**
+         * @see org.w3c.dom.ls.LSInput#getSystemId()
+         */
+        public String getSystemId() {
+
+            return m_source.getSystemId();
+        }
+
+        /**
+         * @see org.w3c.dom.ls.LSInput#setBaseURI(java.lang.String)
+         */
+        public void setBaseURI(String baseURI) {
+
+            m_baseURI = baseURI;
+        }
+
+        /**
+         * @see org.w3c.dom.ls.LSInput#setByteStream(java.io.InputStream)
+         */
+        public void setByteStream(InputStream byteStream) {
+
+            m_source.setByteStream(byteStream);
+        }
+
+        /**
+         * @see org.w3c.dom.ls.LSInput#setCertifiedText(boolean)
+         */
+        public void setCertifiedText(boolean certifiedText) {
+
+            // not supported
+        }
+
+        /**
+         * @see org.w3c.dom.ls.LSInput#setCharacterStream(java.io.Reader)
+         */
+        public void setCharacterStream(Reader characterStream) {
+
+            m_source.setCharacterStream(characterStream);
+        }
+
+        /**
+         * @see org.w3c.dom.ls.LSInput#setEncoding(java.lang.String)
+         */
+        public void setEncoding(String encoding) {
+
+            m_source.setEncoding(encoding);
+        }
+
+        /**
+         * @see org.w3c.dom.ls.LSInput#setPublicId(java.lang.String)
+         */
+        public void setPublicId(String publicId) {
+
+            m_source.setPublicId(publicId);
+        }
+
+        /**
+         * @see org.w3c.dom.ls.LSInput#setStringData(java.lang.String)
+         */
+        public void setStringData(String stringData) {
+
+            // not supported
+        }
+
+        /**
+         * @see org.w3c.dom.ls.LSInput#setSystemId(java.lang.String)
+         */
+        public void setSystemId(String systemId) {
+
+            m_source.setSystemId(systemId);
+        }
+    }
+
+    /** The root paths of all schema files the schema was compiled from. */
+    private Set<String> m_dependencies;
+
+    /** The error which occurred while compiling the schema. */
+    private CmsXmlException m_error;
+
+    /** The compiled schema. */
+    private Schema m_schema;
+
+    /**
+     * Creates a new compiled schema.<p>
+     *
+     * @param schema the compiled schema
+     * @param dependencies the root paths of all schema files the schema was compiled from
+     */
+    public CmsXmlCompiledSchema(Schema schema, Set<String> dependencies) {
+
+        m_schema = schema;
+        m_dependencies = Collections.unmodifiableSet(dependencies);
+    }
+
+    /**
+     * Creates a new compiled schema for a schema which could not be compiled.<p>
+     *
+     * @param error the error which occurred while compiling the schema
+     * @param dependencies the root paths of all schema files read while compiling the schema
+     */
+    public CmsXmlCompiledSchema(CmsXmlException error, Set<String> dependencies) {
+
+        m_error = error;
+        m_dependencies = Collections.unmodifiableSet(dependencies);
+    }
+
+    /**
+     * Compiles the XML schema with the given system id.<p>
+     *
+     * @param systemId the system id of the XML schema
+     * @param resolver the entity resolver used to read the schema and its includes
+     *
+     * @return the compiled schema, which contains the compile error if the schema contains errors,
+     *      or <code>null</code> if the schema could not be read
+     */
+    public static CmsXmlCompiledSchema compile(String systemId, final CmsXmlEntityResolver resolver) {
+
+        InputSource source = resolver.resolveEntity(null, systemId);
+        if (source == null) {
+            return null;
+        }
+        final Set<String> dependencies = new HashSet<String>();
+        dependencies.add(CmsXmlEntityResolver.getRootPath(systemId));
+
+        SchemaFactory factory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+        // the error handler treats duplicate declarations caused by multiple includes as warnings
+        CmsXmlValidationErrorHandler errorHandler = new CmsXmlValidationErrorHandler();
+        factory.setErrorHandler(errorHandler);
+        factory.setResourceResolver(new LSResourceResolver() {
+
+            public LSInput resolveResource(
+                String type,
+                String namespaceURI,
+                String publicId,
+                String includeSystemId,
+                String baseURI) {
+
+                if (includeSystemId == null) {
+                    return null;
+                }
+                // a missing include is a dependency as well, since it may be created later
+                dependencies.add(CmsXmlEntityResolver.getRootPath(includeSystemId));
+                InputSource includeSource = resolver.resolveEntity(publicId, includeSystemId);
+                if (includeSource == null) {
+                    return null;
+                }
+                return new CmsInputSourceLSInput(includeSource, baseURI);
+            }
+        });
+        Schema schema;
+        try {
+            schema = factory.newSchema(new SAXSource(source));
+        } catch (SAXException e) {
+            return new CmsXmlCompiledSchema(
+                new CmsXmlException(Messages.get().container(Messages.ERR_XML_SCHEMA_COMPILE_1, systemId), e),
+                dependencies);
+        }
+        if (errorHandler.getErrors().elements().size() > 0) {
+            return new CmsXmlCompiledSchema(
+                new CmsXmlException(
+                    Messages.get().container(Messages.ERR_XML_SCHEMA_COMPILE_1, systemId),
+                    new CmsXmlException(
+                        Messages.get().container(Messages.ERR_XML_VALIDATION_1, errorHandler.getErrors().asXML()))),
+                dependencies);
+        }
+        return new CmsXmlCompiledSchema(schema, dependencies);
+    }
+
+    /**
+     * Returns the root paths of all schema files the schema was compiled from.<p>
+     *
+     * @return the root paths of all schema files the schema was compiled from
+     */
+    public Set<String> getDependencies() {
+
+        return m_dependencies;
+    }
+
+    /**
+     * Returns the error which occurred while compiling the schema.<p>
+     *
+     * @return the error which occurred while compiling the schema, or <code>null</code> if it was compiled
+     */
+    public CmsXmlException getError() {
+
+        return m_error;
+    }
+
+    /**
+     * Returns the compiled schema.<p>
+     *
+     * The schema is thread safe and can be used to create validators concurrently.<p>
+     *
+     * @return the compiled schema, or <code>null</code> if the schema could not be compiled
+     */
+    public Schema getSchema() {
+
+        return m_schema;
+    }
+}
@@ -878,6 +878,7 @@ public class CmsXmlContentDefinition implements Cloneable {
         EntityResolver resolver)
     throws CmsXmlException {
 
+        long startTime = System.nanoTime();
         // analyze the document and generate the XML content type definition
         Element root = document.getRootElement();
         if (!XSD_NODE_SCHEMA.equals(root.getQName())) {
@@ -1020,7 +1021,10 @@ public class CmsXmlContentDefinition implements Cloneable {
 
         if (resolver instanceof CmsXmlEntityResolver) {
             // put the generated content definition in the cache
-            ((CmsXmlEntityResolver)resolver).cacheContentDefinition(schemaLocation, result);
+            ((CmsXmlEntityResolver)resolver).cacheContentDefinition(
+                schemaLocation,
+                result,
+                System.nanoTime() - startTime);
         }
 
         return result;
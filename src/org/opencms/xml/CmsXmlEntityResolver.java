@@ -28,17 +28,21 @@
 package org.opencms.xml;
 
 import org.opencms.configuration.CmsConfigurationManager;
+import org.opencms.db.CmsCacheSettings;
 import org.opencms.db.CmsDriverManager;
 import org.opencms.db.CmsPublishedResource;
 import org.opencms.file.CmsFile;
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsResource;
 import org.opencms.file.CmsResourceFilter;
+import org.opencms.file.types.CmsResourceTypeXmlContent;
+import org.opencms.file.types.I_CmsResourceType;
 import org.opencms.main.CmsEvent;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
 import org.opencms.main.I_CmsEventListener;
 import org.opencms.main.OpenCms;
+import org.opencms.monitor.CmsCacheStatistics;
 import org.opencms.monitor.CmsMemoryMonitor;
 import org.opencms.util.CmsCollectionsGenericWrapper;
 import org.opencms.util.CmsFileUtil;
@@ -47,25 +51,48 @@ import org.opencms.xml.page.CmsXmlPage;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
+import javax.xml.validation.Schema;
+
 import org.apache.commons.logging.Log;
 
 import org.xml.sax.EntityResolver;
 import org.xml.sax.InputSource;
 
+import com.google.common.cache.Weigher;
+
 /**
  * Resolves XML entities (e.g. external DTDs) in the OpenCms VFS.<p>
  *
  * Also provides a cache for XML content schema definitions.<p>
  *
+ * The caches for XML content definitions and for schema files read from the VFS are limited by
+ * the total weight of their entries, see {@link CmsCacheSettings#getContentDefinitionsCacheWeight()}
+ * and {@link CmsCacheSettings#getXmlEntitiesCacheSize()}. Publishing or changing a schema only removes
+ * the cached content definitions that are based on this schema, directly or through an include.<p>
+ *
  * @since 6.0.0
  */
 public class CmsXmlEntityResolver implements EntityResolver, I_CmsEventListener {
 
-    /** Maximum size of the content definition cache. */
+    /** Maximum size of the compiled XML schema cache. */
+    public static final int COMPILED_SCHEMA_CACHE_SIZE = 512;
+
+    /**
+     * Maximum size of the content definition cache.<p>
+     *
+     * @deprecated the content definition cache is limited by weight, see {@link CmsCacheSettings#getContentDefinitionsCacheWeight()}
+     */
+    @Deprecated
     public static final int CONTENT_DEFINITION_CACHE_SIZE = 2048;
 
     /** Scheme for files which should be retrieved from the classpath. */
@@ -85,18 +112,36 @@ public class CmsXmlEntityResolver implements EntityResolver, I_CmsEventListener
             "internal://org/opencms/xml/containerpage/"},
         {"opencms://system/modules/org.opencms.ade.sitemap/schemas/", "internal://org/opencms/xml/adeconfig/sitemap/"}};
 
+    /** The statistics of the compiled XML schema cache. */
+    private static final CmsCacheStatistics COMPILED_SCHEMAS_STATISTICS = new CmsCacheStatistics();
+
+    /** The statistics of the content definition cache. */
+    private static final CmsCacheStatistics CONTENT_DEFINITIONS_STATISTICS = new CmsCacheStatistics();
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsXmlEntityResolver.class);
 
+    /** The statistics of the temporary cache for files read from the VFS. */
+    private static final CmsCacheStatistics TEMPORARY_STATISTICS = new CmsCacheStatistics();
+
+    /** A temporary cache for compiled XML schemas used for validation. */
+    private static Map<String, CmsXmlCompiledSchema> m_cacheCompiledSchemas;
+
     /** A temporary cache for XML content definitions. */
     private static Map<String, CmsXmlContentDefinition> m_cacheContentDefinitions;
 
+    /** The maximum weight of the content definition cache. */
+    private static long m_cacheContentDefinitionsWeight = CmsCacheSettings.DEFAULT_CONTENT_DEFINITIONS_CACHE_WEIGHT;
+
     /** A permanent cache to avoid multiple readings of often used files from the VFS. */
     private static Map<String, byte[]> m_cachePermanent;
 
     /** A temporary cache to avoid multiple readings of often used files from the VFS. */
     private static Map<String, byte[]> m_cacheTemporary;
 
+    /** The maximum size in bytes of the temporary cache. */
+    private static long m_cacheTemporarySize = CmsCacheSettings.DEFAULT_XML_ENTITIES_CACHE_SIZE;
+
     /** The location of the XML page XML schema. */
     private static final String XMLPAGE_OLD_DTD_LOCATION = "org/opencms/xml/page/xmlpage.dtd";
 
@@ -139,6 +184,14 @@ public class CmsXmlEntityResolver implements EntityResolver, I_CmsEventListener
 
         initCaches();
         m_cachePermanent.put(systemId, content);
+        // compiled schemas based on a previous content of the system id must not be used any more
+        String rootPath = getRootPath(systemId);
+        Iterator<CmsXmlCompiledSchema> schemas = m_cacheCompiledSchemas.values().iterator();
+        while (schemas.hasNext()) {
+            if (schemas.next().getDependencies().contains(rootPath)) {
+                schemas.remove();
+            }
+        }
     }
 
     /**
@@ -173,6 +226,74 @@ public class CmsXmlEntityResolver implements EntityResolver, I_CmsEventListener
         return false;
     }
 
+    /**
+     * Sets the size limits for the content definition cache and the temporary cache for schema files.<p>
+     *
+     * The limits are used for all caches created afterwards, i.e. they must be set before the
+     * caches are registered with the memory monitor.<p>
+     *
+     * @param settings the cache settings
+     */
+    public static void setCacheSettings(CmsCacheSettings settings) {
+
+        m_cacheContentDefinitionsWeight = settings.getContentDefinitionsCacheWeight();
+        m_cacheTemporarySize = settings.getXmlEntitiesCacheSize();
+    }
+
+    /**
+     * Loads the XML content definitions of all configured XML content resource types into the cache.<p>
+     *
+     * The content definitions are loaded in a background thread, so this method returns immediately.<p>
+     *
+     * @param cms the cms context to read the schemas with
+     */
+    public static void warmUpCaches(final CmsObject cms) {
+
+        final Set<String> schemas = new LinkedHashSet<String>();
+        for (I_CmsResourceType type : OpenCms.getResourceManager().getResourceTypes()) {
+            if (type instanceof CmsResourceTypeXmlContent) {
+                String schema = type.getConfiguration().get(CmsResourceTypeXmlContent.CONFIGURATION_SCHEMA);
+                if (schema != null) {
+                    schemas.add(schema);
+                }
+            }
+        }
+        if (schemas.isEmpty()) {
+            return;
+        }
+        Thread warmUpThread = new Thread("OpenCms: XML content definition cache warm-up") {
+
+            @Override
+            public void run() {
+
+                long startTime = System.currentTimeMillis();
+                int count = 0;
+                for (String schema : schemas) {
+                    try {
+                        if (schema.startsWith("/")) {
+                            CmsXmlContentDefinition.unmarshal(cms, schema);
+                        } else {
+                            CmsXmlContentDefinition.unmarshal(schema, new CmsXmlEntityResolver(cms));
+                        }
+                        count++;
+                    } catch (Exception e) {
+                        LOG.warn(Messages.get().getBundle().key(Messages.LOG_WARM_UP_CONTENT_DEF_FAILED_1, schema), e);
+                    }
+                }
+                if (CmsLog.INIT.isInfoEnabled()) {
+                    CmsLog.INIT.info(
+                        Messages.get().getBundle().key(
+                            Messages.INIT_CONTENT_DEFS_WARMED_UP_3,
+                            Integer.valueOf(count),
+                            Integer.valueOf(schemas.size()),
+                            Long.valueOf(System.currentTimeMillis() - startTime)));
+                }
+            }
+        };
+        warmUpThread.setDaemon(true);
+        warmUpThread.start();
+    }
+
     /**
      * Initialize the OpenCms XML entity resolver.<p>
      *
@@ -200,28 +321,123 @@ public class CmsXmlEntityResolver implements EntityResolver, I_CmsEventListener
         cacheSystemId(CmsXmlContentDefinition.XSD_INCLUDE_OPENCMS, typeSchemaBytes);
     }
 
+    /**
+     * Returns the root path of the VFS file for the given system id.<p>
+     *
+     * Legacy system ids are translated first. System ids that do not point to the VFS are returned unchanged.<p>
+     *
+     * @param systemId the system id
+     *
+     * @return the root path of the VFS file for the system id
+     */
+    static String getRootPath(String systemId) {
+
+        String result = translateLegacySystemId(systemId);
+        if (result.startsWith(OPENCMS_SCHEME)) {
+            result = result.substring(OPENCMS_SCHEME.length() - 1);
+        }
+        return result;
+    }
+
+    /**
+     * Creates a new cache map for XML content definitions, limited by the configured weight.<p>
+     *
+     * The weight of a content definition is the number of its schema types plus one.<p>
+     *
+     * @return the new cache map
+     */
+    private static Map<String, CmsXmlContentDefinition> createContentDefinitionCache() {
+
+        return CmsMemoryMonitor.createWeightedCacheMap(
+            m_cacheContentDefinitionsWeight,
+            new Weigher<String, CmsXmlContentDefinition>() {
+
+                public int weigh(String key, CmsXmlContentDefinition value) {
+
+                    return 1 + value.getTypeSequence().size();
+                }
+            },
+            CONTENT_DEFINITIONS_STATISTICS);
+    }
+
+    /**
+     * Creates a new cache map for files read from the VFS, limited by the configured size in bytes.<p>
+     *
+     * @return the new cache map
+     */
+    private static Map<String, byte[]> createTemporaryCache() {
+
+        return CmsMemoryMonitor.createWeightedCacheMap(m_cacheTemporarySize, new Weigher<String, byte[]>() {
+
+            public int weigh(String key, byte[] value) {
+
+                return Math.max(1, value.length);
+            }
+        }, TEMPORARY_STATISTICS);
+    }
+
+    /**
+     * Checks if the given content definition is based on the schema with the given root path,
+     * either directly or through one of its (nested) includes.<p>
+     *
+     * @param definition the content definition to check
+     * @param rootPath the root path of the schema
+     * @param visited the content definitions already checked, to stop at recursive includes
+     *
+     * @return <code>true</code> if the content definition depends on the schema
+     */
+    private static boolean dependsOnSchema(
+        CmsXmlContentDefinition definition,
+        String rootPath,
+        Set<CmsXmlContentDefinition> visited) {
+
+        if (!visited.add(definition)) {
+            return false;
+        }
+        String schemaLocation = definition.getSchemaLocation();
+        if ((schemaLocation != null) && schemaLocation.startsWith(OPENCMS_SCHEME)) {
+            schemaLocation = schemaLocation.substring(OPENCMS_SCHEME.length() - 1);
+        }
+        if (rootPath.equals(schemaLocation)) {
+            return true;
+        }
+        if (definition.getIncludes() != null) {
+            for (CmsXmlContentDefinition include : definition.getIncludes()) {
+                if (dependsOnSchema(include, rootPath, visited)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     /**
      * Initializes the internal caches for permanent and temporary system IDs.<p>
      */
     private static void initCaches() {
 
         if (m_cacheTemporary == null) {
-            m_cacheTemporary = CmsMemoryMonitor.createLRUCacheMap(1024);
+            m_cacheTemporary = createTemporaryCache();
 
             m_cachePermanent = new ConcurrentHashMap<String, byte[]>(32);
 
-            m_cacheContentDefinitions = CmsMemoryMonitor.createLRUCacheMap(CONTENT_DEFINITION_CACHE_SIZE);
+            m_cacheContentDefinitions = createContentDefinitionCache();
+
+            m_cacheCompiledSchemas = CmsMemoryMonitor.createLRUCacheMap(COMPILED_SCHEMA_CACHE_SIZE);
         }
         if (OpenCms.getRunLevel() > OpenCms.RUNLEVEL_1_CORE_OBJECT) {
             if ((OpenCms.getMemoryMonitor() != null)
                 && !OpenCms.getMemoryMonitor().isMonitoring(CmsXmlEntityResolver.class.getName() + ".cacheTemporary")) {
-                // reinitialize the caches after the memory monitor is set up
-                Map<String, byte[]> cacheTemporary = CmsMemoryMonitor.createLRUCacheMap(128);
+                // reinitialize the caches after the memory monitor is set up, using the configured cache sizes
+                Map<String, byte[]> cacheTemporary = createTemporaryCache();
                 cacheTemporary.putAll(m_cacheTemporary);
                 m_cacheTemporary = cacheTemporary;
                 OpenCms.getMemoryMonitor().register(
                     CmsXmlEntityResolver.class.getName() + ".cacheTemporary",
                     cacheTemporary);
+                OpenCms.getMemoryMonitor().registerCacheStatistics(
+                    CmsXmlEntityResolver.class.getName() + ".cacheTemporary",
+                    TEMPORARY_STATISTICS);
 
                 Map<String, byte[]> cachePermanent = new ConcurrentHashMap<String, byte[]>(32);
                 cachePermanent.putAll(m_cachePermanent);
@@ -230,13 +446,26 @@ public class CmsXmlEntityResolver implements EntityResolver, I_CmsEventListener
                     CmsXmlEntityResolver.class.getName() + ".cachePermanent",
                     cachePermanent);
 
-                Map<String, CmsXmlContentDefinition> cacheContentDefinitions = CmsMemoryMonitor.createLRUCacheMap(
-                    CONTENT_DEFINITION_CACHE_SIZE);
+                Map<String, CmsXmlContentDefinition> cacheContentDefinitions = createContentDefinitionCache();
                 cacheContentDefinitions.putAll(m_cacheContentDefinitions);
                 m_cacheContentDefinitions = cacheContentDefinitions;
                 OpenCms.getMemoryMonitor().register(
                     CmsXmlEntityResolver.class.getName() + ".cacheContentDefinitions",
                     cacheContentDefinitions);
+                OpenCms.getMemoryMonitor().registerCacheStatistics(
+                    CmsXmlEntityResolver.class.getName() + ".cacheContentDefinitions",
+                    CONTENT_DEFINITIONS_STATISTICS);
+
+                Map<String, CmsXmlCompiledSchema> cacheCompiledSchemas = CmsMemoryMonitor.createLRUCacheMap(
+                    COMPILED_SCHEMA_CACHE_SIZE);
+                cacheCompiledSchemas.putAll(m_cacheCompiledSchemas);
+                m_cacheCompiledSchemas = cacheCompiledSchemas;
+                OpenCms.getMemoryMonitor().register(
+                    CmsXmlEntityResolver.class.getName() + ".cacheCompiledSchemas",
+                    cacheCompiledSchemas);
+                OpenCms.getMemoryMonitor().registerCacheStatistics(
+                    CmsXmlEntityResolver.class.getName() + ".cacheCompiledSchemas",
+                    COMPILED_SCHEMAS_STATISTICS);
             }
         }
     }
@@ -279,6 +508,21 @@ public class CmsXmlEntityResolver implements EntityResolver, I_CmsEventListener
         }
     }
 
+    /**
+     * Caches an XML content definition based on the given system id and the online / offline status
+     * of this entity resolver instance, and records the time it took to create the definition
+     * in the cache statistics.<p>
+     *
+     * @param systemId the system id to use as cache key
+     * @param contentDefinition the content definition to cache
+     * @param loadTime the time it took to create the content definition, in nanoseconds
+     */
+    public void cacheContentDefinition(String systemId, CmsXmlContentDefinition contentDefinition, long loadTime) {
+
+        CONTENT_DEFINITIONS_STATISTICS.recordLoad(loadTime);
+        cacheContentDefinition(systemId, contentDefinition);
+    }
+
     /**
      * @see org.opencms.main.I_CmsEventListener#cmsEvent(org.opencms.main.CmsEvent)
      */
@@ -287,20 +531,27 @@ public class CmsXmlEntityResolver implements EntityResolver, I_CmsEventListener
         CmsResource resource;
         switch (event.getType()) {
             case I_CmsEventListener.EVENT_PUBLISH_PROJECT:
-                // only flush cache if a schema definition where published
+                // only flush the cache entries of the published schema definitions
                 CmsUUID publishHistoryId = new CmsUUID((String)event.getData().get(I_CmsEventListener.KEY_PUBLISHID));
-                if (isSchemaDefinitionInPublishList(publishHistoryId)) {
+                List<String> schemaPaths = getPublishedSchemaDefinitions(publishHistoryId);
+                if (schemaPaths == null) {
                     m_cacheTemporary.clear();
                     m_cacheContentDefinitions.clear();
+                    m_cacheCompiledSchemas.clear();
                     if (LOG.isDebugEnabled()) {
                         LOG.debug(Messages.get().getBundle().key(Messages.LOG_ERR_FLUSHED_CACHES_0));
                     }
+                } else {
+                    for (String schemaPath : schemaPaths) {
+                        uncacheSystemId(schemaPath, true);
+                    }
                 }
                 break;
             case I_CmsEventListener.EVENT_CLEAR_CACHES:
                 // flush cache
                 m_cacheTemporary.clear();
                 m_cacheContentDefinitions.clear();
+                m_cacheCompiledSchemas.clear();
                 if (LOG.isDebugEnabled()) {
                     LOG.debug(Messages.get().getBundle().key(Messages.LOG_ERR_FLUSHED_CACHES_0));
                 }
@@ -339,12 +590,51 @@ public class CmsXmlEntityResolver implements EntityResolver, I_CmsEventListener
 
         String cacheKey = getCacheKeyForCurrentProject(systemId);
         CmsXmlContentDefinition result = m_cacheContentDefinitions.get(cacheKey);
-        if ((result != null) && LOG.isDebugEnabled()) {
-            LOG.debug(Messages.get().getBundle().key(Messages.LOG_CACHE_LOOKUP_SUCCEEDED_1, cacheKey));
+        if (result == null) {
+            CONTENT_DEFINITIONS_STATISTICS.recordMiss();
+        } else {
+            CONTENT_DEFINITIONS_STATISTICS.recordHit();
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(Messages.get().getBundle().key(Messages.LOG_CACHE_LOOKUP_SUCCEEDED_1, cacheKey));
+            }
         }
         return result;
     }
 
+    /**
+     * Returns the compiled XML schema for the given system id, to be used for validating XML documents.<p>
+     *
+     * Compiled schemas are cached for the online and offline project. A cached schema is removed when
+     * the schema file or one of its included schema files changes. Schemas which could not be compiled
+     * are cached as well, so they are not compiled again before one of their schema files changes.<p>
+     *
+     * @param systemId the system id of the XML schema
+     *
+     * @return the compiled XML schema, or <code>null</code> if the schema could not be compiled
+     */
+    public Schema getCompiledSchema(String systemId) {
+
+        String cacheKey = getCacheKeyForCurrentProject(translateLegacySystemId(systemId));
+        CmsXmlCompiledSchema result = m_cacheCompiledSchemas.get(cacheKey);
+        if (result != null) {
+            COMPILED_SCHEMAS_STATISTICS.recordHit();
+            return result.getSchema();
+        }
+        COMPILED_SCHEMAS_STATISTICS.recordMiss();
+        long startTime = System.nanoTime();
+        result = CmsXmlCompiledSchema.compile(systemId, this);
+        if (result == null) {
+            return null;
+        }
+        COMPILED_SCHEMAS_STATISTICS.recordLoad(System.nanoTime() - startTime);
+        if (result.getError() != null) {
+            // the failure is cached as well, callers fall back to validating with the schema reader
+            LOG.warn(result.getError().getLocalizedMessage(), result.getError());
+        }
+        m_cacheCompiledSchemas.put(cacheKey, result);
+        return result.getSchema();
+    }
+
     /**
      * @see org.xml.sax.EntityResolver#resolveEntity(java.lang.String, java.lang.String)
      */
@@ -396,14 +686,18 @@ public class CmsXmlEntityResolver implements EntityResolver, I_CmsEventListener
             // look up temporary cache
             content = m_cacheTemporary.get(cacheKey);
             if (content != null) {
+                TEMPORARY_STATISTICS.recordHit();
                 return createInputSource(content, systemId);
             }
+            TEMPORARY_STATISTICS.recordMiss();
             String storedSiteRoot = m_cms.getRequestContext().getSiteRoot();
             try {
                 // content not cached, read from VFS
+                long startTime = System.nanoTime();
                 m_cms.getRequestContext().setSiteRoot("/");
                 CmsFile file = m_cms.readFile(cacheSystemId, CmsResourceFilter.IGNORE_EXPIRATION);
                 content = file.getContents();
+                TEMPORARY_STATISTICS.recordLoad(System.nanoTime() - startTime);
                 // store content in cache
                 m_cacheTemporary.put(cacheKey, content);
                 if (LOG.isDebugEnabled()) {
@@ -450,32 +744,14 @@ public class CmsXmlEntityResolver implements EntityResolver, I_CmsEventListener
     /**
      * Removes a cached entry for a system id (filename) from the internal offline temporary and content definition caches.<p>
      *
-     * The online resources cached for the online project are only flushed when a project is published.<p>
+     * All cached offline content definitions based on the system id, directly or through an include, are removed as well.
+     * The resources cached for the online project are only flushed when a project is published.<p>
      *
      * @param systemId the system id (filename) to remove from the cache
      */
     public void uncacheSystemId(String systemId) {
 
-        Object o;
-        o = m_cacheTemporary.remove(getCacheKey(systemId, false));
-        if (null != o) {
-            // if an object was removed from the temporary cache, all XML content definitions must be cleared
-            // because this may be a nested subschema
-            m_cacheContentDefinitions.clear();
-            if (LOG.isDebugEnabled()) {
-                LOG.debug(
-                    Messages.get().getBundle().key(Messages.LOG_ERR_UNCACHED_SYS_ID_1, getCacheKey(systemId, false)));
-            }
-        } else {
-            // check if a cached content definition has to be removed based on the system id
-            o = m_cacheContentDefinitions.remove(getCacheKey(systemId, false));
-            if ((null != o) && LOG.isDebugEnabled()) {
-                LOG.debug(
-                    Messages.get().getBundle().key(
-                        Messages.LOG_ERR_UNCACHED_CONTENT_DEF_1,
-                        getCacheKey(systemId, false)));
-            }
-        }
+        uncacheSystemId(systemId, false);
     }
 
     /**
@@ -532,33 +808,78 @@ public class CmsXmlEntityResolver implements EntityResolver, I_CmsEventListener
     }
 
     /**
-     * Proves if there is at least one xsd or dtd file in the list of resources to publish.<p>
+     * Returns the root paths of the published schema definitions, i.e. the published xsd or dtd files
+     * and all published files that are cached for the online project.<p>
      *
      * @param publishHistoryId the publish history id
      *
-     * @return true, if there is at least one xsd or dtd file in the list of resources to publish, otherwise false
+     * @return the root paths of the published schema definitions, or <code>null</code> if the published
+     *      resources could not be read and all caches have to be flushed
      */
-    private boolean isSchemaDefinitionInPublishList(CmsUUID publishHistoryId) {
+    private List<String> getPublishedSchemaDefinitions(CmsUUID publishHistoryId) {
 
         if (m_cms == null) {
             // CmsObject not available, assume there may be a schema definition in the publish history
-            return true;
+            return null;
         }
         try {
+            List<String> result = new ArrayList<String>();
             List<CmsPublishedResource> publishedResources = m_cms.readPublishedResources(publishHistoryId);
             for (CmsPublishedResource cmsPublishedResource : publishedResources) {
                 String resourceRootPath = cmsPublishedResource.getRootPath();
                 String resourceRootPathLowerCase = resourceRootPath.toLowerCase();
                 if (resourceRootPathLowerCase.endsWith(".xsd")
                     || resourceRootPathLowerCase.endsWith(".dtd")
-                    || m_cacheTemporary.containsKey(getCacheKey(resourceRootPath, true))) {
-                    return true;
+                    || m_cacheTemporary.containsKey(getCacheKey(resourceRootPath, true))
+                    || m_cacheContentDefinitions.containsKey(getCacheKey(resourceRootPath, true))) {
+                    result.add(resourceRootPath);
                 }
             }
+            return result;
         } catch (CmsException e) {
             // error reading published Resources.
             LOG.warn(e.getMessage(), e);
         }
-        return false;
+        return null;
+    }
+
+    /**
+     * Removes a cached entry for a system id (filename) from the temporary cache of the online or offline project,
+     * together with all content definitions and compiled schemas of that project based on the system id.<p>
+     *
+     * @param systemId the system id (filename) to remove from the cache
+     * @param online if the entries of the online or the offline project are removed
+     */
+    private void uncacheSystemId(String systemId, boolean online) {
+
+        String cacheKey = getCacheKey(systemId, online);
+        if ((null != m_cacheTemporary.remove(cacheKey)) && LOG.isDebugEnabled()) {
+            LOG.debug(Messages.get().getBundle().key(Messages.LOG_ERR_UNCACHED_SYS_ID_1, cacheKey));
+        }
+        // remove the content definitions of this schema and of all schemas including it
+        String keyPrefix = getCacheKey("", online);
+        Iterator<Map.Entry<String, CmsXmlContentDefinition>> entries = m_cacheContentDefinitions.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<String, CmsXmlContentDefinition> entry = entries.next();
+            if (entry.getKey().startsWith(keyPrefix)
+                && (entry.getKey().equals(cacheKey)
+                    || dependsOnSchema(
+                        entry.getValue(),
+                        systemId,
+                        Collections.newSetFromMap(new IdentityHashMap<CmsXmlContentDefinition, Boolean>())))) {
+                entries.remove();
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug(Messages.get().getBundle().key(Messages.LOG_ERR_UNCACHED_CONTENT_DEF_1, entry.getKey()));
+                }
+            }
+        }
+        // remove the compiled schemas that were compiled from this schema
+        Iterator<Map.Entry<String, CmsXmlCompiledSchema>> schemas = m_cacheCompiledSchemas.entrySet().iterator();
+        while (schemas.hasNext()) {
+            Map.Entry<String, CmsXmlCompiledSchema> entry = schemas.next();
+            if (entry.getKey().startsWith(keyPrefix) && entry.getValue().getDependencies().contains(systemId)) {
+                schemas.remove();
+            }
+        }
     }
 }
\ No newline at end of file
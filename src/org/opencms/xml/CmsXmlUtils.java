@@ -30,6 +30,7 @@ package org.opencms.xml;
 import org.opencms.file.CmsResource;
 import org.opencms.main.CmsLog;
 import org.opencms.util.CmsStringUtil;
+import org.opencms.xml.types.I_CmsXmlSchemaType;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -41,10 +42,15 @@ import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
 import java.util.List;
 
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.Validator;
+
 import org.apache.commons.logging.Log;
 
 import org.dom4j.Document;
 import org.dom4j.DocumentException;
+import org.dom4j.Element;
 import org.dom4j.Node;
 import org.dom4j.io.OutputFormat;
 import org.dom4j.io.SAXReader;
@@ -753,7 +759,7 @@ public final class CmsXmlUtils {
             document,
             new ByteArrayOutputStream(512),
             encoding)).toByteArray();
-        validateXmlStructure(xmlData, resolver);
+        validateXmlStructure(new ByteArrayInputStream(xmlData), getSchemaLocation(document), resolver);
     }
 
     /**
@@ -767,6 +773,111 @@ public final class CmsXmlUtils {
      */
     public static void validateXmlStructure(InputStream xmlStream, EntityResolver resolver) throws CmsXmlException {
 
+        validateXmlStructure(xmlStream, null, resolver);
+    }
+
+    /**
+     * Validates the structure of a XML document with the given XML schema.<p>
+     *
+     * If the resolver is an OpenCms XML entity resolver, the compiled XML schema is taken from its cache,
+     * so that the schema is not read and compiled again for every validation.
+     * Otherwise, or if no schema location is given, the document is validated with the DTD or XML schema
+     * referenced by the document.<p>
+     *
+     * @param xmlStream a source providing a XML document that should be validated
+     * @param schemaLocation the system id of the XML schema of the document, can be <code>null</code>
+     * @param resolver the XML entity resolver to use
+     *
+     * @throws CmsXmlException if the validation fails
+     */
+    public static void validateXmlStructure(InputStream xmlStream, String schemaLocation, EntityResolver resolver)
+    throws CmsXmlException {
+
+        Schema schema = null;
+        if ((schemaLocation != null) && (resolver instanceof CmsXmlEntityResolver)) {
+            schema = ((CmsXmlEntityResolver)resolver).getCompiledSchema(schemaLocation);
+        }
+        if (schema == null) {
+            validateXmlStructureWithReader(xmlStream, resolver);
+            return;
+        }
+
+        // add an error handler which turns any errors into XML
+        CmsXmlValidationErrorHandler errorHandler = new CmsXmlValidationErrorHandler();
+        Validator validator = schema.newValidator();
+        validator.setErrorHandler(errorHandler);
+        try {
+            validator.validate(new StreamSource(xmlStream));
+        } catch (IOException e) {
+            // should not happen since we read form a byte array
+            if (LOG.isErrorEnabled()) {
+                LOG.error(Messages.get().getBundle().key(Messages.LOG_READ_XML_FROM_BYTE_ARR_FAILED_0), e);
+            }
+            return;
+        } catch (SAXException e) {
+            // should not happen since all errors are handled in the XML error handler
+            if (LOG.isErrorEnabled()) {
+                LOG.error(Messages.get().getBundle().key(Messages.LOG_PARSE_SAX_EXC_0), e);
+            }
+            return;
+        }
+        checkValidationErrors(errorHandler);
+    }
+
+    /**
+     * Throws an exception containing the errors collected by the given error handler, if there are any.<p>
+     *
+     * @param errorHandler the error handler used for the validation
+     *
+     * @throws CmsXmlException if the error handler contains errors
+     */
+    private static void checkValidationErrors(CmsXmlValidationErrorHandler errorHandler) throws CmsXmlException {
+
+        if (errorHandler.getErrors().elements().size() > 0) {
+            // there was at last one validation error, so throw an exception
+            StringWriter out = new StringWriter(256);
+            OutputFormat format = OutputFormat.createPrettyPrint();
+            XMLWriter writer = new XMLWriter(out, format);
+            try {
+                writer.write(errorHandler.getErrors());
+                writer.write(errorHandler.getWarnings());
+                writer.close();
+            } catch (IOException e) {
+                // should not happen since we write to a StringWriter
+                if (LOG.isErrorEnabled()) {
+                    LOG.error(Messages.get().getBundle().key(Messages.LOG_STRINGWRITER_IO_EXC_0), e);
+                }
+            }
+            // generate String from XML for display of document in error message
+            throw new CmsXmlException(Messages.get().container(Messages.ERR_XML_VALIDATION_1, out.toString()));
+        }
+    }
+
+    /**
+     * Returns the XML schema location of the given document.<p>
+     *
+     * @param document the XML document
+     *
+     * @return the XML schema location, or <code>null</code> if the document does not reference an XML schema
+     */
+    private static String getSchemaLocation(Document document) {
+
+        Element root = document.getRootElement();
+        return root != null ? root.attributeValue(I_CmsXmlSchemaType.XSI_NAMESPACE_ATTRIBUTE_NO_SCHEMA_LOCATION) : null;
+    }
+
+    /**
+     * Validates the structure of a XML document with the DTD or XML schema referenced by the document,
+     * using a validating Xerces SAX reader.<p>
+     *
+     * @param xmlStream a source providing a XML document that should be validated
+     * @param resolver the XML entity resolver to use
+     *
+     * @throws CmsXmlException if the validation fails
+     */
+    private static void validateXmlStructureWithReader(InputStream xmlStream, EntityResolver resolver)
+    throws CmsXmlException {
+
         XMLReader reader;
         try {
             reader = XMLReaderFactory.createXMLReader("org.apache.xerces.parsers.SAXParser");
@@ -827,23 +938,6 @@ public final class CmsXmlUtils {
             return;
         }
 
-        if (errorHandler.getErrors().elements().size() > 0) {
-            // there was at last one validation error, so throw an exception
-            StringWriter out = new StringWriter(256);
-            OutputFormat format = OutputFormat.createPrettyPrint();
-            XMLWriter writer = new XMLWriter(out, format);
-            try {
-                writer.write(errorHandler.getErrors());
-                writer.write(errorHandler.getWarnings());
-                writer.close();
-            } catch (IOException e) {
-                // should not happen since we write to a StringWriter
-                if (LOG.isErrorEnabled()) {
-                    LOG.error(Messages.get().getBundle().key(Messages.LOG_STRINGWRITER_IO_EXC_0), e);
-                }
-            }
-            // generate String from XML for display of document in error message
-            throw new CmsXmlException(Messages.get().container(Messages.ERR_XML_VALIDATION_1, out.toString()));
-        }
+        checkValidationErrors(errorHandler);
     }
 }
\ No newline at end of file
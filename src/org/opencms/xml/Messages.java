@@ -139,6 +139,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_WRITE_XML_DOC_TO_STRING_0 = "ERR_WRITE_XML_DOC_TO_STRING_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_XML_SCHEMA_COMPILE_1 = "ERR_XML_SCHEMA_COMPILE_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_XML_VALIDATION_1 = "ERR_XML_VALIDATION_1";
 
@@ -157,6 +160,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String INIT_ADD_WIDGET_CONFIG_2 = "INIT_ADD_WIDGET_CONFIG_2";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_CONTENT_DEFS_WARMED_UP_3 = "INIT_CONTENT_DEFS_WARMED_UP_3";
+
     /** Message constant for key in the resource bundle. */
     public static final String INIT_NUM_ST_INITIALIZED_1 = "INIT_NUM_ST_INITIALIZED_1";
 
@@ -229,6 +235,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_VALIDATION_INIT_XERXES_SAX_READER_FAILED_0 = "LOG_VALIDATION_INIT_XERXES_SAX_READER_FAILED_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_WARM_UP_CONTENT_DEF_FAILED_1 = "LOG_WARM_UP_CONTENT_DEF_FAILED_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_XML_CONTENT_SCHEMA_TYPE_CLASS_NOT_FOUND_1 = "LOG_XML_CONTENT_SCHEMA_TYPE_CLASS_NOT_FOUND_1";
 
@@ -376,4 +376,58 @@ public final class CmsXmlContentFactory {
 
         return unmarshal(null, xmlData, encoding, resolver);
     }
-}
\ No newline at end of file
+
+    /**
+     * Factory method to read the compact, read-only model of a XML content resource.<p>
+     *
+     * In the online project, the read model is cached by structure id and date of the content,
+     * so it is parsed only once for every published version of the resource.<p>
+     *
+     * @param cms the current OpenCms context object
+     * @param resource the resource to read
+     *
+     * @return the read model of the XML content
+     *
+     * @throws CmsException if something goes wrong
+     * @throws CmsXmlException if the given <code>resource</code> is not of type xml content
+     */
+    public static CmsXmlContentReadModel unmarshalReadModel(CmsObject cms, CmsResource resource)
+    throws CmsXmlException, CmsException {
+
+        if (!CmsResourceTypeXmlContent.isXmlContent(resource)) {
+            // sanity check: resource must be of type XML content
+            throw new CmsXmlException(
+                Messages.get().container(Messages.ERR_XMLCONTENT_INVALID_TYPE_1, cms.getSitePath(resource)));
+        }
+
+        boolean online = cms.getRequestContext().getCurrentProject().isOnlineProject();
+        String key = getReadModelCacheKey(resource);
+        CmsXmlContentReadModel readModel = null;
+        if (online) {
+            readModel = OpenCms.getMemoryMonitor().getCachedXmlContentReadModel(key);
+        }
+        if (readModel == null) {
+            CmsFile file = resource instanceof CmsFile ? (CmsFile)resource : cms.readFile(resource);
+            readModel = CmsXmlContentReadModel.unmarshal(file.getContents(), file);
+            if (online) {
+                OpenCms.getMemoryMonitor().cacheXmlContentReadModel(key, readModel);
+            }
+        }
+        return readModel;
+    }
+
+    /**
+     * Returns the key used to cache the read model of the given XML content resource.<p>
+     *
+     * The structure id is used because the read model keeps the structure id of the resource it was read from,
+     * the date of the content changes whenever the XML of the resource or one of its siblings changes.<p>
+     *
+     * @param resource the XML content resource
+     *
+     * @return the cache key for the read model
+     */
+    static String getReadModelCacheKey(CmsResource resource) {
+
+        return resource.getStructureId().toString() + "_" + resource.getDateContent();
+    }
+}
@@ -0,0 +1,500 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.xml.content;
+
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsResource;
+import org.opencms.i18n.CmsLocaleManager;
+import org.opencms.main.CmsException;
+import org.opencms.main.CmsLog;
+import org.opencms.util.CmsStringUtil;
+import org.opencms.util.CmsUUID;
+import org.opencms.xml.CmsXmlContentDefinition;
+import org.opencms.xml.CmsXmlEntityResolver;
+import org.opencms.xml.CmsXmlException;
+import org.opencms.xml.CmsXmlUtils;
+import org.opencms.xml.types.A_CmsXmlValueCdataBase;
+import org.opencms.xml.types.A_CmsXmlValueTextBase;
+import org.opencms.xml.types.I_CmsXmlSchemaType;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.apache.commons.logging.Log;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.ext.DefaultHandler2;
+
+/**
+ * Compact read-only representation of an XML content.<p>
+ *
+ * The XML is parsed once with a streaming SAX handler, no dom4j tree is created.
+ * For every locale, only the indexed xpath and the text of each element is kept.
+ * Instances are cached for online resources, see
+ * {@link CmsXmlContentFactory#unmarshalReadModel(CmsObject, CmsResource)}.
+ * The JSP content access bean uses the read model in the online project
+ * as long as the full XML content is not required.<p>
+ *
+ * Values of text based types (like string, boolean or date values) are served from the read model directly.
+ * Values of other types (like HTML or file link values) require link processing,
+ * they are read from the fully unmarshalled XML content. The XML content is unmarshalled once for each
+ * OpenCms user context, since the values keep the links processed for the first context.<p>
+ *
+ * @since 10.5.0
+ */
+public class CmsXmlContentReadModel {
+
+    /**
+     * SAX handler collecting the element texts.<p>
+     */
+    private static class ReadModelHandler extends DefaultHandler2 {
+
+        /** The index counters of the child elements, one map for each open element. */
+        private List<Map<String, Integer>> m_childIndexes = new ArrayList<Map<String, Integer>>();
+
+        /** Flag indicating that characters are read from a CDATA section. */
+        private boolean m_inCdata;
+
+        /** The paths of the open elements. */
+        private List<String> m_paths = new ArrayList<String>();
+
+        /** The text of the current text node. */
+        private StringBuilder m_pendingText = new StringBuilder();
+
+        /** The schema location read from the root element. */
+        private String m_schemaLocation;
+
+        /** The texts of the open elements. */
+        private List<StringBuilder> m_texts = new ArrayList<StringBuilder>();
+
+        /** The values of the current locale. */
+        private Map<String, String> m_values;
+
+        /** The values by locale. */
+        private Map<Locale, Map<String, String>> m_valuesByLocale = new LinkedHashMap<Locale, Map<String, String>>();
+
+        /**
+         * @see org.xml.sax.helpers.DefaultHandler#characters(char[], int, int)
+         */
+        @Override
+        public void characters(char[] ch, int start, int length) {
+
+            if (m_texts.isEmpty()) {
+                return;
+            }
+            if (m_inCdata) {
+                m_texts.get(m_texts.size() - 1).append(ch, start, length);
+            } else {
+                m_pendingText.append(ch, start, length);
+            }
+        }
+
+        /**
+         * @see org.xml.sax.ext.DefaultHandler2#endCDATA()
+         */
+        @Override
+        public void endCDATA() {
+
+            m_inCdata = false;
+        }
+
+        /**
+         * @see org.xml.sax.helpers.DefaultHandler#endElement(java.lang.String, java.lang.String, java.lang.String)
+         */
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+
+            completeTextNode();
+            int last = m_paths.size() - 1;
+            String path = m_paths.remove(last);
+            String text = m_texts.remove(last).toString();
+            m_childIndexes.remove(last);
+            if ((path != null) && (m_values != null)) {
+                m_values.put(path, text);
+            }
+        }
+
+        /**
+         * Returns the schema location read from the root element.<p>
+         *
+         * @return the schema location
+         */
+        public String getSchemaLocation() {
+
+            return m_schemaLocation;
+        }
+
+        /**
+         * Returns the values by locale.<p>
+         *
+         * @return the values by locale
+         */
+        public Map<Locale, Map<String, String>> getValuesByLocale() {
+
+            return m_valuesByLocale;
+        }
+
+        /**
+         * @see org.xml.sax.ext.DefaultHandler2#resolveEntity(java.lang.String, java.lang.String, java.lang.String, java.lang.String)
+         */
+        @Override
+        public InputSource resolveEntity(String name, String publicId, String baseURI, String systemId) {
+
+            // XML contents do not use external entities
+            return new InputSource(new ByteArrayInputStream(new byte[0]));
+        }
+
+        /**
+         * @see org.xml.sax.ext.DefaultHandler2#startCDATA()
+         */
+        @Override
+        public void startCDATA() {
+
+            completeTextNode();
+            m_inCdata = true;
+        }
+
+        /**
+         * @see org.xml.sax.helpers.DefaultHandler#startElement(java.lang.String, java.lang.String, java.lang.String, org.xml.sax.Attributes)
+         */
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+
+            completeTextNode();
+            int depth = m_paths.size();
+            String path = null;
+            if (depth == 0) {
+                // the root element
+                m_schemaLocation = attributes.getValue(
+                    I_CmsXmlSchemaType.XSI_NAMESPACE.getURI(),
+                    I_CmsXmlSchemaType.XSI_NAMESPACE_ATTRIBUTE_NO_SCHEMA_LOCATION.getName());
+            } else if (depth == 1) {
+                // a locale element
+                String language = attributes.getValue(CmsXmlContentDefinition.XSD_ATTRIBUTE_VALUE_LANGUAGE);
+                m_values = null;
+                if (language != null) {
+                    Locale locale = CmsLocaleManager.getLocale(language);
+                    m_values = m_valuesByLocale.get(locale);
+                    if (m_values == null) {
+                        m_values = new HashMap<String, String>();
+                        m_valuesByLocale.put(locale, m_values);
+                    }
+                    // like the bookmarks of the XML content, values of a repeated locale element replace
+                    // the values with the same path of the previous elements
+                }
+            } else {
+                // a value element
+                Map<String, Integer> indexes = m_childIndexes.get(depth - 1);
+                Integer index = indexes.get(localName);
+                index = Integer.valueOf(index == null ? 1 : index.intValue() + 1);
+                indexes.put(localName, index);
+                String element = CmsXmlUtils.createXpathElement(localName, index.intValue());
+                String parentPath = m_paths.get(depth - 1);
+                path = parentPath == null ? element : CmsXmlUtils.concatXpath(parentPath, element);
+            }
+            m_paths.add(path);
+            m_texts.add(new StringBuilder());
+            m_childIndexes.add(new HashMap<String, Integer>());
+        }
+
+        /**
+         * Adds the current text node to the text of the current element.<p>
+         *
+         * Like the dom4j reader used for XML contents, whitespace only text nodes are ignored.<p>
+         */
+        private void completeTextNode() {
+
+            if (m_pendingText.length() > 0) {
+                if (!m_texts.isEmpty() && CmsStringUtil.isNotEmptyOrWhitespaceOnly(m_pendingText.toString())) {
+                    m_texts.get(m_texts.size() - 1).append(m_pendingText);
+                }
+                m_pendingText.setLength(0);
+            }
+        }
+    }
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsXmlContentReadModel.class);
+
+    /** The unmarshalled XML contents, for each OpenCms user context that requested a value which is not text based. */
+    private final Map<CmsObject, CmsXmlContent> m_contents = new WeakHashMap<CmsObject, CmsXmlContent>();
+
+    /** The locales of the XML content, in document order. */
+    private final List<Locale> m_locales;
+
+    /** The schema location of the XML content. */
+    private final String m_schemaLocation;
+
+    /** The structure id of the XML content resource. */
+    private final CmsUUID m_structureId;
+
+    /** The element texts by indexed xpath, for each locale. */
+    private final Map<Locale, Map<String, String>> m_values;
+
+    /**
+     * Creates a new read model.<p>
+     *
+     * @param structureId the structure id of the XML content resource
+     * @param schemaLocation the schema location of the XML content
+     * @param values the element texts by indexed xpath, for each locale
+     */
+    CmsXmlContentReadModel(
+        CmsUUID structureId,
+        String schemaLocation,
+        Map<Locale, Map<String, String>> values) {
+
+        m_structureId = structureId;
+        m_schemaLocation = schemaLocation;
+        m_values = values;
+        m_locales = Collections.unmodifiableList(new ArrayList<Locale>(values.keySet()));
+    }
+
+    /**
+     * Parses the given XML content data into a read model.<p>
+     *
+     * @param xmlData the XML content data
+     * @param resource the XML content resource
+     *
+     * @return the read model
+     *
+     * @throws CmsXmlException if the XML data can not be parsed
+     */
+    public static CmsXmlContentReadModel unmarshal(byte[] xmlData, CmsResource resource) throws CmsXmlException {
+
+        ReadModelHandler handler = new ReadModelHandler();
+        if (xmlData.length > 0) {
+            try {
+                SAXParserFactory factory = SAXParserFactory.newInstance();
+                factory.setNamespaceAware(true);
+                factory.setValidating(false);
+                SAXParser parser = factory.newSAXParser();
+                parser.setProperty("http://xml.org/sax/properties/lexical-handler", handler);
+                parser.parse(new ByteArrayInputStream(xmlData), handler);
+            } catch (ParserConfigurationException | SAXException | IOException e) {
+                throw new CmsXmlException(
+                    org.opencms.xml.Messages.get().container(
+                        org.opencms.xml.Messages.ERR_UNMARSHALLING_XML_DOC_1,
+                        resource.getRootPath()),
+                    e);
+            }
+        }
+        Map<Locale, Map<String, String>> values = new LinkedHashMap<Locale, Map<String, String>>();
+        for (Map.Entry<Locale, Map<String, String>> entry : handler.getValuesByLocale().entrySet()) {
+            values.put(entry.getKey(), Collections.unmodifiableMap(entry.getValue()));
+        }
+        return new CmsXmlContentReadModel(
+            resource.getStructureId(),
+            handler.getSchemaLocation(),
+            Collections.unmodifiableMap(values));
+    }
+
+    /**
+     * Returns the number of values with the given path in the given locale.<p>
+     *
+     * @param path the path of the value, the index of the last path element is ignored
+     * @param locale the locale
+     *
+     * @return the number of values with the given path
+     */
+    public int getIndexCount(String path, Locale locale) {
+
+        Map<String, String> values = m_values.get(locale);
+        if (values == null) {
+            return 0;
+        }
+        String basePath = CmsXmlUtils.removeXpathIndex(CmsXmlUtils.createXpath(path, 1));
+        int count = 0;
+        while (values.containsKey(CmsXmlUtils.createXpath(basePath, count + 1))) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the locales of the XML content.<p>
+     *
+     * @return the locales of the XML content
+     */
+    public List<Locale> getLocales() {
+
+        return m_locales;
+    }
+
+    /**
+     * Returns the schema location of the XML content.<p>
+     *
+     * @return the schema location of the XML content
+     */
+    public String getSchemaLocation() {
+
+        return m_schemaLocation;
+    }
+
+    /**
+     * Returns the string value of the given path in the given locale.<p>
+     *
+     * The result is the same as from {@link CmsXmlContent#getStringValue(CmsObject, String, Locale)}.
+     * If the value does not have a text based type, the XML content is unmarshalled to read the value,
+     * once for each OpenCms user context.<p>
+     *
+     * @param cms the current OpenCms user context
+     * @param path the path of the value
+     * @param locale the locale
+     *
+     * @return the string value, or <code>null</code> if the value does not exist
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public String getStringValue(CmsObject cms, String path, Locale locale) throws CmsException {
+
+        String text = getText(path, locale);
+        if ((text == null) || isTextBased(cms, path)) {
+            return text;
+        }
+        CmsXmlContent content;
+        synchronized (m_contents) {
+            content = m_contents.get(cms);
+        }
+        if (content == null) {
+            content = readContent(cms);
+            synchronized (m_contents) {
+                m_contents.put(cms, content);
+            }
+        }
+        return content.getStringValue(cms, path, locale);
+    }
+
+    /**
+     * Returns the structure id of the XML content resource.<p>
+     *
+     * @return the structure id of the XML content resource
+     */
+    public CmsUUID getStructureId() {
+
+        return m_structureId;
+    }
+
+    /**
+     * Returns the raw text of the element with the given path in the given locale.<p>
+     *
+     * For values of text based types, this is the string value. For nested contents it is usually empty.<p>
+     *
+     * @param path the path of the element
+     * @param locale the locale
+     *
+     * @return the text of the element, or <code>null</code> if the element does not exist
+     */
+    public String getText(String path, Locale locale) {
+
+        Map<String, String> values = m_values.get(locale);
+        if (values == null) {
+            return null;
+        }
+        return values.get(CmsXmlUtils.createXpath(path, 1));
+    }
+
+    /**
+     * Checks if the XML content contains the given locale.<p>
+     *
+     * @param locale the locale to check
+     *
+     * @return <code>true</code> if the XML content contains the given locale
+     */
+    public boolean hasLocale(Locale locale) {
+
+        return m_values.containsKey(locale);
+    }
+
+    /**
+     * Checks if the XML content contains a value with the given path in the given locale.<p>
+     *
+     * @param path the path of the value
+     * @param locale the locale
+     *
+     * @return <code>true</code> if the value exists
+     */
+    public boolean hasValue(String path, Locale locale) {
+
+        return getText(path, locale) != null;
+    }
+
+    /**
+     * Checks if the value with the given path has a text based type, which needs no link processing.<p>
+     *
+     * The string values of these values are the texts returned by {@link #getText(String, Locale)}.<p>
+     *
+     * @param cms the current OpenCms user context
+     * @param path the path of the value
+     *
+     * @return <code>true</code> if the value has a text based type
+     */
+    public boolean isTextBased(CmsObject cms, String path) {
+
+        if (m_schemaLocation == null) {
+            return false;
+        }
+        try {
+            CmsXmlContentDefinition definition = CmsXmlContentDefinition.unmarshal(
+                m_schemaLocation,
+                new CmsXmlEntityResolver(cms));
+            I_CmsXmlSchemaType type = definition.getSchemaType(path);
+            return (type instanceof A_CmsXmlValueTextBase) || (type instanceof A_CmsXmlValueCdataBase);
+        } catch (CmsXmlException | SAXException | IOException e) {
+            LOG.warn(e.getLocalizedMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Reads and unmarshals the XML content.<p>
+     *
+     * @param cms the current OpenCms user context
+     *
+     * @return the unmarshalled XML content
+     *
+     * @throws CmsException if something goes wrong
+     */
+    CmsXmlContent readContent(CmsObject cms) throws CmsException {
+
+        return CmsXmlContentFactory.unmarshal(cms, cms.readFile(cms.readResource(m_structureId)));
+    }
+}
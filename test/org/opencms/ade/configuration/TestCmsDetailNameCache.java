@@ -0,0 +1,297 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.ade.configuration;
+
+import org.opencms.db.Messages;
+import org.opencms.db.urlname.CmsUrlNameMappingEntry;
+import org.opencms.main.CmsException;
+import org.opencms.util.CmsUUID;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the detail name cache.<p>
+ */
+public class TestCmsDetailNameCache extends TestCase {
+
+    /**
+     * Detail name cache which reads the URL names from a map instead of the database.<p>
+     */
+    static class CmsTestDetailNameCache extends CmsDetailNameCache {
+
+        /** The URL name mappings standing in for the database. */
+        Map<String, CmsUUID> m_database;
+
+        /** Flag indicating that the database reads should fail. */
+        boolean m_failing;
+
+        /** The number of single URL name lookups. */
+        int m_lookups;
+
+        /**
+         * Creates a new instance.<p>
+         *
+         * @param database the URL name mappings standing in for the database
+         * @param snapshotFile the snapshot file, or <code>null</code>
+         */
+        CmsTestDetailNameCache(Map<String, CmsUUID> database, File snapshotFile) {
+
+            super(null, snapshotFile);
+            m_database = database;
+        }
+
+        /**
+         * @see org.opencms.ade.configuration.CmsDetailNameCache#getUrlNames(org.opencms.util.CmsUUID)
+         */
+        @Override
+        Set<String> getUrlNames(CmsUUID id) {
+
+            Set<String> result = new HashSet<String>();
+            for (Map.Entry<String, CmsUUID> entry : m_database.entrySet()) {
+                if (entry.getValue().equals(id)) {
+                    result.add(entry.getKey());
+                }
+            }
+            return result;
+        }
+
+        /**
+         * @see org.opencms.ade.configuration.CmsDetailNameCache#readAllUrlNameMappings()
+         */
+        @Override
+        List<CmsUrlNameMappingEntry> readAllUrlNameMappings() throws CmsException {
+
+            checkFailing();
+            List<CmsUrlNameMappingEntry> result = new ArrayList<CmsUrlNameMappingEntry>();
+            for (Map.Entry<String, CmsUUID> entry : m_database.entrySet()) {
+                result.add(
+                    new CmsUrlNameMappingEntry(
+                        entry.getKey(),
+                        entry.getValue(),
+                        CmsUrlNameMappingEntry.MAPPING_STATUS_PUBLISHED,
+                        0,
+                        "en"));
+            }
+            return result;
+        }
+
+        /**
+         * @see org.opencms.ade.configuration.CmsDetailNameCache#readIdForUrlName(java.lang.String)
+         */
+        @Override
+        CmsUUID readIdForUrlName(String name) throws CmsException {
+
+            m_lookups++;
+            checkFailing();
+            return m_database.get(name);
+        }
+
+        /**
+         * Throws an exception if the database reads should fail.<p>
+         *
+         * @throws CmsException if the database reads should fail
+         */
+        private void checkFailing() throws CmsException {
+
+            if (m_failing) {
+                throw new CmsException(Messages.get().container(Messages.ERR_DB_OPERATION_0));
+            }
+        }
+    }
+
+    /** Test structure id. */
+    private static final CmsUUID ID1 = new CmsUUID();
+
+    /** Test structure id. */
+    private static final CmsUUID ID2 = new CmsUUID();
+
+    /** Test structure id. */
+    private static final CmsUUID ID3 = new CmsUUID();
+
+    /** The URL name mappings standing in for the database. */
+    private Map<String, CmsUUID> m_database;
+
+    /** The snapshot file used by the test. */
+    private File m_snapshotFile;
+
+    /**
+     * Tests that deleted URL names are removed incrementally.<p>
+     */
+    public void testIncrementalDelete() {
+
+        CmsTestDetailNameCache cache = createLoadedCache(null);
+        m_database.remove("b");
+        cache.markForUpdate(ID2);
+        cache.checkForUpdates();
+        assertNull(cache.getDetailId("b"));
+        assertEquals(ID1, cache.getDetailId("a"));
+        assertEquals(ID1, cache.getDetailId("a-de"));
+    }
+
+    /**
+     * Tests that renamed URL names are updated incrementally.<p>
+     */
+    public void testIncrementalRename() {
+
+        CmsTestDetailNameCache cache = createLoadedCache(null);
+        m_database.remove("a");
+        m_database.put("a-new", ID1);
+        cache.markForUpdate(ID1);
+        cache.checkForUpdates();
+        assertNull(cache.getDetailId("a"));
+        assertEquals(ID1, cache.getDetailId("a-new"));
+        assertEquals(ID1, cache.getDetailId("a-de"));
+        assertEquals(ID2, cache.getDetailId("b"));
+    }
+
+    /**
+     * Tests that a URL name taken over by another resource is not removed by the update of the old resource.<p>
+     */
+    public void testIncrementalTakeOver() {
+
+        CmsTestDetailNameCache cache = createLoadedCache(null);
+        m_database.put("b", ID3);
+        cache.markForUpdate(ID3);
+        cache.checkForUpdates();
+        assertEquals(ID3, cache.getDetailId("b"));
+        cache.markForUpdate(ID2);
+        cache.checkForUpdates();
+        assertEquals(ID3, cache.getDetailId("b"));
+    }
+
+    /**
+     * Tests that the snapshot is used if the database is not available, and that it is not used
+     * once the URL names have been reloaded.<p>
+     */
+    public void testSnapshotIsConfirmedByReload() {
+
+        createLoadedCache(m_snapshotFile);
+        CmsTestDetailNameCache cache = new CmsTestDetailNameCache(m_database, m_snapshotFile);
+        assertTrue(cache.readSnapshot());
+        cache.m_failing = true;
+        assertEquals(ID2, cache.getDetailId("b"));
+
+        // a failed reload keeps confirming the names and is retried
+        cache.clear();
+        cache.checkForUpdates();
+        assertEquals(ID2, cache.getDetailId("b"));
+        assertEquals(2, cache.m_lookups);
+        cache.m_failing = false;
+        m_database.remove("b");
+        cache.checkForUpdates();
+        assertNull(cache.getDetailId("b"));
+        assertEquals(ID1, cache.getDetailId("a"));
+        assertEquals(2, cache.m_lookups);
+    }
+
+    /**
+     * Tests that the URL names written to the snapshot are read back, and that outdated
+     * snapshot entries are not served before the URL names have been reloaded.<p>
+     */
+    public void testSnapshotRoundTrip() {
+
+        createLoadedCache(m_snapshotFile);
+        assertTrue(m_snapshotFile.exists());
+        m_database.remove("b");
+        m_database.put("c", ID3);
+
+        CmsTestDetailNameCache cache = new CmsTestDetailNameCache(m_database, m_snapshotFile);
+        assertTrue(cache.readSnapshot());
+        assertNull(cache.getDetailId("b"));
+        assertEquals(ID3, cache.getDetailId("c"));
+        assertEquals(ID1, cache.getDetailId("a-de"));
+        assertEquals(3, cache.m_lookups);
+
+        // the snapshot contents are used if the database lookup fails
+        cache.m_failing = true;
+        assertEquals(ID1, cache.getDetailId("a"));
+        assertEquals(ID2, cache.getDetailId("b"));
+        assertNull(cache.getDetailId("c"));
+    }
+
+    /**
+     * Tests that an invalid snapshot file is not used.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testSnapshotWithInvalidFile() throws Exception {
+
+        CmsTestDetailNameCache cache = new CmsTestDetailNameCache(m_database, m_snapshotFile);
+        assertFalse(cache.readSnapshot());
+        assertTrue(m_snapshotFile.createNewFile());
+        assertFalse(cache.readSnapshot());
+        assertNull(cache.getDetailId("a"));
+        assertEquals(0, cache.m_lookups);
+    }
+
+    /**
+     * @see junit.framework.TestCase#setUp()
+     */
+    @Override
+    protected void setUp() throws Exception {
+
+        m_database = new LinkedHashMap<String, CmsUUID>();
+        m_database.put("a", ID1);
+        m_database.put("a-de", ID1);
+        m_database.put("b", ID2);
+        m_snapshotFile = File.createTempFile("detailnames", ".ser");
+        m_snapshotFile.delete();
+    }
+
+    /**
+     * @see junit.framework.TestCase#tearDown()
+     */
+    @Override
+    protected void tearDown() {
+
+        m_snapshotFile.delete();
+    }
+
+    /**
+     * Creates a cache with all URL names loaded from the database.<p>
+     *
+     * @param snapshotFile the snapshot file, or <code>null</code>
+     *
+     * @return the cache
+     */
+    private CmsTestDetailNameCache createLoadedCache(File snapshotFile) {
+
+        CmsTestDetailNameCache cache = new CmsTestDetailNameCache(m_database, snapshotFile);
+        cache.clear();
+        cache.checkForUpdates();
+        return cache;
+    }
+}
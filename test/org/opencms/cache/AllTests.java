@@ -59,6 +59,9 @@ public final class AllTests {
         OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
         //$JUnit-BEGIN$
         suite.addTest(TestCache.suite());
+        suite.addTest(new TestSuite(TestCmsDiskCacheFileSender.class));
+        suite.addTest(new TestSuite(TestCmsLruCache.class));
+        suite.addTest(new TestSuite(TestCmsResourcePathCache.class));
         //$JUnit-END$
         return suite;
     }
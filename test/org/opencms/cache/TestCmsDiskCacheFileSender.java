@@ -0,0 +1,90 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cache;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+/**
+ * Test case for CmsDiskCacheFileSender.<p>
+ */
+public class TestCmsDiskCacheFileSender extends TestCase {
+
+    /**
+     * Tests matching entity tags.<p>
+     */
+    public void testMatchesETag() {
+
+        String etag = "\"1a-20\"";
+        assertFalse(CmsDiskCacheFileSender.matchesETag(null, etag));
+        assertTrue(CmsDiskCacheFileSender.matchesETag("\"1a-20\"", etag));
+        assertTrue(CmsDiskCacheFileSender.matchesETag("W/\"1a-20\"", etag));
+        assertTrue(CmsDiskCacheFileSender.matchesETag("\"xx\", \"1a-20\"", etag));
+        assertTrue(CmsDiskCacheFileSender.matchesETag("*", etag));
+        assertFalse(CmsDiskCacheFileSender.matchesETag("\"1a-21\"", etag));
+    }
+
+    /**
+     * Tests parsing range headers.<p>
+     */
+    public void testParseRange() {
+
+        // no or unsupported ranges, send the full content
+        assertNull(CmsDiskCacheFileSender.parseRange(null, 100));
+        assertNull(CmsDiskCacheFileSender.parseRange("items=0-10", 100));
+        assertNull(CmsDiskCacheFileSender.parseRange("bytes=0-10,20-30", 100));
+        assertNull(CmsDiskCacheFileSender.parseRange("bytes=a-b", 100));
+        assertNull(CmsDiskCacheFileSender.parseRange("bytes=-", 100));
+
+        // satisfiable ranges
+        assertRange(0, 9, CmsDiskCacheFileSender.parseRange("bytes=0-9", 100));
+        assertRange(50, 99, CmsDiskCacheFileSender.parseRange("bytes=50-", 100));
+        assertRange(90, 99, CmsDiskCacheFileSender.parseRange("bytes=-10", 100));
+        assertRange(0, 99, CmsDiskCacheFileSender.parseRange("bytes=-200", 100));
+        assertRange(95, 99, CmsDiskCacheFileSender.parseRange("bytes=95-200", 100));
+
+        // unsatisfiable ranges
+        assertEquals(0, CmsDiskCacheFileSender.parseRange("bytes=100-", 100).length);
+        assertEquals(0, CmsDiskCacheFileSender.parseRange("bytes=20-10", 100).length);
+        assertEquals(0, CmsDiskCacheFileSender.parseRange("bytes=-0", 100).length);
+    }
+
+    /**
+     * Asserts a parsed range.<p>
+     *
+     * @param start the expected first byte position
+     * @param end the expected last byte position
+     * @param range the parsed range
+     */
+    private void assertRange(long start, long end, long[] range) {
+
+        assertNotNull(range);
+        assertEquals(Arrays.toString(new long[] {start, end}), Arrays.toString(range));
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the LRU cache.<p>
+ */
+public class TestCmsLruCache extends TestCase {
+
+    /**
+     * Cache object which checks that the add and remove notifications alternate.<p>
+     */
+    private static class TestCacheObject implements I_CmsLruCacheObject {
+
+        /** The number of notifications in the wrong order. */
+        static final AtomicInteger VIOLATIONS = new AtomicInteger();
+
+        /** The cache costs. */
+        private final int m_costs;
+
+        /** 1 if the object has been notified that it was added, 0 otherwise. */
+        private final AtomicInteger m_inCache = new AtomicInteger();
+
+        /**
+         * Creates a new test object.<p>
+         *
+         * @param costs the cache costs
+         */
+        TestCacheObject(int costs) {
+
+            m_costs = costs;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#addToLruCache()
+         */
+        public void addToLruCache() {
+
+            if (!m_inCache.compareAndSet(0, 1)) {
+                VIOLATIONS.incrementAndGet();
+            }
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#getLruCacheCosts()
+         */
+        public int getLruCacheCosts() {
+
+            return m_costs;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#getValue()
+         */
+        public Object getValue() {
+
+            return this;
+        }
+
+        /**
+         * Checks if the object has been notified that it is cached.<p>
+         *
+         * @return true if the object has been notified that it is cached
+         */
+        boolean isInCache() {
+
+            return m_inCache.get() == 1;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#removeFromLruCache()
+         */
+        public void removeFromLruCache() {
+
+            if (!m_inCache.compareAndSet(1, 0)) {
+                VIOLATIONS.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Tests adding, touching and removing objects.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testAddRemove() throws Exception {
+
+        CmsLruCache cache = new CmsLruCache(1000, 500, 100);
+        TestCacheObject first = new TestCacheObject(10);
+        TestCacheObject second = new TestCacheObject(20);
+        assertTrue(cache.add(first));
+        assertTrue(cache.add(second));
+        // adding twice only touches the object
+        assertTrue(cache.add(first));
+        assertEquals(2, cache.size());
+        assertEquals(30, cache.getObjectCosts());
+        assertTrue(first.isInCache());
+
+        // too expensive
+        assertFalse(cache.add(new TestCacheObject(101)));
+
+        assertSame(first, cache.remove(first));
+        assertNull(cache.remove(first));
+        assertFalse(first.isInCache());
+        assertFalse(cache.touch(first));
+        assertTrue(cache.touch(second));
+        assertEquals(20, cache.getObjectCosts());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getObjectCosts());
+        assertFalse(second.isInCache());
+    }
+
+    /**
+     * Tests concurrent add and remove calls for the same objects, without eviction.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testConcurrentAddRemove() throws Exception {
+
+        runConcurrently(new CmsLruCache(Long.MAX_VALUE, Long.MAX_VALUE, -1));
+    }
+
+    /**
+     * Tests concurrent add and remove calls for the same objects while objects are evicted.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testConcurrentAddRemoveWithGc() throws Exception {
+
+        CmsLruCache cache = new CmsLruCache(200, 100, -1);
+        runConcurrently(cache);
+        assertTrue(cache.getObjectCosts() <= 200);
+    }
+
+    /**
+     * Adds, touches and removes a small set of objects from several threads,
+     * then checks the bookkeeping of the cache.<p>
+     *
+     * @param cache the cache to test
+     *
+     * @throws Exception if something goes wrong
+     */
+    private void runConcurrently(final CmsLruCache cache) throws Exception {
+
+        TestCacheObject.VIOLATIONS.set(0);
+        final List<TestCacheObject> objects = new ArrayList<TestCacheObject>();
+        for (int i = 0; i < 20; i++) {
+            objects.add(new TestCacheObject(1 + (i % 7)));
+        }
+        final List<Throwable> errors = new ArrayList<Throwable>();
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            final long seed = t;
+            threads[t] = new Thread() {
+
+                @Override
+                public void run() {
+
+                    try {
+                        Random random = new Random(seed);
+                        for (int i = 0; i < 50000; i++) {
+                            TestCacheObject object = objects.get(random.nextInt(objects.size()));
+                            switch (random.nextInt(3)) {
+                                case 0:
+                                    cache.add(object);
+                                    break;
+                                case 1:
+                                    cache.remove(object);
+                                    break;
+                                default:
+                                    cache.touch(object);
+                            }
+                        }
+                    } catch (Throwable e) {
+                        synchronized (errors) {
+                            errors.add(e);
+                        }
+                    }
+                }
+            };
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertTrue(errors.toString(), errors.isEmpty());
+        assertEquals(0, TestCacheObject.VIOLATIONS.get());
+        int costs = 0;
+        int size = 0;
+        for (TestCacheObject object : objects) {
+            // the notification state of every object must match the cache content
+            boolean cached = cache.touch(object);
+            assertEquals(cached, object.isInCache());
+            if (cached) {
+                costs += object.getLruCacheCosts();
+                size++;
+            }
+        }
+        assertEquals(size, cache.size());
+        assertEquals(costs, cache.getObjectCosts());
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cache;
+
+import org.opencms.file.CmsResource;
+import org.opencms.util.CmsStringUtil;
+import org.opencms.util.CmsUUID;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Test case for CmsResourcePathCache.<p>
+ */
+public class TestCmsResourcePathCache extends TestCase {
+
+    /**
+     * Creates a resource for testing.<p>
+     *
+     * @param rootPath the root path
+     *
+     * @return the resource
+     */
+    private static CmsResource createResource(String rootPath) {
+
+        boolean isFolder = CmsResource.isFolder(rootPath);
+        return new CmsResource(
+            new CmsUUID(),
+            new CmsUUID(),
+            rootPath,
+            isFolder ? 0 : 1,
+            isFolder,
+            0,
+            CmsUUID.getNullUUID(),
+            CmsResource.STATE_UNCHANGED,
+            0,
+            CmsUUID.getNullUUID(),
+            0,
+            CmsUUID.getNullUUID(),
+            CmsResource.DATE_RELEASED_DEFAULT,
+            CmsResource.DATE_EXPIRED_DEFAULT,
+            1,
+            isFolder ? -1 : 0,
+            0,
+            0);
+    }
+
+    /**
+     * Tests caching and reading complete paths.<p>
+     */
+    public void testGetAndPut() {
+
+        CmsResourcePathCache cache = new CmsResourcePathCache(100);
+        List<String> names = CmsStringUtil.splitAsList("/a/b/c.html", '/');
+        List<CmsResource> resources = Arrays.asList(
+            createResource("/"),
+            createResource("/a/"),
+            createResource("/a/b/"),
+            createResource("/a/b/c.html"));
+
+        assertEquals(Collections.nCopies(4, null), cache.get(true, names, 4, true));
+        cache.put(true, names, resources);
+        assertEquals(4, cache.size());
+        assertEquals(resources, cache.get(true, names, 4, true));
+        // the online and offline resources are separated
+        assertEquals(Collections.nCopies(4, null), cache.get(false, names, 4, true));
+        // a file is not returned where a folder is required
+        assertEquals(Arrays.asList(resources.get(0), resources.get(1), resources.get(2), null), cache.get(
+            true,
+            CmsStringUtil.splitAsList("/a/b/c.html/", '/'),
+            4,
+            false));
+        // partial paths
+        assertEquals(resources.subList(0, 2), cache.get(true, names, 2, false));
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(Collections.nCopies(4, null), cache.get(true, names, 4, true));
+    }
+
+    /**
+     * Tests that filling the cache past the size limit evicts single resources and keeps recently used paths.<p>
+     */
+    public void testMaxSize() {
+
+        CmsResourcePathCache cache = new CmsResourcePathCache(4);
+        CmsResource root = createResource("/");
+        CmsResource a = createResource("/a/");
+        CmsResource b = createResource("/a/b/");
+        CmsResource c = createResource("/c/");
+        List<String> namesB = CmsStringUtil.splitAsList(b.getRootPath(), '/');
+        List<String> namesC = CmsStringUtil.splitAsList(c.getRootPath(), '/');
+        cache.put(false, namesB, Arrays.asList(root, a, b));
+        cache.put(false, namesC, Arrays.asList(root, c));
+        assertEquals(4, cache.size());
+
+        // read /a/b/, then add another folder: only the unused /c/ is evicted
+        assertEquals(Arrays.asList(root, a, b), cache.get(false, namesB, 3, false));
+        List<String> namesD = CmsStringUtil.splitAsList("/d/", '/');
+        CmsResource d = createResource("/d/");
+        cache.put(false, namesD, Arrays.asList(root, d));
+        assertEquals(4, cache.size());
+        assertEquals(Arrays.asList(root, a, b), cache.get(false, namesB, 3, false));
+        assertEquals(Arrays.asList(root, d), cache.get(false, namesD, 2, false));
+        assertNull(cache.get(false, namesC, 2, false).get(1));
+    }
+
+    /**
+     * Tests that a steady working set larger than the size limit does not flush recently used paths.<p>
+     */
+    public void testMaxSizeKeepsRecentlyUsed() {
+
+        CmsResourcePathCache cache = new CmsResourcePathCache(10);
+        CmsResource root = createResource("/");
+        CmsResource keep = createResource("/keep/");
+        List<String> namesKeep = CmsStringUtil.splitAsList(keep.getRootPath(), '/');
+        cache.put(true, namesKeep, Arrays.asList(root, keep));
+        for (int i = 0; i < 100; i++) {
+            String path = "/folder" + i + "/";
+            cache.put(true, CmsStringUtil.splitAsList(path, '/'), Arrays.asList(root, createResource(path)));
+            assertTrue(cache.size() <= 10);
+            assertEquals(path, Arrays.asList(root, keep), cache.get(true, namesKeep, 2, false));
+        }
+        assertEquals(10, cache.size());
+        assertEquals(10, cache.values().size());
+    }
+
+    /**
+     * Tests removing resources by path, folder and id.<p>
+     */
+    public void testRemove() {
+
+        CmsResourcePathCache cache = new CmsResourcePathCache(100);
+        CmsResource root = createResource("/");
+        CmsResource a = createResource("/a/");
+        CmsResource b = createResource("/a/b/");
+        CmsResource c = createResource("/a/b/c.html");
+        CmsResource d = createResource("/a/d.html");
+        List<String> namesC = CmsStringUtil.splitAsList(c.getRootPath(), '/');
+        List<String> namesD = CmsStringUtil.splitAsList(d.getRootPath(), '/');
+        cache.put(true, namesC, Arrays.asList(root, a, b, c));
+        cache.put(true, namesD, Arrays.asList(root, a, d));
+        assertEquals(5, cache.size());
+
+        // remove a single file
+        cache.remove(
+            new HashSet<String>(Arrays.asList("/a/d.html")),
+            new HashSet<String>(),
+            new HashSet<CmsUUID>());
+        assertEquals(Arrays.asList(root, a, null), cache.get(true, namesD, 3, true));
+        assertEquals(Arrays.asList(root, a, b, c), cache.get(true, namesC, 4, true));
+
+        // remove by id
+        cache.remove(new HashSet<String>(), new HashSet<String>(), new HashSet<CmsUUID>(Arrays.asList(a.getResourceId())));
+        assertEquals(Arrays.asList(root, null, b, c), cache.get(true, namesC, 4, true));
+
+        // remove a folder including the sub-resources
+        cache.remove(new HashSet<String>(), new HashSet<String>(Arrays.asList("/a/b/")), new HashSet<CmsUUID>());
+        assertEquals(Arrays.asList(root, null, null, null), cache.get(true, namesC, 4, true));
+        assertEquals(1, cache.size());
+    }
+}
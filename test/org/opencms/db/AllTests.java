@@ -65,6 +65,9 @@ public final class AllTests {
         suite.addTest(TestSubscriptionManager.suite());
         suite.addTest(TestAliases.suite());
         suite.addTest(TestUrlNameMapping.suite());
+        suite.addTest(new TestSuite(TestCmsAliasManager.class));
+        suite.addTest(new TestSuite(TestCmsDbEventTransport.class));
+        suite.addTest(new TestSuite(TestCmsRewriteAliasMatcher.class));
         // $JUnit-END$
         return suite;
     }
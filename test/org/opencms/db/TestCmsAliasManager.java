@@ -0,0 +1,82 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.main.CmsEvent;
+import org.opencms.main.CmsReplicatedEvent;
+import org.opencms.main.I_CmsEventListener;
+import org.opencms.util.CmsUUID;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the alias manager events.<p>
+ */
+public class TestCmsAliasManager extends TestCase {
+
+    /**
+     * Tests that the event for modified aliases survives the replication to another node.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testAliasesModifiedEventReplication() throws Exception {
+
+        List<CmsUUID> structureIds = Arrays.asList(new CmsUUID(), new CmsUUID());
+        CmsEvent event = CmsAliasManager.createAliasesModifiedEvent("/sites/default/", structureIds);
+        assertEquals(I_CmsEventListener.EVENT_ALIASES_MODIFIED, event.getType());
+
+        CmsEvent received = CmsReplicatedEvent.create("remote", event).toEvent();
+        assertEquals(I_CmsEventListener.EVENT_ALIASES_MODIFIED, received.getType());
+        assertEquals(structureIds, CmsAliasManager.getModifiedStructureIds(received));
+        assertEquals("/sites/default/", received.getData().get(I_CmsEventListener.KEY_SITE_ROOT));
+    }
+
+    /**
+     * Tests the event for modified rewrite aliases, which has no structure ids.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testRewriteAliasesModifiedEvent() throws Exception {
+
+        CmsEvent event = CmsAliasManager.createAliasesModifiedEvent(
+            "/sites/default/",
+            Collections.<CmsUUID> emptyList());
+        CmsEvent received = CmsReplicatedEvent.create("remote", event).toEvent();
+        assertTrue(CmsAliasManager.getModifiedStructureIds(received).isEmpty());
+        assertEquals("/sites/default/", received.getData().get(I_CmsEventListener.KEY_SITE_ROOT));
+
+        // identical events from different nodes are coalesced
+        assertEquals(
+            CmsReplicatedEvent.create("node1", event),
+            CmsReplicatedEvent.create("node2", received));
+    }
+}
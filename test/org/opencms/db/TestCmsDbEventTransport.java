@@ -0,0 +1,361 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.configuration.CmsParameterConfiguration;
+import org.opencms.main.CmsReplicatedEvent;
+import org.opencms.main.I_CmsEventListener;
+import org.opencms.util.CmsUUID;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+/**
+ * Test case for the database event transport, using an in-memory HSQLDB database.<p>
+ */
+public class TestCmsDbEventTransport extends TestCase {
+
+    /** The JDBC URL of the test database. */
+    static final String DB_URL = "jdbc:hsqldb:mem:replicatedevents";
+
+    /**
+     * Transport that uses the in-memory test database instead of an OpenCms connection pool.<p>
+     */
+    static class TestTransport extends CmsDbEventTransport {
+
+        /**
+         * @see org.opencms.db.CmsDbEventTransport#getConnection()
+         */
+        @Override
+        protected Connection getConnection() throws SQLException {
+
+            return DriverManager.getConnection(DB_URL, "SA", "");
+        }
+    }
+
+    /**
+     * Creates a new replicated event.<p>
+     *
+     * @param nodeId the node id
+     * @param date the event date
+     * @param data the event data
+     *
+     * @return the event
+     */
+    private static CmsReplicatedEvent createEvent(String nodeId, long date, String data) {
+
+        return new CmsReplicatedEvent(
+            new CmsUUID().toString(),
+            nodeId,
+            I_CmsEventListener.EVENT_FLEX_CACHE_CLEAR,
+            date,
+            data);
+    }
+
+    /**
+     * Creates and initializes a transport for the given node.<p>
+     *
+     * @param nodeId the node id
+     * @param params the configuration parameters, as name/value pairs
+     *
+     * @return the transport
+     *
+     * @throws Exception if something goes wrong
+     */
+    private static CmsDbEventTransport createTransport(String nodeId, String... params) throws Exception {
+
+        CmsParameterConfiguration config = new CmsParameterConfiguration();
+        for (int i = 0; i < params.length; i += 2) {
+            config.add(params[i], params[i + 1]);
+        }
+        CmsDbEventTransport transport = new TestTransport();
+        transport.initialize(nodeId, config);
+        return transport;
+    }
+
+    /**
+     * Returns the data of the given events.<p>
+     *
+     * @param events the events
+     *
+     * @return the event data
+     */
+    private static List<String> getData(List<CmsReplicatedEvent> events) {
+
+        List<String> result = new ArrayList<String>();
+        for (CmsReplicatedEvent event : events) {
+            result.add(event.getData());
+        }
+        return result;
+    }
+
+    /**
+     * @see junit.framework.TestCase#setUp()
+     */
+    @Override
+    protected void setUp() throws Exception {
+
+        Class.forName("org.hsqldb.jdbcDriver");
+        execute(
+            "CREATE CACHED TABLE CMS_REPLICATED_EVENTS (EVENT_SEQ BIGINT NOT NULL, EVENT_ID VARCHAR(36) NOT NULL, "
+                + "NODE_ID VARCHAR(64) NOT NULL, EVENT_TYPE INTEGER NOT NULL, EVENT_DATE BIGINT NOT NULL, "
+                + "EVENT_DATA LONGVARCHAR, PRIMARY KEY (EVENT_SEQ))");
+    }
+
+    /**
+     * @see junit.framework.TestCase#tearDown()
+     */
+    @Override
+    protected void tearDown() throws Exception {
+
+        execute("DROP TABLE CMS_REPLICATED_EVENTS");
+    }
+
+    /**
+     * Tests that the cleanup of old events keeps the newest event, so the sequence numbers continue.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testCleanupKeepsSequence() throws Exception {
+
+        CmsDbEventTransport a = createTransport("a", CmsDbEventTransport.PARAM_RETENTION, "1000");
+        CmsDbEventTransport b = createTransport("b");
+        b.receive();
+
+        // both events are older than the retention time, only the newest one is kept
+        a.send(Arrays.asList(createEvent("a", 1, "1"), createEvent("a", 1, "2")));
+        assertEquals(1, count());
+        assertEquals(2, readMaxSequence());
+
+        a.send(Collections.singletonList(createEvent("a", System.currentTimeMillis(), "3")));
+        assertEquals(3, readMaxSequence());
+        assertEquals(Arrays.asList("2", "3"), getData(b.receive()));
+    }
+
+    /**
+     * Tests that nodes sending at the same time get distinct sequence numbers and no event is lost.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testConcurrentSenders() throws Exception {
+
+        final int events = 20;
+        CmsDbEventTransport receiver = createTransport("receiver");
+        receiver.receive();
+        final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+        Thread[] threads = new Thread[2];
+        for (int i = 0; i < threads.length; i++) {
+            final String nodeId = "node" + i;
+            final CmsDbEventTransport sender = createTransport(nodeId);
+            threads[i] = new Thread() {
+
+                @Override
+                public void run() {
+
+                    try {
+                        for (int j = 0; j < events; j++) {
+                            sender.send(
+                                Collections.singletonList(createEvent(nodeId, System.currentTimeMillis(), nodeId + j)));
+                        }
+                    } catch (Throwable t) {
+                        errors.add(t);
+                    }
+                }
+            };
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(errors.toString(), errors.isEmpty());
+        assertEquals(threads.length * events, readMaxSequence());
+        Set<String> received = new HashSet<String>(getData(receiver.receive()));
+        assertEquals(threads.length * events, received.size());
+    }
+
+    /**
+     * Tests that long event data is stored completely, and that data exceeding the maximum length is not written.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testLongData() throws Exception {
+
+        CmsDbEventTransport a = createTransport("a");
+        CmsDbEventTransport b = createTransport("b");
+        assertTrue(b.receive().isEmpty());
+
+        StringBuffer buffer = new StringBuffer(CmsDbEventTransport.MAX_DATA_LENGTH + 1);
+        for (int i = 0; i < CmsDbEventTransport.MAX_DATA_LENGTH; i++) {
+            buffer.append((char)('a' + (i % 26)));
+        }
+        String maxData = buffer.toString();
+        String tooLongData = buffer.append('x').toString();
+        long now = System.currentTimeMillis();
+        a.send(
+            Arrays.asList(
+                createEvent("a", now, tooLongData),
+                createEvent("a", now, maxData),
+                createEvent("a", now, "short")));
+
+        assertEquals(Arrays.asList(maxData, "short"), getData(b.receive()));
+    }
+
+    /**
+     * Tests that events written after the start of a node, but before its first poll, are received.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testReceiveBeforeFirstPoll() throws Exception {
+
+        CmsDbEventTransport a = createTransport("a");
+        a.send(Collections.singletonList(createEvent("a", System.currentTimeMillis() - 3600000, "old")));
+        CmsDbEventTransport b = createTransport("b");
+        a.send(Collections.singletonList(createEvent("a", System.currentTimeMillis(), "new")));
+
+        // the event written before the start of node b is skipped, the other one is received
+        assertEquals(Collections.singletonList("new"), getData(b.receive()));
+        assertTrue(b.receive().isEmpty());
+    }
+
+    /**
+     * Tests that the events of the other nodes are received once, in the order they were sent.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testReceiveOtherNodes() throws Exception {
+
+        CmsDbEventTransport a = createTransport("a");
+        CmsDbEventTransport b = createTransport("b");
+        assertTrue(b.receive().isEmpty());
+
+        long now = System.currentTimeMillis();
+        a.send(Arrays.asList(createEvent("a", now, "1"), createEvent("a", now, "2")));
+        b.send(Collections.singletonList(createEvent("b", now, "3")));
+
+        assertEquals(Arrays.asList("1", "2"), getData(b.receive()));
+        assertTrue(b.receive().isEmpty());
+        assertEquals(Collections.singletonList("3"), getData(a.receive()));
+        assertTrue(a.receive().isEmpty());
+    }
+
+    /**
+     * Tests that events are received regardless of the clock of the sending node.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testReceiveWithSkewedClock() throws Exception {
+
+        CmsDbEventTransport a = createTransport("a");
+        CmsDbEventTransport b = createTransport("b");
+        b.receive();
+
+        // the clock of node a is a day behind, or the event was kept in the outbox during a database outage
+        a.send(Collections.singletonList(createEvent("a", System.currentTimeMillis() - 86400000L, "late")));
+        assertEquals(Collections.singletonList("late"), getData(b.receive()));
+    }
+
+    /**
+     * Returns the number of events in the table.<p>
+     *
+     * @return the number of events
+     *
+     * @throws SQLException if something goes wrong
+     */
+    private long count() throws SQLException {
+
+        return queryLong("SELECT COUNT(*) FROM CMS_REPLICATED_EVENTS");
+    }
+
+    /**
+     * Executes the given SQL statement.<p>
+     *
+     * @param sql the SQL statement
+     *
+     * @throws SQLException if something goes wrong
+     */
+    private void execute(String sql) throws SQLException {
+
+        Connection conn = DriverManager.getConnection(DB_URL, "SA", "");
+        try {
+            Statement stmt = conn.createStatement();
+            stmt.execute(sql);
+            stmt.close();
+        } finally {
+            conn.close();
+        }
+    }
+
+    /**
+     * Executes the given query and returns the first column of the first row as a long.<p>
+     *
+     * @param sql the query
+     *
+     * @return the result
+     *
+     * @throws SQLException if something goes wrong
+     */
+    private long queryLong(String sql) throws SQLException {
+
+        Connection conn = DriverManager.getConnection(DB_URL, "SA", "");
+        try {
+            Statement stmt = conn.createStatement();
+            ResultSet res = stmt.executeQuery(sql);
+            res.next();
+            long result = res.getLong(1);
+            stmt.close();
+            return result;
+        } finally {
+            conn.close();
+        }
+    }
+
+    /**
+     * Returns the highest sequence number in the table.<p>
+     *
+     * @return the highest sequence number
+     *
+     * @throws SQLException if something goes wrong
+     */
+    private long readMaxSequence() throws SQLException {
+
+        return queryLong("SELECT MAX(EVENT_SEQ) FROM CMS_REPLICATED_EVENTS");
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.gwt.shared.alias.CmsAliasMode;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the prefix index of the rewrite alias matcher.<p>
+ */
+public class TestCmsRewriteAliasMatcher extends TestCase {
+
+    /**
+     * Tests the literal prefix of patterns with an alternation.<p>
+     */
+    public void testLiteralPrefixAlternation() {
+
+        assertLiteralPrefix("/foo|/bar", "", "/foo", "/bar");
+        assertLiteralPrefix("/shop/(a|b)", "", "/shop/a", "/shop/b");
+        assertLiteralPrefix("/x[a|b]", "", "/x|");
+    }
+
+    /**
+     * Tests the literal prefix of patterns with anchors.<p>
+     */
+    public void testLiteralPrefixAnchors() {
+
+        assertLiteralPrefix("^/foo/(.*)$", "/foo/", "/foo/", "/foo/bar");
+        assertLiteralPrefix("^/foo$", "/foo", "/foo");
+        assertLiteralPrefix("/foo$", "/foo", "/foo");
+        assertLiteralPrefix("^", "", "");
+        assertLiteralPrefix("(?i)/foo", "", "/FOO", "/foo");
+    }
+
+    /**
+     * Tests the literal prefix of patterns with character classes.<p>
+     */
+    public void testLiteralPrefixCharacterClasses() {
+
+        assertLiteralPrefix("/[ab]c", "/", "/ac", "/bc");
+        assertLiteralPrefix("/x[.]y", "/x", "/x.y");
+        assertLiteralPrefix("/x.y", "/x", "/xay", "/x.y");
+    }
+
+    /**
+     * Tests the literal prefix of patterns with escaped characters.<p>
+     */
+    public void testLiteralPrefixEscapes() {
+
+        assertLiteralPrefix("/foo\\.html", "/foo.html", "/foo.html");
+        assertLiteralPrefix("/a\\/b\\(c\\)", "/a/b(c)", "/a/b(c)");
+        assertLiteralPrefix("/a\\d+", "/a", "/a1", "/a42");
+        assertLiteralPrefix("/a\\s/b", "/a", "/a /b");
+        assertLiteralPrefix("\\Q/x\\E", "", "/x");
+        assertLiteralPrefix("/a\\", "/a", (String[])null);
+    }
+
+    /**
+     * Tests the literal prefix of plain literal patterns.<p>
+     */
+    public void testLiteralPrefixLiteral() {
+
+        assertLiteralPrefix("/foo/bar.html", "/foo/bar", "/foo/bar.html");
+        assertLiteralPrefix("/foo/bar-baz_1", "/foo/bar-baz_1", "/foo/bar-baz_1");
+        assertLiteralPrefix("", "", "");
+    }
+
+    /**
+     * Tests the literal prefix of patterns with a quantifier on the last literal character.<p>
+     */
+    public void testLiteralPrefixQuantifiers() {
+
+        assertLiteralPrefix("/ab?c", "/a", "/ac", "/abc");
+        assertLiteralPrefix("/ab*", "/a", "/a", "/abbb");
+        assertLiteralPrefix("/ab{0,}", "/a", "/a", "/abb");
+        assertLiteralPrefix("/ab{0,1}c", "/a", "/ac");
+        assertLiteralPrefix("/ab+", "/ab", "/ab", "/abbb");
+        assertLiteralPrefix("/a\\.?x", "/a", "/ax", "/a.x");
+        assertLiteralPrefix("a?", "", "", "a");
+        assertLiteralPrefix("/a*?b", "/", "/b", "/aab");
+    }
+
+    /**
+     * Tests that the first matching alias of the original list wins, whatever prefix bucket it is in.<p>
+     */
+    public void testMatchOrder() {
+
+        CmsRewriteAlias any = createAlias(".*\\.html", "any");
+        CmsRewriteAlias shallow = createAlias("/a/.*", "shallow");
+        CmsRewriteAlias deep = createAlias("/a/b/.*", "deep");
+        CmsRewriteAlias exact = createAlias("^/a/b/c\\.html$", "exact");
+
+        assertEquals("shallow", new CmsRewriteAliasMatcher(Arrays.asList(shallow, deep, any)).match(
+            "/a/b/c.html").getNewPath());
+        assertEquals("deep", new CmsRewriteAliasMatcher(Arrays.asList(deep, shallow, any)).match(
+            "/a/b/c.html").getNewPath());
+        assertEquals("any", new CmsRewriteAliasMatcher(Arrays.asList(any, exact, deep)).match(
+            "/a/b/c.html").getNewPath());
+        assertEquals("exact", new CmsRewriteAliasMatcher(Arrays.asList(exact, deep, any)).match(
+            "/a/b/c.html").getNewPath());
+        assertEquals("deep", new CmsRewriteAliasMatcher(Arrays.asList(deep, any)).match("/a/b/x").getNewPath());
+        assertNull(new CmsRewriteAliasMatcher(Arrays.asList(deep, exact)).match("/a/c.html"));
+    }
+
+    /**
+     * Tests that the matcher finds the same alias as matching all aliases in their original order.<p>
+     */
+    public void testMatchSameAsSequentialMatching() {
+
+        List<CmsRewriteAlias> aliases = new ArrayList<CmsRewriteAlias>();
+        aliases.add(createAlias("/news/(\\d+)\\.html", "/news.jsp?id=$1"));
+        aliases.add(createAlias("/news/archive/.*", "archive"));
+        aliases.add(createAlias("/news/.*", "news"));
+        aliases.add(createAlias("/shop|/store", "shop"));
+        aliases.add(createAlias("^/[a-z]{2}/home$", "home"));
+        aliases.add(createAlias("/old\\.html?", "old"));
+        aliases.add(createAlias("/(invalid", "invalid"));
+        aliases.add(createAlias(".*", "fallback"));
+        CmsRewriteAliasMatcher matcher = new CmsRewriteAliasMatcher(aliases);
+        assertEquals(aliases.size() - 1, matcher.getSize());
+
+        String[] paths = {
+            "/news/42.html",
+            "/news/archive/42.html",
+            "/news/archive/",
+            "/news/",
+            "/shop",
+            "/store",
+            "/shopping",
+            "/de/home",
+            "/old.htm",
+            "/old.html",
+            "/",
+            ""};
+        for (String path : paths) {
+            String expected = null;
+            for (CmsRewriteAlias alias : aliases) {
+                if (isValid(alias) && Pattern.matches(alias.getPatternString(), path)) {
+                    expected = Pattern.compile(alias.getPatternString()).matcher(path).replaceFirst(
+                        alias.getReplacementString());
+                    break;
+                }
+            }
+            assertEquals(path, expected, matcher.match(path).getNewPath());
+        }
+    }
+
+    /**
+     * Checks the literal prefix of a pattern, and that the given matching paths start with it.<p>
+     *
+     * @param regex the pattern
+     * @param expectedPrefix the expected literal prefix
+     * @param matchingPaths paths matched by the pattern, or <code>null</code> if the pattern is invalid
+     */
+    private void assertLiteralPrefix(String regex, String expectedPrefix, String... matchingPaths) {
+
+        String prefix = CmsRewriteAliasMatcher.getLiteralPrefix(regex);
+        assertEquals(regex, expectedPrefix, prefix);
+        if (matchingPaths != null) {
+            for (String path : matchingPaths) {
+                assertTrue(regex + " does not match " + path, Pattern.matches(regex, path));
+                assertTrue(path + " does not start with " + prefix, path.startsWith(prefix));
+            }
+        }
+    }
+
+    /**
+     * Creates a rewrite alias for the tests.<p>
+     *
+     * @param pattern the pattern of the alias
+     * @param replacement the replacement string of the alias
+     *
+     * @return the rewrite alias
+     */
+    private CmsRewriteAlias createAlias(String pattern, String replacement) {
+
+        return new CmsRewriteAlias(new CmsUUID(), "/sites/default", pattern, replacement, CmsAliasMode.page);
+    }
+
+    /**
+     * Checks if the pattern of an alias is valid.<p>
+     *
+     * @param alias the alias
+     *
+     * @return <code>true</code> if the pattern of the alias is valid
+     */
+    private boolean isValid(CmsRewriteAlias alias) {
+
+        try {
+            Pattern.compile(alias.getPatternString());
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db.generic;
+
+import org.opencms.db.CmsDbConsistencyException;
+import org.opencms.file.CmsProperty;
+import org.opencms.file.CmsResource;
+import org.opencms.util.CmsUUID;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+/**
+ * Test case for CmsPropertyMappingCollector.<p>
+ */
+public class TestCmsPropertyMappingCollector extends TestCase {
+
+    /**
+     * Creates a file resource for testing.<p>
+     *
+     * @param structureId the structure id
+     * @param resourceId the resource id
+     * @param rootPath the root path
+     *
+     * @return the resource
+     */
+    private static CmsResource createResource(CmsUUID structureId, CmsUUID resourceId, String rootPath) {
+
+        return new CmsResource(
+            structureId,
+            resourceId,
+            rootPath,
+            1,
+            false,
+            0,
+            CmsUUID.getNullUUID(),
+            CmsResource.STATE_UNCHANGED,
+            0,
+            CmsUUID.getNullUUID(),
+            0,
+            CmsUUID.getNullUUID(),
+            CmsResource.DATE_RELEASED_DEFAULT,
+            CmsResource.DATE_EXPIRED_DEFAULT,
+            1,
+            0,
+            0,
+            0);
+    }
+
+    /**
+     * Finds a property by name in a property list.<p>
+     *
+     * @param properties the property list
+     * @param name the property name
+     *
+     * @return the property, or null if it is not in the list
+     */
+    private static CmsProperty findProperty(List<CmsProperty> properties, String name) {
+
+        for (CmsProperty property : properties) {
+            if (property.getName().equals(name)) {
+                return property;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Tests that every resource gets a property list, and that duplicate resources are collected once.<p>
+     */
+    public void testEmptyAndDuplicateResources() {
+
+        CmsResource a = createResource(new CmsUUID(), new CmsUUID(), "/a.html");
+        CmsResource b = createResource(new CmsUUID(), new CmsUUID(), "/b.html");
+        CmsPropertyMappingCollector collector = new CmsPropertyMappingCollector(Arrays.asList(a, b, a));
+
+        Map<CmsUUID, List<CmsProperty>> result = collector.getPropertyLists();
+        assertEquals(2, result.size());
+        assertTrue(result.get(a.getStructureId()).isEmpty());
+        assertTrue(result.get(b.getStructureId()).isEmpty());
+        assertEquals(4, collector.getMappingIds().size());
+    }
+
+    /**
+     * Tests that the mapping ids contain the structure and resource ids, and that siblings share their resource id.<p>
+     */
+    public void testMappingIds() {
+
+        CmsUUID resourceId = new CmsUUID();
+        CmsResource a = createResource(new CmsUUID(), resourceId, "/a.html");
+        CmsResource b = createResource(new CmsUUID(), resourceId, "/b.html");
+        CmsPropertyMappingCollector collector = new CmsPropertyMappingCollector(Arrays.asList(a, b));
+
+        List<String> ids = collector.getMappingIds();
+        assertEquals(3, ids.size());
+        assertTrue(ids.contains(a.getStructureId().toString()));
+        assertTrue(ids.contains(b.getStructureId().toString()));
+        assertTrue(ids.contains(resourceId.toString()));
+    }
+
+    /**
+     * Tests that resource values are added to all siblings, and structure values only to their own resource.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testSiblingValues() throws Exception {
+
+        CmsUUID resourceId = new CmsUUID();
+        CmsResource a = createResource(new CmsUUID(), resourceId, "/a.html");
+        CmsResource b = createResource(new CmsUUID(), resourceId, "/b.html");
+        CmsPropertyMappingCollector collector = new CmsPropertyMappingCollector(Arrays.asList(a, b));
+
+        collector.add("Title", "shared", CmsProperty.RESOURCE_RECORD_MAPPING, resourceId.toString());
+        collector.add("Title", "own", CmsProperty.STRUCTURE_RECORD_MAPPING, a.getStructureId().toString());
+        collector.add("Description", "desc", CmsProperty.STRUCTURE_RECORD_MAPPING, b.getStructureId().toString());
+        // values for unknown ids are ignored
+        collector.add("Title", "other", CmsProperty.STRUCTURE_RECORD_MAPPING, new CmsUUID().toString());
+
+        Map<CmsUUID, List<CmsProperty>> result = collector.getPropertyLists();
+        List<CmsProperty> propsA = result.get(a.getStructureId());
+        List<CmsProperty> propsB = result.get(b.getStructureId());
+        assertEquals(1, propsA.size());
+        assertEquals(2, propsB.size());
+
+        CmsProperty titleA = findProperty(propsA, "Title");
+        assertEquals("own", titleA.getStructureValue());
+        assertEquals("shared", titleA.getResourceValue());
+        assertEquals("/a.html", titleA.getOrigin());
+
+        CmsProperty titleB = findProperty(propsB, "Title");
+        assertNull(titleB.getStructureValue());
+        assertEquals("shared", titleB.getResourceValue());
+        assertEquals("/b.html", titleB.getOrigin());
+        assertEquals("desc", findProperty(propsB, "Description").getStructureValue());
+    }
+
+    /**
+     * Tests that an unknown mapping type is reported as a consistency error.<p>
+     */
+    public void testUnknownMappingType() {
+
+        CmsResource a = createResource(new CmsUUID(), new CmsUUID(), "/a.html");
+        CmsPropertyMappingCollector collector = new CmsPropertyMappingCollector(Arrays.asList(a));
+        try {
+            collector.add("Title", "value", 42, a.getStructureId().toString());
+            fail("unknown mapping type should not be accepted");
+        } catch (CmsDbConsistencyException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.loader;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the image scaling worker pool.<p>
+ */
+public class TestCmsImageScalingPool extends TestCase {
+
+    /**
+     * Tests that concurrent requests for the same key only execute the job once.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testSingleFlight() throws Exception {
+
+        final CmsImageScalingPool pool = new CmsImageScalingPool(2, 10);
+        final AtomicInteger executions = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+        final Callable<byte[]> job = new Callable<byte[]>() {
+
+            public byte[] call() throws Exception {
+
+                executions.incrementAndGet();
+                release.await(10, TimeUnit.SECONDS);
+                return new byte[] {1, 2, 3};
+            }
+        };
+        final List<byte[]> results = new ArrayList<byte[]>();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < 5; i++) {
+            Thread thread = new Thread() {
+
+                @Override
+                public void run() {
+
+                    try {
+                        byte[] result = pool.execute("image", job);
+                        synchronized (results) {
+                            results.add(result);
+                        }
+                    } catch (Exception e) {
+                        // result is missing, checked below
+                    }
+                }
+            };
+            threads.add(thread);
+            thread.start();
+        }
+        // wait until all requests have joined the running job
+        long end = System.currentTimeMillis() + 10000;
+        while ((pool.getJoinedCount() < 4) && (System.currentTimeMillis() < end)) {
+            Thread.sleep(10);
+        }
+        release.countDown();
+        for (Thread thread : threads) {
+            thread.join(10000);
+        }
+        assertEquals(1, executions.get());
+        assertEquals(5, results.size());
+        assertEquals(4, pool.getJoinedCount());
+        assertEquals(1, pool.getScaledCount());
+
+        // the job is finished, so the next request executes it again
+        release.countDown();
+        pool.execute("image", job);
+        assertEquals(2, executions.get());
+        pool.shutdown();
+    }
+
+    /**
+     * Tests that jobs are rejected if the queue is full, and that job errors are passed to the caller.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testRejectAndError() throws Exception {
+
+        final CmsImageScalingPool pool = new CmsImageScalingPool(1, 1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Callable<byte[]> blocking = new Callable<byte[]>() {
+
+            public byte[] call() throws Exception {
+
+                release.await(10, TimeUnit.SECONDS);
+                return new byte[0];
+            }
+        };
+        // occupy the worker thread and the queue
+        for (int i = 0; i < 2; i++) {
+            final String key = "blocking" + i;
+            new Thread() {
+
+                @Override
+                public void run() {
+
+                    try {
+                        pool.execute(key, blocking);
+                    } catch (Exception e) {
+                        // ignore
+                    }
+                }
+            }.start();
+        }
+        long end = System.currentTimeMillis() + 10000;
+        while (((pool.getActiveCount() < 1) || (pool.getQueueLength() < 1)) && (System.currentTimeMillis() < end)) {
+            Thread.sleep(10);
+        }
+        try {
+            pool.execute("other", blocking);
+            fail("job should have been rejected");
+        } catch (RejectedExecutionException e) {
+            // expected
+        }
+        assertEquals(1, pool.getRejectedCount());
+        release.countDown();
+        end = System.currentTimeMillis() + 10000;
+        while (((pool.getActiveCount() > 0) || (pool.getQueueLength() > 0)) && (System.currentTimeMillis() < end)) {
+            Thread.sleep(10);
+        }
+
+        try {
+            pool.execute("error", new Callable<byte[]>() {
+
+                public byte[] call() throws Exception {
+
+                    throw new IllegalStateException("scaling failed");
+                }
+            });
+            fail("job should have failed");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.lock;
+
+import org.opencms.file.CmsProject;
+import org.opencms.file.CmsResource;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests that the path based lookups of the lock table return the same locks as
+ * applying a lock filter to all locks.<p>
+ */
+public class TestCmsLockTable extends TestCase {
+
+    /** The filters to test. */
+    private static final List<CmsLockFilter> FILTERS = Arrays.asList(
+        CmsLockFilter.FILTER_ALL,
+        CmsLockFilter.FILTER_INHERITED,
+        CmsLockFilter.FILTER_NON_INHERITED,
+        CmsLockFilter.FILTER_ALL.filterType(CmsLockType.EXCLUSIVE),
+        CmsLockFilter.FILTER_INHERITED.filterType(CmsLockType.EXCLUSIVE),
+        CmsLockFilter.FILTER_NON_INHERITED.filterType(CmsLockType.TEMPORARY),
+        CmsLockFilter.FILTER_ALL.filterSharedExclusive());
+
+    /** The root paths of the locked resources. */
+    private static final List<String> LOCKED_PATHS = Arrays.asList(
+        "/",
+        "/sites/",
+        "/sites/default/",
+        "/sites/default/a.html",
+        "/sites/default/ab.html",
+        "/sites/default/folder/",
+        "/sites/default/folder/b.html",
+        "/sites/default/folder/sub/c.html",
+        "/sites/default/folder2/",
+        "/sites/default/folder2/d.html",
+        "/system/x.html");
+
+    /** Additional root paths which are not locked. */
+    private static final List<String> UNLOCKED_PATHS = Arrays.asList(
+        "/sites/default/a",
+        "/sites/default/folder/sub/",
+        "/sites/default/folder/sub/new.html",
+        "/sites/default/fold",
+        "/sites/other/",
+        "/system/");
+
+    /** The lock table to test. */
+    private CmsLockTable m_lockTable;
+
+    /**
+     * Returns the locks matching the given filter, by applying the filter to all locks.<p>
+     *
+     * @param locks the locks to filter
+     * @param rootPath the root path to apply the filter to
+     * @param filter the filter
+     *
+     * @return the matching locks
+     */
+    private static Set<CmsLock> filter(List<CmsLock> locks, String rootPath, CmsLockFilter filter) {
+
+        Set<CmsLock> result = new HashSet<CmsLock>();
+        for (CmsLock lock : locks) {
+            if (filter.match(rootPath, lock)) {
+                result.add(lock);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Tests that the lock candidates contain all locks matching a lock filter.<p>
+     */
+    public void testGetLockCandidates() {
+
+        for (String rootPath : getTestPaths()) {
+            for (CmsLockFilter filter : FILTERS) {
+                Set<CmsLock> expected = filter(m_lockTable.getAllLocks(), rootPath, filter);
+                Set<CmsLock> actual = filter(
+                    CmsLockManager.getLockCandidates(m_lockTable, rootPath, filter),
+                    rootPath,
+                    filter);
+                assertEquals(rootPath + " " + filter, expected, actual);
+            }
+        }
+    }
+
+    /**
+     * Tests that the locks below a path are the locks matched by a filter including children.<p>
+     */
+    public void testGetLocksBelow() {
+
+        for (String rootPath : getTestPaths()) {
+            Set<CmsLock> expected = new HashSet<CmsLock>();
+            for (CmsLock lock : m_lockTable.getAllLocks()) {
+                String name = lock.getResourceName();
+                if (rootPath.endsWith("/")
+                    ? CmsLockFilter.FILTER_NON_INHERITED.match(rootPath, lock)
+                    : (name.equals(rootPath) || name.startsWith(rootPath + "/"))) {
+                    expected.add(lock);
+                }
+            }
+            List<CmsLock> actual = m_lockTable.getLocksBelow(rootPath);
+            assertEquals(rootPath, expected.size(), actual.size());
+            assertEquals(rootPath, expected, new HashSet<CmsLock>(actual));
+        }
+    }
+
+    /**
+     * Tests that the parent folder locks are the locks of the parent folders matched by a filter
+     * including parents, ordered starting with the nearest parent folder.<p>
+     */
+    public void testGetParentFolderLocks() {
+
+        for (String rootPath : getTestPaths()) {
+            List<CmsLock> expected = new ArrayList<CmsLock>();
+            for (CmsLock lock : m_lockTable.getAllLocks()) {
+                if (!lock.getResourceName().equals(rootPath)
+                    && CmsLockFilter.FILTER_INHERITED.match(rootPath, lock)) {
+                    expected.add(lock);
+                }
+            }
+            List<CmsLock> actual = m_lockTable.getParentFolderLocks(rootPath);
+            assertEquals(rootPath, new HashSet<CmsLock>(expected), new HashSet<CmsLock>(actual));
+            assertEquals(rootPath, expected.size(), actual.size());
+            for (int i = 1; i < actual.size(); i++) {
+                assertTrue(
+                    rootPath,
+                    actual.get(i - 1).getResourceName().startsWith(actual.get(i).getResourceName()));
+            }
+        }
+    }
+
+    /**
+     * Tests that removed locks are no longer found.<p>
+     */
+    public void testRemove() {
+
+        m_lockTable.remove("/sites/default/folder/");
+        m_lockTable.remove("/sites/default/folder/sub/c.html");
+        assertNull(m_lockTable.get("/sites/default/folder/"));
+        testGetLockCandidates();
+        testGetLocksBelow();
+        testGetParentFolderLocks();
+    }
+
+    /**
+     * @see junit.framework.TestCase#setUp()
+     */
+    @Override
+    protected void setUp() {
+
+        m_lockTable = new CmsLockTable();
+        CmsProject project = new CmsProject();
+        CmsUUID user = new CmsUUID();
+        CmsLockType[] types = {CmsLockType.EXCLUSIVE, CmsLockType.TEMPORARY, CmsLockType.SHARED_EXCLUSIVE};
+        int i = 0;
+        for (String path : LOCKED_PATHS) {
+            CmsLock lock = new CmsLock(path, user, project, types[i % types.length]);
+            if (CmsResource.isFolder(path) && ((i % 2) == 0)) {
+                // a system lock on the same resource
+                lock.setRelatedLock(new CmsLock(path, user, project, CmsLockType.PUBLISH));
+            }
+            m_lockTable.put(lock, new CmsUUID());
+            i++;
+        }
+    }
+
+    /**
+     * Returns the root paths to test, including paths which are not locked.<p>
+     *
+     * @return the root paths to test
+     */
+    private List<String> getTestPaths() {
+
+        List<String> result = new ArrayList<String>(LOCKED_PATHS);
+        result.addAll(UNLOCKED_PATHS);
+        return result;
+    }
+}
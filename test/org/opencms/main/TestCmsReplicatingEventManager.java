@@ -0,0 +1,279 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.main;
+
+import org.opencms.configuration.CmsParameterConfiguration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+/**
+ * Test case for the replicating event manager.<p>
+ */
+public class TestCmsReplicatingEventManager extends TestCase {
+
+    /**
+     * Transport that keeps the events in memory.<p>
+     */
+    public static class TestTransport implements I_CmsEventTransport {
+
+        /** The last created instance. */
+        static TestTransport m_instance;
+
+        /** The events to return on the next receive. */
+        List<CmsReplicatedEvent> m_incoming = new ArrayList<CmsReplicatedEvent>();
+
+        /** The events sent. */
+        List<CmsReplicatedEvent> m_sent = new ArrayList<CmsReplicatedEvent>();
+
+        /** Flag to indicate the next send should fail. */
+        boolean m_fail;
+
+        /**
+         * Creates a new transport.<p>
+         */
+        public TestTransport() {
+
+            m_instance = this;
+        }
+
+        /**
+         * @see org.opencms.main.I_CmsEventTransport#initialize(java.lang.String, org.opencms.configuration.CmsParameterConfiguration)
+         */
+        public void initialize(String nodeId, CmsParameterConfiguration configuration) {
+
+            // noop
+        }
+
+        /**
+         * @see org.opencms.main.I_CmsEventTransport#receive()
+         */
+        public List<CmsReplicatedEvent> receive() {
+
+            List<CmsReplicatedEvent> result = m_incoming;
+            m_incoming = new ArrayList<CmsReplicatedEvent>();
+            return result;
+        }
+
+        /**
+         * @see org.opencms.main.I_CmsEventTransport#send(java.util.List)
+         */
+        public void send(List<CmsReplicatedEvent> events) throws CmsException {
+
+            if (m_fail) {
+                m_fail = false;
+                throw new CmsException(Messages.get().container(Messages.LOG_EVENT_REPLICATION_FAILED_0));
+            }
+            m_sent.addAll(events);
+        }
+
+        /**
+         * @see org.opencms.main.I_CmsEventTransport#shutDown()
+         */
+        public void shutDown() {
+
+            // noop
+        }
+    }
+
+    /**
+     * Creates a configured event manager using the in-memory transport.<p>
+     *
+     * @return the event manager
+     *
+     * @throws Exception if something goes wrong
+     */
+    private static CmsReplicatingEventManager createManager() throws Exception {
+
+        CmsReplicatingEventManager manager = new CmsReplicatingEventManager();
+        manager.addConfigurationParameter(CmsReplicatingEventManager.PARAM_NODE, "local");
+        manager.addConfigurationParameter(CmsReplicatingEventManager.PARAM_TRANSPORT, TestTransport.class.getName());
+        manager.initConfiguration();
+        return manager;
+    }
+
+    /**
+     * Tests that alias modifications are replicated by default.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testAliasEventsReplicated() throws Exception {
+
+        CmsReplicatingEventManager manager = createManager();
+        Map<String, Object> data = new HashMap<String, Object>();
+        data.put(I_CmsEventListener.KEY_STRUCTURE_IDS, "a,b");
+        manager.fireEvent(new CmsEvent(I_CmsEventListener.EVENT_ALIASES_MODIFIED, data));
+        manager.fireEvent(new CmsEvent(I_CmsEventListener.EVENT_ALIASES_MODIFIED, data));
+        manager.replicate();
+
+        List<CmsReplicatedEvent> sent = TestTransport.m_instance.m_sent;
+        assertEquals(1, sent.size());
+        assertEquals(I_CmsEventListener.EVENT_ALIASES_MODIFIED, sent.get(0).getType());
+        assertEquals("a,b", sent.get(0).toEvent().getData().get(I_CmsEventListener.KEY_STRUCTURE_IDS));
+    }
+
+    /**
+     * Tests that pending events are coalesced before they are sent.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testCoalescing() throws Exception {
+
+        CmsReplicatingEventManager manager = createManager();
+        manager.fireEvent(I_CmsEventListener.EVENT_CLEAR_OFFLINE_CACHES);
+        manager.fireEvent(I_CmsEventListener.EVENT_CLEAR_CACHES);
+        manager.fireEvent(I_CmsEventListener.EVENT_CLEAR_CACHES);
+        manager.fireEvent(I_CmsEventListener.EVENT_FLEX_CACHE_CLEAR);
+        // a local only event is not replicated
+        manager.fireEvent(I_CmsEventListener.EVENT_LOGIN_USER);
+        assertEquals(3, manager.getCoalescedCount());
+
+        manager.replicate();
+        List<CmsReplicatedEvent> sent = TestTransport.m_instance.m_sent;
+        assertEquals(1, sent.size());
+        assertEquals(I_CmsEventListener.EVENT_CLEAR_CACHES, sent.get(0).getType());
+        assertEquals(1, manager.getSentCount());
+    }
+
+    /**
+     * Tests that the counters are exact if events are fired from several threads.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testConcurrentCounters() throws Exception {
+
+        final CmsReplicatingEventManager manager = createManager();
+        final int events = 1000;
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+
+                @Override
+                public void run() {
+
+                    for (int j = 0; j < events; j++) {
+                        manager.fireEvent(I_CmsEventListener.EVENT_FLEX_CACHE_CLEAR);
+                    }
+                }
+            };
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        // all events but the first one are coalesced
+        assertEquals((threads.length * events) - 1, manager.getCoalescedCount());
+        manager.replicate();
+        assertEquals(1, manager.getSentCount());
+    }
+
+    /**
+     * Tests that received events are fired locally and are not replicated again.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testReceive() throws Exception {
+
+        CmsReplicatingEventManager manager = createManager();
+        CmsTestEventListener listener = new CmsTestEventListener();
+        manager.addCmsEventListener(listener, new int[] {I_CmsEventListener.EVENT_FLEX_PURGE_JSP_REPOSITORY});
+        Map<String, Object> data = new HashMap<String, Object>();
+        data.put("key", "value");
+        CmsReplicatedEvent event = CmsReplicatedEvent.create(
+            "remote",
+            new CmsEvent(I_CmsEventListener.EVENT_FLEX_PURGE_JSP_REPOSITORY, data));
+        TestTransport transport = TestTransport.m_instance;
+        // the same event received twice, e.g. fired on two nodes
+        transport.m_incoming.add(event);
+        transport.m_incoming.add(CmsReplicatedEvent.create("other", event.toEvent()));
+
+        manager.replicate();
+        assertEquals(1, listener.getEvents().size());
+        CmsEvent received = (CmsEvent)listener.getEvents().get(0);
+        assertEquals("value", received.getData().get("key"));
+        // received events are marked, so listeners can skip work done on the originating node
+        assertEquals(Boolean.TRUE, received.getData().get(I_CmsEventListener.KEY_REPLICATED));
+        assertEquals(2, manager.getReceivedCount());
+        assertTrue(manager.getLastLag() >= 0);
+        assertTrue(manager.getMaxLag() >= manager.getLastLag());
+
+        // the received event is not sent back
+        manager.replicate();
+        assertTrue(transport.m_sent.isEmpty());
+    }
+
+    /**
+     * Tests that events are kept for the next attempt if sending fails.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testSendFailure() throws Exception {
+
+        CmsReplicatingEventManager manager = createManager();
+        TestTransport transport = TestTransport.m_instance;
+        manager.fireEvent(I_CmsEventListener.EVENT_FLEX_CACHE_CLEAR);
+        transport.m_fail = true;
+        try {
+            manager.replicate();
+            fail("replication should fail");
+        } catch (CmsException e) {
+            // expected
+        }
+        assertTrue(transport.m_sent.isEmpty());
+        assertEquals(0, manager.getSentCount());
+
+        manager.replicate();
+        assertEquals(
+            Collections.singletonList(Integer.valueOf(I_CmsEventListener.EVENT_FLEX_CACHE_CLEAR)),
+            getTypes(transport.m_sent));
+        assertEquals(1, manager.getSentCount());
+    }
+
+    /**
+     * Returns the types of the given events.<p>
+     *
+     * @param events the events
+     *
+     * @return the event types
+     */
+    private List<Integer> getTypes(List<CmsReplicatedEvent> events) {
+
+        List<Integer> result = new ArrayList<Integer>();
+        for (CmsReplicatedEvent event : events) {
+            result.add(Integer.valueOf(event.getType()));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.monitor;
+
+import org.opencms.configuration.CmsSystemConfiguration;
+import org.opencms.db.CmsCacheKey;
+import org.opencms.db.CmsCacheSettings;
+import org.opencms.db.CmsResourceCacheKey;
+import org.opencms.file.CmsProperty;
+import org.opencms.file.CmsResource;
+import org.opencms.util.CmsStringUtil;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Test case for the selective cache invalidation of the memory monitor.<p>
+ */
+public class TestCmsMemoryMonitor extends TestCase {
+
+    /**
+     * Creates a resource for testing.<p>
+     *
+     * @param rootPath the root path
+     * @param resourceId the resource id
+     *
+     * @return the resource
+     */
+    private static CmsResource createResource(String rootPath, CmsUUID resourceId) {
+
+        boolean isFolder = CmsResource.isFolder(rootPath);
+        return new CmsResource(
+            new CmsUUID(),
+            resourceId,
+            rootPath,
+            isFolder ? 0 : 1,
+            isFolder,
+            0,
+            CmsUUID.getNullUUID(),
+            CmsResource.STATE_UNCHANGED,
+            0,
+            CmsUUID.getNullUUID(),
+            0,
+            CmsUUID.getNullUUID(),
+            CmsResource.DATE_RELEASED_DEFAULT,
+            CmsResource.DATE_EXPIRED_DEFAULT,
+            1,
+            isFolder ? -1 : 0,
+            0,
+            0);
+    }
+
+    /**
+     * Tests that publishing resources keeps the cache entries of resources which were not published.<p>
+     */
+    public void testUncacheResourcesKeepsUnpublished() {
+
+        CmsMemoryMonitor monitor = createMonitor();
+        CmsResource root = createResource("/", new CmsUUID());
+        CmsResource folderA = createResource("/a/", new CmsUUID());
+        CmsResource folderB = createResource("/b/", new CmsUUID());
+        CmsResource published = createResource("/a/published.html", new CmsUUID());
+        CmsResource unpublished = createResource("/a/unpublished.html", new CmsUUID());
+        CmsResource other = createResource("/b/other.html", new CmsUUID());
+        CmsResource sibling = createResource("/b/sibling.html", published.getResourceId());
+        cachePath(monitor, root, folderA, published);
+        cachePath(monitor, root, folderA, unpublished);
+        cachePath(monitor, root, folderB, other);
+        cachePath(monitor, root, folderB, sibling);
+        for (String path : Arrays.asList(
+            published.getRootPath(),
+            unpublished.getRootPath(),
+            other.getRootPath(),
+            sibling.getRootPath())) {
+            monitor.cachePropertyList(propertyKey(path), Collections.<CmsProperty> emptyList());
+        }
+        monitor.cacheResourceList(listKey("/a/"), new ArrayList<CmsResource>());
+        monitor.cacheResourceList(listKey("/b/"), new ArrayList<CmsResource>());
+
+        monitor.uncacheResources(
+            Collections.singletonList(published.getRootPath()),
+            Arrays.asList(published.getStructureId(), published.getResourceId()));
+
+        // the published resource and its sibling are removed
+        assertNull(getCachedResource(monitor, published));
+        assertNull(getCachedResource(monitor, sibling));
+        assertNull(monitor.getCachedPropertyList(propertyKey(published.getRootPath())));
+        assertNull(monitor.getCachedPropertyList(propertyKey(sibling.getRootPath())));
+        // the resource list of the parent folder is removed
+        assertNull(monitor.getCachedResourceList(listKey("/a/")));
+
+        // the entries of the unpublished resources are kept
+        assertEquals(unpublished, getCachedResource(monitor, unpublished));
+        assertEquals(other, getCachedResource(monitor, other));
+        assertNotNull(monitor.getCachedPropertyList(propertyKey(unpublished.getRootPath())));
+        assertNotNull(monitor.getCachedPropertyList(propertyKey(other.getRootPath())));
+        assertNotNull(monitor.getCachedResourceList(listKey("/b/")));
+    }
+
+    /**
+     * Tests that publishing a folder removes the cache entries of all resources below the folder.<p>
+     */
+    public void testUncacheResourcesRemovesFolderContents() {
+
+        CmsMemoryMonitor monitor = createMonitor();
+        CmsResource root = createResource("/", new CmsUUID());
+        CmsResource folderA = createResource("/a/", new CmsUUID());
+        CmsResource folderB = createResource("/b/", new CmsUUID());
+        CmsResource below = createResource("/a/below.html", new CmsUUID());
+        CmsResource other = createResource("/b/other.html", new CmsUUID());
+        cachePath(monitor, root, folderA, below);
+        cachePath(monitor, root, folderB, other);
+        monitor.cachePropertyList(propertyKey(below.getRootPath()), Collections.<CmsProperty> emptyList());
+        monitor.cachePropertyList(propertyKey(other.getRootPath()), Collections.<CmsProperty> emptyList());
+
+        monitor.uncacheResources(
+            Collections.singletonList(folderA.getRootPath()),
+            Arrays.asList(folderA.getStructureId(), folderA.getResourceId()));
+
+        assertNull(getCachedResource(monitor, below));
+        assertNull(monitor.getCachedPropertyList(propertyKey(below.getRootPath())));
+        assertEquals(other, getCachedResource(monitor, other));
+        assertNotNull(monitor.getCachedPropertyList(propertyKey(other.getRootPath())));
+    }
+
+    /**
+     * Caches the path of a resource in the online resource path cache.<p>
+     *
+     * @param monitor the memory monitor
+     * @param resources the resources of the path, starting with the root folder
+     */
+    private void cachePath(CmsMemoryMonitor monitor, CmsResource... resources) {
+
+        String path = resources[resources.length - 1].getRootPath();
+        monitor.cacheResourcePath(true, CmsStringUtil.splitAsList(path, '/'), Arrays.asList(resources));
+    }
+
+    /**
+     * Creates a memory monitor with the default cache settings.<p>
+     *
+     * @return the memory monitor
+     */
+    private CmsMemoryMonitor createMonitor() {
+
+        CmsCacheSettings cacheSettings = new CmsCacheSettings();
+        cacheSettings.setResourceCacheSize("100");
+        cacheSettings.setResourcelistCacheSize("100");
+        cacheSettings.setPropertyCacheSize("100");
+        cacheSettings.setPropertyListsCacheSize("100");
+        cacheSettings.setProjectResourcesCacheSize("100");
+        CmsSystemConfiguration configuration = new CmsSystemConfiguration();
+        configuration.setCacheSettings(cacheSettings);
+        configuration.setCmsMemoryMonitorConfiguration(new CmsMemoryMonitorConfiguration());
+        CmsMemoryMonitor monitor = new CmsMemoryMonitor();
+        monitor.initialize(configuration);
+        return monitor;
+    }
+
+    /**
+     * Returns the cached online resource for the path of the given resource.<p>
+     *
+     * @param monitor the memory monitor
+     * @param resource the resource
+     *
+     * @return the cached resource, or <code>null</code>
+     */
+    private CmsResource getCachedResource(CmsMemoryMonitor monitor, CmsResource resource) {
+
+        List<String> names = CmsStringUtil.splitAsList(resource.getRootPath(), '/');
+        // the first element of the cached path is the root folder
+        List<CmsResource> cached = monitor.getCachedResourcePath(true, names, names.size() + 1, true);
+        return cached.get(cached.size() - 1);
+    }
+
+    /**
+     * Returns a resource list cache key for the given folder, as used by the driver manager.<p>
+     *
+     * @param folder the folder path
+     *
+     * @return the cache key
+     */
+    private CmsResourceCacheKey listKey(String folder) {
+
+        return new CmsResourceCacheKey(
+            CmsResourceCacheKey.TYPE_SUB_RESOURCES,
+            true,
+            folder,
+            "Admin",
+            CmsCacheKey.CACHE_KEY_SUBALL,
+            "-",
+            "0");
+    }
+
+    /**
+     * Returns a property list cache key for the given path, as used by the driver manager.<p>
+     *
+     * @param path the resource path
+     *
+     * @return the cache key
+     */
+    private CmsResourceCacheKey propertyKey(String path) {
+
+        return new CmsResourceCacheKey(CmsResourceCacheKey.TYPE_PROPERTIES, true, path, "-");
+    }
+}
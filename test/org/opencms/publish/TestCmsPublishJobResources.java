@@ -0,0 +1,229 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.publish;
+
+import org.opencms.db.CmsPublishList;
+import org.opencms.db.CmsResourceState;
+import org.opencms.file.CmsResource;
+import org.opencms.util.CmsUUID;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the overlap detection of publish jobs.<p>
+ */
+public class TestCmsPublishJobResources extends TestCase {
+
+    /**
+     * Publish list which can be filled without a database.<p>
+     */
+    private static class CmsTestPublishList extends CmsPublishList {
+
+        /**
+         * Creates a publish list with the given resources.<p>
+         *
+         * @param resources the resources to publish
+         */
+        CmsTestPublishList(CmsResource... resources) {
+
+            super(Collections.<CmsResource> emptyList(), false);
+            addAll(Arrays.asList(resources), false);
+        }
+    }
+
+    /**
+     * Asserts that the overlap check gives the same result in both directions.<p>
+     *
+     * @param expected the expected result
+     * @param first the first publish job resources
+     * @param second the second publish job resources
+     */
+    private static void assertOverlap(boolean expected, CmsPublishJobResources first, CmsPublishJobResources second) {
+
+        assertEquals(expected, first.overlaps(second));
+        assertEquals(expected, second.overlaps(first));
+    }
+
+    /**
+     * Creates a changed resource for testing.<p>
+     *
+     * @param rootPath the root path
+     *
+     * @return the resource
+     */
+    private static CmsResource createResource(String rootPath) {
+
+        return createResource(rootPath, new CmsUUID(), CmsResource.STATE_CHANGED);
+    }
+
+    /**
+     * Creates a resource for testing.<p>
+     *
+     * @param rootPath the root path
+     * @param resourceId the resource id
+     * @param state the state
+     *
+     * @return the resource
+     */
+    private static CmsResource createResource(String rootPath, CmsUUID resourceId, CmsResourceState state) {
+
+        boolean isFolder = CmsResource.isFolder(rootPath);
+        return new CmsResource(
+            new CmsUUID(),
+            resourceId,
+            rootPath,
+            isFolder ? 0 : 1,
+            isFolder,
+            0,
+            CmsUUID.getNullUUID(),
+            state,
+            0,
+            CmsUUID.getNullUUID(),
+            0,
+            CmsUUID.getNullUUID(),
+            CmsResource.DATE_RELEASED_DEFAULT,
+            CmsResource.DATE_EXPIRED_DEFAULT,
+            1,
+            isFolder ? -1 : 0,
+            0,
+            0);
+    }
+
+    /**
+     * Creates the publish job resources for the given resources.<p>
+     *
+     * @param resources the published resources
+     *
+     * @return the publish job resources
+     */
+    private static CmsPublishJobResources createResources(CmsResource... resources) {
+
+        return new CmsPublishJobResources(new CmsTestPublishList(resources));
+    }
+
+    /**
+     * Tests publish jobs with the same paths.<p>
+     */
+    public void testIdenticalPaths() {
+
+        assertOverlap(
+            true,
+            createResources(createResource("/sites/default/index.html")),
+            createResources(createResource("/sites/default/index.html")));
+        assertOverlap(
+            true,
+            createResources(createResource("/sites/default/folder/")),
+            createResources(createResource("/sites/default/folder/")));
+        // a resource deleted by one job and re-created by another one
+        assertOverlap(
+            true,
+            createResources(createResource("/sites/default/a.html", new CmsUUID(), CmsResource.STATE_DELETED)),
+            createResources(createResource("/sites/default/a.html", new CmsUUID(), CmsResource.STATE_NEW)));
+    }
+
+    /**
+     * Tests publish jobs of moved resources, which also touch the old root paths.<p>
+     */
+    public void testMovedResources() {
+
+        // a file moved away from a path where another job creates a new file
+        CmsPublishJobResources movedFile = new CmsPublishJobResources(
+            new CmsTestPublishList(createResource("/sites/default/new.html")),
+            Collections.singletonList("/sites/default/old.html"));
+        assertOverlap(
+            true,
+            movedFile,
+            createResources(createResource("/sites/default/old.html", new CmsUUID(), CmsResource.STATE_NEW)));
+        assertOverlap(false, movedFile, createResources(createResource("/sites/default/other.html")));
+
+        // a folder moved away from a path below which another job publishes resources
+        CmsPublishJobResources movedFolder = new CmsPublishJobResources(
+            new CmsTestPublishList(createResource("/sites/default/target/folder/")),
+            Collections.singletonList("/sites/default/source/folder/"));
+        assertOverlap(true, movedFolder, createResources(createResource("/sites/default/source/folder/a.html")));
+        assertOverlap(true, movedFolder, createResources(createResource("/sites/default/source/")));
+        assertOverlap(false, movedFolder, createResources(createResource("/sites/default/source/b.html")));
+    }
+
+    /**
+     * Tests publish jobs of a folder and of resources below it.<p>
+     */
+    public void testParentAndChild() {
+
+        CmsPublishJobResources folder = createResources(createResource("/sites/default/folder/"));
+        assertOverlap(true, folder, createResources(createResource("/sites/default/folder/index.html")));
+        assertOverlap(true, folder, createResources(createResource("/sites/default/folder/sub/deep/a.html")));
+        assertOverlap(true, folder, createResources(createResource("/sites/default/folder/sub/")));
+        CmsPublishJobResources deletedFolder = createResources(
+            createResource("/sites/default/folder/", new CmsUUID(), CmsResource.STATE_DELETED));
+        assertOverlap(true, deletedFolder, createResources(createResource("/sites/default/folder/index.html")));
+        // a folder with the same prefix is no parent folder
+        assertOverlap(false, folder, createResources(createResource("/sites/default/folder2/index.html")));
+        assertOverlap(false, folder, createResources(createResource("/sites/default/folder.html")));
+    }
+
+    /**
+     * Tests publish jobs of resources in the same folder, and of siblings.<p>
+     */
+    public void testSiblings() {
+
+        // resources in the same folder do not overlap as long as the folder itself is not published
+        assertOverlap(
+            false,
+            createResources(createResource("/sites/default/folder/a.html")),
+            createResources(createResource("/sites/default/folder/b.html")));
+        assertOverlap(
+            false,
+            createResources(createResource("/sites/default/a/")),
+            createResources(createResource("/sites/default/b/")));
+        assertOverlap(
+            true,
+            createResources(createResource("/sites/default/folder/"), createResource("/sites/default/folder/a.html")),
+            createResources(createResource("/sites/default/folder/b.html")));
+
+        // siblings share the resource id, so they overlap although their paths differ
+        CmsUUID resourceId = new CmsUUID();
+        assertOverlap(
+            true,
+            createResources(createResource("/sites/default/a.html", resourceId, CmsResource.STATE_CHANGED)),
+            createResources(createResource("/sites/other/b.html", resourceId, CmsResource.STATE_CHANGED)));
+    }
+
+    /**
+     * Tests that publish jobs with unknown resources overlap with all other jobs.<p>
+     */
+    public void testUnknownResources() {
+
+        CmsPublishJobResources unknown = new CmsPublishJobResources(null);
+        assertOverlap(true, unknown, createResources(createResource("/sites/default/a.html")));
+        assertOverlap(true, unknown, createResources());
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.report;
+
+import java.util.Locale;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the buffered report.<p>
+ *
+ * @since 10.5.0
+ */
+public class TestCmsBufferedReport extends TestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsBufferedReport(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Tests that errors and warnings are forwarded to the target report before the output is flushed.<p>
+     */
+    public void testErrorsAndWarningsForwarded() {
+
+        CmsStringBufferReport target = new CmsStringBufferReport(Locale.ENGLISH);
+        CmsBufferedReport report = new CmsBufferedReport(target);
+        assertFalse(target.hasError());
+        assertFalse(target.hasWarning());
+
+        Exception error = new Exception("error");
+        report.addError(error);
+        report.addWarning("warning");
+
+        assertTrue(report.hasError());
+        assertTrue(report.hasWarning());
+        assertTrue(target.hasError());
+        assertTrue(target.hasWarning());
+        assertEquals(1, target.getErrors().size());
+        assertSame(error, target.getErrors().get(0));
+        assertEquals("warning", target.getWarnings().get(0));
+
+        // flushing must not add the errors and warnings again
+        report.flush();
+        assertEquals(1, target.getErrors().size());
+        assertEquals(1, target.getWarnings().size());
+    }
+
+    /**
+     * Tests that the output is only written to the target report when flushed.<p>
+     */
+    public void testOutputBuffered() {
+
+        CmsStringBufferReport target = new CmsStringBufferReport(Locale.ENGLISH);
+        CmsBufferedReport report = new CmsBufferedReport(target);
+        report.println();
+        assertEquals("", target.toString());
+
+        report.flush();
+        String flushed = target.toString();
+        assertTrue(flushed.length() > 0);
+
+        // output after flushing is written directly
+        report.println();
+        assertTrue(target.toString().length() > flushed.length());
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.search;
+
+import org.opencms.db.CmsPublishedResource;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsResource;
+import org.opencms.util.CmsUUID;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the indexing thread manager.<p>
+ */
+public class TestCmsIndexingThreadManager extends TestCase {
+
+    /**
+     * Search index which blocks the indexing threads until it is released.<p>
+     */
+    private static class CmsBlockingIndex extends CmsSearchIndex {
+
+        /** The latch the indexing threads wait for. */
+        CountDownLatch m_release = new CountDownLatch(1);
+
+        /**
+         * @see org.opencms.search.CmsSearchIndex#excludeFromIndex(org.opencms.file.CmsObject, org.opencms.file.CmsResource)
+         */
+        @Override
+        protected boolean excludeFromIndex(CmsObject cms, CmsResource resource) {
+
+            try {
+                m_release.await();
+            } catch (InterruptedException e) {
+                // the thread has been abandoned
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Indexer which counts the documents written to the index.<p>
+     */
+    private static class CmsCountingIndexer extends CmsVfsIndexer {
+
+        /** The number of written documents. */
+        AtomicInteger m_written = new AtomicInteger();
+
+        /** The index. */
+        private CmsSearchIndex m_testIndex;
+
+        /**
+         * Creates a new indexer.<p>
+         *
+         * @param index the index
+         */
+        CmsCountingIndexer(CmsSearchIndex index) {
+
+            m_testIndex = index;
+        }
+
+        /**
+         * @see org.opencms.search.CmsVfsIndexer#getIndex()
+         */
+        @Override
+        public CmsSearchIndex getIndex() {
+
+            return m_testIndex;
+        }
+
+        /**
+         * @see org.opencms.search.CmsVfsIndexer#deleteResource(org.opencms.search.I_CmsIndexWriter, org.opencms.db.CmsPublishedResource)
+         */
+        @Override
+        protected void deleteResource(I_CmsIndexWriter indexWriter, CmsPublishedResource resource) {
+
+            m_written.incrementAndGet();
+        }
+
+        /**
+         * @see org.opencms.search.CmsVfsIndexer#updateResource(org.opencms.search.I_CmsIndexWriter, java.lang.String, org.opencms.search.documents.I_CmsSearchDocument)
+         */
+        @Override
+        protected void updateResource(I_CmsIndexWriter indexWriter, String rootPath, I_CmsSearchDocument doc) {
+
+            m_written.incrementAndGet();
+        }
+    }
+
+    /**
+     * Creates a resource for testing.<p>
+     *
+     * @param rootPath the root path
+     *
+     * @return the resource
+     */
+    private static CmsResource createResource(String rootPath) {
+
+        return new CmsResource(
+            new CmsUUID(),
+            new CmsUUID(),
+            rootPath,
+            1,
+            false,
+            0,
+            CmsUUID.getNullUUID(),
+            CmsResource.STATE_UNCHANGED,
+            0,
+            CmsUUID.getNullUUID(),
+            0,
+            CmsUUID.getNullUUID(),
+            CmsResource.DATE_RELEASED_DEFAULT,
+            CmsResource.DATE_EXPIRED_DEFAULT,
+            1,
+            0,
+            0,
+            0);
+    }
+
+    /**
+     * Tests that checking for running threads neither blocks nor writes documents.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testIsRunningDoesNotBlock() throws Exception {
+
+        CmsBlockingIndex index = new CmsBlockingIndex();
+        CmsCountingIndexer indexer = new CmsCountingIndexer(index);
+        CmsIndexingThreadManager manager = new CmsIndexingThreadManager(60000, 1000);
+        assertFalse(manager.isRunning());
+
+        manager.createIndexingThread(indexer, null, createResource("/a.txt"));
+        long start = System.currentTimeMillis();
+        assertTrue(manager.isRunning());
+        assertTrue(manager.isRunning());
+        assertTrue((System.currentTimeMillis() - start) < 1000);
+
+        index.m_release.countDown();
+        // give the thread time to finish, its document must still not be written
+        Thread.sleep(200);
+        assertTrue(manager.isRunning());
+        assertEquals(0, indexer.m_written.get());
+
+        manager.waitForIndexingThreads();
+        assertFalse(manager.isRunning());
+        assertEquals(1, indexer.m_written.get());
+    }
+
+    /**
+     * Tests that waiting for the indexing threads abandons the threads which reach the timeout.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testWaitForIndexingThreadsAbandonsTimedOutThreads() throws Exception {
+
+        CmsBlockingIndex index = new CmsBlockingIndex();
+        CmsCountingIndexer indexer = new CmsCountingIndexer(index);
+        CmsIndexingThreadManager manager = new CmsIndexingThreadManager(300, 1000);
+        try {
+            manager.createIndexingThread(indexer, null, createResource("/a.txt"));
+            long start = System.currentTimeMillis();
+            manager.waitForIndexingThreads();
+            long duration = System.currentTimeMillis() - start;
+            assertFalse(manager.isRunning());
+            assertEquals(1, indexer.m_written.get());
+            assertTrue(duration < TimeUnit.SECONDS.toMillis(10));
+        } finally {
+            index.m_release.countDown();
+        }
+    }
+}
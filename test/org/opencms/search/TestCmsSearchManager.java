@@ -0,0 +1,139 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.search;
+
+import org.opencms.security.CmsAccessControlEntry;
+import org.opencms.security.CmsPermissionSet;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the detection of folders with changed permissions in the search manager.<p>
+ */
+public class TestCmsSearchManager extends TestCase {
+
+    /** The id of the folder the entries belong to. */
+    private static final CmsUUID FOLDER_ID = new CmsUUID();
+
+    /** The id of a group. */
+    private static final CmsUUID GROUP_ID = new CmsUUID();
+
+    /** The id of a user. */
+    private static final CmsUUID USER_ID = new CmsUUID();
+
+    /**
+     * Tests that added and removed entries are detected.<p>
+     */
+    public void testAddedOrRemovedEntry() {
+
+        List<CmsAccessControlEntry> online = Arrays.asList(createEntry(USER_ID, CmsPermissionSet.PERMISSION_READ, 0));
+        List<CmsAccessControlEntry> offline = new ArrayList<CmsAccessControlEntry>(online);
+        offline.add(createEntry(GROUP_ID, 0, CmsPermissionSet.PERMISSION_READ));
+        assertTrue(CmsSearchManager.hasChangedPermissions(offline, online));
+        assertTrue(CmsSearchManager.hasChangedPermissions(online, offline));
+        assertTrue(CmsSearchManager.hasChangedPermissions(new ArrayList<CmsAccessControlEntry>(), online));
+    }
+
+    /**
+     * Tests that changed flags are detected.<p>
+     */
+    public void testChangedFlags() {
+
+        List<CmsAccessControlEntry> online = Arrays.asList(
+            createEntry(GROUP_ID, CmsPermissionSet.PERMISSION_READ, 0, CmsAccessControlEntry.ACCESS_FLAGS_GROUP));
+        List<CmsAccessControlEntry> offline = Arrays.asList(
+            createEntry(
+                GROUP_ID,
+                CmsPermissionSet.PERMISSION_READ,
+                0,
+                CmsAccessControlEntry.ACCESS_FLAGS_GROUP | CmsAccessControlEntry.ACCESS_FLAGS_INHERIT));
+        assertTrue(CmsSearchManager.hasChangedPermissions(offline, online));
+    }
+
+    /**
+     * Tests that changed permissions of an entry are detected.<p>
+     */
+    public void testChangedPermissions() {
+
+        List<CmsAccessControlEntry> online = Arrays.asList(createEntry(GROUP_ID, CmsPermissionSet.PERMISSION_READ, 0));
+        List<CmsAccessControlEntry> offline = Arrays.asList(createEntry(GROUP_ID, 0, CmsPermissionSet.PERMISSION_READ));
+        assertTrue(CmsSearchManager.hasChangedPermissions(offline, online));
+    }
+
+    /**
+     * Tests that the same entries in a different order are not considered as changed.<p>
+     */
+    public void testSameEntriesInDifferentOrder() {
+
+        List<CmsAccessControlEntry> online = Arrays.asList(
+            createEntry(USER_ID, CmsPermissionSet.PERMISSION_READ, 0),
+            createEntry(GROUP_ID, CmsPermissionSet.PERMISSION_WRITE, CmsPermissionSet.PERMISSION_READ));
+        List<CmsAccessControlEntry> offline = Arrays.asList(
+            createEntry(GROUP_ID, CmsPermissionSet.PERMISSION_WRITE, CmsPermissionSet.PERMISSION_READ),
+            createEntry(USER_ID, CmsPermissionSet.PERMISSION_READ, 0));
+        assertFalse(CmsSearchManager.hasChangedPermissions(offline, online));
+        assertFalse(
+            CmsSearchManager.hasChangedPermissions(
+                new ArrayList<CmsAccessControlEntry>(),
+                new ArrayList<CmsAccessControlEntry>()));
+    }
+
+    /**
+     * Creates an access control entry for the test folder.<p>
+     *
+     * @param principal the principal id
+     * @param allowed the allowed permissions
+     * @param denied the denied permissions
+     *
+     * @return the access control entry
+     */
+    private CmsAccessControlEntry createEntry(CmsUUID principal, int allowed, int denied) {
+
+        return createEntry(principal, allowed, denied, 0);
+    }
+
+    /**
+     * Creates an access control entry for the test folder.<p>
+     *
+     * @param principal the principal id
+     * @param allowed the allowed permissions
+     * @param denied the denied permissions
+     * @param flags the flags
+     *
+     * @return the access control entry
+     */
+    private CmsAccessControlEntry createEntry(CmsUUID principal, int allowed, int denied, int flags) {
+
+        return new CmsAccessControlEntry(FOLDER_ID, principal, allowed, denied, flags);
+    }
+}
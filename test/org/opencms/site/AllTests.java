@@ -59,6 +59,8 @@ public final class AllTests {
         OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
         //$JUnit-BEGIN$
         suite.addTest(TestCmsSiteConfiguration.suite());
+        suite.addTest(new TestSuite(TestCmsSiteMatcherIndex.class));
+        suite.addTest(new TestSuite(TestCmsSiteRootPrefixTree.class));
         //$JUnit-END$
         return suite;
     }
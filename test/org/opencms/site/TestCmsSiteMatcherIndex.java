@@ -0,0 +1,93 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.site;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the index used for finding the configured site matcher for a request.<p>
+ *
+ * @since 10.5.0
+ */
+public class TestCmsSiteMatcherIndex extends TestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsSiteMatcherIndex(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Tests that the configured matcher is returned, including its time offset.<p>
+     */
+    public void testConfiguredMatcherReturned() {
+
+        CmsSiteMatcher configured = new CmsSiteMatcher("http://a.org", 1000);
+        CmsSiteMatcherIndex index = new CmsSiteMatcherIndex(
+            Arrays.asList(configured, new CmsSiteMatcher("https://b.org:8443")));
+        assertEquals(2, index.size());
+
+        CmsSiteMatcher found = index.get(new CmsSiteMatcher("http", "a.org", 80));
+        assertSame(configured, found);
+        assertEquals(configured.getTimeOffset(), found.getTimeOffset());
+        assertTrue(found.getTimeOffset() != 0);
+        assertNotNull(index.get(new CmsSiteMatcher("https", "b.org", 8443)));
+    }
+
+    /**
+     * Tests that server names are matched case insensitive.<p>
+     */
+    public void testHostIgnoresCase() {
+
+        CmsSiteMatcher configured = new CmsSiteMatcher("http://www.Example.org");
+        CmsSiteMatcherIndex index = new CmsSiteMatcherIndex(Arrays.asList(configured));
+
+        assertSame(configured, index.get(new CmsSiteMatcher("http", "www.example.org", 80)));
+        assertSame(configured, index.get(new CmsSiteMatcher("http", "WWW.EXAMPLE.ORG", 80)));
+        assertSame(configured, index.get(new CmsSiteMatcher("http", "www.Example.org", 80)));
+    }
+
+    /**
+     * Tests that a different scheme or port does not match.<p>
+     */
+    public void testSchemeAndPortMustMatch() {
+
+        CmsSiteMatcherIndex index = new CmsSiteMatcherIndex(
+            Arrays.asList(new CmsSiteMatcher("http://www.example.org")));
+
+        assertNull(index.get(new CmsSiteMatcher("http", "www.example.org", 8080)));
+        assertNull(index.get(new CmsSiteMatcher("https", "www.example.org", 80)));
+        assertNull(index.get(new CmsSiteMatcher("http", "example.org", 80)));
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.site;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the prefix tree used for looking up the additional site roots.<p>
+ *
+ * @since 10.5.0
+ */
+public class TestCmsSiteRootPrefixTree extends TestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsSiteRootPrefixTree(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Tests that the longest of several nested site roots is returned.<p>
+     */
+    public void testLongestMatch() {
+
+        CmsSiteRootPrefixTree tree = new CmsSiteRootPrefixTree(
+            Arrays.asList("/shared/sub/", "/shared/", "/sites/other/"));
+        assertEquals(3, tree.size());
+        assertEquals("/shared/", tree.getSiteRoot("/shared/index.html"));
+        assertEquals("/shared/", tree.getSiteRoot("/shared/subfolder/index.html"));
+        assertEquals("/shared/sub/", tree.getSiteRoot("/shared/sub/index.html"));
+        assertEquals("/shared/sub/", tree.getSiteRoot("/shared/sub/deep/folder/"));
+        assertEquals("/sites/other/", tree.getSiteRoot("/sites/other/index.html"));
+    }
+
+    /**
+     * Tests that paths outside all site roots do not match.<p>
+     */
+    public void testNoMatch() {
+
+        CmsSiteRootPrefixTree tree = new CmsSiteRootPrefixTree(Arrays.asList("/shared/", "/sites/other/"));
+        assertNull(tree.getSiteRoot("/system/index.html"));
+        assertNull(tree.getSiteRoot("/sites/"));
+        assertNull(tree.getSiteRoot("/"));
+
+        CmsSiteRootPrefixTree empty = new CmsSiteRootPrefixTree(Collections.<String> emptyList());
+        assertEquals(0, empty.size());
+        assertNull(empty.getSiteRoot("/shared/index.html"));
+    }
+
+    /**
+     * Tests that site roots only match at folder boundaries.<p>
+     */
+    public void testSegmentAlignedMatch() {
+
+        CmsSiteRootPrefixTree tree = new CmsSiteRootPrefixTree(Collections.singletonList("/foo"));
+        assertEquals("/foo", tree.getSiteRoot("/foo"));
+        assertEquals("/foo", tree.getSiteRoot("/foo/"));
+        assertEquals("/foo", tree.getSiteRoot("/foo/bar/"));
+        assertNull(tree.getSiteRoot("/foobar/"));
+        assertNull(tree.getSiteRoot("/foobar"));
+        assertNull(tree.getSiteRoot("/fo/"));
+    }
+}
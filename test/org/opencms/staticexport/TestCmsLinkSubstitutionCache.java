@@ -0,0 +1,343 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.staticexport;
+
+import org.opencms.db.CmsPublishedResource;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProject;
+import org.opencms.file.CmsRequestContext;
+import org.opencms.file.CmsResource;
+import org.opencms.file.CmsUser;
+import org.opencms.file.types.CmsResourceTypePlain;
+import org.opencms.file.types.CmsResourceTypeFolder;
+import org.opencms.security.I_CmsPrincipal;
+import org.opencms.site.CmsSiteMatcher;
+import org.opencms.util.CmsResourceTranslator;
+import org.opencms.util.CmsUUID;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Locale;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the cache for the links generated by the link substitution handler.<p>
+ */
+public class TestCmsLinkSubstitutionCache extends TestCase {
+
+    /**
+     * Link cache with configuration states which can be changed by the test.<p>
+     */
+    static class CmsTestLinkSubstitutionCache extends CmsLinkSubstitutionCache {
+
+        /** The state of the ADE configuration. */
+        Object m_configState = new Object();
+
+        /** The state of the site configuration. */
+        Object m_siteState = new Object();
+
+        /**
+         * Creates a new instance.<p>
+         */
+        CmsTestLinkSubstitutionCache() {
+
+            super(DEFAULT_SIZE);
+        }
+
+        /**
+         * @see org.opencms.staticexport.CmsLinkSubstitutionCache#getConfigState()
+         */
+        @Override
+        Object getConfigState() {
+
+            return m_configState;
+        }
+
+        /**
+         * @see org.opencms.staticexport.CmsLinkSubstitutionCache#getSiteState()
+         */
+        @Override
+        Object getSiteState() {
+
+            return m_siteState;
+        }
+    }
+
+    /** The URI of the test context, below /system/ so that the site manager is not needed. */
+    private static final String PAGE_URI = "/system/modules/org.opencms.test/pages/index.jsp";
+
+    /** The id of the test user. */
+    private static final CmsUUID USER_ID = new CmsUUID();
+
+    /** The cache to test. */
+    private CmsTestLinkSubstitutionCache m_cache;
+
+    /** The CMS context used by the test. */
+    private CmsObject m_cms;
+
+    /**
+     * Creates a CMS context for the Online project.<p>
+     *
+     * @param userId the id of the current user
+     * @param siteRoot the site root
+     * @param uri the current URI
+     * @param locale the current locale
+     * @param secure the secure request flag
+     *
+     * @return the CMS context
+     */
+    private static CmsObject createCms(CmsUUID userId, String siteRoot, String uri, Locale locale, boolean secure) {
+
+        CmsUser user = new CmsUser(userId, "Guest", "", "", "", "", 0, I_CmsPrincipal.FLAG_ENABLED, 0, null);
+        CmsProject project = new CmsProject(
+            CmsProject.ONLINE_PROJECT_ID,
+            CmsProject.ONLINE_PROJECT_NAME,
+            "",
+            null,
+            null,
+            null,
+            0,
+            0,
+            CmsProject.PROJECT_TYPE_NORMAL);
+        CmsRequestContext context = new CmsRequestContext(
+            user,
+            project,
+            uri,
+            CmsSiteMatcher.DEFAULT_MATCHER,
+            siteRoot,
+            secure,
+            locale,
+            "UTF-8",
+            "127.0.0.1",
+            0,
+            new CmsResourceTranslator(new String[0], false),
+            null,
+            "");
+        return new CmsObject(null, context);
+    }
+
+    /**
+     * Creates a published resource.<p>
+     *
+     * @param rootPath the root path
+     * @param isFolder true if the resource is a folder
+     * @param deleted true if the resource has been deleted
+     *
+     * @return the published resource
+     */
+    private static CmsPublishedResource createPublishedResource(String rootPath, boolean isFolder, boolean deleted) {
+
+        return new CmsPublishedResource(
+            new CmsUUID(),
+            new CmsUUID(),
+            1,
+            rootPath,
+            isFolder ? CmsResourceTypeFolder.getStaticTypeId() : CmsResourceTypePlain.getStaticTypeId(),
+            isFolder,
+            deleted ? CmsResource.STATE_DELETED : CmsResource.STATE_CHANGED,
+            1);
+    }
+
+    /**
+     * Tests that the cache key contains all parts of the request context used for generating a link.<p>
+     */
+    public void testCacheKey() {
+
+        CmsLinkSubstitutionCache.CacheKey key = createKey(m_cms, "/a.html");
+        CmsObject sameCms = createCms(USER_ID, "/sites/default", PAGE_URI, Locale.ENGLISH, false);
+        assertEquals(key, createKey(sameCms, "/a.html"));
+        assertEquals(key.hashCode(), createKey(sameCms, "/a.html").hashCode());
+
+        assertFalse(key.equals(createKey(m_cms, "/b.html")));
+        assertFalse(key.equals(m_cache.createKey(m_cms, "/a.html", "/sites/other", null, false)));
+        assertFalse(key.equals(m_cache.createKey(m_cms, "/a.html", null, "/detail/", false)));
+        assertFalse(key.equals(m_cache.createKey(m_cms, "/a.html", null, null, true)));
+
+        CmsObject otherCms = createCms(new CmsUUID(), "/sites/default", PAGE_URI, Locale.ENGLISH, false);
+        assertFalse(key.equals(createKey(otherCms, "/a.html")));
+        otherCms = createCms(USER_ID, "/sites/other", PAGE_URI, Locale.ENGLISH, false);
+        assertFalse(key.equals(createKey(otherCms, "/a.html")));
+        otherCms = createCms(USER_ID, "/sites/default", "/x.html", Locale.ENGLISH, false);
+        assertFalse(key.equals(createKey(otherCms, "/a.html")));
+        otherCms = createCms(USER_ID, "/sites/default", PAGE_URI, Locale.GERMAN, false);
+        assertFalse(key.equals(createKey(otherCms, "/a.html")));
+        otherCms = createCms(USER_ID, "/sites/default", PAGE_URI, Locale.ENGLISH, true);
+        assertFalse(key.equals(createKey(otherCms, "/a.html")));
+
+        sameCms.getRequestContext().setAttribute(CmsDefaultLinkSubstitutionHandler.ATTR_IS_IMAGE_LINK, "true");
+        assertFalse(key.equals(createKey(sameCms, "/a.html")));
+    }
+
+    /**
+     * Tests that all links are removed if a folder has been deleted.<p>
+     */
+    public void testDeletedFolderClearsCache() {
+
+        cacheLink("/a.html", "/sites/default/a.html", null);
+        cacheLink("/b.html", "/sites/default/b.html", null);
+        m_cache.uncacheResources(
+            Collections.singletonList(createPublishedResource("/sites/default/unrelated/", true, true)));
+        assertEquals(0, m_cache.size());
+    }
+
+    /**
+     * Tests that detail page links become invalid when the ADE configuration changes.<p>
+     */
+    public void testDetailLinksInvalidatedByConfigurationChange() {
+
+        CmsUUID detailId = new CmsUUID();
+        cacheLink("/a.html", "/sites/default/a.html", null);
+        cacheLink("/news/n1.html", "/sites/default/news/n1.html", detailId);
+        m_cache.m_configState = new Object();
+        assertNotNull(m_cache.get(createKey(m_cms, "/a.html")));
+        assertNull(m_cache.get(createKey(m_cms, "/news/n1.html")));
+    }
+
+    /**
+     * Tests that a cached link is returned.<p>
+     */
+    public void testGetCachedLink() {
+
+        cacheLink("/a.html", "/sites/default/a.html", null);
+        CmsLinkSubstitutionCache.CacheEntry entry = m_cache.get(createKey(m_cms, "/a.html"));
+        assertNotNull(entry);
+        assertEquals("/opencms/a.html", entry.getLink());
+        assertNull(m_cache.get(createKey(m_cms, "/b.html")));
+        assertEquals(1, m_cache.getStatistics().getHitCount());
+        assertEquals(1, m_cache.getStatistics().getMissCount());
+    }
+
+    /**
+     * Tests that all links become invalid when the site configuration changes.<p>
+     */
+    public void testLinksInvalidatedBySiteChange() {
+
+        cacheLink("/a.html", "/sites/default/a.html", null);
+        m_cache.m_siteState = new Object();
+        assertNull(m_cache.get(createKey(m_cms, "/a.html")));
+        assertEquals(0, m_cache.size());
+
+        cacheLink("/a.html", "/sites/default/a.html", null);
+        assertNotNull(m_cache.get(createKey(m_cms, "/a.html")));
+    }
+
+    /**
+     * Tests that links are not cached if they are incomplete or marked as uncacheable.<p>
+     */
+    public void testUncacheableLinks() {
+
+        CmsLinkSubstitutionCache.CacheEntry entry = m_cache.createEntry(m_cms);
+        entry.setLink("/opencms/a.html");
+        m_cache.put(createKey(m_cms, "/a.html"), entry);
+        assertEquals(0, m_cache.size());
+
+        entry = m_cache.createEntry(m_cms);
+        entry.setLink("/opencms/a.html");
+        entry.setTargetRootPath("/sites/default/a.html");
+        entry.setUncacheable();
+        m_cache.put(createKey(m_cms, "/a.html"), entry);
+        assertEquals(0, m_cache.size());
+    }
+
+    /**
+     * Tests that publishing only removes the links affected by the published resources.<p>
+     */
+    public void testUncacheOnPublish() {
+
+        CmsUUID detailId = new CmsUUID();
+        cacheLink("/a.html", "/sites/default/a.html", null);
+        cacheLink("/folder/b.html", "/sites/default/folder/b.html", null);
+        cacheLink("/news/n1.html", "/sites/default/news/n1.html", detailId);
+        cacheLink("/c.html", "/sites/default/c.html", null);
+        assertEquals(4, m_cache.size());
+
+        CmsPublishedResource detailContent = new CmsPublishedResource(
+            detailId,
+            new CmsUUID(),
+            1,
+            "/sites/default/.content/n1.xml",
+            CmsResourceTypePlain.getStaticTypeId(),
+            false,
+            CmsResource.STATE_CHANGED,
+            1);
+        m_cache.uncacheResources(
+            Arrays.asList(
+                createPublishedResource("/sites/default/a.html", false, false),
+                createPublishedResource("/sites/default/folder/", true, false),
+                detailContent));
+        assertNull(m_cache.get(createKey(m_cms, "/a.html")));
+        assertNull(m_cache.get(createKey(m_cms, "/folder/b.html")));
+        assertNull(m_cache.get(createKey(m_cms, "/news/n1.html")));
+        assertNotNull(m_cache.get(createKey(m_cms, "/c.html")));
+
+        // links generated for a published page are removed as well
+        m_cache.uncacheResources(
+            Collections.singletonList(createPublishedResource(PAGE_URI, false, false)));
+        assertEquals(0, m_cache.size());
+    }
+
+    /**
+     * @see junit.framework.TestCase#setUp()
+     */
+    @Override
+    protected void setUp() {
+
+        m_cache = new CmsTestLinkSubstitutionCache();
+        m_cms = createCms(USER_ID, "/sites/default", PAGE_URI, Locale.ENGLISH, false);
+    }
+
+    /**
+     * Caches a link generated for the test context.<p>
+     *
+     * @param link the link
+     * @param targetRootPath the root path of the link target
+     * @param detailContentId the structure id of the detail content, or <code>null</code>
+     */
+    private void cacheLink(String link, String targetRootPath, CmsUUID detailContentId) {
+
+        CmsLinkSubstitutionCache.CacheEntry entry = m_cache.createEntry(m_cms);
+        entry.setTargetRootPath(targetRootPath);
+        entry.setDetailContentId(detailContentId);
+        entry.setLink("/opencms" + link);
+        m_cache.put(createKey(m_cms, link), entry);
+    }
+
+    /**
+     * Creates a cache key without target site root and detail page.<p>
+     *
+     * @param cms the CMS context
+     * @param link the link
+     *
+     * @return the cache key
+     */
+    private CmsLinkSubstitutionCache.CacheKey createKey(CmsObject cms, String link) {
+
+        return m_cache.createKey(cms, link, null, null, false);
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the spooled input stream.<p>
+ */
+public class TestCmsSpooledInputStream extends TestCase {
+
+    /** The temporary directory used by the test. */
+    private File m_tempDir;
+
+    /**
+     * Creates random content.<p>
+     *
+     * @param size the size of the content
+     *
+     * @return the content
+     */
+    private static byte[] createContent(int size) {
+
+        byte[] content = new byte[size];
+        new Random(size).nextBytes(content);
+        return content;
+    }
+
+    /**
+     * Reads a stream completely and closes it.<p>
+     *
+     * @param in the stream to read
+     *
+     * @return the content of the stream
+     *
+     * @throws IOException if reading fails
+     */
+    private static byte[] readAndClose(InputStream in) throws IOException {
+
+        try {
+            return CmsFileUtil.readFully(in, false);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Tests that content larger than the memory threshold is copied to a temporary file,
+     * which is deleted when the stream is closed.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testLargeContentIsSpooledToFile() throws Exception {
+
+        byte[] content = createContent(100000);
+        InputStream in = CmsSpooledInputStream.spool(new ByteArrayInputStream(content), 1000, m_tempDir);
+        assertTrue(in instanceof CmsSpooledInputStream);
+        assertEquals(1, m_tempDir.listFiles().length);
+        assertTrue(Arrays.equals(content, readAndClose(in)));
+        assertEquals(0, m_tempDir.listFiles().length);
+        // closing twice does no harm
+        in.close();
+    }
+
+    /**
+     * Tests that content up to the memory threshold is kept in memory.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testSmallContentIsKeptInMemory() throws Exception {
+
+        byte[] content = createContent(1000);
+        InputStream in = CmsSpooledInputStream.spool(new ByteArrayInputStream(content), 1000, m_tempDir);
+        assertEquals(0, m_tempDir.listFiles().length);
+        assertTrue(Arrays.equals(content, readAndClose(in)));
+
+        in = CmsSpooledInputStream.spool(new ByteArrayInputStream(new byte[0]), 1000, m_tempDir);
+        assertEquals(0, readAndClose(in).length);
+        assertEquals(0, m_tempDir.listFiles().length);
+    }
+
+    /**
+     * Tests that the temporary file is removed if the source stream fails.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testTemporaryFileRemovedOnError() throws Exception {
+
+        InputStream failing = new ByteArrayInputStream(createContent(5000)) {
+
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+
+                if (available() < 2000) {
+                    throw new IllegalStateException("read failed");
+                }
+                return super.read(b, off, Math.min(len, 1000));
+            }
+        };
+        try {
+            CmsSpooledInputStream.spool(failing, 1000, m_tempDir);
+            fail("the read error must be passed to the caller");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        assertEquals(0, m_tempDir.listFiles().length);
+    }
+
+    /**
+     * @see junit.framework.TestCase#setUp()
+     */
+    @Override
+    protected void setUp() throws Exception {
+
+        m_tempDir = File.createTempFile("spooltest", "");
+        m_tempDir.delete();
+        m_tempDir.mkdirs();
+    }
+
+    /**
+     * @see junit.framework.TestCase#tearDown()
+     */
+    @Override
+    protected void tearDown() {
+
+        for (File file : m_tempDir.listFiles()) {
+            file.delete();
+        }
+        m_tempDir.delete();
+    }
+}
@@ -0,0 +1,294 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.webdav;
+
+import org.opencms.repository.I_CmsRepositoryItem;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.servlet.ServletOutputStream;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests that the WebDAV servlet closes the content streams of the repository items.<p>
+ */
+public class TestCmsWebdavServlet extends TestCase {
+
+    /**
+     * Output stream which fails on the first write, as if the client has closed the connection.<p>
+     */
+    private static class CmsFailingOutputStream extends ServletOutputStream {
+
+        /**
+         * @see java.io.OutputStream#write(int)
+         */
+        @Override
+        public void write(int b) {
+
+            throw new IllegalStateException("connection closed by client");
+        }
+    }
+
+    /**
+     * Output stream collecting the written content.<p>
+     */
+    private static class CmsMemoryOutputStream extends ServletOutputStream {
+
+        /** The written content. */
+        ByteArrayOutputStream m_content = new ByteArrayOutputStream();
+
+        /**
+         * @see java.io.OutputStream#write(int)
+         */
+        @Override
+        public void write(int b) {
+
+            m_content.write(b);
+        }
+    }
+
+    /**
+     * Repository item counting the opened and closed content streams.<p>
+     */
+    private static class CmsTestItem implements I_CmsRepositoryItem {
+
+        /** The number of closed content streams. */
+        int m_closed;
+
+        /** The content. */
+        byte[] m_content;
+
+        /** The number of opened content streams. */
+        int m_opened;
+
+        /**
+         * Creates a new item.<p>
+         *
+         * @param content the content
+         */
+        CmsTestItem(String content) {
+
+            m_content = content.getBytes();
+        }
+
+        /**
+         * @see org.opencms.repository.I_CmsRepositoryItem#getContent()
+         */
+        public byte[] getContent() {
+
+            return m_content;
+        }
+
+        /**
+         * @see org.opencms.repository.I_CmsRepositoryItem#getContentLength()
+         */
+        public long getContentLength() {
+
+            return m_content.length;
+        }
+
+        /**
+         * @see org.opencms.repository.I_CmsRepositoryItem#getContentStream()
+         */
+        public InputStream getContentStream() {
+
+            m_opened++;
+            return new ByteArrayInputStream(m_content) {
+
+                @Override
+                public void close() throws IOException {
+
+                    m_closed++;
+                    super.close();
+                }
+            };
+        }
+
+        /**
+         * @see org.opencms.repository.I_CmsRepositoryItem#getCreationDate()
+         */
+        public long getCreationDate() {
+
+            return 0;
+        }
+
+        /**
+         * @see org.opencms.repository.I_CmsRepositoryItem#getLastModifiedDate()
+         */
+        public long getLastModifiedDate() {
+
+            return 0;
+        }
+
+        /**
+         * @see org.opencms.repository.I_CmsRepositoryItem#getMimeType()
+         */
+        public String getMimeType() {
+
+            return "text/plain";
+        }
+
+        /**
+         * @see org.opencms.repository.I_CmsRepositoryItem#getName()
+         */
+        public String getName() {
+
+            return "/test.txt";
+        }
+
+        /**
+         * @see org.opencms.repository.I_CmsRepositoryItem#isCollection()
+         */
+        public boolean isCollection() {
+
+            return false;
+        }
+    }
+
+    /**
+     * Creates a range.<p>
+     *
+     * @param start the first byte of the range
+     * @param end the last byte of the range
+     * @param length the length of the content
+     *
+     * @return the range
+     */
+    private static CmsWebdavRange createRange(long start, long end, long length) {
+
+        CmsWebdavRange range = new CmsWebdavRange();
+        range.setStart(start);
+        range.setEnd(end);
+        range.setLength(length);
+        return range;
+    }
+
+    /**
+     * Tests that the content stream is closed after the content has been copied.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testCopyClosesStream() throws Exception {
+
+        CmsTestItem item = new CmsTestItem("0123456789");
+        CmsMemoryOutputStream out = new CmsMemoryOutputStream();
+        new CmsWebdavServlet().copy(item, null, out);
+        assertEquals("0123456789", out.m_content.toString());
+        assertEquals(1, item.m_opened);
+        assertEquals(1, item.m_closed);
+
+        out = new CmsMemoryOutputStream();
+        new CmsWebdavServlet().copy(item, out, createRange(2, 4, 10));
+        assertEquals("234", out.m_content.toString());
+        assertEquals(2, item.m_opened);
+        assertEquals(2, item.m_closed);
+    }
+
+    /**
+     * Tests that the content stream is closed if writing to the client fails.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testCopyClosesStreamOnFailure() throws Exception {
+
+        CmsTestItem item = new CmsTestItem("0123456789");
+        try {
+            new CmsWebdavServlet().copy(item, null, new CmsFailingOutputStream());
+            fail("the write error must be passed to the caller");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        assertEquals(1, item.m_opened);
+        assertEquals(1, item.m_closed);
+
+        PrintWriter writer = new PrintWriter(new Writer() {
+
+            @Override
+            public void close() {
+
+                // nothing to close
+            }
+
+            @Override
+            public void flush() {
+
+                // nothing to flush
+            }
+
+            @Override
+            public void write(char[] cbuf, int off, int len) {
+
+                throw new IllegalStateException("connection closed by client");
+            }
+        });
+        try {
+            new CmsWebdavServlet().copy(item, writer, createRange(2, 4, 10));
+            fail("the write error must be passed to the caller");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        assertEquals(2, item.m_opened);
+        assertEquals(2, item.m_closed);
+    }
+
+    /**
+     * Tests that the content streams of all ranges are closed, also if writing to the client fails.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testCopyRangesClosesStreams() throws Exception {
+
+        CmsTestItem item = new CmsTestItem("0123456789");
+        List<CmsWebdavRange> ranges = Arrays.asList(createRange(0, 1, 10), createRange(5, 7, 10));
+        CmsMemoryOutputStream out = new CmsMemoryOutputStream();
+        new CmsWebdavServlet().copy(item, out, ranges.iterator(), "text/plain");
+        String result = out.m_content.toString();
+        assertTrue(result.contains("Content-Range: bytes 0-1/10"));
+        assertTrue(result.contains("Content-Range: bytes 5-7/10"));
+        assertTrue(result.contains("567"));
+        assertEquals(2, item.m_opened);
+        assertEquals(2, item.m_closed);
+
+        try {
+            new CmsWebdavServlet().copy(item, new CmsFailingOutputStream(), ranges.iterator(), "text/plain");
+            fail("the write error must be passed to the caller");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        assertEquals(3, item.m_opened);
+        assertEquals(3, item.m_closed);
+    }
+}
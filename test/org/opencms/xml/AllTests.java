@@ -60,6 +60,7 @@ public final class AllTests {
         //$JUnit-BEGIN$
         suite.addTest(TestCmsXmlEntityResolver.suite());
         suite.addTest(new TestSuite(TestXmlUtils.class));
+        suite.addTest(new TestSuite(TestCmsXmlCompiledSchema.class));
         //$JUnit-END$
         return suite;
     }
@@ -0,0 +1,186 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.xml;
+
+import org.opencms.util.CmsUUID;
+
+import java.io.ByteArrayInputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.xml.validation.Schema;
+
+import org.xml.sax.InputSource;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the cache for compiled XML schemas of the XML entity resolver.<p>
+ */
+public class TestCmsXmlCompiledSchema extends TestCase {
+
+    /**
+     * Entity resolver which counts how often the system ids are read.<p>
+     */
+    static class CmsCountingEntityResolver extends CmsXmlEntityResolver {
+
+        /** The number of reads per system id. */
+        Map<String, Integer> m_reads = new HashMap<String, Integer>();
+
+        /**
+         * Creates a new instance.<p>
+         */
+        CmsCountingEntityResolver() {
+
+            super(null);
+        }
+
+        /**
+         * @see org.opencms.xml.CmsXmlEntityResolver#resolveEntity(java.lang.String, java.lang.String)
+         */
+        @Override
+        public InputSource resolveEntity(String publicId, String systemId) {
+
+            Integer reads = m_reads.get(systemId);
+            m_reads.put(systemId, Integer.valueOf(reads == null ? 1 : reads.intValue() + 1));
+            return super.resolveEntity(publicId, systemId);
+        }
+
+        /**
+         * Returns how often the system id was read.<p>
+         *
+         * @param systemId the system id
+         *
+         * @return how often the system id was read
+         */
+        int getReads(String systemId) {
+
+            Integer reads = m_reads.get(systemId);
+            return reads == null ? 0 : reads.intValue();
+        }
+    }
+
+    /** Schema with a type declared in an included schema. */
+    private static final String SCHEMA_WITH_INCLUDE = "<xsd:schema xmlns:xsd=\"http://www.w3.org/2001/XMLSchema\">"
+        + "<xsd:include schemaLocation=\"%s\"/>"
+        + "<xsd:element name=\"Test\" type=\"TestType\"/>"
+        + "</xsd:schema>";
+
+    /** Schema declaring the type used by the including schema. */
+    private static final String INCLUDED_SCHEMA = "<xsd:schema xmlns:xsd=\"http://www.w3.org/2001/XMLSchema\">"
+        + "<xsd:complexType name=\"TestType\"><xsd:sequence>"
+        + "<xsd:element name=\"Title\" type=\"xsd:string\"/>"
+        + "</xsd:sequence></xsd:complexType>"
+        + "</xsd:schema>";
+
+    /** The resolver used by the test. */
+    private CmsCountingEntityResolver m_resolver;
+
+    /**
+     * Creates a unique system id.<p>
+     *
+     * @param name the name of the schema
+     *
+     * @return the system id
+     */
+    private static String createSystemId(String name) {
+
+        return "opencms://system/modules/org.opencms.test/" + new CmsUUID() + "/" + name + ".xsd";
+    }
+
+    /**
+     * Tests that a compiled schema is cached.<p>
+     */
+    public void testCompiledSchemaIsCached() {
+
+        String systemId = createSystemId("main");
+        String includeId = createSystemId("include");
+        CmsXmlEntityResolver.cacheSystemId(includeId, INCLUDED_SCHEMA.getBytes());
+        CmsXmlEntityResolver.cacheSystemId(systemId, String.format(SCHEMA_WITH_INCLUDE, includeId).getBytes());
+
+        Schema schema = m_resolver.getCompiledSchema(systemId);
+        assertNotNull(schema);
+        assertSame(schema, m_resolver.getCompiledSchema(systemId));
+        assertEquals(1, m_resolver.getReads(systemId));
+        assertEquals(1, m_resolver.getReads(includeId));
+    }
+
+    /**
+     * Tests that a schema which can not be compiled is not compiled again until it changes.<p>
+     */
+    public void testFailureIsCached() {
+
+        String systemId = createSystemId("main");
+        String includeId = createSystemId("include");
+        CmsXmlEntityResolver.cacheSystemId(systemId, String.format(SCHEMA_WITH_INCLUDE, includeId).getBytes());
+
+        // the included schema does not exist yet, so the type can not be resolved
+        assertNull(m_resolver.getCompiledSchema(systemId));
+        assertNull(m_resolver.getCompiledSchema(systemId));
+        assertEquals(1, m_resolver.getReads(systemId));
+
+        // creating the missing include removes the cached failure
+        CmsXmlEntityResolver.cacheSystemId(includeId, INCLUDED_SCHEMA.getBytes());
+        assertNotNull(m_resolver.getCompiledSchema(systemId));
+        assertEquals(2, m_resolver.getReads(systemId));
+    }
+
+    /**
+     * Tests that documents are still validated with the schema reader if the schema can not be compiled.<p>
+     */
+    public void testValidationFallbackForFailedSchema() {
+
+        String systemId = createSystemId("main");
+        String includeId = createSystemId("include");
+        CmsXmlEntityResolver.cacheSystemId(systemId, String.format(SCHEMA_WITH_INCLUDE, includeId).getBytes());
+        String document = "<Test xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" "
+            + "xsi:noNamespaceSchemaLocation=\""
+            + systemId
+            + "\"><Title>Test</Title></Test>";
+        assertNull(m_resolver.getCompiledSchema(systemId));
+        try {
+            CmsXmlUtils.validateXmlStructure(new ByteArrayInputStream(document.getBytes()), systemId, m_resolver);
+            fail("the schema errors must be reported by the schema reader");
+        } catch (CmsXmlException e) {
+            assertTrue(e.getLocalizedMessage().contains("TestType"));
+        }
+        // the schema was read again by the schema reader, but not compiled again
+        assertEquals(2, m_resolver.getReads(systemId));
+        assertNull(m_resolver.getCompiledSchema(systemId));
+        assertEquals(2, m_resolver.getReads(systemId));
+    }
+
+    /**
+     * @see junit.framework.TestCase#setUp()
+     */
+    @Override
+    protected void setUp() {
+
+        m_resolver = new CmsCountingEntityResolver();
+    }
+}
@@ -0,0 +1,402 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.xml.content;
+
+import org.opencms.db.CmsResourceState;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsResource;
+import org.opencms.file.types.CmsResourceTypePlain;
+import org.opencms.i18n.CmsEncoder;
+import org.opencms.main.CmsException;
+import org.opencms.util.CmsFileUtil;
+import org.opencms.util.CmsUUID;
+import org.opencms.xml.CmsXmlContentDefinition;
+import org.opencms.xml.CmsXmlEntityResolver;
+import org.opencms.xml.types.A_CmsXmlValueCdataBase;
+import org.opencms.xml.types.A_CmsXmlValueTextBase;
+import org.opencms.xml.types.I_CmsXmlContentValue;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the compact read model of an XML content.<p>
+ */
+public class TestCmsXmlContentReadModel extends TestCase {
+
+    /**
+     * Read model which counts how often the XML content is unmarshalled.<p>
+     */
+    private static class CmsCountingReadModel extends CmsXmlContentReadModel {
+
+        /** The number of times the XML content was unmarshalled. */
+        int m_unmarshalCount;
+
+        /** The XML content data. */
+        private String m_xml;
+
+        /**
+         * Creates a new counting read model.<p>
+         *
+         * @param structureId the structure id of the XML content resource
+         * @param schemaLocation the schema location of the XML content
+         * @param values the element texts by indexed xpath, for each locale
+         * @param xml the XML content data
+         */
+        CmsCountingReadModel(
+            CmsUUID structureId,
+            String schemaLocation,
+            Map<Locale, Map<String, String>> values,
+            String xml) {
+
+            super(structureId, schemaLocation, values);
+            m_xml = xml;
+        }
+
+        /**
+         * @see org.opencms.xml.content.CmsXmlContentReadModel#readContent(org.opencms.file.CmsObject)
+         */
+        @Override
+        CmsXmlContent readContent(CmsObject cms) throws CmsException {
+
+            m_unmarshalCount++;
+            return CmsXmlContentFactory.unmarshal(m_xml, CmsEncoder.ENCODING_UTF_8, new CmsXmlEntityResolver(null));
+        }
+    }
+
+    /** XML content with several locales, repeated values and a duplicate locale. */
+    private static final String MULTI_LOCALE_CONTENT = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+        + "<Multitests xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" "
+        + "xsi:noNamespaceSchemaLocation=\"http://www.opencms.org/test1.xsd\">\n"
+        + "  <Multitest language=\"en\">\n"
+        + "    <String><![CDATA[First]]></String>\n"
+        + "    <String>  Second &amp; more  </String>\n"
+        + "    <String><![CDATA[Third]]> <![CDATA[part]]></String>\n"
+        + "    <DateTime>-58254180000</DateTime>\n"
+        + "    <Html>\n"
+        + "      <links />\n"
+        + "      <content><![CDATA[<p>This is some Html</p>]]></content>\n"
+        + "    </Html>\n"
+        + "    <Locale>en_EN</Locale>\n"
+        + "  </Multitest>\n"
+        + "  <Multitest language=\"de\">\n"
+        + "    <String><![CDATA[Erster]]></String>\n"
+        + "    <DateTime>1000</DateTime>\n"
+        + "    <DateTime>2000</DateTime>\n"
+        + "  </Multitest>\n"
+        + "  <Multitest language=\"en\">\n"
+        + "    <String><![CDATA[Ignored]]></String>\n"
+        + "  </Multitest>\n"
+        + "</Multitests>\n";
+
+    /** XML content with nested values. */
+    private static final String NESTED_CONTENT = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+        + "<ReadModeltests xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" "
+        + "xsi:noNamespaceSchemaLocation=\"http://www.opencms.org/testreadmodel.xsd\">\n"
+        + "  <ReadModeltest language=\"en\">\n"
+        + "    <Title><![CDATA[Nested]]></Title>\n"
+        + "    <Teaser>\n"
+        + "      <Headline><![CDATA[First teaser]]></Headline>\n"
+        + "      <Link><![CDATA[First link]]></Link>\n"
+        + "    </Teaser>\n"
+        + "    <Teaser>\n"
+        + "      <Headline><![CDATA[Second teaser]]></Headline>\n"
+        + "      <Link><![CDATA[Another link]]></Link>\n"
+        + "      <Link><![CDATA[Second link]]></Link>\n"
+        + "      <Date>1000</Date>\n"
+        + "    </Teaser>\n"
+        + "  </ReadModeltest>\n"
+        + "</ReadModeltests>\n";
+
+    /** The nested test schema. */
+    private static final String NESTED_SCHEMA = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+        + "<xsd:schema xmlns:xsd=\"http://www.w3.org/2001/XMLSchema\" elementFormDefault=\"qualified\">\n"
+        + "  <xsd:include schemaLocation=\"opencms://opencms-xmlcontent.xsd\"/>\n"
+        + "  <xsd:element name=\"ReadModelTeasers\" type=\"OpenCmsReadModelTeasers\"/>\n"
+        + "  <xsd:complexType name=\"OpenCmsReadModelTeasers\">\n"
+        + "    <xsd:sequence>\n"
+        + "      <xsd:element name=\"ReadModelTeaser\" type=\"OpenCmsReadModelTeaser\" "
+        + "minOccurs=\"0\" maxOccurs=\"unbounded\"/>\n"
+        + "    </xsd:sequence>\n"
+        + "  </xsd:complexType>\n"
+        + "  <xsd:complexType name=\"OpenCmsReadModelTeaser\">\n"
+        + "    <xsd:sequence>\n"
+        + "      <xsd:element name=\"Headline\" type=\"OpenCmsString\"/>\n"
+        + "      <xsd:element name=\"Link\" type=\"OpenCmsString\" maxOccurs=\"3\"/>\n"
+        + "      <xsd:element name=\"Date\" type=\"OpenCmsDateTime\" minOccurs=\"0\"/>\n"
+        + "    </xsd:sequence>\n"
+        + "    <xsd:attribute name=\"language\" type=\"OpenCmsLocale\" use=\"optional\"/>\n"
+        + "  </xsd:complexType>\n"
+        + "</xsd:schema>\n";
+
+    /** The outer test schema. */
+    private static final String OUTER_SCHEMA = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+        + "<xsd:schema xmlns:xsd=\"http://www.w3.org/2001/XMLSchema\" elementFormDefault=\"qualified\">\n"
+        + "  <xsd:include schemaLocation=\"opencms://opencms-xmlcontent.xsd\"/>\n"
+        + "  <xsd:include schemaLocation=\"http://www.opencms.org/testreadmodel-nested.xsd\"/>\n"
+        + "  <xsd:element name=\"ReadModeltests\" type=\"OpenCmsReadModeltests\"/>\n"
+        + "  <xsd:complexType name=\"OpenCmsReadModeltests\">\n"
+        + "    <xsd:sequence>\n"
+        + "      <xsd:element name=\"ReadModeltest\" type=\"OpenCmsReadModeltest\" "
+        + "minOccurs=\"0\" maxOccurs=\"unbounded\"/>\n"
+        + "    </xsd:sequence>\n"
+        + "  </xsd:complexType>\n"
+        + "  <xsd:complexType name=\"OpenCmsReadModeltest\">\n"
+        + "    <xsd:sequence>\n"
+        + "      <xsd:element name=\"Title\" type=\"OpenCmsString\"/>\n"
+        + "      <xsd:element name=\"Teaser\" type=\"OpenCmsReadModelTeaser\" maxOccurs=\"5\"/>\n"
+        + "    </xsd:sequence>\n"
+        + "    <xsd:attribute name=\"language\" type=\"OpenCmsLocale\" use=\"required\"/>\n"
+        + "  </xsd:complexType>\n"
+        + "</xsd:schema>\n";
+
+    /** The schema id of the first test schema. */
+    private static final String SCHEMA_SYSTEM_ID_1 = "http://www.opencms.org/test1.xsd";
+
+    /** The schema id of the nested test schema. */
+    private static final String SCHEMA_SYSTEM_ID_NESTED = "http://www.opencms.org/testreadmodel-nested.xsd";
+
+    /** The schema id of the outer test schema. */
+    private static final String SCHEMA_SYSTEM_ID_OUTER = "http://www.opencms.org/testreadmodel.xsd";
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsXmlContentReadModel(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Tests that the cache key of the read model depends on the structure id and the date of the content.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testCacheKey() throws Exception {
+
+        CmsUUID resourceId = new CmsUUID();
+        CmsResource resource = createResource(new CmsUUID(), resourceId, 1000L, 1000L);
+        CmsResource sibling = createResource(new CmsUUID(), resourceId, 1000L, 1000L);
+        String key = CmsXmlContentFactory.getReadModelCacheKey(resource);
+
+        // siblings share the resource id, but the read model keeps the structure id
+        assertFalse(key.equals(CmsXmlContentFactory.getReadModelCacheKey(sibling)));
+        // a new version of the content must not use the old read model
+        CmsResource changedContent = createResource(resource.getStructureId(), resourceId, 2000L, 2000L);
+        assertFalse(key.equals(CmsXmlContentFactory.getReadModelCacheKey(changedContent)));
+        // changing only the attributes or properties does not change the XML
+        CmsResource changedAttributes = createResource(resource.getStructureId(), resourceId, 3000L, 1000L);
+        assertEquals(key, CmsXmlContentFactory.getReadModelCacheKey(changedAttributes));
+    }
+
+    /**
+     * Tests that the read model of the first test content matches the unmarshalled XML content.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testMatchesContent() throws Exception {
+
+        cacheSchema(
+            CmsFileUtil.readFile("org/opencms/xml/content/xmlcontent-definition-1.xsd", CmsEncoder.ENCODING_UTF_8),
+            SCHEMA_SYSTEM_ID_1);
+        String xml = CmsFileUtil.readFile("org/opencms/xml/content/xmlcontent-1.xml", CmsEncoder.ENCODING_UTF_8);
+        assertReadModelMatches(xml);
+    }
+
+    /**
+     * Tests that the read model of a content with several locales matches the unmarshalled XML content.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testMatchesContentWithLocales() throws Exception {
+
+        cacheSchema(
+            CmsFileUtil.readFile("org/opencms/xml/content/xmlcontent-definition-1.xsd", CmsEncoder.ENCODING_UTF_8),
+            SCHEMA_SYSTEM_ID_1);
+        CmsXmlContentReadModel readModel = assertReadModelMatches(MULTI_LOCALE_CONTENT);
+
+        assertEquals(2, readModel.getLocales().size());
+        assertEquals(3, readModel.getIndexCount("String", Locale.ENGLISH));
+        assertEquals("Second & more", readModel.getText("String[2]", Locale.ENGLISH).trim());
+        assertEquals(2, readModel.getIndexCount("DateTime[1]", Locale.GERMAN));
+        assertEquals("2000", readModel.getText("DateTime[2]", Locale.GERMAN));
+        assertFalse(readModel.hasValue("Html", Locale.GERMAN));
+        assertFalse(readModel.hasLocale(Locale.FRENCH));
+    }
+
+    /**
+     * Tests that the read model of a content with nested values matches the unmarshalled XML content.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testMatchesNestedContent() throws Exception {
+
+        cacheSchema(NESTED_SCHEMA, SCHEMA_SYSTEM_ID_NESTED);
+        cacheSchema(OUTER_SCHEMA, SCHEMA_SYSTEM_ID_OUTER);
+        CmsXmlContentReadModel readModel = assertReadModelMatches(NESTED_CONTENT);
+
+        assertEquals(2, readModel.getIndexCount("Teaser", Locale.ENGLISH));
+        assertEquals(2, readModel.getIndexCount("Teaser[2]/Link", Locale.ENGLISH));
+        assertEquals("Second link", readModel.getText("Teaser[2]/Link[2]", Locale.ENGLISH));
+        assertFalse(readModel.hasValue("Teaser[1]/Link[2]", Locale.ENGLISH));
+    }
+
+    /**
+     * Tests that reading a value which is not text based unmarshals the XML content only once.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testNonTextValueUnmarshalledOnce() throws Exception {
+
+        cacheSchema(
+            CmsFileUtil.readFile("org/opencms/xml/content/xmlcontent-definition-1.xsd", CmsEncoder.ENCODING_UTF_8),
+            SCHEMA_SYSTEM_ID_1);
+        CmsXmlContent content = CmsXmlContentFactory.unmarshal(
+            MULTI_LOCALE_CONTENT,
+            CmsEncoder.ENCODING_UTF_8,
+            new CmsXmlEntityResolver(null));
+        Map<String, String> values = new HashMap<String, String>();
+        values.put("String[1]", "First");
+        values.put("Html[1]", "");
+        CmsCountingReadModel readModel = new CmsCountingReadModel(
+            new CmsUUID(),
+            SCHEMA_SYSTEM_ID_1,
+            Collections.singletonMap(Locale.ENGLISH, values),
+            MULTI_LOCALE_CONTENT);
+
+        assertFalse(readModel.isTextBased(null, "Html"));
+        assertTrue(readModel.isTextBased(null, "String"));
+        assertEquals("First", readModel.getStringValue(null, "String", Locale.ENGLISH));
+        assertEquals(0, readModel.m_unmarshalCount);
+
+        String html = content.getStringValue(null, "Html", Locale.ENGLISH);
+        assertEquals(html, readModel.getStringValue(null, "Html", Locale.ENGLISH));
+        assertEquals(html, readModel.getStringValue(null, "Html", Locale.ENGLISH));
+        assertEquals(1, readModel.m_unmarshalCount);
+    }
+
+    /**
+     * Checks that the read model of the given XML matches the fully unmarshalled XML content.<p>
+     *
+     * @param xml the XML content
+     *
+     * @return the read model
+     *
+     * @throws Exception in case the test fails
+     */
+    private CmsXmlContentReadModel assertReadModelMatches(String xml) throws Exception {
+
+        CmsXmlEntityResolver resolver = new CmsXmlEntityResolver(null);
+        CmsXmlContent content = CmsXmlContentFactory.unmarshal(xml, CmsEncoder.ENCODING_UTF_8, resolver);
+        CmsResource resource = createResource(new CmsUUID(), new CmsUUID(), 1000L, 1000L);
+        CmsXmlContentReadModel readModel = CmsXmlContentReadModel.unmarshal(
+            xml.getBytes(CmsEncoder.ENCODING_UTF_8),
+            resource);
+
+        assertEquals(resource.getStructureId(), readModel.getStructureId());
+        assertEquals(content.getLocales().size(), readModel.getLocales().size());
+        assertTrue(readModel.getLocales().containsAll(content.getLocales()));
+        for (Locale locale : content.getLocales()) {
+            assertTrue(readModel.hasLocale(locale));
+            assertFalse(readModel.hasValue("DoesNotExist", locale));
+            assertEquals(content.hasValue("DoesNotExist", locale), readModel.hasValue("DoesNotExist", locale));
+            for (I_CmsXmlContentValue value : content.getValues(locale)) {
+                String path = value.getPath();
+                assertTrue(path, readModel.hasValue(path, locale));
+                assertEquals(path, content.getIndexCount(path, locale), readModel.getIndexCount(path, locale));
+                if ((value instanceof A_CmsXmlValueTextBase) || (value instanceof A_CmsXmlValueCdataBase)) {
+                    assertEquals(path, value.getStringValue(null), readModel.getText(path, locale));
+                    assertEquals(path, value.getStringValue(null), readModel.getStringValue(null, path, locale));
+                }
+            }
+        }
+        return readModel;
+    }
+
+    /**
+     * Stores a schema in the entity resolver cache.<p>
+     *
+     * @param schema the schema
+     * @param systemId the system id of the schema
+     *
+     * @throws Exception in case the test fails
+     */
+    private void cacheSchema(String schema, String systemId) throws Exception {
+
+        CmsXmlContentDefinition definition = CmsXmlContentDefinition.unmarshal(
+            schema,
+            systemId,
+            new CmsXmlEntityResolver(null));
+        CmsXmlEntityResolver.cacheSystemId(
+            systemId,
+            definition.getSchema().asXML().getBytes(CmsEncoder.ENCODING_UTF_8));
+    }
+
+    /**
+     * Creates a resource for the tests.<p>
+     *
+     * @param structureId the structure id
+     * @param resourceId the resource id
+     * @param dateLastModified the date of the last modification
+     * @param dateContent the date of the content
+     *
+     * @return the resource
+     */
+    private CmsResource createResource(
+        CmsUUID structureId,
+        CmsUUID resourceId,
+        long dateLastModified,
+        long dateContent) {
+
+        return new CmsResource(
+            structureId,
+            resourceId,
+            "/sites/default/test.xml",
+            CmsResourceTypePlain.getStaticTypeId(),
+            false,
+            0,
+            CmsUUID.getNullUUID(),
+            CmsResourceState.STATE_UNCHANGED,
+            0L,
+            CmsUUID.getNullUUID(),
+            dateLastModified,
+            CmsUUID.getNullUUID(),
+            CmsResource.DATE_RELEASED_DEFAULT,
+            CmsResource.DATE_EXPIRED_DEFAULT,
+            1,
+            0,
+            dateContent,
+            0);
+    }
+}
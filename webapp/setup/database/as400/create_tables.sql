@@ -713,4 +713,6 @@ CREATE INDEX CMS_USERPUBLIST_IDX_02 ON CMS_USER_PUBLISH_LIST (STRUCTURE_ID);
 
 CREATE TABLE CMS_REWRITES (ID VARCHAR(36) NOT NULL, ALIAS_MODE INTEGER NOT NULL, PATTERN VARCHAR(255) NOT NULL, REPLACEMENT VARCHAR(255) NOT NULL, SITE_ROOT VARCHAR(64) NOT NULL, PRIMARY KEY (ID));
 CREATE INDEX CMS_REWRITES_IDX_01 ON CMS_REWRITES (SITE_ROOT);
-    
+
+CREATE TABLE CMS_REPLICATED_EVENTS (EVENT_SEQ BIGINT NOT NULL, EVENT_ID VARCHAR(36) NOT NULL, NODE_ID VARCHAR(64) NOT NULL, EVENT_TYPE INTEGER NOT NULL, EVENT_DATE BIGINT NOT NULL, EVENT_DATA CLOB(64K), PRIMARY KEY (EVENT_SEQ));
+CREATE INDEX CMS_REPLICATED_EVENTS_IDX_01 ON CMS_REPLICATED_EVENTS (EVENT_DATE);
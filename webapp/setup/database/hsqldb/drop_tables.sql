@@ -46,3 +46,4 @@ DROP TABLE CMS_COUNTERS ;
 DROP TABLE CMS_ALIASES ; 
 DROP TABLE CMS_REWRITES;
 DROP TABLE CMS_USER_PUBLISH_LIST;
+DROP TABLE CMS_REPLICATED_EVENTS;
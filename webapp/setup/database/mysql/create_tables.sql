@@ -524,4 +524,18 @@ CREATE TABLE CMS_REWRITES
   )
 ENGINE = MYISAM CHARACTER SET UTF8;
 
-CREATE INDEX CMS_REWRITES_IDX_01 ON CMS_REWRITES (SITE_ROOT); 
\ No newline at end of file
+CREATE INDEX CMS_REWRITES_IDX_01 ON CMS_REWRITES (SITE_ROOT);
+
+CREATE TABLE CMS_REPLICATED_EVENTS
+  (
+     EVENT_SEQ   BIGINT NOT NULL,
+     EVENT_ID    VARCHAR(36) NOT NULL,
+     NODE_ID     VARCHAR(64) NOT NULL,
+     EVENT_TYPE  INTEGER NOT NULL,
+     EVENT_DATE  BIGINT NOT NULL,
+     EVENT_DATA  TEXT,
+     PRIMARY KEY (EVENT_SEQ)
+  )
+ENGINE = MYISAM CHARACTER SET UTF8;
+
+CREATE INDEX CMS_REPLICATED_EVENTS_IDX_01 ON CMS_REPLICATED_EVENTS (EVENT_DATE);
@@ -153,4 +153,6 @@ DROP TABLE CMS_ALIASES ;
 
 
 
-DROP TABLE CMS_REWRITES;
\ No newline at end of file
+DROP TABLE CMS_REWRITES;
+DROP INDEX CMS_REPLICATED_EVENTS_IDX_01;
+DROP TABLE CMS_REPLICATED_EVENTS;